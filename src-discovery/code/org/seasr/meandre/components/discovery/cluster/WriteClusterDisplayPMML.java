@@ -41,6 +41,7 @@ package org.seasr.meandre.components.discovery.cluster;
 * WITH THE SOFTWARE.
 */
 
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -66,6 +67,9 @@ import org.seasr.meandre.support.components.discovery.cluster.TableCluster;
 import org.seasr.meandre.support.components.discovery.cluster.hac.HACWork;
 
 /**
+* Builds the PMML as a document. For models of large tables, StreamClusterDisplayPMML
+* writes the same PMML to a file without holding it in memory.
+*
 * @author Erik Johnson
 * SEE http://www.dmg.org/v2-0/ClusteringModel.html#cluster for information on clustering PMML
 */
@@ -235,11 +239,11 @@ public class WriteClusterDisplayPMML  implements ExecutableComponent, ClusterPMM
 		   dist.addAttribute ("dist", new Double (clust.getChildDistance()).toString());
 		   Element clusterTable = cluster.addElement("table");
 
-		   int [] indexes = clust.getMemberIndices();
+		   IntBuffer indexes = clust.getMembers();
 
 		   Table clusttab =  clust.getTable();
 		   int numCols =  clusttab.getNumColumns();
-	       int numRows  = indexes.length;
+	       int numRows  = indexes.limit();
 
 	       if (numRows>50)
 	       {
@@ -253,7 +257,7 @@ public class WriteClusterDisplayPMML  implements ExecutableComponent, ClusterPMM
 			   String rowString = "";
 			   for (int i=0; i<numCols; i++)
 			   {
-				   rowString += clusttab.getObject(indexes[j],i).toString()+" ";
+				   rowString += clusttab.getObject(indexes.get(j),i).toString()+" ";
 			   }
 			   clusterRow.setText(rowString);
 		   }
@@ -149,6 +149,24 @@ public class HACModelBuilder extends AbstractExecutableComponent {
      */
     protected boolean _verbose = false;
 
+    @ComponentProperty(defaultValue="false",
+                       description="Keep the distances between clusters as " +
+                                   "floats instead of doubles? Halves the " +
+                                   "memory needed for large tables.",
+                       name="single_precision")
+    public final static String PROP_SINGLE_PRECISION = "single_precision";
+    /** If true the clustering keeps the distances as floats. */
+    protected boolean _singlePrecision = false;
+
+    @ComponentProperty(defaultValue="0",
+                       description="The number of threads used to compute " +
+                                   "the distances. A value of 0 uses all " +
+                                   "available processors.",
+                       name="num_threads")
+    public final static String PROP_NUM_THREADS = "num_threads";
+    /** The number of threads used to compute the distances. */
+    protected int _numThreads = 0;
+
     //==============
     // Constructors
     //==============
@@ -256,6 +274,34 @@ public class HACModelBuilder extends AbstractExecutableComponent {
      */
     public void setVerbose(boolean b) { _verbose = b; }
 
+    /**
+     * Return the value of the single precision flag.
+     *
+     * @return true if the clustering keeps the distances as floats.
+     */
+    public boolean getSinglePrecision() { return _singlePrecision; }
+
+    /**
+     * Sets the single precision flag.
+     *
+     * @param b If true the clustering keeps the distances as floats.
+     */
+    public void setSinglePrecision(boolean b) { _singlePrecision = b; }
+
+    /**
+     * Returns the number of threads used to compute the distances.
+     *
+     * @return The number of threads, 0 for all available processors.
+     */
+    public int getNumThreads() { return _numThreads; }
+
+    /**
+     * Sets the number of threads used to compute the distances.
+     *
+     * @param n The number of threads; 0 uses all available processors.
+     */
+    public void setNumThreads(int n) { _numThreads = n; }
+
     /**
      * Returns the integer ID of the clustering method of this module. Clustering
      * method IDs are defined in <code>
@@ -335,6 +381,8 @@ public class HACModelBuilder extends AbstractExecutableComponent {
 	public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
     	setCheckMissingValues(Boolean.parseBoolean(getPropertyOrDieTrying(PROP_MISSING_VALUES, ccp)));
     	setVerbose(Boolean.parseBoolean(getPropertyOrDieTrying(PROP_VERBOSE, ccp)));
+    	setSinglePrecision(Boolean.parseBoolean(getPropertyOrDieTrying(PROP_SINGLE_PRECISION, ccp)));
+    	setNumThreads(Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_THREADS, ccp)));
     	setClusterMethod(Integer.parseInt(getPropertyOrDieTrying(PROP_CLUSTER_METHOD, ccp)));
     	setDistanceMetric(Integer.parseInt(getPropertyOrDieTrying(PROP_DISTANCE_METRIC, ccp)));
     	setNumberOfClusters(Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_CLUSTERS, ccp)));
@@ -355,6 +403,8 @@ public class HACModelBuilder extends AbstractExecutableComponent {
     				this.getDistanceThreshold(),
     				getVerbose(), this.getCheckMissingValues(),
     				"HACModelBuilder");
+    	hac.setSinglePrecision(getSinglePrecision());
+    	hac.setNumThreads(getNumThreads());
 
     	//            // Push Output
     	context.pushDataComponentToOutput(OUT_CLUSTER_MODEL, hac.buildModel(tab));
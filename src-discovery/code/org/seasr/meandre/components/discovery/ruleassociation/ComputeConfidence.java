@@ -68,6 +68,9 @@ import org.seasr.datatypes.datamining.table.basic.TableImpl;
 import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
 import org.seasr.meandre.support.components.discovery.ruleassociation.FreqItemSet;
 import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetInterface;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetSummaryInterface;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetSupportIndex;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetTool;
 import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 
 /**
@@ -96,9 +99,11 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
  * <p>Limitations: The <i>Apriori</i> and <i>Compute Confidence</i> modules
  * currently build rules with a single item in the consequent.</p>
  *
- * <p>Scalability: This module searches all the Items Sets to compute the
- * confidence for each Frequent Itemset. The module allocated memory for the
- * resulting Rule Table.</p>
+ * <p>Scalability: This module indexes the supports of the Frequent Itemsets
+ * and looks up the support of each rule antecedent in that index, so the time
+ * taken is roughly linear in the number of candidate rules. The Item Sets are
+ * only queried for antecedents that are missing from the Frequent Itemsets.
+ * The module allocated memory for the resulting Rule Table.</p>
  *
  * @author  $Author: mcgrath $
  * @author Boris Capitanu
@@ -137,7 +142,9 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 	+
 
 	"</p><p>Scalability: "
-	+ "This module searches all the Items Sets to compute the confidence for each Frequent Itemset. "
+	+ "This module indexes the supports of the Frequent Itemsets and looks up the support of each rule "
+	+ "antecedent in that index, so the time taken is roughly linear in the number of candidate rules. "
+	+ "The Item Sets are only queried for antecedents that are missing from the Frequent Itemsets. "
 	+ "The module allocated memory for the resulting Rule Table. </p>",
 
 	name = "Compute Confidence", tags = "rule association,confidence,discovery",
@@ -146,7 +153,8 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 public class ComputeConfidence extends AbstractExecutableComponent implements java.io.Serializable {
 
 	@ComponentInput(description = "An Item Sets object containing the items of interest in the original data. "
-		+ "This object is typically produced by a <i>Table To Item Sets</i> module.", name = "item_sets")
+		+ "This object is typically produced by a <i>Table To Item Sets</i> module, or holds the items and "
+		+ "counts of an <i>Out Of Core FP Growth</i> module.", name = "item_sets")
 		final static String IN_ITEM_SETS = "item_sets";
 
 	@ComponentInput(description = "The frequent itemsets found by an <i>Apriori</i> module.  These are the "
@@ -258,51 +266,22 @@ public class ComputeConfidence extends AbstractExecutableComponent implements ja
 
 		// pull the inputs.
 		// ItemSets iss = (ItemSets) context.getDataComponentFromInput(DATA_INPUT_ITEM_SETS);
-		ItemSetInterface iss =
-			(ItemSetInterface) context.getDataComponentFromInput(IN_ITEM_SETS);
+		ItemSetSummaryInterface iss =
+			(ItemSetSummaryInterface) context.getDataComponentFromInput(IN_ITEM_SETS);
 
 		int[][] fis = (int[][]) context.getDataComponentFromInput(IN_FREQ_ITEM_SETS);
 
 		String[] items = iss.getItemsOrderedByFrequency();
-		HashMap unique = iss.getUnique();
+		HashMap<String, int[]> unique = iss.getUnique();
 
 		// Init the counters.
 		int numExamples = iss.getNumExamples();
 		int numFis = fis.length;
 		int numItems = items.length;
-		int[] targetIndex = null;
 
-		// So here we have a list of fields that we are going to
-		// target, these are the outputs.
-		String[] targets = iss.getTargetNames();
-		Iterator keys = unique.keySet().iterator();
-		// Iterator indxs = names.values().iterator();
-		ArrayList list = new ArrayList();
-
-		// for each of the attributes, see if the inputs include the attribute.
-		while (keys.hasNext()) {
-			String name = (String) keys.next();
-			// int[] indx = (int[]) indxs.next();
-			int[] indx = (int[]) unique.get(name);
-
-			for (int i = 0; i < targets.length; i++) {
-
-				if (name.startsWith(targets[i])) {
-					list.add(indx);
-				}
-			}
-		}
-
-		// Put the indexes into the list.
-		int size = list.size();
-
-		if (size != 0) {
-			targetIndex = new int[size];
-
-			for (int i = 0; i < size; i++) {
-				targetIndex[i] = ((int[]) list.get(i))[1];
-			}
-		}
+		// So here we have the items of the fields that we are going to
+		// target, these are the outputs; null if any item may be a consequent.
+		boolean[] targetItems = ItemSetTool.getTargetItems(iss);
 
 		// get the bit map indicating what items were bought for each example.
 		// boolean[][] itemFlags = iss.getItemFlags();
@@ -313,6 +292,11 @@ public class ComputeConfidence extends AbstractExecutableComponent implements ja
 		console.fine("ComputeConfidence-> number of frequent item sets: " + numFis);
 		console.fine("ComputeConfidence-> number of examples: " + numExamples);
 
+		// index the supports of the frequent itemsets and of the single items
+		ItemSetSupportIndex supportIndex = new ItemSetSupportIndex(fis);
+		supportIndex.putItems(unique);
+		supportIndex.put(new int[0], 0, numExamples);
+
 		///////////////////////////////////////
 		//      Compute the confidence for each Rule.
 		for (int i = 0; i < numFis; i++) {
@@ -341,54 +325,22 @@ public class ComputeConfidence extends AbstractExecutableComponent implements ja
 				int mark = newRule[newRule.length - 3] = fis[i][j];
 				newRule[newRule.length - 2] = fis[i][ruleLen]; // the support.
 
-				if (targetIndex != null) {
-					int tgts;
-
-					for (tgts = 0; tgts < targetIndex.length; tgts++) {
-
-						if (newRule[newRule.length - 3] == targetIndex[tgts]) {
-							break;
-						}
-					}
-
-					if (tgts == targetIndex.length) {
-						continue;
-					}
+				if (targetItems != null && !targetItems[mark]) {
+					continue;
 				}
 
 				// the last entry in this array is the confidence that
 				// given the first n-1 attributes the last attribute will
-				// occur. To discover this, search for each example that
-				// has the first n-1 elements, and check to see if it has
-				// the nth.
-				int total = 0;
-				int hits = 0;
+				// occur. The support of the whole set is known from the
+				// frequent itemset, and by downward closure the support of
+				// the antecedent is in the index as well.
+				int hits = fis[i][ruleLen];
 				int ruleLenLessOne = ruleLen - 1;
+				int total = supportIndex.getSupport(newRule, ruleLenLessOne);
 
-				for (int x = 0; x < numExamples; x++) {
-
-					// First determine if the antecedents exist in the set.
-					int y = 0;
-					//boolean[] itf = itemFlags[x];
-					int rowIdx = x;
-
-					for (; y < ruleLenLessOne; y++) {
-						int colIdx = newRule[y];
-						//if (itf[newRule[y]] == false) {
-						if (iss.getItemFlag(rowIdx,colIdx) == false) {
-							break;
-						}
-					}
-
-					// Did the antecedent exist in this set?
-					if (y == ruleLenLessOne) {
-						total++;
-						int colIdx = mark;
-						// if (itf[mark] == true) {
-						if (iss.getItemFlag(rowIdx,colIdx) == true) {
-							hits++;
-						}
-					}
+				if (total == ItemSetSupportIndex.UNKNOWN) {
+					total = getSupport(iss, newRule, ruleLenLessOne);
+					supportIndex.put(newRule, ruleLenLessOne, total);
 				}
 
 				// Here we will have the confidence.  Is it more than
@@ -562,8 +514,16 @@ public class ComputeConfidence extends AbstractExecutableComponent implements ja
 			fris.items = itemset;
 			fris.numberOfItems = itemset.size();
 
-			/** !!!!!!!!!!!!!!!!!!!!!! **/
-			fris.support = 0;
+			// the antecedents and consequents are subsets of frequent item
+			// sets, so their supports are in the index; the rule table
+			// needs them for the lift.
+			int[] members = itemset.toArray();
+			int count = supportIndex.getSupport(members, members.length);
+			if (count == ItemSetSupportIndex.UNKNOWN) {
+				count = getSupport(iss, members, members.length);
+				supportIndex.put(members, members.length, count);
+			}
+			fris.support = (double) count / numExamples;
 			freqSets[idx] = fris;
 		}
 
@@ -658,4 +618,24 @@ public class ComputeConfidence extends AbstractExecutableComponent implements ja
 	@Override
 	public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
 	}
+
+	/**
+	 * Counts the examples that contain the first <code>numItems</code> items.
+	 * Only item sets that keep their examples can count them; the supports of
+	 * the subsets of a complete collection of frequent itemsets are all known.
+	 *
+	 * @throws ComponentExecutionException if the item sets do not keep their
+	 *                                     examples
+	 */
+	static private int getSupport(ItemSetSummaryInterface iss, int[] items, int numItems)
+	throws ComponentExecutionException {
+
+		if (!(iss instanceof ItemSetInterface)) {
+			throw new ComponentExecutionException(
+					"The support of a subset of a frequent itemset is not known, and the "
+					+ "item sets do not keep the examples to count it.");
+		}
+
+		return ((ItemSetInterface) iss).getSupport(items, numItems);
+	}
 }
@@ -0,0 +1,123 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.components.discovery.ruleassociation;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import org.meandre.annotations.Component;
+import org.meandre.annotations.ComponentInput;
+import org.meandre.annotations.ComponentOutput;
+import org.meandre.annotations.ComponentProperty;
+import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RulePMMLWriter;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
+
+
+/**
+ * Writes the same PMML as <code>WriteRuleAssocPMML</code>, but streams it
+ * to a file rule by rule instead of building a document, so millions of
+ * rules can be exported in constant memory.
+ *
+ * @author Boris Capitanu
+ */
+
+@Component(creator="Boris Capitanu",
+           description="Write a RuleAssociationModel out to a file in PMML(Predictive Model Markup Language) format " +
+           "complying with the PMML 3.0 DTD. The PMML is written as it is produced, without building a " +
+           "document in memory, which makes this component suited to large rule tables.",
+           name="Stream Rule Assoc PMML",
+           tags="frequent pattern mining, rule association",
+           baseURL="meandre://seasr.org/components/data-mining/"
+)
+public class StreamRuleAssocPMML extends AbstractExecutableComponent {
+    @ComponentInput(description="Read a representaiton of association rules." +
+            "<br>TYPE: org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable",
+                   name= "ruleTable")
+    final static String IN_TABLE = "ruleTable";
+
+    @ComponentOutput(description="The name of the PMML file, once it is written." +
+            "<br>TYPE: java.lang.String",
+                     name="file_name")
+    public final static String OUT_FILE_NAME = "file_name";
+
+    @ComponentProperty(description="The file to write the PMML to. It is overwritten if it exists.",
+                       name="pmml_file",
+                       defaultValue="rules.pmml")
+    final static String PROP_PMML_FILE = "pmml_file";
+
+    private File _pmmlFile;
+
+    @Override
+	public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+        _pmmlFile = new File(getPropertyOrDieTrying(PROP_PMML_FILE, ccp));
+    }
+
+    @Override
+	public void disposeCallBack(ComponentContextProperties ccp) throws Exception {}
+
+    @Override
+	public void executeCallBack(ComponentContext cc) throws Exception {
+        RuleTable rt = (RuleTable)cc.getDataComponentFromInput(IN_TABLE);
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(_pmmlFile), 1 << 16);
+        boolean written = false;
+        try {
+            RulePMMLWriter.write(rt, out);
+            written = true;
+        }
+        finally {
+            out.close();
+            // do not leave a truncated file behind
+            if (!written)
+                _pmmlFile.delete();
+        }
+
+        console.info("Wrote " + rt.getNumRules() + " rules to " + _pmmlFile);
+        cc.pushDataComponentToOutput(OUT_FILE_NAME, _pmmlFile.getPath());
+    }
+}
@@ -45,6 +45,7 @@ package org.seasr.meandre.components.discovery.ruleassociation;
 import org.meandre.annotations.Component;
 import org.meandre.annotations.ComponentInput;
 import org.meandre.annotations.ComponentOutput;
+import org.meandre.annotations.ComponentProperty;
 import org.meandre.core.ComponentContext;
 import org.meandre.core.ComponentContextProperties;
 import org.seasr.datatypes.datamining.table.Table;
@@ -111,7 +112,8 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSets;
 
         "</p><p>Scalability: " +
         "A representation of each row of the table is stored in memory. The representation is usually "+
-        "smaller than the original data.    </p>",
+        "smaller than the original data. The table is read once; the columns are encoded in parallel "+
+        "using the number of threads given by the <i>num_threads</i> property.    </p>",
 
         name = "Table To Item Sets",
         tags = "rule association, converter, itemsets, table, discovery",
@@ -126,14 +128,23 @@ public class TableToItemSets extends AbstractExecutableComponent {
             "a representation of the items that occur together in the table", name = "item_sets")
     final static String OUT_ITEM_SETS = "item_sets";
 
+    @ComponentProperty(description = "The number of threads used to encode the columns of the table. " +
+            "A value of 0 uses all available processors.", name = "num_threads",
+            defaultValue = "0")
+    final static String PROP_NUM_THREADS = "num_threads";
+
+
+    /** the number of threads used to encode the table; 0 means all available processors. */
+    private int _numThreads;
 
     @Override
 	public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+        _numThreads = Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_THREADS, ccp));
 	}
 
 	@Override
 	public void executeCallBack(ComponentContext cc) throws Exception {
-	    ItemSets iss = new ItemSets((Table) cc.getDataComponentFromInput(IN_TABLE));
+	    ItemSets iss = new ItemSets((Table) cc.getDataComponentFromInput(IN_TABLE), _numThreads);
 	    cc.pushDataComponentToOutput(OUT_ITEM_SETS, iss);
 	}
 
@@ -58,6 +58,9 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 
 
 /**
+ * Builds the PMML as a document. For large rule tables, <code>StreamRuleAssocPMML</code>
+ * writes the same PMML to a file without holding it in memory.
+ *
  * @author Lily Dong
  */
 
@@ -155,7 +158,7 @@ public class WriteRuleAssocPMML extends AbstractExecutableComponent implements R
 
             Element set = assocModel.addElement(ITEMSET);
             set.addAttribute(ID, Integer.toString(i));
-            set.addAttribute(SUPPORT, Integer.toString((int) fis.support));
+            set.addAttribute(SUPPORT, Double.toString(fis.support));
 
             int[] vals = fis.items.toArray();
             for (int j = 0; j < vals.length; j++) {
@@ -179,17 +182,6 @@ public class WriteRuleAssocPMML extends AbstractExecutableComponent implements R
         }
 
 
-        /* try {
-            XMLWriter writer = new XMLWriter(new FileWriter("/tmp/tmp.out"),
-                                             OutputFormat.createPrettyPrint());
-            writer.write(document);
-            writer.flush();
-            writer.close();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-        }*/
-
         return document;
     }
 }
@@ -42,28 +42,30 @@
 
 package org.seasr.meandre.components.discovery.ruleassociation.fpgrowth;
 
-import gnu.trove.iterator.TIntIterator;
 import gnu.trove.map.hash.TIntIntHashMap;
 
 import java.beans.PropertyVetoException;
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
+import java.util.Arrays;
 
 import org.meandre.annotations.Component;
 import org.meandre.annotations.ComponentInput;
 import org.meandre.annotations.ComponentOutput;
 import org.meandre.annotations.ComponentProperty;
 import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextException;
 import org.meandre.core.ComponentContextProperties;
 import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.EclatMiner;
 import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetInterface;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPattern;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPProb;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPSparse;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPTreeNode;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FeatureTableElement;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetTool;
+import org.seasr.meandre.support.components.discovery.ruleassociation.SamplingItemSetMiner;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.DiskPatternSink;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPArrayTree;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPGrowthMiner;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPatternSink;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.IntArrayPatternSink;
 
 
 /**
@@ -89,13 +91,41 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.F
  * this property in conjunction with the <i>Minimum Support %</i> property helps
  * keep the component runtime reasonable.</p>
  *
+ * <p>The <i>Engine</i> property selects how the itemsets are mined: with an
+ * FP-tree (<i>fpgrowth</i>), or vertically by intersecting the lists of the
+ * examples that contain each item (<i>eclat</i>), or their differences
+ * (<i>declat</i>). The vertical engines avoid building the FP-tree and suit
+ * dense data sets with short transactions, such as one-hot tables; all engines
+ * produce the same itemsets.</p>
+ *
+ * <p>Item constraints are applied while mining. When <i>Target Items Only</i>
+ * is set, only the itemsets that contain an item of a target attribute of the
+ * Item Sets are mined, since the other itemsets cannot produce a rule with a
+ * target in the consequent. The items listed in <i>Excluded Items</i> (item or
+ * attribute names) never appear in an itemset.</p>
+ *
+ * <p>When <i>Sample Size</i> is greater than 0 the itemsets are mined from a
+ * random sample of that many examples at a lowered support, and the candidates
+ * are then counted once over all the examples (Toivonen's algorithm). Every
+ * reported itemset is frequent and has its exact support; the <i>Sampling
+ * Report</i> output states the support margin used, the probability of
+ * missing a frequent itemset, and whether the counting pass proved that none
+ * was missed.</p>
+ *
+ * <p>When <i>Patterns To Disk</i> is set the itemsets are written to a temporary
+ * file as they are found, instead of being collected in memory while the mining
+ * threads run, and are read back once mining is done.</p>
+ *
  * <p>In a typical flow the <i>Frequent Item Sets</i> output port from this
  * component is connected to a <i>Compute Confidence</i> component which forms
  * association rules that satisfy a minimum confidence value.</p>
  *
  * <p>References: For more information on the FPGrowth frequent pattern mining
  * algorithm, see &quot;Mining Frequent Patterns without Candidate
- * Generation&quot;Jiawei Han, Jian Pei, and Yiwen Yin, 2000.</p>
+ * Generation&quot;Jiawei Han, Jian Pei, and Yiwen Yin, 2000. For the vertical
+ * engines see &quot;Fast Vertical Mining Using Diffsets&quot;, Mohammed J. Zaki
+ * and Karam Gouda, 2003. For sampling see &quot;Sampling Large Databases for
+ * Association Rules&quot;, Hannu Toivonen, 1996.</p>
  *
  * <p>Limitations: The <i>FPGrowth</i> and <i>Compute Confidence</i> components
  * currently build rules with a single item in the consequent.</p>
@@ -119,8 +149,8 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.F
  * <p>Scalability: This component creates an array of integers to hold the indices
  * of the items in each frequent itemset. The component may be computationally
  * intensive, and scales with the number of Item Sets entries to search. The
- * user can limit the size of the frequent itemsets although this will have
- * little effect on performance for this algorithm. Choosing/Binning components
+ * user can limit the size of the frequent itemsets; the limit is applied while
+ * mining, so it also bounds the time and memory used. Choosing/Binning components
  * can be included in the itinerary prior to this components to reduce the number
  * of Item Sets entries.</p>
  *
@@ -153,6 +183,30 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.F
         "can be computationally expensive, so setting this property in conjunction with the <i>Minimum Support %</i> "+
         "property helps keep the component runtime reasonable. "+
 
+        "</p><p>"+
+        "The <i>Engine</i> property selects how the itemsets are mined: with an FP-tree (<i>fpgrowth</i>), "+
+        "or vertically by intersecting the lists of the examples that contain each item (<i>eclat</i>), "+
+        "or their differences (<i>declat</i>). The vertical engines avoid building the FP-tree and suit dense data sets "+
+        "with short transactions, such as one-hot tables; all engines produce the same itemsets. "+
+
+        "</p><p>"+
+        "Item constraints are applied while mining. When <i>Target Items Only</i> is set, only the itemsets "+
+        "that contain an item of a target attribute of the Item Sets are mined, since the other itemsets "+
+        "cannot produce a rule with a target in the consequent. The items listed in <i>Excluded Items</i> "+
+        "(item or attribute names) never appear in an itemset. "+
+
+        "</p><p>"+
+        "When <i>Sample Size</i> is greater than 0 the itemsets are mined from a random sample of that many "+
+        "examples at a lowered support, and the candidates are then counted once over all the examples "+
+        "(Toivonen's algorithm). Every reported itemset is frequent and has its exact support; the "+
+        "<i>Sampling Report</i> output states the support margin used, the probability of missing a frequent "+
+        "itemset, and whether the counting pass proved that none was missed. "+
+
+        "</p><p>"+
+        "When <i>Patterns To Disk</i> is set the itemsets are written to a temporary file as they are found, "+
+        "instead of being collected in memory while the mining threads run, and are read back once mining "+
+        "is done. "+
+
         "</p><p>"+
         "In a typical flow the <i>Frequent Item Sets</i> output port from this component is connected to "+
         "a <i>Compute Confidence</i> component which forms "+
@@ -161,6 +215,9 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.F
         "</p><p>References: "+
         "For more information on the FPGrowth frequent pattern mining algorithm, see &quot;Mining Frequent Patterns "+
         "without Candidate Generation&quot;Jiawei Han, Jian Pei, and Yiwen Yin, 2000. "+
+        "For the vertical engines see &quot;Fast Vertical Mining Using Diffsets&quot;, Mohammed J. Zaki "+
+        "and Karam Gouda, 2003. For sampling see &quot;Sampling Large Databases for Association Rules&quot;, "+
+        "Hannu Toivonen, 1996. "+
 
         "</p><p>Limitations: "+
         "The <i>FPGrowth</i> and <i>Compute Confidence</i> components currently "+
@@ -182,8 +239,8 @@ import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.F
         "</p><p>Scalability: "+
         "This component creates an array of integers to hold the indices of the items in each frequent itemset. "+
         "The component may be computationally intensive, and scales with the number of Item Sets entries to search. "+
-        "The user can limit the size of the frequent itemsets although this will have little effect on performance for "+
-        "this algorithm. Choosing/Binning components can be included in the itinerary "+
+        "The user can limit the size of the frequent itemsets; the limit is applied while mining, so it also bounds "+
+        "the time and memory used. Choosing/Binning components can be included in the itinerary "+
         "prior to this components to reduce the number of Item Sets entries.  </p>",
 
         name = "FP Growth",
@@ -202,6 +259,10 @@ public class FPGrowth extends AbstractExecutableComponent {
             "connected to a <i>Compute Confidence</i> component.", name = "freq_item_sets")
     final static String OUT_FREQ_ITEM_SETS = "freq_item_sets";
 
+    @ComponentOutput(description = "A text describing the error bound of the itemsets when they are mined " +
+            "from a sample, or stating that they are exact.", name = "sampling_report")
+    final static String OUT_SAMPLING_REPORT = "sampling_report";
+
     @ComponentProperty(description = "The percent of all examples that must contain a given set of items " +
             "before an association rule will be formed containing those items. " +
             "This value must be greater than 0 and less than or equal to 100.", name = "min_support",
@@ -209,7 +270,7 @@ public class FPGrowth extends AbstractExecutableComponent {
     final static String PROP_MIN_SUPPORT = "min_support";
 
     @ComponentProperty(description = "The maximum number of items to include in any rule. " +
-            "Does not impact performance for this algorithm as it does for Apriori." +
+            "Longer itemsets are not explored while mining. " +
             "This value cannot be less than 2.", name = "max_items",
             defaultValue = "6")
     final static String PROP_MAX_ITEMS = "max_items";
@@ -219,6 +280,52 @@ public class FPGrowth extends AbstractExecutableComponent {
             defaultValue = "True")
     final static String PROP_VERBOSE = "verbose";
 
+    @ComponentProperty(description = "The number of threads used to mine the conditional pattern bases. " +
+            "A value of 0 uses all available processors.", name = "num_threads",
+            defaultValue = "0")
+    final static String PROP_NUM_THREADS = "num_threads";
+
+    @ComponentProperty(description = "The mining engine: fpgrowth builds an FP-tree, eclat intersects the lists " +
+            "of the examples that contain each item, declat uses the differences of those lists.", name = "engine",
+            defaultValue = "fpgrowth")
+    final static String PROP_ENGINE = "engine";
+
+    @ComponentProperty(description = "If this property is true, only the itemsets containing an item of a " +
+            "target attribute are mined; the other itemsets cannot form a rule with a target consequent. " +
+            "The output then lacks the target-free antecedents of those rules, so a <i>Compute Confidence</i> " +
+            "component has to count their supports from the item sets.",
+            name = "target_items_only", defaultValue = "false")
+    final static String PROP_TARGET_ITEMS_ONLY = "target_items_only";
+
+    @ComponentProperty(description = "A comma separated list of the items (or attributes, to exclude all " +
+            "of their items) that must not appear in any itemset.", name = "excluded_items",
+            defaultValue = "")
+    final static String PROP_EXCLUDED_ITEMS = "excluded_items";
+
+    @ComponentProperty(description = "The number of examples sampled to find the candidate itemsets, " +
+            "which are then counted over all the examples. A value of 0 mines all the examples exactly.",
+            name = "sample_size", defaultValue = "0")
+    final static String PROP_SAMPLE_SIZE = "sample_size";
+
+    @ComponentProperty(description = "The probability allowed for missing any given frequent itemset " +
+            "when mining a sample. Smaller values lower the support used on the sample further.",
+            name = "sample_failure_probability", defaultValue = "0.01")
+    final static String PROP_SAMPLE_FAILURE_PROBABILITY = "sample_failure_probability";
+
+    @ComponentProperty(description = "The seed of the random sample.", name = "sample_seed",
+            defaultValue = "0")
+    final static String PROP_SAMPLE_SEED = "sample_seed";
+
+    @ComponentProperty(description = "If this property is true, the itemsets are written to a temporary file " +
+            "while mining instead of being collected in memory.", name = "patterns_to_disk",
+            defaultValue = "false")
+    final static String PROP_PATTERNS_TO_DISK = "patterns_to_disk";
+
+    @ComponentProperty(description = "The directory of the temporary file of the itemsets. " +
+            "If empty, the default temporary directory is used.", name = "work_dir",
+            defaultValue = "")
+    final static String PROP_WORK_DIR = "work_dir";
+
     //~ Static fields/initializers **********************************************
 
     /** Use serialVersionUID for interoperability. */
@@ -226,9 +333,6 @@ public class FPGrowth extends AbstractExecutableComponent {
 
     //~ Instance fields *********************************************************
 
-    /** The discovered frequent patterns that meet the support criteria. */
-    private ArrayList _patterns;
-
     /**
      * the verbosity property. If this property is true, the component will report
      * progress information to the console.
@@ -238,6 +342,36 @@ public class FPGrowth extends AbstractExecutableComponent {
     /** the maximum number of attributes that will be included in any rule. */
     private int _maxSize;
 
+    /** the number of threads used for mining; 0 means all available processors. */
+    private int _numThreads;
+
+    /** the mining engine: fpgrowth, eclat or declat. */
+    private String _engine;
+
+    /** whether only the itemsets containing a target item are mined. */
+    private boolean _targetItemsOnly;
+
+    /** the names of the items (or attributes) excluded from the itemsets. */
+    private String[] _excludedItems;
+
+    /** the number of examples sampled; 0 mines all the examples exactly. */
+    private int _sampleSize;
+
+    /** the probability allowed for missing a frequent itemset when sampling. */
+    private double _sampleFailureProbability;
+
+    /** the seed of the random sample. */
+    private long _sampleSeed;
+
+    /** whether the itemsets are written to a temporary file while mining. */
+    private boolean _patternsToDisk;
+
+    /** the directory of the temporary file; null for the default one. */
+    private File _workDir;
+
+    /** the description of the error bound of the last itemsets mined. */
+    private String _samplingReport;
+
     /**
      * this is the number of sets that must contain a given rule for it (the
      * rule) to meet the support.
@@ -259,255 +393,6 @@ public class FPGrowth extends AbstractExecutableComponent {
 
     //~ Methods *****************************************************************
 
-    /**
-     * Creates all available pattern combinations using the nodes in <codE>
-     * list</codE>. e.g. if list is [A,B,C] then the patterns to be added are AB,
-     * BC, AC, ABC (order does not matter)
-     *
-     * @param list  A List of FPTreeNode objects
-     * @param alpha Indices of columns in original table that take part int his
-     *              rule.
-     */
-    private void combos2(List list, int[] alpha) {
-        int pattern_len;
-        int i;
-        int[] ind = new int[list.size() + 1];
-        pattern_len = list.size();
-
-        if (pattern_len > 0) {
-
-            // initialize index
-            while (ind[pattern_len] == 0) {
-
-                // adjust index
-                i = 0;
-                ind[i]++;
-
-                while (ind[i] > 1) {
-                    ind[i] = 0;
-                    ind[++i]++;
-                }
-
-                if (ind[pattern_len] == 0) {
-                    FPPattern pat = new FPPattern(alpha, 0);
-                    int min = Integer.MAX_VALUE;
-
-                    for (i = pattern_len - 1; i >= 0; i--) {
-
-                        if (ind[i] == 1) {
-                            FPTreeNode nd = (FPTreeNode) list.get(i);
-                            pat.addPatternElt(nd.getLabel());
-
-                            if (nd.getCount() < min) {
-                                min = nd.getCount();
-                            }
-                        }
-                    }
-
-                    pat.setSupport(min);
-                    _patterns.add(pat);
-                }
-            } // end while
-        } // end if
-    } // end method combos2
-
-
-    /**
-     * Builds an FPTree from the input items sets and discovers frequent
-     * patterns, that are stored in <codE>_patterns.</code>
-     *
-     * @param prob Serves as the data for the root of the FPTree to be created by
-     *             this method.
-     */
-    private void FPProcess(FPProb prob) {
-
-
-        FPTreeNode root = new FPTreeNode(-1, null, -1, -1);
-
-        int[] alpha = prob.getAlpha();
-        FPSparse tab = prob.getTable();
-        int support = prob.getSupport();
-
-        // Build header table
-        TreeSet tfeats = new TreeSet(new Feature_Comparator());
-
-        for (int i = 0, n = tab.getNumColumns(); i < n; i++) {
-            int coltot = tab.getColumnTots(i);
-
-            if (coltot >= support) {
-                tfeats.add(new FeatureTableElement(tab.getLabel(i), coltot, i));
-            }
-        }
-
-        // trim the list
-        ArrayList headers = new ArrayList();
-//      boolean b = true;
-
-        for (Iterator it = tfeats.iterator(); it.hasNext();) {
-            FeatureTableElement fte = (FeatureTableElement) it.next();
-
-            headers.add(fte);
-        }
-
-        int leafcnt = 0;
-
-        // build the FPTree
-        for (int i = 0, n = tab.getNumRows(); i < n; i++) {
-            FPTreeNode current = root;
-
-            for (int j = 0, m = headers.size(); j < m; j++) {
-                FeatureTableElement fte = (FeatureTableElement) headers.get(j);
-                int val = tab.getInt(i, fte.getPosition());
-
-                if (val > 0) {
-                    FPTreeNode next = current.getChild(fte.getLabel());
-
-                    if (next == null) {
-
-                        if (current.isRoot() || (current.getNumChildren() > 0)) {
-                            leafcnt++;
-                        }
-
-                        next = new FPTreeNode(fte.getLabel(), current, val, j);
-
-                        fte.addPointer(next);
-                        current.addChild(next);
-                    } else {
-                        next.inc(val);
-                    }
-
-                    current = next;
-                }
-            }
-        } // end for
-
-
-        // If the tree is null, return
-        if (leafcnt == 0) {
-            return;
-        }
-
-
-        // If the tree has only one path, ouput all pattern combinations union
-        // alpha.
-        if (leafcnt == 1) {
-            ArrayList path = new ArrayList();
-            FPTreeNode cpathnode =
-                (FPTreeNode) (root.getChildren().values())[0];
-
-            while (true) {
-                path.add(cpathnode);
-
-                if (cpathnode.getNumChildren() == 0) {
-                    break;
-                }
-
-                cpathnode =
-                    (FPTreeNode) (cpathnode.getChildren().values())[0];
-            }
-
-            // now we need to get the combinations.
-            ArrayList param = new ArrayList(path);
-
-            // int supp =  ((FPTreeNode)path.get(path.size()-1)).getCount();
-            combos2(param, alpha);
-
-            return;
-        }
-
-
-        // else, take each feature from header table (in reverse support order)
-        // and output that feature|union alpha as a pattern, create a new patterns
-        // DB, create new FPProb, and finally call FPProcess.
-        for (int a = headers.size() - 1; a >= 0; a--) {
-
-            FeatureTableElement fte = (FeatureTableElement) headers.get(a);
-            List ptrs = fte.getPointers();
-
-            // add the entry in the table union alpha
-            FPPattern pat = new FPPattern(alpha, fte.getCnt());
-            pat.addPatternElt(fte.getLabel());
-            _patterns.add(pat);
-
-            FPSparse otab = new FPSparse(headers.size());
-            int[] colmap = new int[headers.size()];
-            int cind = 1;
-
-            // create new pattern DB
-            int cnter = 0;
-
-            for (int i2 = 0, n2 = ptrs.size(); i2 < n2; i2++) {
-                FPTreeNode node = (FPTreeNode) ptrs.get(i2);
-                List l = this.getPath(node);
-
-                for (int i3 = 0, n3 = l.size(); i3 < n3; i3++) {
-                    FPTreeNode node2 = (FPTreeNode) l.get(i3);
-
-                    if (colmap[node2.getPosition()] == 0) {
-                        otab.addColumn(((FeatureTableElement) headers.get(node2
-                                .getPosition()))
-                                .getLabel());
-                        colmap[node2.getPosition()] = cind;
-                        cind++;
-                    }
-
-                    otab.setInt(node.getCount(), cnter, colmap[node2.getPosition()] -
-                            1);
-                }
-
-                if (l.size() > 0) {
-                    cnter++;
-                }
-            }
-
-            // build a new prob and submit it for processing
-            int[] newalpha = new int[alpha.length + 1];
-            System.arraycopy(alpha, 0, newalpha, 0, alpha.length);
-            newalpha[newalpha.length - 1] = fte.getLabel();
-
-            FPProb newprob = new FPProb(otab, newalpha, support);
-            FPProcess(newprob);
-        } // for a
-
-    } // FPProcess
-
-
-    /**
-     * Returns a list of FPTreeNode objects, that is the path from <codE>
-     * node</code> to the root of the tree. The returned list won't contain the
-     * root or the node itself. Thus if <codE>node</code> is a direct child of
-     * the root or the root itself - then the returned value is an empty list.
-     *
-     * @param  node A data node int he the FPTree created by <code>
-     *              FPPRocess</codE> method.
-     *
-     * @return A List of FPTreeNode objects, that is the path from <codE>
-     *         node</code> to the root of the tree. The returned list won't
-     *         contain the root or the node itself. Thus if <codE>node</code> is
-     *         a direct child of the root or the root itself - then the returned
-     *         value is an empty list.
-     */
-    private List getPath(FPTreeNode node) {
-        ArrayList list = new ArrayList();
-
-        if (node.isRoot()) {
-            return list;
-        }
-
-        node = node.getParent();
-
-        while (true) {
-
-            if (node.isRoot()) {
-                return list;
-            }
-
-            list.add(node);
-            node = node.getParent();
-        }
-    }
-
-
     /**
      * Returns the maximum number of attributes allowed in any rule.
      *
@@ -574,11 +459,33 @@ public class FPGrowth extends AbstractExecutableComponent {
 
     @Override
 	public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
-    	_patterns = null;
-
     	_verbose = Boolean.parseBoolean(getPropertyOrDieTrying(PROP_VERBOSE, ccp));
     	_maxSize = Integer.parseInt(getPropertyOrDieTrying(PROP_MAX_ITEMS, ccp));
     	_support = Double.parseDouble(getPropertyOrDieTrying(PROP_MIN_SUPPORT, ccp));
+    	_numThreads = Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_THREADS, ccp));
+    	_engine = getPropertyOrDieTrying(PROP_ENGINE, ccp).trim().toLowerCase();
+
+    	if (!_engine.equals("fpgrowth") && !_engine.equals("eclat") && !_engine.equals("declat"))
+    	    throw new ComponentContextException("Unknown engine: " + _engine + " (expected fpgrowth, eclat or declat)");
+
+    	_targetItemsOnly = Boolean.parseBoolean(getPropertyOrDieTrying(PROP_TARGET_ITEMS_ONLY, ccp));
+
+    	ArrayList<String> excluded = new ArrayList<String>();
+    	for (String item : getPropertyOrDieTrying(PROP_EXCLUDED_ITEMS, true, false, ccp).split(","))
+    	    if (item.trim().length() > 0)
+    	        excluded.add(item.trim());
+    	_excludedItems = excluded.toArray(new String[excluded.size()]);
+
+    	_sampleSize = Integer.parseInt(getPropertyOrDieTrying(PROP_SAMPLE_SIZE, ccp));
+    	_sampleFailureProbability = Double.parseDouble(getPropertyOrDieTrying(PROP_SAMPLE_FAILURE_PROBABILITY, ccp));
+    	_sampleSeed = Long.parseLong(getPropertyOrDieTrying(PROP_SAMPLE_SEED, ccp));
+
+    	if (_sampleSize > 0 && (_sampleFailureProbability <= 0 || _sampleFailureProbability >= 1))
+    	    throw new ComponentContextException("The sample failure probability must be between 0 and 1");
+
+    	_patternsToDisk = Boolean.parseBoolean(getPropertyOrDieTrying(PROP_PATTERNS_TO_DISK, ccp));
+    	String workDir = getPropertyOrDieTrying(PROP_WORK_DIR, true, false, ccp);
+    	_workDir = (workDir.length() > 0) ? new File(workDir) : null;
     }
 
     @Override
@@ -589,6 +496,7 @@ public class FPGrowth extends AbstractExecutableComponent {
        int[][] ovals = runFP(cc, iss);
        if (ovals != null)
           cc.pushDataComponentToOutput(OUT_FREQ_ITEM_SETS, ovals);
+       cc.pushDataComponentToOutput(OUT_SAMPLING_REPORT, _samplingReport);
     }
 
     protected int[][] runFP(ComponentContext context, ItemSetInterface iss) throws Exception
@@ -600,7 +508,6 @@ public class FPGrowth extends AbstractExecutableComponent {
        // String[] atts     = iss.getTargetNames(); // number of attributes
 
 
-       String[] nameAry  = iss.getItemsOrderedByFrequency();
        int numExamples   = iss.getNumExamples();
 
         long start = System.currentTimeMillis();
@@ -611,178 +518,133 @@ public class FPGrowth extends AbstractExecutableComponent {
         	_cutoff++;
         }
 
-        // BUILD INITIAL PROBLEM
-        FPProb prob = null;
-
-        FPSparse tab = new FPSparse(nameAry.length);
-        FPPattern.clearElementMapping();
-
-        for (int i = 0, n = nameAry.length; i < n; i++) {
-        	tab.addColumn(i);
-        	FPPattern.addElementMapping(i, nameAry[i]);
+        // the item constraints: the items that may appear in an itemset, and
+        // the items an itemset must contain one of (null when unconstrained)
+        boolean[] include = null;
+        if (_excludedItems.length > 0) {
+            include = ItemSetTool.getItemsMatching(iss, _excludedItems);
+            for (int i = 0; i < include.length; i++)
+                include[i] = !include[i];
         }
-
-        int rows = numExamples; // was vals.length
-        for (int i = 0, n = rows; i < n; i++) {
-        	int cols = nameAry.length; // was vals[i].length
-        	for (int j = 0, m = cols; j < m; j++) {
-
-        		if (iss.getItemFlag(i, j) == true) {
-        			tab.setInt(1, i, j);
-        		}
-        	}
+        boolean[] required = _targetItemsOnly ? ItemSetTool.getTargetItems(iss) : null;
+
+        // the patterns are limited to the maximum rule size while mining; the
+        // 1-item patterns are counted but not kept
+        int numPatterns;
+        int[][] ovals;
+
+        if (_patternsToDisk) {
+            File patternFile = File.createTempFile("fpgrowth-", ".patterns", _workDir);
+            patternFile.deleteOnExit();
+            try {
+                DiskPatternSink sink = new DiskPatternSink(patternFile);
+                try {
+                    mine(iss, include, required, sink);
+                }
+                finally {
+                    sink.close();
+                }
+                numPatterns = sink.getNumPatterns();
+                ovals = DiskPatternSink.read(patternFile, 2);
+            }
+            finally {
+                patternFile.delete();
+            }
+        } else {
+            IntArrayPatternSink sink = new IntArrayPatternSink(2);
+            mine(iss, include, required, sink);
+            numPatterns = sink.getNumPatterns();
+            ovals = sink.toArray();
         }
 
-        int[] flist = new int[0];
-        prob = new FPProb(tab, flist, _cutoff);
-
-        _patterns = new ArrayList();
-
-        FPProcess(prob);
-
-        console.fine(_patterns.size() + " patterns discovered.");
+        console.fine(numPatterns + " patterns discovered.");
 
         long stop = System.currentTimeMillis();
         console.fine((stop - start) / 1000 + " seconds");
 
-        int numpatsout = 0;
+        // CONVERT TO FORMAT USED BY COMPUTE CONFIDENCE COMPONENT
 
         TIntIntHashMap tiihm = new TIntIntHashMap();
-        // HashMap<Integer, Integer> tiihm = new HashMap<Integer, Integer>();
-
-        for (int i = 0, n = _patterns.size(); i < n; i++) {
-        	FPPattern pat = (FPPattern) _patterns.get(i);
-        	int sz = pat.getSize();
-        	int val = tiihm.get(sz);
-        	val++;
-        	tiihm.put(sz, val);
+
+        for (int i = 0, n = ovals.length; i < n; i++) {
+        	int sz = ovals[i].length - 1;
+        	tiihm.put(sz, tiihm.get(sz) + 1);
         }
 
         int[] keys = tiihm.keys();
-        //Integer[] keys = tiihm.keySet().toArray(new Integer[0]);
-
+        Arrays.sort(keys);
 
         for (int i = 0, n = keys.length; i < n; i++) {
-
-        	if ((keys[i] < 2) || (keys[i] > this.getMaxRuleSize())) {
-        		numpatsout += tiihm.get(keys[i]);
-
-        		continue;
-        	}
-
         	console.info("Number of frequent " + keys[i] + "-patterns: " + tiihm.get(keys[i]));
         }
 
-        // CONVERT TO FORMAT USED BY COMPUTE CONFIDENCE COMPONENT
-
-        int totnum = _patterns.size() - numpatsout;
-
-        int[][] ovals = new int[totnum][];
-        int ocnt = 0;
-
-        for (int i = 0, n = _patterns.size(); i < n; i++) {
-        	FPPattern pat = (FPPattern) _patterns.get(i);
-
-        	if (
-        			(pat.getSize() < 2) ||
-        			(pat.getSize() > this.getMaxRuleSize())) {
-        		continue;
-        	}
-
-        	int[] fp = new int[pat.getSize() + 1];
-        	int cnter = 0;
-
-        	for (TIntIterator it = pat.getPattern(); it.hasNext();) {
-        		fp[cnter++] = it.next();
-        	}
-
-        	fp[cnter] = pat.getSupport();
-        	ovals[ocnt++] = fp;
-        }
-
-        if (_patterns.size() > 0) {
+        if (numPatterns > 0) {
         	return ovals;
         }
         return null;
     }
 
-    @Override
-	public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
-        _patterns = null;
+    /**
+     * Mines the item sets into <code>sink</code> with the selected engine.
+     *
+     * @param include  Flags, by item, the items to mine; null for all the items
+     * @param required Flags, by item, the items of which every pattern contains
+     *                 at least one; null for no constraint
+     */
+    protected void mine(ItemSetInterface iss, boolean[] include, boolean[] required,
+            FPPatternSink sink) throws Exception
+    {
+        _samplingReport = "Exact: all " + iss.getNumExamples() + " examples were mined.";
+        if (_sampleSize > 0) {
+            SamplingItemSetMiner.Report report =
+                new SamplingItemSetMiner(_numThreads, this.getMaxRuleSize(), _sampleSize, _sampleFailureProbability, _sampleSeed)
+                    .mine(iss, include, required, _cutoff, sink);
+            _samplingReport = report.toString();
+            console.info(_samplingReport);
+        } else if (_engine.equals("fpgrowth")) {
+            mineFPGrowth(iss, include, required, sink);
+        } else {
+            new EclatMiner(_numThreads, this.getMaxRuleSize(), _engine.equals("declat"))
+                .mine(iss, include, required, _cutoff, sink);
+        }
     }
 
-    //~ Inner Classes ***********************************************************
-
     /**
-     * <p>Title: Feature_Comparator</p>
-     *
-     * <p>Description: compares 2 FeatureTableElement objects</p>
+     * Builds the FP-tree of the item sets and mines it into <code>sink</code>.
+     * The required items are placed at the end of the header table, so only
+     * their conditional trees need to be mined.
      *
+     * @param include  Flags, by item, the items to mine; null for all the items
+     * @param required Flags, by item, the items of which every pattern contains
+     *                 at least one; null for no constraint
      */
-    private class Feature_Comparator implements java.util.Comparator {
-
-        /**
-         * The small deviation allowed in double comparisons.
-         */
-
-        /**
-         * An empty constructor.
-         */
-        public Feature_Comparator() { }
-
-        /**
-         * Intrerface implementation. Returns 1 if according to the natural order
-         * of FeatureTableElement <code>o1</code> is greater than <codE>o1</code>,
-         * -1 it <code>o2</code> is greater than <code>o1</code> and 0 if they are
-         * equal. The natural order of FeatureTableElement is derived from the
-         * natural order of FeatureTableElement's count property (sumof data in
-         * the original column): If the count properties are different the
-         * returned value is <code>o1</codE>.count - <codE>o2</code>.count If the
-         * counts are equals the natural order is derived from the natural order
-         * of the FeatureTableElement's labels (The feature's index if all
-         * features are ordered by frequency in the original table).
-         *
-         * @param  o1 Object is expected to be a FeatureTableElement object
-         * @param  o2 Object is expected to be a FeatureTableElement object
-         *
-         * @return int 1 if according to the natural order of FeatureTableElement
-         *         <code>o1</code> is greater than <codE>o1</code>, -1 it <code>
-         *         o2</code> is greater than <code>o1</code> and 0 if they are
-         *         equal.
-         */
-        public int compare(Object o1, Object o2) {
-            FeatureTableElement fte1 = (FeatureTableElement) o1;
-            FeatureTableElement fte2 = (FeatureTableElement) o2;
-
-            if (fte1.getCnt() == fte2.getCnt()) {
-
-                if (fte1.getLabel() > fte2.getLabel()) {
-                    return 1;
-                } else if (fte1.getLabel() < fte2.getLabel()) {
-                    return -1;
-                } else {
-                    System.out.println("ERROR ERROR ERROR: We never want to go here ...");
-
-                    return 0;
-                }
-            } else if (fte1.getCnt() > fte2.getCnt()) {
-                return -1;
-            } else {
-                return 1;
-            }
+    protected void mineFPGrowth(ItemSetInterface iss, boolean[] include, boolean[] required,
+            FPPatternSink sink) throws Exception
+    {
+        int numItems = iss.getItemsOrderedByFrequency().length;
+
+        // the examples of every item to mine, straight from the item sets
+        int[][] itemExamples = new int[numItems][];
+        boolean[] columns = new boolean[numItems];
+        for (int i = 0; i < numItems; i++) {
+            itemExamples[i] = (include == null || include[i]) ? iss.getItemExamples(i) : new int[0];
+            columns[i] = itemExamples[i].length >= _cutoff && (include == null || include[i]);
         }
 
-        /**
-         * Interface implementation. Compares <code>o</codE> with this comparator.
-         *
-         * @param  o an object to be compared with this ocmparator.
-         *
-         * @return true if <codE>o</code> is this comparator, otherwise returns
-         *         false.
-         */
-        @Override
-        public boolean equals(Object o) { return this.equals(o); }
-    } // end class Feature_Comparator
+        FPArrayTree tree = FPArrayTree.build(itemExamples, iss.getNumExamples(), columns, required);
+        itemExamples = null;
+
+        int fromRank = 0;
+        if (required != null)
+            while (fromRank < tree.getHeaderSize() && !required[tree.getLabel(fromRank)])
+                fromRank++;
+
+        int[] flist = new int[0];
+        new FPGrowthMiner(_numThreads, this.getMaxRuleSize()).mine(tree, flist, _cutoff, fromRank, sink);
+    }
 
+    @Override
+	public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
+    }
 
 } // end class FPGrowth
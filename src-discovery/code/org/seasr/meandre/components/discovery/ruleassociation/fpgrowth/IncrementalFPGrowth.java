@@ -0,0 +1,284 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.components.discovery.ruleassociation.fpgrowth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.meandre.annotations.Component;
+import org.meandre.annotations.ComponentInput;
+import org.meandre.annotations.ComponentOutput;
+import org.meandre.annotations.ComponentProperty;
+import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextException;
+import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.IncrementalItemSetMiner;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetInterface;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSets;
+
+/**
+ * <p>Description: This component maintains the frequent itemsets of a history
+ * of examples that grows in batches, without mining the whole history again
+ * for every batch.</p>
+ *
+ * <p>Detailed Description: Every <i>Item Sets</i> object received, as produced
+ * by a <i>Table To Item Sets</i> or an <i>Input Stream To Item Sets</i>
+ * component, is a batch of new examples appended to the history. The
+ * component keeps the frequent itemsets of the history and their supports, and
+ * updates them FUP style: the itemsets that were frequent get the counts of the
+ * batch added, and the itemsets that were not can only have become frequent if
+ * they are frequent enough within the batch, so only the batch is mined for
+ * them. After each batch the component outputs <i>Item Sets</i> for the whole
+ * history and its frequent itemsets, in the same format as the <i>FPGrowth</i>
+ * component, ready for a <i>Compute Confidence</i> component.</p>
+ *
+ * <p>The state can be kept in a file, so the history carries over from one run
+ * of the itinerary to the next. It is written when the component is disposed
+ * and, if <i>State Write Interval</i> is set, every that many batches.
+ * Changing the minimum support or the maximum itemset length mines the whole
+ * history again.</p>
+ *
+ * <p>References: &quot;Maintenance of Discovered Association Rules in Large
+ * Databases: An Incremental Updating Technique&quot;, David W. Cheung, Jiawei
+ * Han, Vincent T. Ng and C. Y. Wong, 1996.</p>
+ *
+ * <p>Scalability: The examples of the history that contain each item are kept
+ * in memory (and in the state file), along with the frequent itemsets. The time
+ * to process a batch is the time to mine the batch plus the time to count the
+ * supports of the frequent itemsets within the batch.</p>
+ *
+ * @author Boris Capitanu
+ */
+
+@Component(
+        creator = "Boris Capitanu",
+        description = "<p>This component maintains the frequent itemsets of a history of examples that grows in batches, "+
+        "without mining the whole history again for every batch. "+
+
+        "</p><p>Detailed Description: "+
+        "Every <i>Item Sets</i> object received, as produced by a <i>Table To Item Sets</i> or an "+
+        "<i>Input Stream To Item Sets</i> component, is a batch of new examples appended to the history. "+
+        "The component keeps the frequent itemsets of the history and their supports, and updates them FUP style: "+
+        "the itemsets that were frequent get the counts of the batch added, and the itemsets that were not can only "+
+        "have become frequent if they are frequent enough within the batch, so only the batch is mined for them. "+
+        "After each batch the component outputs <i>Item Sets</i> for the whole history and its frequent itemsets, "+
+        "in the same format as the <i>FPGrowth</i> component, ready for a <i>Compute Confidence</i> component. "+
+
+        "</p><p>"+
+        "The state can be kept in a file, so the history carries over from one run of the itinerary to the next. "+
+        "It is written when the component is disposed and, if <i>State Write Interval</i> is set, every that many "+
+        "batches. "+
+        "Changing the minimum support or the maximum itemset length mines the whole history again. "+
+
+        "</p><p>References: "+
+        "&quot;Maintenance of Discovered Association Rules in Large Databases: An Incremental Updating Technique&quot;, "+
+        "David W. Cheung, Jiawei Han, Vincent T. Ng and C. Y. Wong, 1996. "+
+
+        "</p><p>Scalability: "+
+        "The examples of the history that contain each item are kept in memory (and in the state file), along with "+
+        "the frequent itemsets. The time to process a batch is the time to mine the batch plus the time to count "+
+        "the supports of the frequent itemsets within the batch.</p>",
+
+        name = "Incremental FP Growth",
+        tags = "frequent pattern mining, rule association, discovery, incremental",
+        baseURL="meandre://seasr.org/components/data-mining/"
+)
+public class IncrementalFPGrowth extends AbstractExecutableComponent {
+
+    @ComponentInput(description = "A batch of new examples, as produced by a <i>Table To Item Sets</i> or an " +
+            "<i>Input Stream To Item Sets</i> component.", name = "item_sets")
+    final static String IN_ITEM_SETS = "item_sets";
+
+    @ComponentOutput(description = "The item sets of all the examples received so far. The frequent itemsets " +
+            "refer to the items of this object.", name = "item_sets")
+    final static String OUT_ITEM_SETS = "item_sets";
+
+    @ComponentOutput(description = "A representation of the frequent itemsets of all the examples received so far. " +
+            "This representation encodes the items used in the sets " +
+            "and the number of examples in which each set occurs. This output is typically " +
+            "connected to a <i>Compute Confidence</i> component.", name = "freq_item_sets")
+    final static String OUT_FREQ_ITEM_SETS = "freq_item_sets";
+
+    @ComponentProperty(description = "The percent of all examples that must contain a given set of items " +
+            "before an association rule will be formed containing those items. " +
+            "This value must be greater than 0 and less than or equal to 100.", name = "min_support",
+            defaultValue = "20.0")
+    final static String PROP_MIN_SUPPORT = "min_support";
+
+    @ComponentProperty(description = "The maximum number of items to include in any rule. " +
+            "This value cannot be less than 2.", name = "max_items",
+            defaultValue = "6")
+    final static String PROP_MAX_ITEMS = "max_items";
+
+    @ComponentProperty(description = "The number of threads used to mine. " +
+            "A value of 0 uses all available processors.", name = "num_threads",
+            defaultValue = "0")
+    final static String PROP_NUM_THREADS = "num_threads";
+
+    @ComponentProperty(description = "The file that holds the history and its frequent itemsets between runs. " +
+            "If empty, the history only lasts as long as the component.", name = "state_file",
+            defaultValue = "")
+    final static String PROP_STATE_FILE = "state_file";
+
+    @ComponentProperty(description = "The number of batches after which the state is written to the state file. " +
+            "A value of 0 only writes it when the component is disposed.", name = "state_write_interval",
+            defaultValue = "0")
+    final static String PROP_STATE_WRITE_INTERVAL = "state_write_interval";
+
+    //~ Instance fields *********************************************************
+
+    private double _support;
+    private int _maxSize;
+    private int _numThreads;
+    private File _stateFile;
+    private int _stateWriteInterval;
+
+    /** the number of batches added since the state was last written. */
+    private int _unsavedBatches;
+
+    /** the history and its frequent itemsets. */
+    private IncrementalItemSetMiner _miner;
+
+    //~ Methods *****************************************************************
+
+    @Override
+    public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+        _support = Double.parseDouble(getPropertyOrDieTrying(PROP_MIN_SUPPORT, ccp));
+        _maxSize = Integer.parseInt(getPropertyOrDieTrying(PROP_MAX_ITEMS, ccp));
+        _numThreads = Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_THREADS, ccp));
+
+        if (_support <= 0.0 || 100.0 < _support)
+            throw new ComponentContextException("Minimum Support % must be greater than 0 and less than or equal to 100.");
+        if (_maxSize < 2)
+            throw new ComponentContextException("Maximum Items per Rule cannot be less than 2.");
+
+        String stateFile = getPropertyOrDieTrying(PROP_STATE_FILE, true, false, ccp);
+        _stateFile = (stateFile.length() > 0) ? new File(stateFile) : null;
+        _stateWriteInterval = Integer.parseInt(getPropertyOrDieTrying(PROP_STATE_WRITE_INTERVAL, ccp));
+
+        if (_stateWriteInterval < 0)
+            throw new ComponentContextException("The state write interval cannot be negative.");
+
+        _unsavedBatches = 0;
+
+        _miner = null;
+        if (_stateFile != null && _stateFile.exists()) {
+            _miner = readState(_stateFile);
+            console.info("Loaded a history of " + _miner.getNumExamples() + " examples from " + _stateFile);
+            _miner.setParameters(_support, _maxSize, _numThreads);
+        } else
+            _miner = new IncrementalItemSetMiner(_support, _maxSize);
+    }
+
+    @Override
+    public void executeCallBack(ComponentContext cc) throws Exception {
+        ItemSetInterface batch = (ItemSetInterface) cc.getDataComponentFromInput(IN_ITEM_SETS);
+
+        long start = System.currentTimeMillis();
+        _miner.add(batch, _numThreads);
+        console.fine(batch.getNumExamples() + " examples added, " + _miner.getNumExamples() + " in total, " +
+                _miner.getNumFrequentItemSets() + " frequent itemsets, " +
+                (System.currentTimeMillis() - start) / 1000 + " seconds");
+
+        _unsavedBatches++;
+        if (_stateFile != null && _stateWriteInterval > 0 && _unsavedBatches >= _stateWriteInterval) {
+            writeState(_miner, _stateFile);
+            _unsavedBatches = 0;
+        }
+
+        ItemSets itemSets = _miner.getItemSets();
+        // the 1-item sets are known from the item sets themselves
+        int[][] ovals = _miner.getFrequentItemSets(2);
+
+        cc.pushDataComponentToOutput(OUT_ITEM_SETS, itemSets);
+        cc.pushDataComponentToOutput(OUT_FREQ_ITEM_SETS, ovals);
+    }
+
+    @Override
+    public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
+        if (_stateFile != null && _miner != null && _unsavedBatches > 0) {
+            writeState(_miner, _stateFile);
+            _unsavedBatches = 0;
+        }
+
+        _miner = null;
+    }
+
+    //~ Private Methods *********************************************************
+
+    private static IncrementalItemSetMiner readState(File file) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            return (IncrementalItemSetMiner) in.readObject();
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the state next to the state file first, so a failed write leaves the previous state intact.
+     */
+    private static void writeState(IncrementalItemSetMiner miner, File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeObject(miner);
+        }
+        finally {
+            out.close();
+        }
+
+        if (file.exists() && !file.delete())
+            throw new IOException("Cannot replace " + file);
+        if (!tmp.renameTo(file))
+            throw new IOException("Cannot rename " + tmp + " to " + file);
+    }
+}
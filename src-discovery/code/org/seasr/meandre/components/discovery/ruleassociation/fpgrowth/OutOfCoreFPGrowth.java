@@ -0,0 +1,321 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.components.discovery.ruleassociation.fpgrowth;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.meandre.annotations.Component;
+import org.meandre.annotations.ComponentInput;
+import org.meandre.annotations.ComponentOutput;
+import org.meandre.annotations.ComponentProperty;
+import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextException;
+import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetParser;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetSummary;
+import org.seasr.meandre.support.components.discovery.ruleassociation.TransactionReader;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.IntArrayPatternSink;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.PartitionedFPGrowthMiner;
+
+/**
+ * <p>Description: This component finds the frequent itemsets of a stream of
+ * item sets too large to hold in memory, by partitioning it on disk and mining
+ * the partitions one at a time.</p>
+ *
+ * <p>Detailed Description: The input stream holds item sets in the format read
+ * by the <i>Input Stream To Item Sets</i> component: comma separated
+ * <code>attribute=value</code> items, one set per <i>Itemsets Per Group</i>
+ * lines. The stream is copied to the work directory and read twice: once to
+ * count the items, and once to write each set, reduced to its frequent items,
+ * to a partition file. The partitions are then mined with FPGrowth one at a
+ * time, each passing its sets, projected onto the more frequent items, on to
+ * the partitions not yet mined. The frequent itemsets are the same as those of
+ * an <i>FPGrowth</i> component fed by an <i>Input Stream To Item Sets</i>
+ * component, and the <i>Item Sets</i> output gives the items the same ids, so
+ * the output can be connected to a <i>Compute Confidence</i> component.</p>
+ *
+ * <p>References: &quot;Mining Frequent Patterns without Candidate Generation: A
+ * Frequent-Pattern Tree Approach&quot;, Jiawei Han, Jian Pei, Yiwen Yin and
+ * Runying Mao, 2004.</p>
+ *
+ * <p>Scalability: Only the item counts and the FP-tree of one partition are
+ * held in memory; more partitions make the trees smaller. The work directory
+ * needs room for the copy of the stream and for the partition files, which
+ * together are at most a few times the size of the frequent items of the
+ * sets.</p>
+ *
+ * @author Boris Capitanu
+ */
+
+@Component(
+        creator = "Boris Capitanu",
+        description = "<p>This component finds the frequent itemsets of a stream of item sets too large to hold "+
+        "in memory, by partitioning it on disk and mining the partitions one at a time. "+
+
+        "</p><p>Detailed Description: "+
+        "The input stream holds item sets in the format read by the <i>Input Stream To Item Sets</i> component: "+
+        "comma separated <code>attribute=value</code> items, one set per <i>Itemsets Per Group</i> lines. "+
+        "The stream is copied to the work directory and read twice: once to count the items, and once to write "+
+        "each set, reduced to its frequent items, to a partition file. The partitions are then mined with FPGrowth "+
+        "one at a time, each passing its sets, projected onto the more frequent items, on to the partitions not yet "+
+        "mined. The frequent itemsets are the same as those of an <i>FPGrowth</i> component fed by an "+
+        "<i>Input Stream To Item Sets</i> component, and the <i>Item Sets</i> output gives the items the same ids, "+
+        "so the output can be connected to a <i>Compute Confidence</i> component. "+
+
+        "</p><p>References: "+
+        "&quot;Mining Frequent Patterns without Candidate Generation: A Frequent-Pattern Tree Approach&quot;, "+
+        "Jiawei Han, Jian Pei, Yiwen Yin and Runying Mao, 2004. "+
+
+        "</p><p>Scalability: "+
+        "Only the item counts and the FP-tree of one partition are held in memory; more partitions make the trees "+
+        "smaller. The work directory needs room for the copy of the stream and for the partition files, which "+
+        "together are at most a few times the size of the frequent items of the sets.</p>",
+
+        name = "Out Of Core FP Growth",
+        tags = "frequent pattern mining, rule association, discovery",
+        baseURL="meandre://seasr.org/components/data-mining/"
+)
+public class OutOfCoreFPGrowth extends AbstractExecutableComponent {
+
+    @ComponentInput(description = "The item sets, one set per <i>Itemsets Per Group</i> lines." +
+            "<br>TYPE: java.io.InputStream", name = "inputStream")
+    final static String IN_STREAM = "inputStream";
+
+    @ComponentOutput(description = "The items of the item sets and their counts. The frequent itemsets " +
+            "refer to the items of this object. It does not hold the sets themselves, so it can be connected " +
+            "to a <i>Compute Confidence</i> component but not to a mining component." +
+            "<br>TYPE: org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetSummary",
+            name = "item_sets")
+    final static String OUT_ITEM_SETS = "item_sets";
+
+    @ComponentOutput(description = "A representation of the frequent itemsets found by the component. " +
+            "This representation encodes the items used in the sets " +
+            "and the number of examples in which each set occurs. This output is typically " +
+            "connected to a <i>Compute Confidence</i> component.", name = "freq_item_sets")
+    final static String OUT_FREQ_ITEM_SETS = "freq_item_sets";
+
+    @ComponentProperty(description = "The number of lines that make up one item set.", name = "itemsetsPerGroup",
+            defaultValue = "1")
+    final static String PROP_LINES_PER_SET = "itemsetsPerGroup";
+
+    @ComponentProperty(description = "The percent of all examples that must contain a given set of items " +
+            "before an association rule will be formed containing those items. " +
+            "This value must be greater than 0 and less than or equal to 100.", name = "min_support",
+            defaultValue = "20.0")
+    final static String PROP_MIN_SUPPORT = "min_support";
+
+    @ComponentProperty(description = "The maximum number of items to include in any rule. " +
+            "This value cannot be less than 2.", name = "max_items",
+            defaultValue = "6")
+    final static String PROP_MAX_ITEMS = "max_items";
+
+    @ComponentProperty(description = "The number of threads used to mine each partition. " +
+            "A value of 0 uses all available processors.", name = "num_threads",
+            defaultValue = "0")
+    final static String PROP_NUM_THREADS = "num_threads";
+
+    @ComponentProperty(description = "The number of partitions the item sets are split in. " +
+            "More partitions use less memory.", name = "num_partitions",
+            defaultValue = "16")
+    final static String PROP_NUM_PARTITIONS = "num_partitions";
+
+    @ComponentProperty(description = "The directory of the temporary files. " +
+            "If empty, the default temporary directory is used.", name = "work_dir",
+            defaultValue = "")
+    final static String PROP_WORK_DIR = "work_dir";
+
+    @ComponentProperty(description = "If this property is true, the copy of the stream is memory-mapped " +
+            "instead of read.", name = "memory_map",
+            defaultValue = "false")
+    final static String PROP_MEMORY_MAP = "memory_map";
+
+    //~ Instance fields *********************************************************
+
+    private int _linesPerSet;
+    private double _support;
+    private int _maxSize;
+    private int _numThreads;
+    private int _numPartitions;
+    private File _workDir;
+    private boolean _memoryMap;
+
+    //~ Methods *****************************************************************
+
+    @Override
+    public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+        _linesPerSet = Integer.parseInt(getPropertyOrDieTrying(PROP_LINES_PER_SET, ccp));
+        _support = Double.parseDouble(getPropertyOrDieTrying(PROP_MIN_SUPPORT, ccp));
+        _maxSize = Integer.parseInt(getPropertyOrDieTrying(PROP_MAX_ITEMS, ccp));
+        _numThreads = Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_THREADS, ccp));
+        _numPartitions = Integer.parseInt(getPropertyOrDieTrying(PROP_NUM_PARTITIONS, ccp));
+
+        if (_linesPerSet < 1)
+            throw new ComponentContextException("Itemsets Per Group must be at least 1.");
+        if (_support <= 0.0 || 100.0 < _support)
+            throw new ComponentContextException("Minimum Support % must be greater than 0 and less than or equal to 100.");
+        if (_maxSize < 2)
+            throw new ComponentContextException("Maximum Items per Rule cannot be less than 2.");
+        if (_numPartitions < 1)
+            throw new ComponentContextException("The number of partitions must be at least 1.");
+
+        String workDir = getPropertyOrDieTrying(PROP_WORK_DIR, true, false, ccp);
+        _workDir = (workDir.length() > 0) ? new File(workDir) : null;
+        _memoryMap = Boolean.parseBoolean(getPropertyOrDieTrying(PROP_MEMORY_MAP, ccp));
+    }
+
+    @Override
+    public void executeCallBack(ComponentContext cc) throws Exception {
+        InputStream is = (InputStream) cc.getDataComponentFromInput(IN_STREAM);
+
+        long start = System.currentTimeMillis();
+
+        // the sets are read twice, so keep a copy of the stream
+        File copy = File.createTempFile("fpgrowth-", ".sets", _workDir);
+        copy.deleteOnExit();
+
+        PartitionedFPGrowthMiner miner =
+            new PartitionedFPGrowthMiner(_numThreads, _maxSize, _numPartitions, _workDir);
+        try {
+            copy(is, copy);
+
+            ItemSetParser parser = new ItemSetParser();
+            TransactionReader reader = new TransactionReader(copy, _linesPerSet, _memoryMap);
+            ItemSetSummary summary;
+            try {
+                summary = parser.getItemSetSummary(reader);
+            }
+            finally {
+                reader.close();
+            }
+
+            int numExamples = summary.getNumExamples();
+            int cutoff = (int) Math.ceil(numExamples * (_support / 100.0));
+
+            int numItems = summary.getItemsOrderedByFrequency().length;
+            int[] counts = new int[numItems];
+            for (int i = 0; i < numItems; i++)
+                counts[i] = summary.getCount(i);
+
+            miner.begin(counts, cutoff);
+
+            // the reader numbers the items as they are first seen, the same
+            // way on both passes; map its ids to those of the summary
+            reader = new TransactionReader(copy, _linesPerSet, _memoryMap);
+            try {
+                TIntArrayList ids = new TIntArrayList(numItems);
+                int[] items = new int[numItems];
+                int len;
+                while ((len = reader.next()) >= 0) {
+                    while (ids.size() < reader.getNumNames())
+                        ids.add(summary.getId(reader.getName(ids.size())));
+
+                    int[] readerItems = reader.getItems();
+                    for (int i = 0; i < len; i++)
+                        items[i] = ids.getQuick(readerItems[i]);
+                    miner.add(items, len);
+                }
+            }
+            finally {
+                reader.close();
+            }
+
+            // the 1-item patterns are known from the item sets themselves
+            IntArrayPatternSink sink = new IntArrayPatternSink(2);
+            miner.mine(sink);
+
+            console.fine(numExamples + " examples, " + sink.getNumPatterns() + " patterns discovered, " +
+                    (System.currentTimeMillis() - start) / 1000 + " seconds");
+
+            int[][] ovals = sink.toArray();
+            logPatternCounts(ovals);
+
+            cc.pushDataComponentToOutput(OUT_ITEM_SETS, summary);
+            cc.pushDataComponentToOutput(OUT_FREQ_ITEM_SETS, ovals);
+        }
+        finally {
+            miner.dispose();
+            copy.delete();
+        }
+    }
+
+    @Override
+    public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
+    }
+
+    //~ Private Methods *********************************************************
+
+    private void logPatternCounts(int[][] ovals) {
+        TIntIntHashMap tiihm = new TIntIntHashMap();
+        for (int i = 0, n = ovals.length; i < n; i++) {
+            int sz = ovals[i].length - 1;
+            tiihm.put(sz, tiihm.get(sz) + 1);
+        }
+
+        int[] keys = tiihm.keys();
+        Arrays.sort(keys);
+        for (int i = 0, n = keys.length; i < n; i++)
+            console.info("Number of frequent " + keys[i] + "-patterns: " + tiihm.get(keys[i]));
+    }
+
+    private static void copy(InputStream is, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            byte[] buffer = new byte[1 << 16];
+            int n;
+            while ((n = is.read(buffer)) >= 0)
+                out.write(buffer, 0, n);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
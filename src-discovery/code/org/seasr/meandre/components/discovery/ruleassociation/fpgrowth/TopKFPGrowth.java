@@ -0,0 +1,200 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.components.discovery.ruleassociation.fpgrowth;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+
+import org.meandre.annotations.Component;
+import org.meandre.annotations.ComponentInput;
+import org.meandre.annotations.ComponentOutput;
+import org.meandre.annotations.ComponentProperty;
+import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextException;
+import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.ItemSetInterface;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPArrayTree;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.TopKPatternMiner;
+
+/**
+ * <p>Description: This component finds the <i>K</i> most frequent itemsets with
+ * at least a minimum number of items, without a minimum support.</p>
+ *
+ * <p>Detailed Description: Instead of a <i>Minimum Support %</i> the user gives
+ * the number of itemsets wanted. The component mines an FP-tree like the
+ * <i>FPGrowth</i> component, raising the support it mines with as it finds
+ * itemsets: once <i>K</i> itemsets are known, nothing less frequent than the
+ * least frequent of them needs to be explored. The itemsets as frequent as
+ * the <i>K</i>-th are all kept, so a few more than <i>K</i> may be returned.
+ * The output is in the same format as that of the <i>FPGrowth</i> component,
+ * ready for a <i>Compute Confidence</i> component; the support the search
+ * ended with is reported to the console.</p>
+ *
+ * <p>References: &quot;TFP: An Efficient Algorithm for Mining Top-K Frequent
+ * Closed Itemsets&quot;, Jianyong Wang, Jiawei Han, Ying Lu and Petre
+ * Tzvetkov, 2005.</p>
+ *
+ * <p>Scalability: The FP-tree holds every item of the examples until the
+ * first bound on the support is known, so it can be larger than the tree of an
+ * <i>FPGrowth</i> run with a well chosen support. The time depends on
+ * <i>K</i> rather than on a guess of the support.</p>
+ *
+ * @author Boris Capitanu
+ */
+
+@Component(
+        creator = "Boris Capitanu",
+        description = "<p>This component finds the <i>K</i> most frequent itemsets with at least a minimum number "+
+        "of items, without a minimum support. "+
+
+        "</p><p>Detailed Description: "+
+        "Instead of a <i>Minimum Support %</i> the user gives the number of itemsets wanted. The component mines "+
+        "an FP-tree like the <i>FPGrowth</i> component, raising the support it mines with as it finds itemsets: "+
+        "once <i>K</i> itemsets are known, nothing less frequent than the least frequent of them needs to be "+
+        "explored. The itemsets as frequent as the <i>K</i>-th are all kept, so a few more than <i>K</i> may be "+
+        "returned. The output is in the same format as that of the <i>FPGrowth</i> component, ready for a "+
+        "<i>Compute Confidence</i> component; the support the search ended with is reported to the console. "+
+
+        "</p><p>References: "+
+        "&quot;TFP: An Efficient Algorithm for Mining Top-K Frequent Closed Itemsets&quot;, Jianyong Wang, "+
+        "Jiawei Han, Ying Lu and Petre Tzvetkov, 2005. "+
+
+        "</p><p>Scalability: "+
+        "The FP-tree holds every item of the examples until the first bound on the support is known, so it can "+
+        "be larger than the tree of an <i>FPGrowth</i> run with a well chosen support. The time depends on "+
+        "<i>K</i> rather than on a guess of the support.</p>",
+
+        name = "Top K FP Growth",
+        tags = "frequent pattern mining, rule association, discovery, top k",
+        baseURL="meandre://seasr.org/components/data-mining/"
+)
+public class TopKFPGrowth extends AbstractExecutableComponent {
+
+    @ComponentInput(description = "An object produced by a <i>Table To Item Sets</i> component " +
+            "containing items that will appear in the frequent itemsets.", name = "item_sets")
+    final static String IN_ITEM_SETS = "item_sets";
+
+    @ComponentOutput(description = "A representation of the most frequent itemsets found by the component, " +
+            "most frequent first. This representation encodes the items used in the sets " +
+            "and the number of examples in which each set occurs. This output is typically " +
+            "connected to a <i>Compute Confidence</i> component.", name = "freq_item_sets")
+    final static String OUT_FREQ_ITEM_SETS = "freq_item_sets";
+
+    @ComponentProperty(description = "The number of itemsets to find.", name = "k",
+            defaultValue = "100")
+    final static String PROP_K = "k";
+
+    @ComponentProperty(description = "The minimum number of items of an itemset. " +
+            "Rules need itemsets of at least 2 items.", name = "min_items",
+            defaultValue = "2")
+    final static String PROP_MIN_ITEMS = "min_items";
+
+    //~ Instance fields *********************************************************
+
+    private int _k;
+    private int _minSize;
+
+    //~ Methods *****************************************************************
+
+    @Override
+    public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+        _k = Integer.parseInt(getPropertyOrDieTrying(PROP_K, ccp));
+        _minSize = Integer.parseInt(getPropertyOrDieTrying(PROP_MIN_ITEMS, ccp));
+
+        if (_k < 1)
+            throw new ComponentContextException("K must be at least 1.");
+        if (_minSize < 1)
+            throw new ComponentContextException("Minimum Items cannot be less than 1.");
+    }
+
+    @Override
+    public void executeCallBack(ComponentContext cc) throws Exception {
+        ItemSetInterface iss = (ItemSetInterface) cc.getDataComponentFromInput(IN_ITEM_SETS);
+
+        String[] nameAry = iss.getItemsOrderedByFrequency();
+        int numExamples = iss.getNumExamples();
+
+        long start = System.currentTimeMillis();
+
+        // the examples of every item, straight from the item sets
+        int[][] itemExamples = new int[nameAry.length][];
+        boolean[] columns = new boolean[nameAry.length];
+        for (int i = 0, n = nameAry.length; i < n; i++) {
+            itemExamples[i] = iss.getItemExamples(i);
+            columns[i] = itemExamples[i].length > 0;
+        }
+
+        FPArrayTree tree = FPArrayTree.build(itemExamples, numExamples, columns, null);
+        itemExamples = null;
+
+        int[][] ovals = new TopKPatternMiner(_k, _minSize).mine(tree);
+
+        console.fine(ovals.length + " patterns discovered, " + (System.currentTimeMillis() - start) / 1000 + " seconds");
+
+        if (ovals.length > 0) {
+            int[] last = ovals[ovals.length - 1];
+            int support = last[last.length - 1];
+            console.info("Minimum support of the top " + _k + " itemsets: " + support + " examples (" +
+                    (100.0 * support / numExamples) + "%)");
+        }
+
+        TIntIntHashMap tiihm = new TIntIntHashMap();
+        for (int i = 0, n = ovals.length; i < n; i++) {
+            int sz = ovals[i].length - 1;
+            tiihm.put(sz, tiihm.get(sz) + 1);
+        }
+
+        int[] keys = tiihm.keys();
+        Arrays.sort(keys);
+        for (int i = 0, n = keys.length; i < n; i++)
+            console.info("Number of frequent " + keys[i] + "-patterns: " + tiihm.get(keys[i]));
+
+        cc.pushDataComponentToOutput(OUT_FREQ_ITEM_SETS, ovals);
+    }
+
+    @Override
+    public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
+    }
+}
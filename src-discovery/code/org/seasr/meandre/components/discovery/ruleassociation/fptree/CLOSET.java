@@ -44,16 +44,9 @@ package org.seasr.meandre.components.discovery.ruleassociation.fptree;
 //==============
 
 //==============
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.map.hash.TIntIntHashMap;
-import gnu.trove.map.hash.TIntObjectHashMap;
-import gnu.trove.set.hash.TIntHashSet;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
 
 import org.meandre.annotations.Component;
 import org.meandre.annotations.Component.Licenses;
@@ -62,11 +55,11 @@ import org.meandre.annotations.ComponentOutput;
 import org.meandre.core.ComponentContext;
 import org.meandre.core.ComponentContextProperties;
 import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.ClosedPatternIndex;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPArrayTree;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPattern;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPProb;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPSparse;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPTreeNode;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FeatureTableElement;
 
 /**
  * @author Lily Dong
@@ -125,9 +118,7 @@ public class CLOSET extends AbstractExecutableComponent {
 
 
     private ArrayList<FPPattern> _patterns;
-    private TIntObjectHashMap<TIntObjectHashMap<ArrayList<FPTreeNode>>> _closhash;
-    private TIntIntHashMap _supports;
-    private FPTreeNode _csetroot;
+    private ClosedPatternIndex _closed;
 
 
     //--------------------------------------------------------------------------------------------
@@ -135,295 +126,171 @@ public class CLOSET extends AbstractExecutableComponent {
     @Override
     public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
         _patterns = null;
-        _closhash = null;
-        _supports = null;
-        _csetroot = null;
+        _closed = null;
     }
 
     @Override
     public void executeCallBack(ComponentContext cc) throws Exception {
         FPProb prob = (FPProb) cc.getDataComponentFromInput(IN_FPPROB);
         _patterns = new ArrayList<FPPattern>();
-        _closhash = new TIntObjectHashMap<TIntObjectHashMap<ArrayList<FPTreeNode>>>();
-
-        //sets up the result tree
-        getSupports(prob);
+        _closed = new ClosedPatternIndex();
 
         prob.setConditionalSupport(Integer.MAX_VALUE);
         FPProcess(prob);
 
+        for (FPPattern pattern : _patterns)
+            pattern.setElementMapping(prob.getElementMapping());
+
         cc.pushDataComponentToOutput(OUT_PATTERNS, _patterns);
     }
 
     @Override
     public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
         _patterns = null;
-        _closhash = null;
-        _supports = null;
-        _csetroot = null;
+        _closed = null;
     }
 
     //--------------------------------------------------------------------------------------------
 
-    private void getSupports(FPProb prob) {
-        TreeSet<FeatureTableElement> tfeats = new TreeSet<FeatureTableElement>(new FeatureComparator());
-        //initialize the root for the result tree
-        _csetroot = new FPTreeNode(-1, null, -1, -1);
-
-        if (_supports == null)
-            _supports = new TIntIntHashMap();
-
-        FPSparse tab = prob.getTable();
-        int support = prob.getSupport();
-
-        for (int i = 0, n = tab.getNumColumns(); i < n; i++) {
-            int coltot = tab.getColumnTots(i);
-            int lbl = tab.getLabel(i);
-            if (coltot > support)
-                tfeats.add(new FeatureTableElement(lbl, coltot, i));
-        }
-
-        int i = 0;
-        for (Iterator<FeatureTableElement> it = tfeats.iterator(); it.hasNext(); i++)
-            _supports.put(it.next().getLabel(), i);
+    /**
+     * Tests whether the first <code>len</code> items of <code>items</code> are a subset
+     * of an already found closed itemset with the same support.
+     */
+    private boolean isSubsetOfClosedItemsetOfSameSupport(int[] items, int len, int support) {
+        return _closed.isSubsumed(ClosedPatternIndex.sorted(items, len), len, support);
     }
 
-    private boolean isSubsetOfClosedItemsetOfSameSupport(FPPattern patt) {
-        int elt = 0;
-        int min = Integer.MAX_VALUE;
-
-        for (TIntIterator it = patt.getPattern(); it.hasNext(); ) {
-            int tst = it.next();
-            int icmp = _supports.get(tst);
-            if (icmp < min){
-                min = icmp;
-                elt = tst;
-            }
-        }
-
-        gnu.trove.map.hash.TIntObjectHashMap<ArrayList<FPTreeNode>> m = _closhash.get(elt);
-        if (m == null) return false;
-
-        ArrayList<FPTreeNode> l = m.get(patt.getSupport());
-        if (l == null) return false;
-
-        for (int i = 0, n = l.size(); i < n; i++) {
-            FPTreeNode node = l.get(i);
-
-            if (node.getPosition() < patt.getSize()) continue;
-
-            if (node.getPosition() == patt.getSize()) {
-                if (node.getNumChildren() == 0) continue;
-
-                Object[] children = node.getChildren().values();
-
-                boolean okay = false;
-                for (int j = 0, k = children.length; j < k; j++)
-                    if (((FPTreeNode)children[j]).getCount() == patt.getSupport())
-                        okay = true;
+    /**
+     * Records the first <code>len</code> items of <code>items</code> as a closed itemset.
+     */
+    private void addPattern(int[] items, int len, int support) {
+        int[] sorted = ClosedPatternIndex.sorted(items, len);
+        _closed.add(sorted, support);
+        _patterns.add(new FPPattern(sorted, support));
+    }
 
-                if (!okay) continue;
+    private void FPProcess(FPProb prob) {
+        // filter the tree of all the items when an upstream component built
+        // one, rather than scanning the table again
+        FPArrayTree tree = prob.getTree();
+        int n;
+        int[] labels;
+        int[] counts;
+        if (tree != null) {
+            n = tree.getHeaderSize();
+            labels = new int[n];
+            counts = new int[n];
+            for (int r = 0; r < n; r++) {
+                labels[r] = tree.getLabel(r);
+                counts[r] = tree.getSupport(r);
             }
-
-            //collect values into array
-            node = node.getParent();
-
-            TIntHashSet compset = new TIntHashSet();
-            compset.add(node.getLabel());
-
-            while (!node.isRoot()) {
-                compset.add(node.getLabel());
-                node = node.getParent();
+        } else {
+            FPSparse tab = prob.getTable();
+            n = tab.getNumColumns();
+            labels = new int[n];
+            counts = new int[n];
+            for (int i = 0; i < n; i++) {
+                labels[i] = tab.getLabel(i);
+                counts[i] = tab.getColumnTots(i);
             }
-
-            if (compset.containsAll(patt.getPatternArray()))
-                return true;
         }
 
-        return false;
-    }
-
-    private void addPatternToLookup(FPPattern patt) {
-        int patsupp = patt.getSupport();
-        TreeSet<FeatureTableElement> tfeats = new TreeSet<FeatureTableElement>(new FeatureComparator());
-
-        for (TIntIterator it = patt.getPattern(); it.hasNext(); ) {
-            int fte = it.next();
-            tfeats.add(new FeatureTableElement(fte, _supports.get(fte), 0));
-        }
+        boolean[] include = new boolean[n];
+        int[] alpha = selectHeader(labels, counts, include, prob.getAlpha(), prob.getSupport(),
+                prob.getMaxSupport(), prob.getConditionalSupport());
 
-        FPTreeNode current = _csetroot;
-        int j = 0;
-        for (Iterator<FeatureTableElement> it = tfeats.iterator(); it.hasNext(); j++) {
-            FeatureTableElement fte = it.next();
-            FPTreeNode next = current.getChild(fte.getLabel());
-
-            if (next == null) {
-                next = new FPTreeNode(fte.getLabel(), current, patsupp, j);
-                //update double hash
-                TIntObjectHashMap<ArrayList<FPTreeNode>> suppmap = _closhash.get(fte.getLabel());
-                ArrayList<FPTreeNode> ndarr = null;
-
-                if (suppmap == null) {
-                    suppmap = new TIntObjectHashMap<ArrayList<FPTreeNode>>();
-                    ndarr = new ArrayList<FPTreeNode>();
-                    ndarr.add(next);
-                    suppmap.put(patsupp, ndarr);
-                    _closhash.put(fte.getLabel(), suppmap);
-                }
-                else {
-                    ndarr = suppmap.get(patsupp);
-                    if (ndarr == null) {
-                        ndarr = new ArrayList<FPTreeNode>();
-                        ndarr.add(next);
-                        suppmap.put(patsupp, ndarr);
-                    }
-                    else {
-                        ndarr.add(next);
-                    }
-                }
+        if (tree != null)
+            tree = tree.filter(include);
+        else
+            tree = FPArrayTree.build(prob.getTable(), include);
 
-                current.addChild(next);
-            }
-            else {
-                if (next.getCount() < patsupp) {
-                    int oldsupp = next.getCount();
-                    next.setCount(patsupp);
-
-                    //add new support value for this node
-                    TIntObjectHashMap<ArrayList<FPTreeNode>> suppmap = _closhash.get(fte.getLabel());
-                    ArrayList<FPTreeNode> ndarr = null;
-                    ndarr = suppmap.get(patsupp);
-
-                    if (ndarr == null) {
-                        ndarr = new ArrayList<FPTreeNode>();
-                        ndarr.add(next);
-                        suppmap.put(patsupp, ndarr);
-                    }
-                    else {
-                        ndarr.add(next);
-                    }
-                    //remove old support reference
-                    ndarr = suppmap.get(oldsupp);
-                    ndarr.remove(next);
-                }
-            }
-            current = next;
-        }
+        FPProcess(tree, alpha, prob.getSupport());
     }
 
-    private void FPProcess(FPProb prob) {
-        FPTreeNode root = new FPTreeNode(-1, null, -1, -1);
-        int[] alpha = prob.getAlpha();
-        FPSparse tab = prob.getTable();
-        int support = prob.getSupport();
-        int maxSupport = prob.getMaxSupport();
-        //Build header table
-        TreeSet<FeatureTableElement> tfeats = new TreeSet<FeatureTableElement>(new FeatureComparator());
-        ArrayList<FeatureTableElement> tfeats2 = new ArrayList<FeatureTableElement>();
+    /**
+     * Selects the items that make up the header table of a (conditional) tree
+     * and applies Optimization 2 (see CLOSET paper): the items that occur in
+     * every transaction of the pattern base are merged into alpha.
+     *
+     * @param include Set to flag, by item, the items to include in the tree
+     * @return The alpha to mine the tree with
+     */
+    private int[] selectHeader(int[] labels, int[] counts, boolean[] include, int[] alpha,
+            int support, int maxSupport, int condSupport) {
+        boolean[] every = new boolean[labels.length];
 
         //pattern for Optimization 2 (see CLOSET paper)
-        FPPattern everytrans = new FPPattern(alpha, prob.getConditionalSupport());;
-        for (int i = 0, n = tab.getNumColumns(); i < n; i++) {
-            int coltot = tab.getColumnTots(i);
-            if ((coltot >= support) && (coltot <= maxSupport)) {
-                if (coltot == prob.getConditionalSupport()) {
+        int[] everytrans = Arrays.copyOf(alpha, alpha.length + labels.length);
+        int len = alpha.length;
+        for (int i = 0, n = labels.length; i < n; i++) {
+            int coltot = counts[i];
+            if ((coltot > 0) && (coltot >= support) && (coltot <= maxSupport)) {
+                if (coltot == condSupport) {
                     //Optimization 2
-                    everytrans.addPatternElt(tab.getLabel(i));
-                    tfeats2.add(new FeatureTableElement(tab.getLabel(i), coltot, i));
+                    everytrans[len++] = labels[i];
+                    every[i] = true;
                 } else {
-                    tfeats.add(new FeatureTableElement(tab.getLabel(i), coltot, i));
+                    include[i] = true;
                 }
             }
         }
 
         //Optimization 2
-        if (everytrans.getSize() > 0) {
-            boolean go = true;
-            if ((!isSubsetOfClosedItemsetOfSameSupport(everytrans))) {
-                if (everytrans.getSupport() >= support){
-                    _patterns.add(everytrans);
-                    addPatternToLookup(everytrans);
-                    go = false;
+        if (len > 0) {
+            if (!isSubsetOfClosedItemsetOfSameSupport(everytrans, len, condSupport)) {
+                if (condSupport >= support) {
+                    addPattern(everytrans, len, condSupport);
+                    //every pattern of this base contains the merged items
+                    return Arrays.copyOf(everytrans, len);
                 }
             } else {
-                if ((tfeats2.size() > 0) && go)
-                    tfeats.addAll(tfeats2);
+                for (int i = 0, n = labels.length; i < n; i++)
+                    include[i] |= every[i];
             }
         }
 
-        //trim the list
-        ArrayList<FeatureTableElement> headers = new ArrayList<FeatureTableElement>();
-        for (Iterator<FeatureTableElement> it = tfeats.iterator(); it.hasNext();) {
-            FeatureTableElement fte = it.next();
-            headers.add(fte);
-        }
-
-        int leafcnt = 0;
-
-        //build the FPTree
-        for (int i = 0, n = tab.getNumRows(); i < n; i++) {
-            FPTreeNode current = root;
-            for (int j = 0, m = headers.size(); j < m; j++) {
-                FeatureTableElement fte = headers.get(j);
-                int val = tab.getInt(i, fte.getPosition());
-                if (val > 0) {
-                    FPTreeNode next = current.getChild(fte.getLabel());
-                    if (next == null) {
-                        if (current.isRoot() || (current.getNumChildren() > 0)) {
-                            leafcnt++;
-                        }
-                        next = new FPTreeNode(fte.getLabel(), current, val, j);
-                        fte.addPointer(next);
-                        current.addChild(next);
-                    }
-                    else {
-                        next.inc(val);
-                    }
-                    current = next;
-                }
-            }
-        }
+        return alpha;
+    }
 
+    private void FPProcess(FPArrayTree tree, int[] alpha, int support) {
         //========================================================================
         // BEGIN FPGROWTH ========================================================
         //========================================================================
         /**
          * If the tree is null, return
          */
-        if (leafcnt == 0) return;
-
-        ArrayList<FeatureTableElement> removes = new ArrayList<FeatureTableElement>();
-        for (int a = headers.size() - 1; a >= 0; a--) {
-            FeatureTableElement fte = headers.get(a);
-            List<FPTreeNode> ptrs = fte.getPointers();
-            if (ptrs.size() == 1) {
-                FPTreeNode nd = ptrs.get(0);
-                if ((nd.getNumChildren() == 0) || (nd.getNumChildren() > 1) ||
-                        (((FPTreeNode)(nd.getChildren().values())[0]).getCount() < nd.getCount())){
+        if (tree.getNumLeaves() == 0) return;
+
+        int numHeaders = tree.getHeaderSize();
+        boolean[] removes = new boolean[numHeaders];
+        for (int a = numHeaders - 1; a >= 0; a--) {
+            int nd = tree.getFirstNode(a);
+            if (nd != FPArrayTree.NONE && tree.getNextNode(nd) == FPArrayTree.NONE) {
+                int numChildren = tree.getNumChildren(nd);
+                if ((numChildren == 0) || (numChildren > 1) ||
+                        (tree.getCount(tree.getFirstChild(nd)) < tree.getCount(nd))) {
                     boolean okay = true;
-                    FPTreeNode nnd = nd;
-                    FPPattern newpatt = new FPPattern(alpha, nd.getCount()/*0*/);
-                    while (true){
-                        nnd = nnd.getParent();
-                        if (nnd.getNumChildren() > 1){
+                    int nnd = nd;
+                    int[] newpatt = Arrays.copyOf(alpha, alpha.length + numHeaders);
+                    int len = alpha.length;
+                    while (true) {
+                        nnd = tree.getParent(nnd);
+                        if (tree.getNumChildren(nnd) > 1) {
                             okay = false;
                             break;
                         }
-                        if (nnd.isRoot()){
+                        if (tree.isRoot(nnd)) {
                             break;
                         }
-                        newpatt.addPatternElt(nnd.getLabel());
+                        newpatt[len++] = tree.getNodeLabel(nnd);
                     }
-                    if (okay){
-                        newpatt.addPatternElt(nd.getLabel());
-                        if (nd.getCount() >= support){
-                            if (!isSubsetOfClosedItemsetOfSameSupport(newpatt)){
-                                _patterns.add(newpatt);
-                                this.addPatternToLookup(newpatt);
-                                //System.out.println("Added pattern .... ");
-                                //newpatt.setSupport(nd.getCount());
-                                removes.add(fte);
+                    if (okay) {
+                        newpatt[len++] = tree.getNodeLabel(nd);
+                        int count = tree.getCount(nd);
+                        if (count >= support) {
+                            if (!isSubsetOfClosedItemsetOfSameSupport(newpatt, len, count)) {
+                                addPattern(newpatt, len, count);
+                                removes[a] = true;
                             }
                         }
                     }
@@ -433,92 +300,35 @@ public class CLOSET extends AbstractExecutableComponent {
 
         /**
          * else, take each feature from header table (in reverse support order) and
-         * output that feature|union alpha as a pattern, create a new patterns DB,
-         * create new FPProb, and finally call FPProcess.
+         * output that feature|union alpha as a pattern, project its conditional
+         * tree, and finally call FPProcess.
          */
-        for (int a = headers.size() - 1; a >= 0; a--) {
-            FeatureTableElement fte = headers.get(a);
-            if (removes.contains(fte)) continue;
-
-            List<FPTreeNode> ptrs = fte.getPointers();
-            //add the entry in the table union alpha
-            FPPattern pat = new FPPattern(alpha, fte.getCnt());
-            pat.addPatternElt(fte.getLabel());
-
-            if (isSubsetOfClosedItemsetOfSameSupport(pat)) continue;
-
-            FPSparse otab = new FPSparse(headers.size());
-            int[] colmap = new int[headers.size()];
-            int cind = 1;
-            //create new pattern DB
-            int cnter = 0;
-            for (int i2 = 0, n2 = ptrs.size(); i2 < n2; i2++) {
-                FPTreeNode node = ptrs.get(i2);
-                List<FPTreeNode> l = this.getPath(node);
-                for (int i3 = 0, n3 = l.size(); i3 < n3; i3++) {
-                    FPTreeNode node2 = l.get(i3);
-                    if (colmap[node2.getPosition()] == 0) {
-                        otab.addColumn((headers.get(node2.getPosition())).getLabel());
-                        colmap[node2.getPosition()] = cind;
-                        cind++;
-                    }
-                    otab.setInt(node.getCount(), cnter, colmap[node2.getPosition()] - 1);
-                }
-
-                if (l.size() > 0)
-                    cnter++;
-            }
+        for (int a = numHeaders - 1; a >= 0; a--) {
+            if (removes[a]) continue;
 
-            //build a new prob and submit it for processing
+            //the entry in the table union alpha
             int[] newalpha = new int[alpha.length + 1];
             System.arraycopy(alpha, 0, newalpha, 0, alpha.length);
-            newalpha[newalpha.length - 1] = fte.getLabel();
-            FPProb newprob = new FPProb(otab, newalpha, support);
-            newprob.setConditionalSupport(fte.getCnt());
-            FPProcess(newprob);
-        }
-    }
+            newalpha[newalpha.length - 1] = tree.getLabel(a);
 
-    private List<FPTreeNode> getPath(FPTreeNode node) {
-        ArrayList<FPTreeNode> list = new ArrayList<FPTreeNode>();
-        if (node.isRoot()) return list;
+            if (isSubsetOfClosedItemsetOfSameSupport(newalpha, newalpha.length, tree.getSupport(a))) continue;
 
-        node = node.getParent();
-        while (true) {
-            if (node.isRoot())
-                return  list;
+            //project the conditional tree and submit it for processing
 
-            list.add(node);
-            node = node.getParent();
+            int[] counts = tree.getConditionalCounts(a);
+            int[] labels = new int[a];
+            for (int r = 0; r < a; r++)
+                labels[r] = tree.getLabel(r);
+
+            boolean[] include = new boolean[a];
+            newalpha = selectHeader(labels, counts, include, newalpha, support, Integer.MAX_VALUE, tree.getSupport(a));
+            FPProcess(tree.project(a, counts, include), newalpha, support);
         }
     }
 
     //=============
     // Inner Class
     //=============
-    protected class FeatureComparator implements java.util.Comparator<FeatureTableElement> {
-
-        public int compare(FeatureTableElement fte1, FeatureTableElement fte2) {
-            if (fte1.getCnt() == fte2.getCnt()) {
-                if (fte1.getLabel() > fte2.getLabel()) {
-                    return  1;
-                }
-                else if (fte1.getLabel() < fte2.getLabel()) {
-                    return  -1;
-                }
-                else {
-                    console.severe("The features are identical - this should never happen!");
-                    return  0;
-                }
-            }
-            else if (fte1.getCnt() > fte2.getCnt()) {
-                return  -1;
-            }
-            else {
-                return  1;
-            }
-        }
-    }
 
     // compare two patterns based on support
     // added on May 28, 2009
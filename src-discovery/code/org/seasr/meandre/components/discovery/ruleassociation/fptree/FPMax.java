@@ -0,0 +1,153 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.components.discovery.ruleassociation.fptree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.meandre.annotations.Component;
+import org.meandre.annotations.Component.Licenses;
+import org.meandre.annotations.ComponentInput;
+import org.meandre.annotations.ComponentOutput;
+import org.meandre.core.ComponentContext;
+import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPMaxMiner;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPattern;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPProb;
+
+/**
+ * @author Boris Capitanu
+ */
+
+@Component(
+        creator = "Boris Capitanu",
+        description = "<p>Overview: " +
+                      "This module implements the FPMax algorithm to generate maximal frequent itemsets: the " +
+                      "frequent itemsets that are not contained in any other frequent itemset. " +
+                      "</p><p>Detailed Description: " +
+                      "This module takes an <i>FPProb</i> object that has been generated by a <i>Large Item Table Generator</i> " +
+                      "module and uses the FPMax algorithm to find the largest combinations of items that satisfy a minimum " +
+                      "support criteria. The user controls the support criteria via the <i>Support</i> property of " +
+                      "LargeItemTableGenerator. Every frequent itemset is a subset of one of the maximal itemsets, so " +
+                      "when only the frontier of the frequent itemsets is needed this module avoids enumerating (and then " +
+                      "discarding) all of them." +
+                      "</p><p>The maximal itemsets are output both as a list of patterns, like the <i>CLOSET</i> module, and " +
+                      "as an array holding, for each itemset, its items followed by its support, like the <i>FPGrowth</i> module." +
+                      "</p><p>References: " +
+                      "For more information on the FPMax algorithm, see &quot;Efficiently Using Prefix-trees in Mining " +
+                      "Frequent Itemsets&quot;, Gosta Grahne and Jianfei Zhu, 2003. " +
+                      "</p><p>Scalability: " +
+                      "Only the maximal itemsets are kept in memory. A conditional FP-tree is not built when the items it " +
+                      "could produce are already contained in a maximal itemset found before. The FP-tree attached to the " +
+                      "<i>FPProb</i> object by a <i>Support Boundary Finder</i> is reused when present." +
+                      "</p><p>Data Type Restrictions: " +
+                      "While this module can operate on attributes of any datatype, in practice it is usually infeasible " +
+                      "to use it with continuous-valued attributes.   The module considers each [attribute,value] pair that occurs " +
+                      "in the examples individually when building the frequent itemsets.  Continuous attributes (and categorical " +
+                      "attributes with a large number of values) are less likely to meet the Minimum Support requirements " +
+                      "and can result in unacceptably long execution time.",
+        name = "FPMax",
+        tags = "fpmax, maximal frequent itemsets, frequent itemsets, itemsets",
+        rights = Licenses.UofINCSA,
+        baseURL = "meandre://seasr.org/components/"
+)
+public class FPMax extends AbstractExecutableComponent {
+
+    //------------------------------ INPUTS ------------------------------------------------------
+
+    @ComponentInput(
+            description = "The input parameters encapsulated in an FPProb object.",
+            name= "fp_prob"
+    )
+    protected static final String IN_FPPROB = "fp_prob";
+
+    //------------------------------ OUTPUTS -----------------------------------------------------
+
+    @ComponentOutput(
+            description = "List of all maximal frequent patterns discovered.",
+            name = "patterns"
+    )
+    protected static final String OUT_PATTERNS = "patterns";
+
+    @ComponentOutput(
+            description = "The maximal frequent itemsets discovered. Each entry holds the items of an itemset " +
+                          "followed by the number of examples in which the itemset occurs.",
+            name = "freq_item_sets"
+    )
+    protected static final String OUT_FREQ_ITEM_SETS = "freq_item_sets";
+
+    //--------------------------------------------------------------------------------------------
+
+    @Override
+    public void initializeCallBack(ComponentContextProperties ccp) throws Exception {
+    }
+
+    @Override
+    public void executeCallBack(ComponentContext cc) throws Exception {
+        FPProb prob = (FPProb) cc.getDataComponentFromInput(IN_FPPROB);
+
+        long start = System.currentTimeMillis();
+        List<FPPattern> patterns = new FPMaxMiner().mine(prob);
+        console.fine(patterns.size() + " maximal patterns discovered in " +
+                (System.currentTimeMillis() - start) / 1000 + " seconds");
+
+        int[][] ovals = new int[patterns.size()][];
+        for (int i = 0, n = patterns.size(); i < n; i++) {
+            FPPattern pattern = patterns.get(i);
+            pattern.setElementMapping(prob.getElementMapping());
+
+            int[] items = pattern.getPatternArray();
+            ovals[i] = new int[items.length + 1];
+            System.arraycopy(items, 0, ovals[i], 0, items.length);
+            ovals[i][items.length] = pattern.getSupport();
+        }
+
+        cc.pushDataComponentToOutput(OUT_PATTERNS, new ArrayList<FPPattern>(patterns));
+        cc.pushDataComponentToOutput(OUT_FREQ_ITEM_SETS, ovals);
+    }
+
+    @Override
+    public void disposeCallBack(ComponentContextProperties ccp) throws Exception {
+    }
+}
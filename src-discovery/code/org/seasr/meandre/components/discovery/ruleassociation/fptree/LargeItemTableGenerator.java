@@ -42,6 +42,8 @@
 
 package org.seasr.meandre.components.discovery.ruleassociation.fptree;
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 import java.util.ArrayList;
 import java.util.Collections;
 
@@ -59,7 +61,6 @@ import org.seasr.datatypes.datamining.table.MutableTable;
 import org.seasr.datatypes.datamining.table.Sparse;
 import org.seasr.datatypes.datamining.table.Table;
 import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPattern;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPProb;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPSparse;
 
@@ -235,10 +236,10 @@ public class LargeItemTableGenerator extends AbstractExecutableComponent {
         int ccnt = _ifeatures.length;
 
         FPSparse otab = new FPSparse(ccnt);
-        FPPattern.clearElementMapping();
+        TIntObjectHashMap<String> eltMap = new TIntObjectHashMap<String>(ccnt);
 
         for (int i = 0, n = ccnt; i < n; i++) {
-            FPPattern.addElementMapping(i, in_table.getColumnLabel(_ifeatures[i]));
+            eltMap.put(i, in_table.getColumnLabel(_ifeatures[i]));
             otab.addColumn(i);
         }
 
@@ -258,6 +259,7 @@ public class LargeItemTableGenerator extends AbstractExecutableComponent {
          */
         int[] flist = new int[0];
         FPProb prob = new FPProb(otab, flist, this._support);
+        prob.setElementMapping(eltMap);
 
         cc.pushDataComponentToOutput(OUT_FPPROB, prob);
     }
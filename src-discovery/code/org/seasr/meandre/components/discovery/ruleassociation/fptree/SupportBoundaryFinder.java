@@ -1,10 +1,5 @@
 package org.seasr.meandre.components.discovery.ruleassociation.fptree;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-import java.util.TreeSet;
-
 import org.meandre.annotations.Component;
 import org.meandre.annotations.ComponentInput;
 import org.meandre.annotations.ComponentOutput;
@@ -15,16 +10,18 @@ import org.meandre.core.ComponentContextProperties;
 import org.meandre.core.ComponentExecutionException;
 import org.meandre.core.ExecutableComponent;
 import org.meandre.core.system.components.ext.StreamDelimiter;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPArrayTree;
 import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPProb;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPSparse;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPTreeNode;
-import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FeatureTableElement;
 
 @Component(creator="Lily Dong",
         description="<p>Overview: " +
     	"This module will scan the item sets in an <i>FPProb</i> object " +
    		"and determine the minimum and maximum supports. It adds this information " +
     	"to the <i>FPProb</i> object before writing it to output." +
+    	"</p><p>Scalability: " +
+    	"The FP-tree built to find the boundaries holds all the items and is attached " +
+    	"to the <i>FPProb</i> object; the miners downstream filter it to the items " +
+    	"frequent at the support they mine at instead of scanning the table again." +
     	"</p>" +
     	"</p><p>References: " +
     	"For more information on the FPGrowth frequent pattern mining algorithm, see &quot;Mining Frequent Patterns " +
@@ -101,57 +98,33 @@ public class SupportBoundaryFinder implements ExecutableComponent {
 
 
   private FPProb FPProcess(FPProb prob) {
-    FPTreeNode root = new FPTreeNode( -1, null, -1, -1);
-    FPSparse tab = prob.getTable();
     int support = prob.getSupport();
     int maxSupport = prob.getMaxSupport(); //remove Max
-    //Build header table
-    TreeSet tfeats = new TreeSet(new Feature_Comparator());
 
-    int numrows = tab.getNumRows();
-    for (int i = 0, n = tab.getNumColumns(); i < n; i++) {
-      int coltot = tab.getColumnTots(i);
-      tfeats.add(new FeatureTableElement(tab.getLabel(i), coltot, i));
+    //build the FPTree of all the items once; it is attached to the problem
+    //so the miners downstream only filter it for the support they mine at
+    FPArrayTree tree = prob.getTree();
+    if (tree == null) {
+      tree = FPArrayTree.build(prob.getTable(), 0);
+      prob.setTree(tree);
     }
 
-    //trim the list
-    ArrayList headers = new ArrayList();
-    boolean b = true;
-    for (Iterator it = tfeats.iterator(); it.hasNext(); ) {
-      FeatureTableElement fte = (FeatureTableElement) it.next();
-      headers.add(fte);
-    }
-
-    //build the FPTree
-    for (int i = 0, n = tab.getNumRows(); i < n; i++) {
-      FPTreeNode current = root;
-      for (int j = 0, m = headers.size(); j < m; j++) {
-        FeatureTableElement fte = (FeatureTableElement) headers.get(j);
-        int val = tab.getInt(i, fte.getPosition());
-        if (val > 0) {
-          FPTreeNode next = current.getChild(fte.getLabel());
-          if (next == null) {
-            if (current.isRoot() || (current.getNumChildren() > 0)) {
-              //leafcnt++;
-            }
-            next = new FPTreeNode(fte.getLabel(), current, val, j);
-            fte.addPointer(next);
-            current.addChild(next);
-          }
-          else {
-            next.inc(val);
-          }
-          current = next;
-        }
-      }
-      current.setHoldsDocs(true);
+    //a node holds documents when some rows end at it, i.e. when its count
+    //exceeds the counts of its children (the table holds unit values)
+    int numNodes = tree.getNumNodes();
+    boolean[] holdsDocs = new boolean[numNodes];
+    for (int node = 1; node < numNodes; node++) {
+      int cnt = tree.getCount(node);
+      for (int child = tree.getFirstChild(node); child != FPArrayTree.NONE; child = tree.getNextSibling(child))
+        cnt -= tree.getCount(child);
+      holdsDocs[node] = cnt > 0;
     }
 
     //find min support
-    support = discoverMinSupport(headers);
+    support = discoverMinSupport(tree, holdsDocs);
     System.out.println("SupportBoundaryFinder -- Min Support discovered is: " + support);
     if (_discSupport) {
-      maxSupport = discoverMaxSupport(headers, support);
+      maxSupport = discoverMaxSupport(tree, holdsDocs, support);
       System.out.println("SupportBoundaryFinder -- Max Support discovered is: " + maxSupport);
     }
     prob.setSupport(support);
@@ -159,98 +132,36 @@ public class SupportBoundaryFinder implements ExecutableComponent {
     return prob;
   }
 
-  private int discoverMinSupport(ArrayList headers){
-    for (int a = headers.size() - 1; a >= 0; a--) {
-      FeatureTableElement fte = (FeatureTableElement) headers.get(a);
-      List ptrs = fte.getPointers();
-      for (int i = 0, n = ptrs.size(); i < n; i++){
-        FPTreeNode node = (FPTreeNode)ptrs.get(i);
-        if (node.getParent().isRoot()){
-          return fte.getCnt();
+  private int discoverMinSupport(FPArrayTree tree, boolean[] holdsDocs){
+    for (int a = tree.getHeaderSize() - 1; a >= 0; a--) {
+      for (int node = tree.getFirstNode(a); node != FPArrayTree.NONE; node = tree.getNextNode(node)){
+        if (tree.isRoot(tree.getParent(node))){
+          return tree.getSupport(a);
         }
       }
-      for (int i = 0, n = ptrs.size(); i < n; i++){
-        FPTreeNode node = (FPTreeNode)ptrs.get(i);
-        node.getParent().setHoldsDocs(true);
+      for (int node = tree.getFirstNode(a); node != FPArrayTree.NONE; node = tree.getNextNode(node)){
+        holdsDocs[tree.getParent(node)] = true;
       }
     }
     return 0;
   }
 
-  private int discoverMaxSupport(ArrayList headers, int supp){
+  private int discoverMaxSupport(FPArrayTree tree, boolean[] holdsDocs, int supp){
     int lastsupp = Integer.MAX_VALUE;
-    for (int a = 0, b = headers.size(); a < b; a++) {
-      FeatureTableElement fte = (FeatureTableElement) headers.get(a);
-      if (fte.getCnt() == supp){
+    for (int a = 0, b = tree.getHeaderSize(); a < b; a++) {
+      int cnt = tree.getSupport(a);
+      if (cnt == supp){
         return lastsupp;
       }
-      List ptrs = fte.getPointers();
-      for (int i = 0, n = ptrs.size(); i < n; i++){
-        FPTreeNode node = (FPTreeNode)ptrs.get(i);
-        if (node.getHoldsDocs()){
+      for (int node = tree.getFirstNode(a); node != FPArrayTree.NONE; node = tree.getNextNode(node)){
+        if (holdsDocs[node]){
           return lastsupp;
         }
       }
-      if (lastsupp != fte.getCnt()){
-        lastsupp = fte.getCnt();
+      if (lastsupp != cnt){
+        lastsupp = cnt;
       }
     }
     return lastsupp;
   }
-
-
-  //=============
-  // Inner Class
-  //=============
-  private class Feature_Comparator
-      implements java.util.Comparator {
-
-    /** The small deviation allowed in double comparisons */
-    /**
-     * put your documentation comment here
-     */
-    public Feature_Comparator() {
-    }
-
-    //======================
-    //Interface: Comparator
-    //======================
-    public int compare(Object o1, Object o2) {
-      FeatureTableElement fte1 = (FeatureTableElement) o1;
-      FeatureTableElement fte2 = (FeatureTableElement) o2;
-      if (fte1.getCnt() == fte2.getCnt()) {
-        if (fte1.getLabel() > fte2.getLabel()) {
-          return 1;
-        }
-        else if (fte1.getLabel() < fte2.getLabel()) {
-          return -1;
-        }
-        else {
-          System.out.println("ERROR ERROR ERROR: We never want to go here ...");
-          return 0;
-        }
-      }
-      else if (fte1.getCnt() > fte2.getCnt()) {
-        return -1;
-      }
-      else {
-        return 1;
-      }
-    }
-
-    /**
-     * put your documentation comment here
-     * @param o
-     * @return
-     */
-    @Override
-    public boolean equals(Object o) {
-      return this.equals(o);
-    }
-  }
-
-
 }
-
-
-
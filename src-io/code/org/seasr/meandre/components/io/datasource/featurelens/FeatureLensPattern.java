@@ -77,7 +77,7 @@ public class FeatureLensPattern implements ExecutableComponent {
 		// Nice vertical-bar-delimited string version of a pattern's terms.
 		String s = new String();
 		for (TIntIterator pi = p.getPattern(); pi.hasNext();) {
-			s += FPPattern.getElementLabel((int) pi.next()) + "|";
+			s += p.getElementLabel(pi.next()) + "|";
 		}
 		s = s.substring(0, s.length() - 1);
 		return s;
@@ -49,9 +49,12 @@ package org.seasr.meandre.components.io.file.output;
 import org.meandre.core.*;
 import org.meandre.annotations.*;
 
+import java.io.IOException;
+
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.io.json.JettisonMappedXmlDriver;
 import org.meandre.core.ComponentContextProperties;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RuleAssociationCodec;
 
 /**This component takes an object and returns the JSON or XML representation
  * of the object. It uses XSTREAM library along with xpp3 library to create
@@ -59,18 +62,24 @@ import org.meandre.core.ComponentContextProperties;
  * enumerated here <http://xstream.codehaus.org/faq.html#Compatibility/>
  * Please refer to the XSTREAM library for more information
  *
+ * The protobuf format writes frequent item sets (int[][]), lists of FPPattern
+ * and rule tables in the compact binary form of RuleAssociationCodec; the
+ * output is then a byte array instead of a string.
+ *
  * @author Amit Kumar
  * Created on Feb 6, 2008 3:57:15 PM
  *
  */
-@Component(creator="Amit Kumar", description="Serializes an object to a string using xstream", 
+@Component(creator="Amit Kumar", description="Serializes an object to a string using xstream, " +
+		"or frequent item sets, pattern lists and rule tables to bytes using protobuf", 
 		tags="serialize output io", name="ObjectSerializer",
+        dependency={"protobuf-java-2.2.0.jar"},
         baseURL="meandre://seasr.org/components/data-mining/")
         
 public class ObjectSerializer implements ExecutableComponent {
 
 
-	@ComponentProperty(description="Format objects", name="format", defaultValue = "json")
+	@ComponentProperty(description="Format objects: json, xml or protobuf", name="format", defaultValue = "json")
 	public static final String DATA_PROPERTY_1 ="format";
 
 
@@ -78,11 +87,12 @@ public class ObjectSerializer implements ExecutableComponent {
 	public static final String DATA_INPUT_1 ="object";
 
 
-	@ComponentOutput(description="String serialized representation of the object", name="stringVal")
+	@ComponentOutput(description="String serialized representation of the object, " +
+			"or a byte array for the protobuf format", name="stringVal")
 	public static final String DATA_OUTPUT_1 ="stringVal";
 
 
-	@ComponentOutput(description="format json or xml", name="format")
+	@ComponentOutput(description="format json, xml or protobuf", name="format")
 	public static final String DATA_OUTPUT_2 ="format";
 
 
@@ -101,6 +111,20 @@ public class ObjectSerializer implements ExecutableComponent {
 		} catch (ClassNotFoundException e) {
 			throw new ComponentExecutionException("Class: " + object.getClass().getName() + " not found...");
 		}
+		if(format.equals("protobuf")){
+			if(!RuleAssociationCodec.canEncode(object))
+				throw new ComponentExecutionException("Class: " + clazz.getName() + " cannot be written as protobuf");
+			byte[] bytes;
+			try {
+				bytes = RuleAssociationCodec.toByteArray(object);
+			} catch (IOException e) {
+				throw new ComponentExecutionException(e);
+			}
+			context.pushDataComponentToOutput(DATA_OUTPUT_1, bytes);
+			context.pushDataComponentToOutput(DATA_OUTPUT_2, format);
+			return;
+		}
+
 		String output=null;
 		if(format.equals("json")){
 		XStream xstream = new XStream(new JettisonMappedXmlDriver());
@@ -111,7 +135,7 @@ public class ObjectSerializer implements ExecutableComponent {
 		xstream.alias(clazz.getSimpleName(), clazz);
 		output=xstream.toXML(object);
 		}else{
-			throw new ComponentExecutionException("Invalid format: expected json or xml");
+			throw new ComponentExecutionException("Invalid format: expected json, xml or protobuf");
 		}
 
 		context.pushDataComponentToOutput(DATA_OUTPUT_1, output);
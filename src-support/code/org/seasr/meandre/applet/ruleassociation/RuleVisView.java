@@ -59,6 +59,7 @@ import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
 import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 
@@ -1009,96 +1010,6 @@ class RuleVisView extends JPanel implements ActionListener {
             return Integer.toString(columnIndex);
         }
 
-        /**
-         Compare two rules on the basis of a primary key first and then a secondary
-         key. Primary and secondary keys can be either of support or confidence.
-         @param l the first entry to compare
-         @param r the second entry.
-         */
-        public int compare(int l) {
-            double primary1, secondary1;
-            if (sortOnConfidence) {
-                primary1 = rules.getConfidence(order[l]);
-                secondary1 = rules.getSupport(order[l]);
-            } else {
-                secondary1 = rules.getConfidence(order[l]);
-                primary1 = rules.getSupport(order[l]);
-            }
-
-            // First check on the primary keys
-            if (primary1 > bestPrimary)
-                return 1;
-            if (primary1 < bestPrimary)
-                return -1;
-
-            // Primarys are equal, check the secondary keys.
-            if (secondary1 > bestSecondary)
-                return 1;
-            if (secondary1 < bestSecondary)
-                return -1;
-            return 0;
-        }
-
-        /**
-         Swap two entries int he order array.
-         @param l the first entry.
-         @param r the second entry.
-         */
-        public void swap(int l, int r) {
-            int swap = order[l];
-            order[l] = order[r];
-            order[r] = swap;
-        }
-
-        /**
-         Set the pivot value for the quicksort.
-         */
-        double bestPrimary;
-        double bestSecondary;
-        private void setPivot(int l) {
-            if (sortOnConfidence) {
-                this.bestPrimary = rules.getConfidence(order[l]);
-                this.bestSecondary = rules.getSupport(order[l]);
-            } else {
-                this.bestSecondary = rules.getConfidence(order[l]);
-                this.bestPrimary = rules.getSupport(order[l]);
-            }
-        }
-
-        /**
-         Perform a quicksort on the data using the Tri-median method to select the pivot.
-         @param l the first rule.
-         @param r the last rule.
-         */
-        private void quickSort(int l, int r) {
-
-            int pivot = (r + l) / 2;
-            this.setPivot(pivot);
-
-            // from position i=l+1 start moving to the right, from j=r-2 start moving
-            // to the left, and swap when the fitness of i is more than the pivot
-            // and j's fitness is less than the pivot
-            int i = l;
-            int j = r;
-            while (i <= j) {
-                while ((i < r) && (this.compare(i) > 0))
-                    i++;
-                while ((j > l) && (this.compare(j) < 0))
-                    j--;
-                if (i <= j) {
-                    this.swap(i, j);
-                    i++;
-                    j--;
-                }
-            }
-
-            // sort the two halves
-            if (l < j)
-                quickSort(l, j);
-            if (i < r)
-                quickSort(j + 1, r);
-        }
-
         /**
          Bubble sort on confidence as primary key.
          */
@@ -1157,10 +1068,8 @@ class RuleVisView extends JPanel implements ActionListener {
          */
         public void sortConfidenceSupport() {
             sortOnConfidence = true;
-            //int numRules = rules.getNumRules();
             this.unSort();
-            this.quickSort(0, order.length - 1);
-
+            this.sortBy(rules.getRulesByConfidence());
         }
 
         /**
@@ -1168,10 +1077,29 @@ class RuleVisView extends JPanel implements ActionListener {
          */
         public void sortSupportConfidence() {
             sortOnConfidence = false;
-            //int numRules = rules.getNumRules();
             this.unSort();
-            this.quickSort(0, order.length - 1);
+            this.sortBy(rules.getRulesBySupport());
+        }
+
+        /**
+         Put the rules showing in the order of the rule table, which is
+         computed once for all the rules.
+         @param sorted all the rules in the order to use.
+         */
+        private void sortBy(int[] sorted) {
+            if (order.length == sorted.length) {
+                System.arraycopy(sorted, 0, order, 0, sorted.length);
+                return;
+            }
 
+            //we're currently filtered, keep the rules showing only
+            boolean[] showing = new boolean[sorted.length];
+            for (int i = 0; i < order.length; i++)
+                showing[order[i]] = true;
+            int inserted = 0;
+            for (int i = 0; i < sorted.length; i++)
+                if (showing[sorted[i]])
+                    order[inserted++] = sorted[i];
         }
 
         /**
@@ -1690,9 +1618,10 @@ class RuleVisView extends JPanel implements ActionListener {
 
             //boolean isValid = false;
             int numTrue = 0;
+            boolean[] matches = root.evaluate(table.getNumRules());
             boolean[] rulesToShow = new boolean[table.getNumRulesShowing()];
             for (int i = 0; i < rulesToShow.length; i++) {
-                rulesToShow[i] = root.evaluate(i);
+                rulesToShow[i] = matches[order[i]];
                 if (rulesToShow[i] == true)
                     numTrue++;
             }
@@ -1737,7 +1666,12 @@ class RuleVisView extends JPanel implements ActionListener {
         BOOL_OR = 107; // boolean OR operator
 
         private abstract class Node {
-            abstract boolean evaluate(int rowNumber) throws
+            /**
+             * Evaluates the node for all the rules at once, using the index of
+             * the rule table instead of looking at the rules one by one.
+             * @return an entry for each rule, true if the rule matches
+             */
+            abstract boolean[] evaluate(int numRules) throws
                     ExpressionException;
 
             @Override
@@ -1759,19 +1693,26 @@ class RuleVisView extends JPanel implements ActionListener {
              * Evaluates expressions in the form terminal op terminal
              */
             @Override
-            boolean evaluate(int rowNumber) throws ExpressionException {
+            boolean[] evaluate(int numRules) throws ExpressionException {
 
                 if (left == null || right == null)
                     throw new ExpressionException(
                             "FilterExpression:  && and || must operate on two values");
 
+                boolean[] l, r;
                 switch (opcode) {
                 case BOOL_AND:
-                    return left.evaluate(rowNumber) &&
-                            right.evaluate(rowNumber);
+                    l = left.evaluate(numRules);
+                    r = right.evaluate(numRules);
+                    for (int i = 0; i < numRules; i++)
+                        l[i] = l[i] && r[i];
+                    return l;
                 case BOOL_OR:
-                    return left.evaluate(rowNumber) ||
-                            right.evaluate(rowNumber);
+                    l = left.evaluate(numRules);
+                    r = right.evaluate(numRules);
+                    for (int i = 0; i < numRules; i++)
+                        l[i] = l[i] || r[i];
+                    return l;
                 default:
                     throw new ExpressionException(
                             "FilterExpression: illegal opcode: " + opcode);
@@ -1819,98 +1760,52 @@ class RuleVisView extends JPanel implements ActionListener {
              * Evaluates expression in the form element eq element
              */
             @Override
-            boolean evaluate(int rowNumber) throws ExpressionException {
+            boolean[] evaluate(int numRules) throws ExpressionException {
 
+                AttributeElement attribute;
+                NominalElement value;
                 if (left instanceof AttributeElement) {
                     if (right instanceof AttributeElement) { //attribute op attribute
                         throw new ExpressionException(
                                 "FilterExpression: invalid operation <attribute> <op> <attribute>");
-                    } else { //attribute op nominal
-                        int[] rows;
-
-                        switch (opcode) {
-                        case OP_EQ:
-                            rows = ((AttributeElement) left).evaluateString(
-                                    order[rowNumber]);
-                            for (int i = 0; i < rows.length; i++) {
-                                //compare if the criteria in the filter match the att/value combinations
-                                if (table.getNamesList().get(rows[i]).
-                                    equals(
-                                            ((AttributeElement) left).
-                                            toString() + "=" +
-                                            ((NominalElement) right).
-                                            evaluate())) {
-                                    return true;
-                                }
-                            }
-                            return false;
-
-                        case OP_NEQ:
-                            rows = ((AttributeElement) left).evaluateString(
-                                    order[rowNumber]);
-                            for (int i = 0; i < rows.length; i++) {
-                                if (table.getNamesList().get(rows[i]).
-                                    equals(
-                                            ((AttributeElement) left).
-                                            toString() + "=" +
-                                            ((NominalElement) right).
-                                            evaluate()))
-                                    return false;
-                            }
-                            return true;
-
-                        default:
-                            throw new ExpressionException(
-                                    "FilterExpression: illegal opcode on nominal: " +
-                                    opcode);
-                        }
                     }
+                    //attribute op nominal
+                    attribute = (AttributeElement) left;
+                    value = (NominalElement) right;
                 }
 
                 else { // left instanceof NominalElement
-                    if (right instanceof AttributeElement) { //nominal op attribute
-                        int[] rows;
-                        switch (opcode) {
-                        case OP_EQ:
-                            rows = ((AttributeElement) right).
-                                   evaluateString(order[rowNumber]);
-                            for (int i = 0; i < rows.length; i++) {
-                                if (table.getNamesList().get(rows[i]).
-                                    equals(
-                                            ((AttributeElement) right).
-                                            toString() + "=" +
-                                            ((NominalElement) left).
-                                            evaluate()))
-                                    return true;
-                            }
-                            return false;
-
-                        case OP_NEQ:
-                            rows = ((AttributeElement) right).
-                                   evaluateString(order[rowNumber]);
-                            for (int i = 0; i < rows.length; i++) {
-                                if (table.getNamesList().get(rows[i]).
-                                    equals(
-                                            ((AttributeElement) right).
-                                            toString() + "=" +
-                                            ((NominalElement) left).
-                                            evaluate()))
-                                    return false;
-                            }
-                            return true;
-
-                        default:
-                            throw new ExpressionException(
-                                    "FilterExpression: illegal opcode on nominal: " +
-                                    opcode);
-                        }
-                    }
-
-                    else { // right instanceof NominalElement
+                    if (!(right instanceof AttributeElement)) { // right instanceof NominalElement
                         throw new ExpressionException(
                                 "FilterExpression: invalid operation: <nominal> <op> <nominal>");
                     }
+                    //nominal op attribute
+                    attribute = (AttributeElement) right;
+                    value = (NominalElement) left;
                 }
+
+                boolean equal;
+                switch (opcode) {
+                case OP_EQ:
+                    equal = true;
+                    break;
+                case OP_NEQ:
+                    equal = false;
+                    break;
+                default:
+                    throw new ExpressionException(
+                            "FilterExpression: illegal opcode on nominal: " +
+                            opcode);
+                }
+
+                //the rules with the att/value combination in the filter
+                int[] rules = attribute.getRulesContaining(value.evaluate());
+                boolean[] matches = new boolean[numRules];
+                if (!equal)
+                    Arrays.fill(matches, true);
+                for (int i = 0; i < rules.length; i++)
+                    matches[rules[i]] = equal;
+                return matches;
             }
 
             //end Terminal.evaluate
@@ -1976,22 +1871,20 @@ class RuleVisView extends JPanel implements ActionListener {
                 this.condition = condition;
             }
 
-            public int[] evaluateString(int ruleNumber) {
+            /**
+             * Gets the rules that have this attribute with the value, in the
+             * antecedent(), in the consequent() or in either.
+             */
+            public int[] getRulesContaining(String value) {
+                String item = attributeLabel + "=" + value;
 
                 if (this.condition == 1) //the element was in an antecedent()
-                    return table.getRuleAntecedent(ruleNumber);
+                    return table.getRulesContaining(item, RuleTable.IN_ANTECEDENT);
                 if (this.condition == 2) { //the element was in a consequent()
-                    return table.getRuleConsequent(ruleNumber);
+                    return table.getRulesContaining(item, RuleTable.IN_CONSEQUENT);
                 }
                 //we want either consequent or antecedent
-                int[] ante = table.getRuleAntecedent(ruleNumber);
-                int[] both = new int[ante.length + 1];
-                for (int i = 0; i < ante.length; i++) {
-                    both[i] = ante[i];
-                }
-                //the next line assumes that there can only be one consequent per rule
-                both[ante.length] = table.getRuleConsequent(ruleNumber)[0];
-                return both;
+                return table.getRulesContaining(item, RuleTable.IN_RULE);
             }
 
             @Override
@@ -44,6 +44,7 @@ package org.seasr.meandre.applet.ruleassociation;
 
 import gnu.trove.list.array.TIntArrayList;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.net.URL;
@@ -62,6 +63,7 @@ import org.seasr.datatypes.datamining.table.basic.IntColumn;
 import org.seasr.datatypes.datamining.table.basic.MutableTableImpl;
 import org.seasr.datatypes.datamining.table.basic.TableImpl;
 import org.seasr.meandre.support.components.discovery.ruleassociation.FreqItemSet;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RuleAssociationCodec;
 import org.seasr.meandre.support.components.discovery.ruleassociation.RulePMMLTags;
 import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 
@@ -98,9 +100,15 @@ public class WebRuleVisApplet extends JApplet implements RulePMMLTags {
             URLConnection servletConnection = testServlet.openConnection();
             //servletConnection.setRequestProperty("Content-Type","application/octet-stream");
             InputStream inputStreamFromServlet = servletConnection.getInputStream();
-            ObjectInputStream ois = new ObjectInputStream(inputStreamFromServlet);
-            //ruleTable = (RuleTable) ois.readObject();
-            document = (Document)ois.readObject();
+            if ("protobuf".equals(getParameter("format"))) {
+                // the rule table itself, in the compact encoding
+                ruleTable = RuleAssociationCodec.readRuleTable(
+                        new BufferedInputStream(inputStreamFromServlet));
+                inputStreamFromServlet.close();
+            } else {
+                ObjectInputStream ois = new ObjectInputStream(inputStreamFromServlet);
+                document = (Document)ois.readObject();
+            }
         } catch (Exception ex) {
             ex.printStackTrace();
         }
@@ -129,7 +137,25 @@ public class WebRuleVisApplet extends JApplet implements RulePMMLTags {
             e.printStackTrace();
         }*/
 
-        //---------------
+        if (ruleTable == null)
+            readRuleTable();
+
+        RuleVisView rvv = new RuleVisView();
+        rvv.initView();
+
+        try {
+            rvv.setInput(ruleTable, 0);
+        } catch (Exception ex) {
+            ex.printStackTrace();
+        }
+
+        getContentPane().add(rvv);
+    }
+
+    /**
+     * Builds the rule table from the PMML document.
+     */
+    private void readRuleTable() {
         Element root = document.getRootElement();
         String version = root.attribute("version").getValue();
 
@@ -232,18 +258,6 @@ public class WebRuleVisApplet extends JApplet implements RulePMMLTags {
         ruleTable = new RuleTable(ti, minimumConfidence, minimumSupport,
                                      numberOfTransactions,
                                      names, sets);
-        //---------------
-
-        RuleVisView rvv = new RuleVisView();
-        rvv.initView();
-
-        try {
-            rvv.setInput(ruleTable, 0);
-        } catch (Exception ex) {
-            ex.printStackTrace();
-        }
-
-        getContentPane().add(rvv);
     }
 
     /**
@@ -0,0 +1,227 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster;
+
+import java.io.OutputStream;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.seasr.datatypes.datamining.table.Column;
+import org.seasr.datatypes.datamining.table.ExampleTable;
+import org.seasr.datatypes.datamining.table.Table;
+
+
+/**
+ * Writes a cluster model as PMML to a stream, one cluster at a time. The
+ * output is the same as the document of <code>WriteClusterDisplayPMML</code>:
+ * each cluster has its centroid, centroid norm, child distance and its first
+ * rows. Nothing is kept once a cluster is written.
+ *
+ * The hierarchy is walked without recursion, so deep trees such as single
+ * link ones are written as well, and the rows of a cluster are read from
+ * its leaves, without gathering the members of the cluster.
+ *
+ * @author Boris Capitanu
+ */
+public class ClusterPMMLWriter implements ClusterPMMLTags {
+
+    private static final String DTD = "http://www.dmg.org/v2-0/pmml_v2_0.dtd";
+
+    private ClusterPMMLWriter() {
+    }
+
+    /**
+     * Writes the PMML to a stream, in UTF-8. The stream is flushed but not closed.
+     *
+     * @param compareFunction the PMML name of the distance metric
+     * @param maxRows the largest number of rows written for a cluster
+     */
+    public static void write(ClusterModel model, String compareFunction, int maxRows, OutputStream out)
+        throws XMLStreamException {
+
+        XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        xml.writeDTD("<!DOCTYPE PMML PUBLIC \"" + DTD + "\" \"" + DTD + "\">");
+        xml.writeCharacters("\n");
+        write(model, compareFunction, maxRows, xml);
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    /**
+     * Writes the PMML element to an XML stream.
+     */
+    public static void write(ClusterModel model, String compareFunction, int maxRows, XMLStreamWriter xml)
+        throws XMLStreamException {
+
+        // Root
+        xml.writeStartElement("PMML");
+        xml.writeAttribute("version", "2.0");
+        xml.writeCharacters("\n");
+
+        // Header
+        xml.writeEmptyElement("Header");
+        xml.writeAttribute("copyright", "NCSA ALG");
+        xml.writeAttribute("description", "HAC cluster");
+        xml.writeCharacters("\n");
+
+        // Data dictionary
+        xml.writeStartElement(DATA_DICT);
+        for (int i = 0, n = model.getNumColumns(); i < n; i++) {
+            Column column = model.getColumn(i);
+            xml.writeEmptyElement(DATA_FIELD);
+            writeAttribute(xml, NAME, column.getLabel());
+            xml.writeAttribute(OPTYPE, column.getIsNominal() ? CATEGORICAL : CONTINUOUS);
+        }
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+
+        // Cluster model
+        xml.writeStartElement(CLUSTER_MODEL);
+        writeAttribute(xml, MODEL_NAME, model.getLabel());
+        xml.writeAttribute(FUNCTION_NAME, "clustering");
+        xml.writeAttribute(NUM_CLUSTERS, Integer.toString(model.getClusters().size()));
+        xml.writeAttribute(MODEL_CLASS, "centerBased");
+        xml.writeCharacters("\n");
+
+        // Mining schema and cluster fields, for the input features
+        ExampleTable table = (ExampleTable) model.getTable();
+        int[] inputs = table.getInputFeatures();
+
+        xml.writeStartElement(MINING_SCHEMA);
+        for (int i = 0; i < inputs.length; i++) {
+            xml.writeEmptyElement(MINING_FIELD);
+            writeAttribute(xml, NAME, table.getColumnLabel(inputs[i]));
+        }
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+
+        for (int i = 0; i < inputs.length; i++) {
+            xml.writeEmptyElement(CLUSTER_FIELD);
+            writeAttribute(xml, FIELD, table.getColumnLabel(inputs[i]));
+            xml.writeAttribute(COMPARE_FUNCTION, compareFunction);
+            xml.writeCharacters("\n");
+        }
+
+        // Clusters, parents before their children and left before right
+        List<TableCluster> stack = new ArrayList<TableCluster>();
+        stack.add(model.getRoot());
+        while (!stack.isEmpty()) {
+            TableCluster cluster = stack.remove(stack.size() - 1);
+            writeCluster(cluster, maxRows, xml);
+
+            TableCluster lc = cluster.getLC();
+            TableCluster rc = cluster.getRC();
+            if (lc != null && rc != null) {
+                stack.add(rc);
+                stack.add(lc);
+            }
+        }
+
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+        xml.writeEndElement();
+    }
+
+    private static void writeCluster(TableCluster cluster, int maxRows, XMLStreamWriter xml)
+        throws XMLStreamException {
+
+        xml.writeStartElement(CLUSTER);
+        xml.writeAttribute(NAME, Integer.toString(cluster.getClusterLabel()));
+
+        double[] centroid = cluster.getCentroid();
+        xml.writeStartElement(ARRAY);
+        xml.writeAttribute(NUMBER, Integer.toString(centroid.length));
+        xml.writeAttribute(TYPE, "real");
+        for (int j = 0; j < centroid.length; j++)
+            xml.writeCharacters(centroid[j] + " ");
+        xml.writeEndElement();
+
+        xml.writeEmptyElement("centroid_norm");
+        xml.writeAttribute("norm", Double.toString(cluster.getCentroidNorm()));
+        xml.writeEmptyElement("child_distance");
+        xml.writeAttribute("dist", Double.toString(cluster.getChildDistance()));
+
+        xml.writeStartElement("table");
+        Table table = cluster.getTable();
+        int numCols = table.getNumColumns();
+        IntBuffer rows = cluster.getMembers();
+        int numRows = (rows == null) ? 0 : Math.min(rows.limit(), maxRows);
+        for (int j = 0; j < numRows; j++) {
+            xml.writeStartElement("row");
+            for (int i = 0; i < numCols; i++)
+                xml.writeCharacters(table.getObject(rows.get(j), i).toString() + " ");
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+
+        TableCluster lc = cluster.getLC();
+        TableCluster rc = cluster.getRC();
+        if (lc != null && rc != null) {
+            xml.writeEmptyElement("right_child");
+            xml.writeAttribute("name", Integer.toString(rc.getClusterLabel()));
+            xml.writeEmptyElement("left_child");
+            xml.writeAttribute("name", Integer.toString(lc.getClusterLabel()));
+        }
+
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+    }
+
+    /**
+     * Writes an attribute unless its value is null, as a document would.
+     */
+    private static void writeAttribute(XMLStreamWriter xml, String name, String value)
+        throws XMLStreamException {
+
+        if (value != null)
+            xml.writeAttribute(name, value);
+    }
+}
@@ -42,9 +42,12 @@
 
 package org.seasr.meandre.support.components.discovery.cluster;
 
+import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.set.hash.TIntHashSet;
 
 import java.io.Serializable;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 
 import org.seasr.datatypes.datamining.table.ExampleTable;
 import org.seasr.datatypes.datamining.table.Sparse;
@@ -118,10 +121,25 @@ public class TableCluster implements Serializable {
 
    /**
     * rows indices into the columns of the <code>_table</code> that its data
-    * belongs to this cluster.
+    * belongs to this cluster. Only set for clusters built from rows; the
+    * members of merged clusters are kept in <code>_memberIndex.</code>
     */
    private int[] _members = null;
 
+   /**
+    * The members of a cluster tree in leaf order, shared by all the merged
+    * clusters in the tree. The members of this cluster are <code>
+    * _memberIndex[_memberOffset .. _memberOffset + _size - 1]</code>. Built
+    * the first time the members of the tree are asked for.
+    */
+   private int[] _memberIndex = null;
+
+   /** Position of the members of this cluster in <code>_memberIndex.</code> */
+   private int _memberOffset = 0;
+
+   /** The number of rows in this cluster, 0 if not known yet. */
+   private int _size = 0;
+
    /** Whether _table is a sparse table or not. */
    private boolean _sparse = false;
 
@@ -154,6 +172,7 @@ public class TableCluster implements Serializable {
       _table = table;
       _members = new int[1];
       _members[0] = row;
+      _size = 1;
 
       if (_table instanceof Sparse) {
          setSparse(true);
@@ -177,6 +196,7 @@ public class TableCluster implements Serializable {
    public TableCluster(Table table, int[] rows) {
       _table = table;
       _members = rows;
+      _size = rows.length;
 
       if (_table instanceof Sparse) {
          setSparse(true);
@@ -201,6 +221,7 @@ public class TableCluster implements Serializable {
       _table = table;
       _cluster1 = c1;
       _cluster2 = c2;
+      _size = c1.getSize() + c2.getSize();
 
       if (_table instanceof Sparse) {
          setSparse(true);
@@ -270,7 +291,7 @@ public class TableCluster implements Serializable {
          return;
       }
 
-      int[] members = this.getMemberIndices();
+      IntBuffer members = this.getMembers();
 
       if (!getSparse()) {
 
@@ -281,8 +302,8 @@ public class TableCluster implements Serializable {
             for (int i = 0, n = feats.length; i < n; i++) {
                sum = 0;
 
-               for (int j = 0, m = members.length; j < m; j++) {
-                  sum += _table.getDouble(members[j], feats[i]);
+               for (int j = 0, m = members.limit(); j < m; j++) {
+                  sum += _table.getDouble(members.get(j), feats[i]);
                }
 
                _centroid[i] = sum;
@@ -293,15 +314,15 @@ public class TableCluster implements Serializable {
             for (int i = 0, n = _table.getNumColumns(); i < n; i++) {
                sum = 0;
 
-               for (int j = 0, m = members.length; j < m; j++) {
-                  sum += _table.getDouble(members[j], i);
+               for (int j = 0, m = members.limit(); j < m; j++) {
+                  sum += _table.getDouble(members.get(j), i);
                }
 
                _centroid[i] = sum;
             }
          }
 
-         int cnt = members.length;
+         int cnt = members.limit();
 
          for (int i = 0, n = _centroid.length; i < n; i++) {
             _centroid[i] = _centroid[i] / cnt;
@@ -338,14 +359,14 @@ public class TableCluster implements Serializable {
 
          // System.out.println("Numcols: " + ( (ExampleTable)
          // _table).getInputFeatures().length);
-         for (int j = 0, m = members.length; j < m; j++) {
-            int[] feats = ((Sparse) _table).getRowIndices(members[j]);
+         for (int j = 0, m = members.limit(); j < m; j++) {
+            int[] feats = ((Sparse) _table).getRowIndices(members.get(j));
 
             for (int i = 0, n = feats.length; i < n; i++) {
 
                // if (ofeats.contains(new Integer(feats[i]))){
                if (ofeats.contains(feats[i])) {
-                  temp[feats[i]] += _table.getDouble(members[j], feats[i]);
+                  temp[feats[i]] += _table.getDouble(members.get(j), feats[i]);
                }
             }
          }
@@ -365,7 +386,7 @@ public class TableCluster implements Serializable {
          _spcentroid = new double[cnt];
          System.arraycopy(tempi, 0, this._cind, 0, cnt);
          System.arraycopy(tempv, 0, this._spcentroid, 0, cnt);
-         cnt = members.length;
+         cnt = members.limit();
 
          for (int i = 0, n = _spcentroid.length; i < n; i++) {
             _spcentroid[i] = _spcentroid[i] / cnt;
@@ -381,6 +402,9 @@ public class TableCluster implements Serializable {
     */
    public void cut() {
       computeCentroid();
+
+      // the members can no longer be listed from the sub clusters
+      getMembers();
       _cluster1 = null;
       _cluster2 = null;
    }
@@ -502,29 +526,90 @@ public class TableCluster implements Serializable {
     *         this TableCLuster.
     */
    public int[] getMemberIndices() {
-      int[] temparr = null;
+      IntBuffer members = getMembers();
 
-      if (_members == null) {
+      if (members == null) {
+         return null;
+      }
+
+      int[] temparr = new int[members.remaining()];
+      members.get(temparr);
+
+      return temparr;
+   }
+
+   /**
+    * Returns a read only view of the indices of rows in <code>_table</code>
+    * that are clustered in this TableCluster, in the same order as <code>
+    * getMemberIndices</code>. The view does not copy the indices: the first
+    * call on a merged cluster lists the members of its whole sub tree once,
+    * in leaf order, and every merged cluster in the sub tree views its range
+    * of that list.
+    *
+    * @return IntBuffer Indices of rows in <code>_table</code> that are
+    *         clustered in this TableCluster, from index 0 to <code>
+    *         getSize() - 1</code>.
+    */
+   public IntBuffer getMembers() {
+
+      if (_members != null) {
+         return IntBuffer.wrap(_members).asReadOnlyBuffer();
+      }
+
+      if (_memberIndex == null) {
 
          if ((_cluster1 == null) || (_cluster2 == null)) {
             System.out.println("ERROR: TableCluster.getMemberIndices() -- no clusters or indices defined.");
 
             return null;
-         } else {
-            int[] arr1 = _cluster1.getMemberIndices();
-            int[] arr2 = _cluster2.getMemberIndices();
-            _members = new int[arr1.length + arr2.length];
-            System.arraycopy(arr1, 0, _members, 0, arr1.length);
-            System.arraycopy(arr2, 0, _members, arr1.length, arr2.length);
          }
-      }
 
-      temparr = new int[_members.length];
-      System.arraycopy(_members, 0, temparr, 0, _members.length);
+         indexMembers();
+      }
 
-      return temparr;
+      return IntBuffer.wrap(_memberIndex, _memberOffset, getSize()).slice()
+                      .asReadOnlyBuffer();
    }
 
+   /**
+    * Lists the members of the sub tree of this merged cluster in leaf order
+    * and points every merged cluster in it to its range of the list. Walks the
+    * tree with a stack, as single link trees can be as deep as they are
+    * large.
+    */
+   private void indexMembers() {
+      int[] index = new int[getSize()];
+      ArrayList<TableCluster> stack = new ArrayList<TableCluster>();
+      TIntArrayList offsets = new TIntArrayList();
+
+      stack.add(this);
+      offsets.add(0);
+
+      while (!stack.isEmpty()) {
+         TableCluster tc = stack.remove(stack.size() - 1);
+         int offset = offsets.removeAt(offsets.size() - 1);
+
+         if (
+             (tc._members != null) || (tc._cluster1 == null) ||
+                (tc._cluster2 == null)) {
+
+            // rows, or a cut cluster that keeps its members
+            IntBuffer members = tc.getMembers();
+
+            if (members != null) {
+               members.get(index, offset, members.remaining());
+            }
+         } else {
+            tc._memberIndex = index;
+            tc._memberOffset = offset;
+            stack.add(tc._cluster2);
+            offsets.add(offset + tc._cluster1.getSize());
+            stack.add(tc._cluster1);
+            offsets.add(offset);
+         }
+      }
+   } // end method indexMembers
+
    /**
     * Returns the centroid value of the column indexed <codE>z</code> in the
     * table this cluster refers to (<code>_table</code>. Returns zero in the
@@ -569,7 +654,20 @@ public class TableCluster implements Serializable {
     *
     * @return int The number of rows included in this cluster.
     */
-   public int getSize() { return getMemberIndices().length; }
+   public int getSize() {
+
+      // clusters serialized before the size was kept
+      if (_size == 0) {
+
+         if (_members != null) {
+            _size = _members.length;
+         } else if ((_cluster1 != null) && (_cluster2 != null)) {
+            _size = _cluster1.getSize() + _cluster2.getSize();
+         }
+      }
+
+      return _size;
+   }
 
    /**
     * Returns true if the input table is a sparse table. Otherwise returns
@@ -0,0 +1,307 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+/**
+ * The distances between <code>n</code> clusters, kept as the strict upper
+ * triangle of the distance matrix in one row-major primitive array: the
+ * distance between <code>i</code> and <code>j</code>, <code>i &lt; j</code>,
+ * is at <code>i * (2n - i - 1) / 2 + j - i - 1</code>. The array is split in
+ * chunks so that it can hold more than <code>Integer.MAX_VALUE</code>
+ * entries. The distances are kept either as doubles (8 bytes per pair) or as
+ * floats (4 bytes per pair).
+ *
+ * @author Boris Capitanu
+ */
+public abstract class CondensedDistanceMatrix {
+
+   //~ Static fields/initializers **********************************************
+
+   /** Number of entries in a chunk, as a power of two. */
+   static private final int CHUNK_BITS = 26;
+
+   /** Mask of the entry offset within its chunk. */
+   static private final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+   //~ Instance fields *********************************************************
+
+   /** Number of rows (and columns) of the matrix. */
+   protected final int _size;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates a new matrix.
+    *
+    * @param size Number of rows of the matrix
+    */
+   protected CondensedDistanceMatrix(int size) { _size = size; }
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Creates a matrix for <code>size</code> clusters with all distances set to
+    * 0.
+    *
+    * @param  size            Number of rows of the matrix
+    * @param  singlePrecision Whether to keep the distances as floats
+    *
+    * @return The new matrix
+    */
+   static public CondensedDistanceMatrix create(int size,
+                                                boolean singlePrecision) {
+
+      if (singlePrecision) {
+         return new FloatMatrix(size);
+      }
+
+      return new DoubleMatrix(size);
+   }
+
+   /**
+    * Returns the number of entries of the condensed matrix for <code>
+    * size</code> rows.
+    *
+    * @param  size Number of rows
+    *
+    * @return <code>size * (size - 1) / 2</code>
+    */
+   static public long length(int size) {
+      return (long) size * (size - 1) / 2;
+   }
+
+   /**
+    * Returns the lengths of the chunks needed for <code>length</code>
+    * entries.
+    *
+    * @param  length Number of entries
+    *
+    * @return The chunk lengths
+    */
+   static protected int[] chunkLengths(long length) {
+      int[] lengths = new int[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+
+      for (int c = 0; c < lengths.length; c++) {
+         lengths[c] =
+            (int) Math.min(CHUNK_MASK + 1, length - ((long) c << CHUNK_BITS));
+      }
+
+      return lengths;
+   }
+
+   /**
+    * Returns the chunk holding the entry at <code>index</code>.
+    *
+    * @param  index Index in the condensed matrix
+    *
+    * @return The chunk number
+    */
+   static protected int chunk(long index) {
+      return (int) (index >>> CHUNK_BITS);
+   }
+
+   /**
+    * Returns the offset of the entry at <code>index</code> within its chunk.
+    *
+    * @param  index Index in the condensed matrix
+    *
+    * @return The offset in the chunk
+    */
+   static protected int offset(long index) { return (int) (index & CHUNK_MASK); }
+
+   /**
+    * Returns the position of the distance between <code>i</code> and <code>
+    * j</code> in the condensed matrix.
+    *
+    * @param  i A row, different from <code>j</code>
+    * @param  j A row, different from <code>i</code>
+    *
+    * @return The index in the condensed matrix
+    */
+   public long index(int i, int j) {
+
+      if (i > j) {
+         int t = i;
+         i = j;
+         j = t;
+      }
+
+      return (long) i * (2L * _size - i - 1) / 2 + (j - i - 1);
+   }
+
+   /**
+    * Returns the number of rows of the matrix.
+    *
+    * @return The number of clusters whose distances are kept
+    */
+   public int size() { return _size; }
+
+   /**
+    * Returns whether the distances are kept as floats.
+    *
+    * @return true if the distances are kept as floats
+    */
+   abstract public boolean isSinglePrecision();
+
+   /**
+    * Returns the distance between <code>i</code> and <code>j</code>.
+    *
+    * @param  i A row, different from <code>j</code>
+    * @param  j A row, different from <code>i</code>
+    *
+    * @return The distance
+    */
+   public double get(int i, int j) { return get(index(i, j)); }
+
+   /**
+    * Sets the distance between <code>i</code> and <code>j</code>.
+    *
+    * @param  i    A row, different from <code>j</code>
+    * @param  j    A row, different from <code>i</code>
+    * @param  dist The distance
+    *
+    * @return The distance as it was stored, which is rounded to a float for a
+    *         single precision matrix
+    */
+   public double set(int i, int j, double dist) {
+      return set(index(i, j), dist);
+   }
+
+   /**
+    * Returns the distance at <code>index</code> in the condensed matrix.
+    *
+    * @param  index Index in the condensed matrix
+    *
+    * @return The distance
+    */
+   abstract public double get(long index);
+
+   /**
+    * Sets the distance at <code>index</code> in the condensed matrix.
+    *
+    * @param  index Index in the condensed matrix
+    * @param  dist  The distance
+    *
+    * @return The distance as it was stored
+    */
+   abstract public double set(long index, double dist);
+
+   //~ Inner Classes ***********************************************************
+
+   /**
+    * Matrix of double distances.
+    */
+   static private final class DoubleMatrix extends CondensedDistanceMatrix {
+
+      /** The chunks of the condensed matrix. */
+      private final double[][] _chunks;
+
+      /**
+       * Creates a new matrix.
+       *
+       * @param size Number of rows of the matrix
+       */
+      DoubleMatrix(int size) {
+         super(size);
+
+         int[] lengths = chunkLengths(length(size));
+         _chunks = new double[lengths.length][];
+
+         for (int c = 0; c < lengths.length; c++) {
+            _chunks[c] = new double[lengths[c]];
+         }
+      }
+
+      public boolean isSinglePrecision() { return false; }
+
+      public double get(long index) {
+         return _chunks[chunk(index)][offset(index)];
+      }
+
+      public double set(long index, double dist) {
+         _chunks[chunk(index)][offset(index)] = dist;
+
+         return dist;
+      }
+   } // end class DoubleMatrix
+
+   /**
+    * Matrix of float distances.
+    */
+   static private final class FloatMatrix extends CondensedDistanceMatrix {
+
+      /** The chunks of the condensed matrix. */
+      private final float[][] _chunks;
+
+      /**
+       * Creates a new matrix.
+       *
+       * @param size Number of rows of the matrix
+       */
+      FloatMatrix(int size) {
+         super(size);
+
+         int[] lengths = chunkLengths(length(size));
+         _chunks = new float[lengths.length][];
+
+         for (int c = 0; c < lengths.length; c++) {
+            _chunks[c] = new float[lengths[c]];
+         }
+      }
+
+      public boolean isSinglePrecision() { return true; }
+
+      public double get(long index) {
+         return _chunks[chunk(index)][offset(index)];
+      }
+
+      public double set(long index, double dist) {
+         float stored = (float) dist;
+         _chunks[chunk(index)][offset(index)] = stored;
+
+         return stored;
+      }
+   } // end class FloatMatrix
+
+} // end class CondensedDistanceMatrix
@@ -0,0 +1,439 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+//==============
+// Java Imports
+//==============
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+//===============
+// Other Imports
+//===============
+
+import org.seasr.meandre.support.components.discovery.cluster.TableCluster;
+
+
+/**
+ * Computes the distances between the centroids of clusters, with the
+ * Euclidean, Manhattan and cosine metrics of <code>HACWork.distance</code>,
+ * over dense or sparse centroids.
+ *
+ * <p>The centroids and their norms are fetched once. The pairs are computed
+ * in square blocks of <code>BLOCK</code> by <code>BLOCK</code> clusters, so
+ * that the centroids of both blocks stay in cache, and the rows of blocks are
+ * spread over worker threads. Distances less than 0 are stored as 0, as in
+ * the proximity matrix of <code>HACWork</code>.</p>
+ *
+ * @author Boris Capitanu
+ */
+public final class DistanceKernel {
+
+   //~ Static fields/initializers **********************************************
+
+   /** Number of clusters in a block. */
+   static public final int BLOCK = 64;
+
+   //~ Instance fields *********************************************************
+
+   /** Number of clusters. */
+   private final int _n;
+
+   /** The distance metric, one of the <code>HACWork</code> constants. */
+   private final int _metric;
+
+   /** Number of worker threads. */
+   private final int _numThreads;
+
+   /** The dense centroids, null for sparse clusters. */
+   private final double[][] _centroids;
+
+   /** The column indices of the sparse centroids, null for dense clusters. */
+   private final int[][] _sparseInd;
+
+   /** The values of the sparse centroids, null for dense clusters. */
+   private final double[][] _sparseVal;
+
+   /** The centroid norms, for the cosine metric. */
+   private final double[] _norms;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates a kernel for the centroids of <code>clusters</code>.
+    *
+    * @param  clusters   The clusters
+    * @param  metric     The distance metric, one of the <code>HACWork</code>
+    *                    constants
+    * @param  numThreads The number of worker threads; 0 or less means use all
+    *                    available processors
+    *
+    * @throws IllegalArgumentException If the distance metric is unknown
+    */
+   public DistanceKernel(TableCluster[] clusters, int metric, int numThreads) {
+
+      if ((metric != HACWork.s_Euclidean_DISTANCE) &&
+             (metric != HACWork.s_Manhattan_DISTANCE) &&
+             (metric != HACWork.s_Cosine_DISTANCE)) {
+         throw new IllegalArgumentException("Unknown distance metric: " +
+                                            metric);
+      }
+
+      _n = clusters.length;
+      _metric = metric;
+      _numThreads =
+         (numThreads > 0) ? numThreads
+                          : Runtime.getRuntime().availableProcessors();
+
+      boolean sparse = (_n > 0) && clusters[0].getSparse();
+
+      if (sparse) {
+         _centroids = null;
+         _sparseInd = new int[_n][];
+         _sparseVal = new double[_n][];
+
+         for (int i = 0; i < _n; i++) {
+            _sparseInd[i] = clusters[i].getSparseCentroidInd();
+            _sparseVal[i] = clusters[i].getSparseCentroidValues();
+         }
+      } else {
+         _centroids = new double[_n][];
+         _sparseInd = null;
+         _sparseVal = null;
+
+         for (int i = 0; i < _n; i++) {
+            _centroids[i] = clusters[i].getCentroid();
+         }
+      }
+
+      if (metric == HACWork.s_Cosine_DISTANCE) {
+         _norms = new double[_n];
+
+         for (int i = 0; i < _n; i++) {
+            _norms[i] = clusters[i].getCentroidNorm();
+         }
+      } else {
+         _norms = null;
+      }
+   } // end constructor
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Returns the number of clusters.
+    *
+    * @return The number of clusters
+    */
+   public int size() { return _n; }
+
+   /**
+    * Returns the number of worker threads.
+    *
+    * @return The number of worker threads
+    */
+   public int getNumThreads() { return _numThreads; }
+
+   /**
+    * Returns the distance between clusters <code>i</code> and <code>j</code>,
+    * or 0 if it is less than 0.
+    *
+    * @param  i A cluster
+    * @param  j A cluster
+    *
+    * @return The distance
+    */
+   public double distance(int i, int j) {
+      double dist;
+
+      if (_centroids != null) {
+         dist = dense(_centroids[i], _centroids[j]);
+      } else {
+         dist = sparse(_sparseInd[i], _sparseVal[i], _sparseInd[j],
+                       _sparseVal[j]);
+      }
+
+      if (_metric == HACWork.s_Cosine_DISTANCE) {
+         dist = Math.abs(1 - (dist / (_norms[i] * _norms[j])));
+      }
+
+      return (dist < 0) ? 0 : dist;
+   }
+
+   /**
+    * Returns the distance between two dense centroids, or their dot product
+    * for the cosine metric.
+    *
+    * @param  c1 A centroid
+    * @param  c2 A centroid of the same length
+    *
+    * @return The distance or the dot product
+    */
+   private double dense(double[] c1, double[] c2) {
+      double sum = 0;
+
+      if (_metric == HACWork.s_Euclidean_DISTANCE) {
+
+         for (int k = 0, n = c1.length; k < n; k++) {
+            double diff = c1[k] - c2[k];
+            sum += diff * diff;
+         }
+
+         return Math.sqrt(sum);
+      } else if (_metric == HACWork.s_Manhattan_DISTANCE) {
+
+         for (int k = 0, n = c1.length; k < n; k++) {
+            sum += Math.abs(c1[k] - c2[k]);
+         }
+
+         return sum;
+      } else {
+
+         for (int k = 0, n = c1.length; k < n; k++) {
+            sum += c1[k] * c2[k];
+         }
+
+         return sum;
+      }
+   } // end method dense
+
+   /**
+    * Returns the distance between two sparse centroids, or their dot product
+    * for the cosine metric.
+    *
+    * @param  ind1 The column indices of a centroid, in increasing order
+    * @param  val1 The values of the centroid
+    * @param  ind2 The column indices of a centroid, in increasing order
+    * @param  val2 The values of the centroid
+    *
+    * @return The distance or the dot product
+    */
+   private double sparse(int[] ind1, double[] val1, int[] ind2,
+                         double[] val2) {
+      double sum = 0;
+      int x = 0;
+      int y = 0;
+
+      if (_metric == HACWork.s_Cosine_DISTANCE) {
+
+         while ((x < ind1.length) && (y < ind2.length)) {
+
+            if (ind1[x] == ind2[y]) {
+               sum += val1[x++] * val2[y++];
+            } else if (ind1[x] < ind2[y]) {
+               x++;
+            } else {
+               y++;
+            }
+         }
+
+         return sum;
+      }
+
+      boolean euclidean = _metric == HACWork.s_Euclidean_DISTANCE;
+
+      while ((x < ind1.length) || (y < ind2.length)) {
+         double diff;
+
+         if ((y == ind2.length) ||
+                ((x < ind1.length) && (ind1[x] < ind2[y]))) {
+            diff = val1[x++];
+         } else if ((x == ind1.length) || (ind2[y] < ind1[x])) {
+            diff = val2[y++];
+         } else {
+            diff = val1[x++] - val2[y++];
+         }
+
+         sum += euclidean ? diff * diff : Math.abs(diff);
+      }
+
+      return euclidean ? Math.sqrt(sum) : sum;
+   } // end method sparse
+
+   /**
+    * Computes the distances of the block of clusters starting at <code>
+    * from</code> to every later cluster into the proximity matrix.
+    *
+    * @param proxm The proximity matrix
+    * @param from  The first cluster of the block
+    */
+   private void fillBlockRow(CondensedDistanceMatrix proxm, int from) {
+      int to = Math.min(from + BLOCK, _n);
+
+      for (int jfrom = from; jfrom < _n; jfrom += BLOCK) {
+         int jto = Math.min(jfrom + BLOCK, _n);
+
+         for (int i = from; i < to; i++) {
+            int j = Math.max(jfrom, i + 1);
+
+            if (j >= jto) {
+               continue;
+            }
+
+            // the entries of row i are contiguous in the condensed matrix
+            long index = proxm.index(i, j);
+
+            for (; j < jto; j++) {
+               proxm.set(index++, distance(i, j));
+            }
+         }
+      }
+   } // end method fillBlockRow
+
+   /**
+    * Computes the distances between all the clusters into a proximity matrix.
+    *
+    * @param  proxm The proximity matrix, of the same size as this kernel
+    *
+    * @throws Exception If a worker thread fails
+    */
+   public void fill(final CondensedDistanceMatrix proxm) throws Exception {
+      int numBlocks = (_n + BLOCK - 1) / BLOCK;
+
+      if ((_numThreads == 1) || (numBlocks <= 1)) {
+
+         for (int from = 0; from < _n; from += BLOCK) {
+            fillBlockRow(proxm, from);
+         }
+
+         return;
+      }
+
+      ExecutorService executor =
+         Executors.newFixedThreadPool(Math.min(_numThreads, numBlocks));
+
+      try {
+         List<Future<Object>> results = new ArrayList<Future<Object>>(numBlocks);
+
+         // the first rows of blocks have the most pairs, so they go first
+         for (int from = 0; from < _n; from += BLOCK) {
+            final int blockFrom = from;
+            results.add(executor.submit(new Callable<Object>() {
+                  public Object call() {
+                     fillBlockRow(proxm, blockFrom);
+
+                     return null;
+                  }
+               }));
+         }
+
+         for (Future<Object> result : results) {
+            result.get();
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   } // end method fill
+
+   /**
+    * Computes the distances of clusters <code>from .. to-1</code> to the
+    * clusters before them: <code>rows[r][j]</code> receives the distance
+    * between clusters <code>from + r</code> and <code>j</code>, for <code>j
+    * &lt; from + r</code>.
+    *
+    * @param  from     The first cluster
+    * @param  to       The cluster after the last one
+    * @param  rows     Receives the distances
+    * @param  executor Runs the blocks of columns, or null to compute them on
+    *                  the calling thread
+    *
+    * @throws Exception If a worker thread fails
+    */
+   public void rows(final int from, final int to, final double[][] rows,
+                    ExecutorService executor) throws Exception {
+
+      if ((executor == null) || (to - 1 <= BLOCK)) {
+         rowBlock(from, to, 0, to - 1, rows);
+
+         return;
+      }
+
+      List<Future<Object>> results = new ArrayList<Future<Object>>();
+
+      for (int jfrom = 0; jfrom < to - 1; jfrom += BLOCK) {
+         final int blockFrom = jfrom;
+         results.add(executor.submit(new Callable<Object>() {
+               public Object call() {
+                  rowBlock(from, to, blockFrom,
+                           Math.min(blockFrom + BLOCK, to - 1), rows);
+
+                  return null;
+               }
+            }));
+      }
+
+      for (Future<Object> result : results) {
+         result.get();
+      }
+   } // end method rows
+
+   /**
+    * Computes the distances of clusters <code>from .. to-1</code> to the
+    * clusters <code>jfrom .. jto-1</code> before them.
+    *
+    * @param from  The first cluster
+    * @param to    The cluster after the last one
+    * @param jfrom The first column
+    * @param jto   The column after the last one
+    * @param rows  Receives the distances
+    */
+   private void rowBlock(int from, int to, int jfrom, int jto,
+                         double[][] rows) {
+
+      for (int i = from; i < to; i++) {
+         double[] row = rows[i - from];
+
+         for (int j = jfrom, jn = Math.min(jto, i); j < jn; j++) {
+            row[j] = distance(j, i);
+         }
+      }
+   }
+
+} // end class DistanceKernel
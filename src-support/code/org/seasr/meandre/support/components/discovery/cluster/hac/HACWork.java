@@ -50,8 +50,6 @@ package org.seasr.meandre.support.components.discovery.cluster.hac;
 import gnu.trove.set.hash.TIntHashSet;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.TreeSet;
 import java.util.logging.Logger;
 
 
@@ -201,6 +199,12 @@ public class HACWork {
    /** The verbose flag. If true this object outputs verbose information to stdout. */
    private boolean _verbose = false;
 
+   /** If true the proximity matrix keeps the distances as floats. */
+   private boolean _singlePrecision = false;
+
+   /** Number of threads computing the distances, 0 for all processors. */
+   private int _numThreads = 0;
+
    /** Time when clustering process starts. */
    private long m_start = -1;
 
@@ -656,44 +660,21 @@ public class HACWork {
 
       validateNonTextColumns(itable, _ifeatures);
 
-      // indexlist maps the active indices for the proximity matrix
-      int[] indexlist = null;
-
-      // hash map for keeping track of cluster to proxm index
-      HashMap indexmap = null;
-
       ArrayList clusters = null;
 
       if (inittable instanceof ClusterModel) {
-         clusters = ((ClusterModel) inittable).getClusters();
-         indexlist = new int[clusters.size()];
-         indexmap = new HashMap(clusters.size());
-
-         for (int i = 0, n = clusters.size(); i < n; i++) {
-            TableCluster tc = (TableCluster) clusters.get(i);
-            indexlist[i] = i;
-            indexmap.put(tc, new Integer(i));
-         }
+         clusters = new ArrayList(((ClusterModel) inittable).getClusters());
       } else {
 
          // Create a cluster for each row
-         indexlist = new int[itable.getNumRows()];
-         indexmap = new HashMap(itable.getNumRows());
-         clusters = new ArrayList();
+         clusters = new ArrayList(itable.getNumRows());
 
          for (int i = 0, n = itable.getNumRows(); i < n; i++) {
-            TableCluster tc = new TableCluster(itable, i);
-            clusters.add(tc);
-            indexlist[i] = i;
-            indexmap.put(tc, new Integer(i));
+            clusters.add(new TableCluster(itable, i));
          }
       }
 
-      // proximity matrix for storing the dval object values
-      Object[][] proxm = new Object[clusters.size()][clusters.size()];
-
-      int dvalcnt = 0;
-      double distval = 0;
+      int numClusters = clusters.size();
 
       double maxdist = -1;
 
@@ -705,61 +686,38 @@ public class HACWork {
 
       try {
 
-         TreeSet cRank = null;
-         cRank = new TreeSet(new cRank_Comparator());
-
-         boolean firstTime = true;
-         // double shortestDist = Double.MAX_VALUE;
+         MergeSequence merges = new MergeSequence(numClusters);
 
-         // while the number of clusters is still greater than
-         // m_numberOfClusters
-         while (clusters.size() > 1) {
+         if (numClusters > 1) {
+            int method = getClusterMethod();
 
-            // System.out.println(clusters.size() + " clusters remain ...
-            // beginning similarity search ...");
-            // find the two most similar clusters
-            double dist = 0;
-            TableCluster tc1 = null;
-            TableCluster tc2 = null;
-
-            if (firstTime) {
-               firstTime = false;
+            if ((method < 0) || (method >= s_ClusterMethodLabels.length)) {
+               throw new Exception(getAlias() +
+                                   " (HAC): unknown cluster method specified.");
+            }
 
-               for (int x = 0, xn = clusters.size(); x < xn; x++) {
+            DistanceKernel kernel =
+               new DistanceKernel((TableCluster[]) clusters.toArray(
+                                     new TableCluster[numClusters]),
+                                  this._distanceMetric, getNumThreads());
 
-                  for (int y = x + 1, yn = clusters.size(); y < yn; y++) {
+            if (method == s_SingleLink_CLUSTER) {
 
-                     if (y > x) {
-                        double simval = 0;
-                        TableCluster clustX = (TableCluster) clusters.get(x);
-                        TableCluster clustY = (TableCluster) clusters.get(y);
+               // single link needs no proximity matrix
+               merges = new SlinkLinkage(kernel).run();
+            } else {
 
-                        distval =
-                           distance(clustX, clustY,
-                                    this._distanceMetric);
+               // proximity matrix, the upper triangle in a primitive array
+               CondensedDistanceMatrix proxm =
+                  CondensedDistanceMatrix.create(numClusters,
+                                                 getSinglePrecision());
+               kernel.fill(proxm);
 
-                        if (distval < 0) {
-                           distval = 0;
-                        }
+               int[] sizes = new int[numClusters];
 
-                        Object[] dval = new Object[4];
-                        dval[0] = clustX;
-                        dval[1] = clustY;
-                        dval[2] = new Double(distval);
-                        dval[3] = new Integer(dvalcnt++);
-
-                        if (!cRank.add(dval)) {
-                                System.out.println(getAlias() +
-                                              " (HAC): " +
-                                              ">>>>>>>>>>>>>>>>>>>>> UNABLE TO ADD TO cRANK " +
-                                              dval.hashCode() + " " +
-                                              simval);
-                        }
-
-                        proxm[x][y] = dval;
-                     } // end if
-                  } // end for
-               } // end for
+               for (int x = 0; x < numClusters; x++) {
+                  sizes[x] = ((TableCluster) clusters.get(x)).getSize();
+               }
 
                if (getVerbose()) {
                   System.out.println(getAlias() +
@@ -767,231 +725,57 @@ public class HACWork {
 
                }
 
+               // the reducible methods do not need the pairs ranked
+               if (NNChainLinkage.isReducible(method)) {
+                  merges = new NNChainLinkage(proxm, sizes, method).run();
+               } else {
+                  merges =
+                     new LanceWilliamsLinkage(proxm, sizes, method).run();
+               }
             } // end if
+         } // end if
 
-            Object[] o = (Object[]) cRank.first();
+         // replay the merges to build the cluster tree; a cluster's id is
+         // its index in nodes
+         TableCluster[] nodes = new TableCluster[numClusters + merges.size()];
+         clusters.toArray(nodes);
 
-            tc1 = (TableCluster) o[0];
-            tc2 = (TableCluster) o[1];
-            
-            if (getVerbose()){
-            	System.out.println("Next closest clusters' distance: " + o[2]);
-      		}
-      
-            TableCluster newc = TableCluster.merge(tc1, tc2);
+         for (int s = 0, n = merges.size(); s < n; s++) {
+            double dist = merges.getDistance(s);
 
-            if (
-                (clusters.size() <= _numberOfClusters) &&
-                   (_thresh == 0) &&
-                   (resultClusters == null)) {
-               resultClusters = new ArrayList(clusters);
+            if (getVerbose()) {
+               System.out.println("Next closest clusters' distance: " + dist);
             }
 
             if (resultClusters == null) {
 
                if (
-                   (_thresh != 0) &&
-                      (((Double) ((Object[]) cRank.first())[2]).doubleValue() >
-                          maxdist)) {
-                  resultClusters = new ArrayList(clusters);
-               }
-            }
-
-            // primarily for the cluster vis
-            newc.setChildDistance(((Double) o[2]).doubleValue());
-
-            clusters.remove(tc1);
-            clusters.remove(tc2);
-            clusters.add(newc);
-
-            Object[] c1c2arr = null;
-            ArrayList alist = new ArrayList();
-
-            int row1 = ((Integer) indexmap.get(tc1)).intValue();
-            int row2 = ((Integer) indexmap.get(tc2)).intValue();
-            int newrow = Math.min(row1, row2);
-
-            for (int i = 0, n = indexlist.length; i < n; i++) {
-
-               // use the indexlist to know where the active indices are
-               int ind = indexlist[i];
-
-               // and if the position row1, row2 then exclude it here
-               // because we don't
-               // want it added to alist twice
-               if ((ind < row1) && (ind != row2)) {
-                  alist.add(proxm[ind][row1]);
-               } else if ((ind > row1) && (ind != row2)) {
-                  alist.add(proxm[row1][ind]);
-               }
-
-               if (ind < row2) {
-                  alist.add(proxm[ind][row2]);
-               } else if (ind > row2) {
-                  alist.add(proxm[row2][ind]);
-               }
-            }
-
-            if (row1 < row2) {
-               c1c2arr = (Object[]) proxm[row1][row2];
-               proxm[row1][row2] = null;
-            } else {
-               c1c2arr = (Object[]) proxm[row2][row1];
-               proxm[row2][row1] = null;
-            }
-
-            // Remove old sim values for the two clusters being merged from
-            // the sorted list
-            for (int i = 0, n = alist.size(); i < n; i++) {
-
-               // System.out.println("Its there?: " +
-               // cRank.contains(alist.get(i)));
-               if (!cRank.remove(alist.get(i))) {
-                   System.out.println("We have already removed it once?: " +
-                           cRank.contains(alist.get(i)));
-                   System.out.println("Object hash:" + alist.get(i));
-                   System.out.println(">>>>>>>>>>>>>>>>>>>>> " +
-                                     ((Double) ((Object[]) alist.get(i))[2])
-                                        .doubleValue() +
-                                     " " +
-                                     ((Integer) ((Object[]) alist.get(i))[3])
-                                        .intValue());
-                   System.out.println("\n");
-               }
-            }
-
-            // row/column to be removed from proxm
-            int remove = Math.max(row1, row2);
-
-            // find sims between the new cluster and all other clusters and
-            // add them to the
-            // sorted list
-            for (int i = 0, n = clusters.size(); i < (n - 1); i++) {
-               double simval = 0;
-
-               int clustind =
-                  ((Integer) indexmap.get(clusters.get(i))).intValue();
-               Double d1 = null;
-               Double d2 = null;
-
-               if (clustind < row1) {
-                  d1 = (Double) ((Object[]) proxm[clustind][row1])[2];
-               } else {
-                  d1 = (Double) ((Object[]) proxm[row1][clustind])[2];
-               }
-
-               if (clustind < row2) {
-                  d2 = (Double) ((Object[]) proxm[clustind][row2])[2];
-               } else {
-                  d2 = (Double) ((Object[]) proxm[row2][clustind])[2];
-               }
-
-               double sim1 = d1.doubleValue();
-               double sim2 = d2.doubleValue();
-               double sim3 = ((Double) c1c2arr[2]).doubleValue();
-               int sz1 = tc1.getSize();
-               int sz2 = tc2.getSize();
-               int sz3 = ((TableCluster) clusters.get(i)).getSize();
-               int sznew = newc.getSize();
-
-               int method = getClusterMethod();
-
-               if (method == s_UPGMA_CLUSTER) {
-
-                  // ** UPGMA **
-                  simval = (sz1 * sim1) / (sznew) + (sz2 * sim2) / sznew;
-               } else if (method == s_WardsMethod_CLUSTER) {
-
-                  // ** Ward's **
-                  simval =
-                     (((sz1 + sz3) * sim1) / (sznew + sz3)) +
-                     (((sz2 + sz3) * sim2) / (sznew + sz3)) -
-                     ((sz3 * sim3) / (sznew + sz3));
-               } else if (method == s_SingleLink_CLUSTER) {
-
-                  // ** Single Link **
-                  simval = sim1 / 2 + sim2 / 2 - Math.abs(sim1 - sim2) /
-                              2;
-               } else if (method == s_CompleteLink_CLUSTER) {
-
-                  // ** Complete Link **
-                  simval = sim1 / 2 + sim2 / 2 + Math.abs(sim1 - sim2) /
-                              2;
-               } else if (method == s_WPGMA_CLUSTER) {
-
-                  // ** WPGMA **
-                  simval = sim1 / 2 + sim2 / 2;
-               } else if (method == s_UPGMC_CLUSTER) {
-
-                  // ** UPGMC **
-                  simval = sim1 / 2 + sim2 / 2 - sim3 / 4;
-               } else if (method == s_WPGMC_CLUSTER) {
-
-                  // ** WPGMC **
-                  simval =
-                     (sz1 * sim1) / (sznew) + (sz2 * sim2) / sznew -
-                     (((sz1) * (sz2)) / Math.pow((sz1 + sz2), 2)) *
-                        sim3;
-               } else {
-
-                  throw new Exception(getAlias() +
-                  " (HAC): unknown cluster method specified.");
-               }
+                   ((numClusters - s <= _numberOfClusters) && (_thresh == 0)) ||
+                      ((_thresh != 0) && (dist > maxdist))) {
+                  resultClusters = new ArrayList(numClusters - s);
 
-               if (simval < 0) {
-                  simval = 0;
-               }
+                  for (int i = 0; i < numClusters + s; i++) {
 
-               Object[] dval = new Object[4];
-               dval[0] = newc;
-               dval[1] = (TableCluster) clusters.get(i);
-               dval[2] = new Double(simval);
-               dval[3] = new Integer(dvalcnt++);
-
-               if (!cRank.add(dval)) {
-                  System.out.println(getAlias() +
-                  " (HAC): >>>>>>>>>>>>>>>>>>>>> UNABLE TO ADD TO cRANK ");
-               }
-
-               // update the matrix
-               if (clustind < newrow) {
-                  proxm[clustind][newrow] = dval;
-               } else {
-                  proxm[newrow][clustind] = dval;
-               }
-
-               if (clustind < remove) {
-                  proxm[clustind][remove] = null;
-               } else {
-                  proxm[remove][clustind] = null;
-               }
-            } // end for
-
-            // adjust the index list
-            int[] temparr = new int[indexlist.length - 1];
-            int cnter = 0;
-
-            for (int i = 0, n = indexlist.length; i < n; i++) {
-
-               if (indexlist[i] != remove) {
-                  temparr[cnter] = indexlist[i];
-                  cnter++;
+                     if (nodes[i] != null) {
+                        resultClusters.add(nodes[i]);
+                     }
+                  }
                }
             }
 
-            indexlist = temparr;
+            TableCluster tc1 = nodes[merges.getFirst(s)];
+            TableCluster tc2 = nodes[merges.getSecond(s)];
+            TableCluster newc = TableCluster.merge(tc1, tc2);
 
-            // fixup indexmap
-            if (indexmap.remove(tc1) == null) {
-               System.out.println(">>>>>>>>>>>>>>>>>>>>> UNABLE TO REMOVE TC1 from IndexMap");
-            }
+            // primarily for the cluster vis
+            newc.setChildDistance(dist);
 
-            if (indexmap.remove(tc2) == null) {
-               System.out.println(">>>>>>>>>>>>>>>>>>>>> UNABLE TO REMOVE TC2 from IndexMap");
-            }
+            nodes[merges.getFirst(s)] = null;
+            nodes[merges.getSecond(s)] = null;
+            nodes[numClusters + s] = newc;
+         } // end for
 
-            indexmap.put(newc, new Integer(newrow));
-         } // end while
+         TableCluster root = nodes[nodes.length - 1];
 
          // Outout a Cluster Model which is an object containing that table
          // (optional), clusters, and
@@ -1000,7 +784,8 @@ public class HACWork {
          // set classes (ints) in each cluster
 
          if (resultClusters == null) {
-            resultClusters = clusters;
+            resultClusters = new ArrayList(1);
+            resultClusters.add(root);
          }
 
          if (getVerbose()) {
@@ -1015,10 +800,7 @@ public class HACWork {
          // //set prediction to class value for each row in table
          // //output table
 
-         model =
-            new ClusterModel(itable, resultClusters,
-                             (TableCluster) clusters.get(0));
-
+         model = new ClusterModel(itable, resultClusters, root);
       } catch (Exception ex) {
          ex.printStackTrace();
          System.out.println(ex.getMessage());
@@ -1083,6 +865,20 @@ public class HACWork {
     */
    public int getNumberOfClusters() { return _numberOfClusters; }
 
+   /**
+    * Returns the number of threads computing the distances.
+    *
+    * @return The number of threads, 0 for all available processors
+    */
+   public int getNumThreads() { return _numThreads; }
+
+   /**
+    * Returns the value of the single precision flag.
+    *
+    * @return true if the proximity matrix keeps the distances as floats
+    */
+   public boolean getSinglePrecision() { return _singlePrecision; }
+
    /**
     * Returns the value of the verbose flag.
     *
@@ -1137,98 +933,29 @@ public class HACWork {
    public void setNumberOfClusters(int noc) { _numberOfClusters = noc; }
 
    /**
-    * Sets the verbose flag
+    * Sets the number of threads computing the distances.
     *
-    * @param b A value for the verbose flag.
+    * @param n The number of threads; 0 or less means use all available
+    *          processors
     */
-   public void setVerbose(boolean b) { _verbose = b; }
-
-   //~ Inner Classes ***********************************************************
+   public void setNumThreads(int n) { _numThreads = n; }
 
    /**
-    * <p>Title: cRank_Comparator</p>
-    *
-    * <p>Description: Comparator object for 2 <code>Object[]</codE>. The 2
-    * arrays should be at least of length 4 and have a <codE>Double</code>
-    * object in index 2 and a <code>Integer</code> object in index 3.</p>
-    *
-    * <p>Copyright: Copyright (c) 2006</p>
-    *
-    * <p>Company:</p>
+    * Sets the single precision flag. Keeping the distances as floats halves
+    * the memory used by the proximity matrix, at the cost of rounding the
+    * distances, which can change the order of merges at nearly equal
+    * distances.
     *
-    * @author  D. Searsmith
-    * @version 1.0
+    * @param b If true the proximity matrix keeps the distances as floats
     */
-   private class cRank_Comparator implements java.util.Comparator {
-
-      /**
-       * The small deviation allowed in double comparisons.
-       */
-      public cRank_Comparator() { }
-
-      /**
-       * Compares <code>o1</code> amd <code>o2</code>. Both <code>o1</code> amd
-       * <code>o2</code> are expected to be arrays of Objects, at least of
-       * length 4. The object at index 2 is expected to be a <code>Double</code>
-       * and the object at index 3 is expected to be an <code.Integer .
-       *
-       * @param  o1 Object An Object array of at least 4 Objects. The object at
-       *            index 2 is expected to be a <code>Double</code> and the
-       *            object at index 3 is expected to be an <code.Integer .
-       * @param  o2 Object An Object array of at least 4 Objects. The object at
-       *            index 2 is expected to be a <code>Double</code> and the
-       *            object at index 3 is expected to be an <code.Integer .
-       *
-       * @return int 0 if both the Double objects and the Integer objects are
-       *         equal. Returns 1 if the Double objects are equal and the
-       *         Integer object of <code>o1</code> is greater than the Integer
-       *         object of <code>o2</code>. Returns 1 if the Double object of
-       *         <codE>o1</code> is greater than the Double object of <code>
-       *         o2</codE> Returns -1 if the Double objects are equal and the
-       *         Integer object of <code>o1</code> is less than the Integer
-       *         object of <code>o2</code>. Returns -1 if the Double object of
-       *         <code>o1</code> is less than the Double object of <code>
-       *         o2</code>.
-       */
-      public int compare(Object o1, Object o2) {
-         Object[] objarr1 = (Object[]) o1;
-         Object[] objarr2 = (Object[]) o2;
+   public void setSinglePrecision(boolean b) { _singlePrecision = b; }
 
-         if (
-             eq(((Double) objarr1[2]).doubleValue(),
-                   ((Double) objarr2[2]).doubleValue())) {
-
-            if (
-                ((Integer) objarr1[3]).intValue() >
-                   ((Integer) objarr2[3]).intValue()) {
-               return 1;
-            } else if (
-                       ((Integer) objarr1[3]).intValue() <
-                          ((Integer) objarr2[3]).intValue()) {
-               return -1;
-            } else {
-               return 0;
-            }
-         } else if (
-                    ((Double) objarr1[2]).doubleValue() >
-                       ((Double) objarr2[2]).doubleValue()) {
-            return 1;
-         } else {
-            return -1;
-         }
-      } // end method compare
-
-      public boolean eq(double a, double b) { return a == b; }
-
-      /**
-       * Verifies whether <codE>o</code> equals to this comparator.
-       *
-       * @param  o An object to be compared to this comparator
-       *
-       * @return true if <codE>o</code> is an instance of cRank_Comparator
-       */
-      public boolean equals(Object o) { return o instanceof cRank_Comparator; }
-   } // end class cRank_Comparator
+   /**
+    * Sets the verbose flag
+    *
+    * @param b A value for the verbose flag.
+    */
+   public void setVerbose(boolean b) { _verbose = b; }
 
 } // end class HAC
 
@@ -0,0 +1,501 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+/**
+ * Agglomerative clustering over a condensed distance matrix, updating the
+ * distances with the Lance-Williams formulas of the clustering methods of
+ * <code>HACWork</code>.
+ *
+ * <p>Each row <code>i</code> of the matrix caches its nearest neighbor among
+ * the active rows <code>j &gt; i</code>, and the rows are kept in an indexed
+ * binary heap by the distance to that neighbor, so every merge costs <code>
+ * O(n)</code> instead of a scan of the whole matrix. A row whose cached
+ * neighbor may no longer be the nearest one is marked stale and keeps its old
+ * heap key, which is never greater than its true minimum; it is rescanned
+ * when it reaches the top of the heap.</p>
+ *
+ * <p>Pairs at the same distance are merged in the order they were first
+ * ranked by the original <code>HACWork</code> implementation: the pairs of
+ * the input clusters in row order, then the pairs of each new cluster with the
+ * clusters that are older than it, oldest first. The merges, and so the cluster
+ * tree, are therefore the same.</p>
+ *
+ * @author Boris Capitanu
+ */
+public final class LanceWilliamsLinkage {
+
+   //~ Instance fields *********************************************************
+
+   /** The clustering method, one of the <code>HACWork</code> constants. */
+   private final int _method;
+
+   /** The distances between the active clusters. */
+   private final CondensedDistanceMatrix _dist;
+
+   /** Number of input clusters. */
+   private final int _n;
+
+   /** Id of the cluster in each row. */
+   private final int[] _id;
+
+   /** Number of table rows in the cluster in each row. */
+   private final int[] _size;
+
+   /**
+    * Next active row of each row; <code>_next[_n]</code> is the first active
+    * row and <code>_n</code> ends the list.
+    */
+   private final int[] _next;
+
+   /** Previous active row of each row, <code>_n</code> for the first one. */
+   private final int[] _prev;
+
+   /** Cached nearest neighbor of each row. */
+   private final int[] _nn;
+
+   /** Distance to the cached nearest neighbor of each row. */
+   private final double[] _minDist;
+
+   /** Rank of the pair of each row and its cached nearest neighbor. */
+   private final long[] _minRank;
+
+   /** Whether the cached nearest neighbor of each row has to be rescanned. */
+   private final boolean[] _stale;
+
+   /** The heap of the rows, by the distance to their nearest neighbor. */
+   private final int[] _heap;
+
+   /** Position of each row in the heap, -1 if it is not in it. */
+   private final int[] _pos;
+
+   /** Number of rows in the heap. */
+   private int _heapSize = 0;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates a new clustering.
+    *
+    * @param dist   The distances between the input clusters. The matrix is
+    *               overwritten by the clustering.
+    * @param sizes  Number of table rows in each input cluster
+    * @param method The clustering method, one of the <code>HACWork</code>
+    *               constants
+    */
+   public LanceWilliamsLinkage(CondensedDistanceMatrix dist, int[] sizes,
+                               int method) {
+      _method = method;
+      _dist = dist;
+      _n = dist.size();
+      _id = new int[_n];
+      _size = new int[_n];
+      _next = new int[_n + 1];
+      _prev = new int[_n + 1];
+      _nn = new int[_n];
+      _minDist = new double[_n];
+      _minRank = new long[_n];
+      _stale = new boolean[_n];
+      _heap = new int[_n];
+      _pos = new int[_n];
+
+      for (int i = 0; i < _n; i++) {
+         _id[i] = i;
+         _size[i] = sizes[i];
+         _next[i] = i + 1;
+         _prev[i + 1] = i;
+      }
+
+      _next[_n] = (_n == 0) ? _n : 0;
+      _prev[0] = _n;
+   }
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Returns the distance between a new cluster, formed from clusters 1 and 2,
+    * and a cluster 3, given the distances between the three clusters.
+    *
+    * @param  method The clustering method, one of the <code>HACWork</code>
+    *                constants
+    * @param  sim1   Distance between clusters 1 and 3
+    * @param  sim2   Distance between clusters 2 and 3
+    * @param  sim3   Distance between clusters 1 and 2
+    * @param  sz1    Size of cluster 1
+    * @param  sz2    Size of cluster 2
+    * @param  sz3    Size of cluster 3
+    *
+    * @return The distance between the new cluster and cluster 3, never less
+    *         than 0
+    *
+    * @throws IllegalArgumentException If the clustering method is unknown
+    */
+   static public double update(int method, double sim1, double sim2,
+                               double sim3, int sz1, int sz2, int sz3) {
+      int sznew = sz1 + sz2;
+      double simval;
+
+      if (method == HACWork.s_UPGMA_CLUSTER) {
+
+         // ** UPGMA **
+         simval = (sz1 * sim1) / (sznew) + (sz2 * sim2) / sznew;
+      } else if (method == HACWork.s_WardsMethod_CLUSTER) {
+
+         // ** Ward's **
+         simval =
+            (((sz1 + sz3) * sim1) / (sznew + sz3)) +
+            (((sz2 + sz3) * sim2) / (sznew + sz3)) -
+            ((sz3 * sim3) / (sznew + sz3));
+      } else if (method == HACWork.s_SingleLink_CLUSTER) {
+
+         // ** Single Link **
+         simval = sim1 / 2 + sim2 / 2 - Math.abs(sim1 - sim2) / 2;
+      } else if (method == HACWork.s_CompleteLink_CLUSTER) {
+
+         // ** Complete Link **
+         simval = sim1 / 2 + sim2 / 2 + Math.abs(sim1 - sim2) / 2;
+      } else if (method == HACWork.s_WPGMA_CLUSTER) {
+
+         // ** WPGMA **
+         simval = sim1 / 2 + sim2 / 2;
+      } else if (method == HACWork.s_UPGMC_CLUSTER) {
+
+         // ** UPGMC **
+         simval = sim1 / 2 + sim2 / 2 - sim3 / 4;
+      } else if (method == HACWork.s_WPGMC_CLUSTER) {
+
+         // ** WPGMC **
+         simval =
+            (sz1 * sim1) / (sznew) + (sz2 * sim2) / sznew -
+            (((sz1) * (sz2)) / Math.pow((sz1 + sz2), 2)) * sim3;
+      } else {
+         throw new IllegalArgumentException("Unknown cluster method: " +
+                                            method);
+      }
+
+      if (simval < 0) {
+         simval = 0;
+      }
+
+      return simval;
+   } // end method update
+
+   /**
+    * Returns the rank of the pair of clusters <code>id1</code> and <code>
+    * id2</code> among the pairs at the same distance; the pair with the
+    * lower rank is merged first.
+    *
+    * @param  n   Number of input clusters
+    * @param  id1 Id of a cluster
+    * @param  id2 Id of another cluster
+    *
+    * @return The rank of the pair
+    */
+   static public long rank(int n, int id1, int id2) {
+      int lo = Math.min(id1, id2);
+      int hi = Math.max(id1, id2);
+
+      if (hi < n) {
+         return (long) lo * n + hi;
+      }
+
+      return (long) n * n + (long) (hi - n) * 2 * n + lo;
+   }
+
+   /**
+    * Returns whether the pair at <code>dist1</code> with rank <code>
+    * rank1</code> is merged before the pair at <code>dist2</code> with rank
+    * <code>rank2</code>.
+    *
+    * @param  dist1 Distance of the first pair
+    * @param  rank1 Rank of the first pair
+    * @param  dist2 Distance of the second pair
+    * @param  rank2 Rank of the second pair
+    *
+    * @return true if the first pair comes first
+    */
+   static private boolean before(double dist1, long rank1, double dist2,
+                                 long rank2) {
+      return (dist1 < dist2) || ((dist1 == dist2) && (rank1 < rank2));
+   }
+
+   /**
+    * Merges the clusters until one is left.
+    *
+    * @return The merges
+    */
+   public MergeSequence run() {
+      MergeSequence merges = new MergeSequence(_n);
+
+      for (int i = 0; i < _n; i++) {
+         _pos[i] = -1;
+         findNearest(i);
+      }
+
+      for (int s = 0; s < _n - 1; s++) {
+         int a = _heap[0];
+
+         while (_stale[a]) {
+            findNearest(a);
+            a = _heap[0];
+         }
+
+         // the new cluster goes in row a, row b is dropped
+         int b = _nn[a];
+         double dist = _minDist[a];
+
+         // the first cluster of a pair of input clusters is the one with the
+         // lower id, otherwise it is the newer one
+         boolean aFirst;
+
+         if ((_id[a] < _n) && (_id[b] < _n)) {
+            aFirst = _id[a] < _id[b];
+         } else {
+            aFirst = _id[a] > _id[b];
+         }
+
+         int first = aFirst ? a : b;
+         int second = aFirst ? b : a;
+         int sz1 = _size[first];
+         int sz2 = _size[second];
+         int newId = merges.add(_id[first], _id[second], dist);
+
+         _next[_prev[b]] = _next[b];
+         _prev[_next[b]] = _prev[b];
+
+         if (_pos[b] >= 0) {
+            heapRemove(b);
+         }
+
+         _id[a] = newId;
+         _size[a] = sz1 + sz2;
+
+         for (int k = _next[_n]; k != _n; k = _next[k]) {
+
+            if (k == a) {
+               continue;
+            }
+
+            double simval =
+               update(_method, _dist.get(first, k), _dist.get(second, k),
+                      dist, sz1, sz2, _size[k]);
+            simval = _dist.set(a, k, simval);
+
+            if (k < a) {
+               long rank = rank(_n, _id[k], newId);
+
+               if (before(simval, rank, _minDist[k], _minRank[k])) {
+                  _nn[k] = a;
+                  _minDist[k] = simval;
+                  _minRank[k] = rank;
+                  _stale[k] = false;
+                  heapUpdate(k);
+               } else if ((_nn[k] == a) || (_nn[k] == b)) {
+                  _stale[k] = true;
+               }
+            } else if ((k < b) && (_nn[k] == b)) {
+               _stale[k] = true;
+            }
+         } // end for
+
+         findNearest(a);
+      } // end for
+
+      return merges;
+   } // end method run
+
+   /**
+    * Scans row <code>i</code> for its nearest neighbor and updates its place
+    * in the heap.
+    *
+    * @param i An active row
+    */
+   private void findNearest(int i) {
+      int best = -1;
+      double bestDist = 0;
+      long bestRank = 0;
+
+      if (_next[i] != _n) {
+
+         // the entries of row i are contiguous in the condensed matrix
+         long base = _dist.index(i, i + 1) - (i + 1);
+
+         for (int j = _next[i]; j != _n; j = _next[j]) {
+            double dist = _dist.get(base + j);
+            long rank = rank(_n, _id[i], _id[j]);
+
+            if ((best < 0) || before(dist, rank, bestDist, bestRank)) {
+               best = j;
+               bestDist = dist;
+               bestRank = rank;
+            }
+         }
+      }
+
+      _stale[i] = false;
+
+      if (best < 0) {
+
+         if (_pos[i] >= 0) {
+            heapRemove(i);
+         }
+
+         return;
+      }
+
+      _nn[i] = best;
+      _minDist[i] = bestDist;
+      _minRank[i] = bestRank;
+
+      if (_pos[i] >= 0) {
+         heapUpdate(i);
+      } else {
+         _heap[_heapSize] = i;
+         _pos[i] = _heapSize++;
+         siftUp(_pos[i]);
+      }
+   } // end method findNearest
+
+   /**
+    * Returns whether row <code>i</code> is ahead of row <code>j</code> in the
+    * heap.
+    *
+    * @param  i A row in the heap
+    * @param  j A row in the heap
+    *
+    * @return true if the nearest pair of row <code>i</code> comes first
+    */
+   private boolean less(int i, int j) {
+      return before(_minDist[i], _minRank[i], _minDist[j], _minRank[j]);
+   }
+
+   /**
+    * Removes row <code>i</code> from the heap.
+    *
+    * @param i A row in the heap
+    */
+   private void heapRemove(int i) {
+      int p = _pos[i];
+      int last = _heap[--_heapSize];
+      _pos[i] = -1;
+
+      if (last != i) {
+         _heap[p] = last;
+         _pos[last] = p;
+         heapUpdate(last);
+      }
+   }
+
+   /**
+    * Restores the heap order after the key of row <code>i</code> changed.
+    *
+    * @param i A row in the heap
+    */
+   private void heapUpdate(int i) {
+      int p = _pos[i];
+
+      if ((p > 0) && less(i, _heap[(p - 1) / 2])) {
+         siftUp(p);
+      } else {
+         siftDown(p);
+      }
+   }
+
+   /**
+    * Moves the row at heap position <code>p</code> up to its place.
+    *
+    * @param p A heap position
+    */
+   private void siftUp(int p) {
+      int i = _heap[p];
+
+      while (p > 0) {
+         int parent = (p - 1) / 2;
+
+         if (!less(i, _heap[parent])) {
+            break;
+         }
+
+         _heap[p] = _heap[parent];
+         _pos[_heap[p]] = p;
+         p = parent;
+      }
+
+      _heap[p] = i;
+      _pos[i] = p;
+   }
+
+   /**
+    * Moves the row at heap position <code>p</code> down to its place.
+    *
+    * @param p A heap position
+    */
+   private void siftDown(int p) {
+      int i = _heap[p];
+
+      while (true) {
+         int child = 2 * p + 1;
+
+         if (child >= _heapSize) {
+            break;
+         }
+
+         if ((child + 1 < _heapSize) && less(_heap[child + 1], _heap[child])) {
+            child++;
+         }
+
+         if (!less(_heap[child], i)) {
+            break;
+         }
+
+         _heap[p] = _heap[child];
+         _pos[_heap[p]] = p;
+         p = child;
+      }
+
+      _heap[p] = i;
+      _pos[i] = p;
+   }
+
+} // end class LanceWilliamsLinkage
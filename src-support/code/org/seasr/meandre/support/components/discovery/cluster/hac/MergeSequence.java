@@ -0,0 +1,198 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+/**
+ * The merges of an agglomerative clustering of <code>n</code> clusters, in the
+ * order they were made. The clusters being clustered have the ids <code>0 ..
+ * n-1</code> and the cluster formed by merge <code>s</code> has the id <code>n
+ * + s</code>.
+ *
+ * @author Boris Capitanu
+ */
+public final class MergeSequence {
+
+   //~ Instance fields *********************************************************
+
+   /** Number of clusters being clustered. */
+   private final int _numClusters;
+
+   /** Number of merges made so far. */
+   private int _numMerges = 0;
+
+   /** Id of the first cluster of each merge. */
+   private final int[] _first;
+
+   /** Id of the second cluster of each merge. */
+   private final int[] _second;
+
+   /** Distance between the clusters of each merge. */
+   private final double[] _distance;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates an empty sequence for the clustering of <code>numClusters</code>
+    * clusters.
+    *
+    * @param numClusters Number of clusters being clustered
+    */
+   public MergeSequence(int numClusters) {
+      _numClusters = numClusters;
+
+      int n = Math.max(numClusters - 1, 0);
+      _first = new int[n];
+      _second = new int[n];
+      _distance = new double[n];
+   }
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Adds a merge.
+    *
+    * @param  first    Id of the first cluster
+    * @param  second   Id of the second cluster
+    * @param  distance Distance between the two clusters
+    *
+    * @return The id of the cluster formed by the merge
+    */
+   public int add(int first, int second, double distance) {
+      _first[_numMerges] = first;
+      _second[_numMerges] = second;
+      _distance[_numMerges] = distance;
+
+      return _numClusters + _numMerges++;
+   }
+
+   /**
+    * Returns the number of clusters being clustered.
+    *
+    * @return The number of clusters being clustered
+    */
+   public int getNumClusters() { return _numClusters; }
+
+   /**
+    * Returns the number of merges.
+    *
+    * @return The number of merges
+    */
+   public int size() { return _numMerges; }
+
+   /**
+    * Returns the id of the first cluster of merge <code>s</code>.
+    *
+    * @param  s Merge number
+    *
+    * @return The cluster id
+    */
+   public int getFirst(int s) { return _first[s]; }
+
+   /**
+    * Returns the id of the second cluster of merge <code>s</code>.
+    *
+    * @param  s Merge number
+    *
+    * @return The cluster id
+    */
+   public int getSecond(int s) { return _second[s]; }
+
+   /**
+    * Returns the distance between the clusters of merge <code>s</code>.
+    *
+    * @param  s Merge number
+    *
+    * @return The distance
+    */
+   public double getDistance(int s) { return _distance[s]; }
+
+   /**
+    * Returns the indices <code>0 .. length-1</code> ordered by the values in
+    * <code>keys</code> as <code>Double.compare</code> orders them. Indices of
+    * equal values keep their relative order.
+    *
+    * @param  keys   The values to order by
+    * @param  length Number of values to order
+    *
+    * @return The ordered indices
+    */
+   static int[] sortedOrder(double[] keys, int length) {
+      int[] order = new int[length];
+      int[] work = new int[length];
+
+      for (int i = 0; i < length; i++) {
+         order[i] = i;
+      }
+
+      // bottom-up merge sort, taking from the left run on ties
+      for (int width = 1; width < length; width <<= 1) {
+
+         for (int lo = 0; lo < length; lo += width << 1) {
+            int mid = Math.min(lo + width, length);
+            int hi = Math.min(lo + (width << 1), length);
+            int l = lo;
+            int r = mid;
+
+            for (int k = lo; k < hi; k++) {
+
+               if ((r >= hi) ||
+                      ((l < mid) &&
+                          (Double.compare(keys[order[l]], keys[order[r]]) <=
+                              0))) {
+                  work[k] = order[l++];
+               } else {
+                  work[k] = order[r++];
+               }
+            }
+         }
+
+         int[] swap = order;
+         order = work;
+         work = swap;
+      }
+
+      return order;
+   }
+
+} // end class MergeSequence
@@ -0,0 +1,272 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+/**
+ * Agglomerative clustering with the nearest-neighbor chain algorithm, for the
+ * clustering methods whose Lance-Williams update is reducible: Ward's,
+ * complete link, UPGMA and WPGMA. For these methods a pair of reciprocal
+ * nearest neighbors can be merged as soon as it is found, so the clustering
+ * takes <code>O(n<sup>2</sup>)</code> time without keeping the pairs ranked.
+ *
+ * <p>The merges are found out of order. They are sorted by distance
+ * afterwards, which gives the same cluster tree as <code>
+ * LanceWilliamsLinkage</code> except among clusters at exactly equal
+ * distances, where either tree is a valid clustering.</p>
+ *
+ * @author Boris Capitanu
+ */
+public final class NNChainLinkage {
+
+   //~ Instance fields *********************************************************
+
+   /** The clustering method, one of the <code>HACWork</code> constants. */
+   private final int _method;
+
+   /** The distances between the active clusters. */
+   private final CondensedDistanceMatrix _dist;
+
+   /** Number of input clusters. */
+   private final int _n;
+
+   /** Number of table rows in the cluster in each row. */
+   private final int[] _size;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates a new clustering.
+    *
+    * @param dist   The distances between the input clusters. The matrix is
+    *               overwritten by the clustering.
+    * @param sizes  Number of table rows in each input cluster
+    * @param method The clustering method, one of the reducible <code>
+    *               HACWork</code> methods
+    */
+   public NNChainLinkage(CondensedDistanceMatrix dist, int[] sizes,
+                         int method) {
+
+      if (!isReducible(method)) {
+         throw new IllegalArgumentException("Not a reducible cluster method: " +
+                                            method);
+      }
+
+      _method = method;
+      _dist = dist;
+      _n = dist.size();
+      _size = sizes.clone();
+   }
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Returns whether the nearest-neighbor chain algorithm applies to a
+    * clustering method.
+    *
+    * @param  method A clustering method, one of the <code>HACWork</code>
+    *                constants
+    *
+    * @return true for Ward's, complete link, UPGMA and WPGMA
+    */
+   static public boolean isReducible(int method) {
+      return (method == HACWork.s_WardsMethod_CLUSTER) ||
+             (method == HACWork.s_CompleteLink_CLUSTER) ||
+             (method == HACWork.s_UPGMA_CLUSTER) ||
+             (method == HACWork.s_WPGMA_CLUSTER);
+   }
+
+   /**
+    * Merges the clusters until one is left.
+    *
+    * @return The merges, in order of distance
+    */
+   public MergeSequence run() {
+
+      // active rows, in order
+      int[] next = new int[_n + 1];
+      int[] prev = new int[_n + 1];
+
+      for (int i = 0; i < _n; i++) {
+         next[i] = i + 1;
+         prev[i + 1] = i;
+      }
+
+      next[_n] = (_n == 0) ? _n : 0;
+      prev[0] = _n;
+
+      // the merges as found, by the rows of the two clusters
+      final int[] rowA = new int[Math.max(_n - 1, 0)];
+      final int[] rowB = new int[rowA.length];
+      double[] dists = new double[rowA.length];
+
+      int[] chain = new int[_n];
+      int chainLen = 0;
+
+      for (int s = 0; s < _n - 1; s++) {
+
+         if (chainLen == 0) {
+            chain[chainLen++] = next[_n];
+         }
+
+         // grow the chain until its last two clusters are reciprocal nearest
+         // neighbors; on ties the previous cluster of the chain is kept
+         int a;
+         int b;
+         double min;
+
+         while (true) {
+            a = chain[chainLen - 1];
+            b = (chainLen > 1) ? chain[chainLen - 2] : -1;
+            min = (b >= 0) ? _dist.get(a, b) : Double.POSITIVE_INFINITY;
+
+            int last = b;
+
+            for (int k = next[_n]; k != _n; k = next[k]) {
+
+               if (k == a) {
+                  continue;
+               }
+
+               double dist = _dist.get(a, k);
+
+               if ((b < 0) || (dist < min)) {
+                  b = k;
+                  min = dist;
+               }
+            }
+
+            if (b == last) {
+               break;
+            }
+
+            chain[chainLen++] = b;
+         } // end while
+
+         chainLen -= 2;
+
+         // the new cluster goes in the lower row
+         int keep = Math.min(a, b);
+         int drop = Math.max(a, b);
+         int sz1 = _size[a];
+         int sz2 = _size[b];
+
+         rowA[s] = keep;
+         rowB[s] = drop;
+         dists[s] = min;
+
+         next[prev[drop]] = next[drop];
+         prev[next[drop]] = prev[drop];
+
+         for (int k = next[_n]; k != _n; k = next[k]) {
+
+            if (k == keep) {
+               continue;
+            }
+
+            double simval =
+               LanceWilliamsLinkage.update(_method, _dist.get(a, k),
+                                           _dist.get(b, k), min, sz1, sz2,
+                                           _size[k]);
+            _dist.set(keep, k, simval);
+         }
+
+         _size[keep] = sz1 + sz2;
+      } // end for
+
+      // sort the merges by distance, keeping the order of equal ones
+      int[] order = MergeSequence.sortedOrder(dists, dists.length);
+
+      // a row stands for the cluster that contains its input cluster
+      MergeSequence merges = new MergeSequence(_n);
+      int[] parent = new int[_n];
+      int[] clusterId = new int[_n];
+
+      for (int i = 0; i < _n; i++) {
+         parent[i] = i;
+         clusterId[i] = i;
+      }
+
+      for (int i = 0; i < order.length; i++) {
+         int s = order[i];
+         int ra = find(parent, rowA[s]);
+         int rb = find(parent, rowB[s]);
+         int id1 = clusterId[ra];
+         int id2 = clusterId[rb];
+
+         // as in LanceWilliamsLinkage, the first cluster of a pair of input
+         // clusters is the one with the lower id, otherwise the newer one
+         boolean firstIs1 =
+            ((id1 < _n) && (id2 < _n)) ? (id1 < id2) : (id1 > id2);
+
+         int newId =
+            firstIs1 ? merges.add(id1, id2, dists[s])
+                     : merges.add(id2, id1, dists[s]);
+
+         parent[rb] = ra;
+         clusterId[ra] = newId;
+      }
+
+      return merges;
+   } // end method run
+
+   /**
+    * Returns the root of the set of row <code>i</code>, halving the path to
+    * it.
+    *
+    * @param  parent The parent of each row
+    * @param  i      A row
+    *
+    * @return The root row
+    */
+   static private int find(int[] parent, int i) {
+
+      while (parent[i] != i) {
+         parent[i] = parent[parent[i]];
+         i = parent[i];
+      }
+
+      return i;
+   }
+
+} // end class NNChainLinkage
@@ -0,0 +1,201 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.cluster.hac;
+
+
+//==============
+// Java Imports
+//==============
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Single link clustering with Sibson's SLINK algorithm. The distances are
+ * computed a few rows at a time as they are needed, so the clustering takes
+ * <code>O(n)</code> memory instead of a proximity matrix, and <code>
+ * O(n<sup>2</sup>)</code> time.
+ *
+ * <p>SLINK builds the pointer representation of the dendrogram: for every
+ * cluster <code>i</code>, the distance <code>lambda[i]</code> at which it
+ * stops being the last cluster of its group, and the cluster <code>
+ * pi[i]</code> it then joins. The merges are read off by sorting the clusters
+ * by <code>lambda</code>.</p>
+ *
+ * @author Boris Capitanu
+ */
+public final class SlinkLinkage {
+
+   //~ Instance fields *********************************************************
+
+   /** Computes the distances between the clusters. */
+   private final DistanceKernel _kernel;
+
+   //~ Constructors ************************************************************
+
+   /**
+    * Creates a new clustering.
+    *
+    * @param kernel Computes the distances between the clusters to cluster
+    */
+   public SlinkLinkage(DistanceKernel kernel) { _kernel = kernel; }
+
+   //~ Methods *****************************************************************
+
+   /**
+    * Merges the clusters until one is left.
+    *
+    * @return The merges, in order of distance
+    *
+    * @throws Exception If a worker thread of the kernel fails
+    */
+   public MergeSequence run() throws Exception {
+      int n = _kernel.size();
+      int[] pi = new int[n];
+      double[] lambda = new double[n];
+
+      // the rows of distances are computed in blocks of up to 2M entries
+      int block =
+         Math.max(1,
+                  Math.min(DistanceKernel.BLOCK, (1 << 21) / Math.max(n, 1)));
+      double[][] rows = new double[Math.min(block, n)][n];
+
+      ExecutorService executor = null;
+
+      if (_kernel.getNumThreads() > 1) {
+         executor = Executors.newFixedThreadPool(_kernel.getNumThreads());
+      }
+
+      try {
+
+         for (int from = 0; from < n; from += block) {
+            int to = Math.min(from + block, n);
+            _kernel.rows(from, to, rows, executor);
+
+            for (int i = from; i < to; i++) {
+               double[] m = rows[i - from];
+               pi[i] = i;
+               lambda[i] = Double.POSITIVE_INFINITY;
+
+               for (int j = 0; j < i; j++) {
+
+                  if (lambda[j] >= m[j]) {
+                     m[pi[j]] = Math.min(m[pi[j]], lambda[j]);
+                     lambda[j] = m[j];
+                     pi[j] = i;
+                  } else {
+                     m[pi[j]] = Math.min(m[pi[j]], m[j]);
+                  }
+               }
+
+               for (int j = 0; j < i; j++) {
+
+                  if (lambda[j] >= lambda[pi[j]]) {
+                     pi[j] = i;
+                  }
+               }
+            } // end for
+         } // end for
+      } finally {
+
+         if (executor != null) {
+            executor.shutdownNow();
+         }
+      }
+
+      // the last cluster never joins another one
+      int[] order = MergeSequence.sortedOrder(lambda, Math.max(n - 1, 0));
+
+      MergeSequence merges = new MergeSequence(n);
+      int[] parent = new int[n];
+      int[] clusterId = new int[n];
+
+      for (int i = 0; i < n; i++) {
+         parent[i] = i;
+         clusterId[i] = i;
+      }
+
+      for (int k = 0; k < order.length; k++) {
+         int i = order[k];
+         int ra = find(parent, i);
+         int rb = find(parent, pi[i]);
+         int id1 = clusterId[ra];
+         int id2 = clusterId[rb];
+
+         // as in LanceWilliamsLinkage, the first cluster of a pair of input
+         // clusters is the one with the lower id, otherwise the newer one
+         boolean firstIs1 =
+            ((id1 < n) && (id2 < n)) ? (id1 < id2) : (id1 > id2);
+
+         int newId =
+            firstIs1 ? merges.add(id1, id2, lambda[i])
+                     : merges.add(id2, id1, lambda[i]);
+
+         parent[rb] = ra;
+         clusterId[ra] = newId;
+      }
+
+      return merges;
+   } // end method run
+
+   /**
+    * Returns the root of the set of cluster <code>i</code>, halving the path
+    * to it.
+    *
+    * @param  parent The parent of each cluster
+    * @param  i      A cluster
+    *
+    * @return The root cluster
+    */
+   static private int find(int[] parent, int i) {
+
+      while (parent[i] != i) {
+         parent[i] = parent[parent[i]];
+         i = parent[i];
+      }
+
+      return i;
+   }
+
+} // end class SlinkLinkage
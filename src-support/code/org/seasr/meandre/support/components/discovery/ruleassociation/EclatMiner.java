@@ -0,0 +1,393 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+//==============
+// Java Imports
+//==============
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPatternSink;
+
+/**
+ * A vertical frequent itemset miner (Eclat). Every item is represented by the
+ * sorted list of the examples that contain it (its tidset), and the support of
+ * an itemset is found by intersecting the tidsets of its items, one item at a
+ * time, in a depth-first walk of the itemsets that share a prefix.
+ *
+ * <p>With diffsets enabled (dEclat) only the first level uses tidsets; below
+ * it an itemset <i>PXY</i> keeps the examples that contain <i>PX</i> but not
+ * <i>PY</i>, and its support is the support of <i>PX</i> less the size of
+ * that set. On dense data the diffsets are much smaller than the tidsets they
+ * replace.</p>
+ *
+ * <p>See &quot;New Algorithms for Fast Discovery of Association Rules&quot;,
+ * Mohammed J. Zaki et al., 1997 and &quot;Fast Vertical Mining Using
+ * Diffsets&quot;, Mohammed J. Zaki and Karam Gouda, 2003.</p>
+ *
+ * <p>An item constraint can be pushed into the mining: the items that every
+ * pattern must contain at least one of are placed before all the others, so
+ * every such pattern starts with one of them and only their itemsets are
+ * mined. Excluded items are left out of the mining altogether.</p>
+ *
+ * <p>The itemsets that start with different items are independent of each
+ * other and are mined on a pool of worker threads. Patterns are delivered to an
+ * <code>FPPatternSink</code> as they are found, so the same sinks serve both
+ * this miner and <code>FPGrowthMiner</code>.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class EclatMiner {
+
+    //==============
+    // Data Members
+    //==============
+
+    /** The number of worker threads used to mine the itemsets of each first item. */
+    private final int _numThreads;
+
+    /** The maximum number of items in a pattern. */
+    private final int _maxLength;
+
+    /** Whether diffsets are used below the first level. */
+    private final boolean _diffsets;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * Creates a miner that uses <code>numThreads</code> worker threads and finds
+     * patterns of at most <code>maxLength</code> items.
+     *
+     * @param numThreads The number of worker threads; 0 or less means use all
+     *                   available processors.
+     * @param maxLength  The maximum number of items in a pattern; 0 or less
+     *                   means no limit.
+     * @param diffsets   True to use diffsets (dEclat), false to use tidsets only (Eclat)
+     */
+    public EclatMiner(int numThreads, int maxLength, boolean diffsets) {
+        _numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+        _maxLength = (maxLength > 0) ? maxLength : Integer.MAX_VALUE;
+        _diffsets = diffsets;
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    public int getNumThreads() {
+        return _numThreads;
+    }
+
+    public int getMaxLength() {
+        return _maxLength;
+    }
+
+    public boolean usesDiffsets() {
+        return _diffsets;
+    }
+
+    /**
+     * Mines all frequent patterns of the items of <code>iss</code>. When more
+     * than one thread is used the patterns arrive in no particular order.
+     *
+     * @param iss     The item sets to mine
+     * @param support The minimum support count
+     * @param sink    The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining the itemsets of an item failed
+     */
+    public void mine(ItemSetInterface iss, int support, FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        mine(iss, null, null, support, sink);
+    }
+
+    /**
+     * Mines the frequent patterns of the items of <code>iss</code> flagged in
+     * <code>include</code> that contain at least one of the items flagged in
+     * <code>required</code>. When more than one thread is used the patterns
+     * arrive in no particular order.
+     *
+     * @param iss      The item sets to mine
+     * @param include  Flags, by item, the items to mine; null for all the items
+     * @param required Flags, by item, the items of which every pattern contains
+     *                 at least one; null for no constraint
+     * @param support  The minimum support count
+     * @param sink     The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining the itemsets of an item failed
+     */
+    public void mine(ItemSetInterface iss, boolean[] include, boolean[] required, int support, FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        int numItems = iss.getItemsOrderedByFrequency().length;
+        int[][] tidsets = new int[numItems][];
+        for (int i = 0; i < numItems; i++)
+            tidsets[i] = (include == null || include[i]) ? iss.getItemExamples(i) : new int[0];
+
+        mine(tidsets, required, support, sink);
+    }
+
+    /**
+     * Mines all frequent patterns of the items whose tidsets are given. When
+     * more than one thread is used the patterns arrive in no particular order.
+     *
+     * @param tidsets The examples containing each item, in increasing order
+     * @param support The minimum support count
+     * @param sink    The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining the itemsets of an item failed
+     */
+    public void mine(int[][] tidsets, int support, FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        mine(tidsets, null, support, sink);
+    }
+
+    /**
+     * Mines the frequent patterns of the items whose tidsets are given that
+     * contain at least one of the items flagged in <code>required</code>. When
+     * more than one thread is used the patterns arrive in no particular order.
+     *
+     * @param tidsets  The examples containing each item, in increasing order
+     * @param required Flags, by item, the items of which every pattern contains
+     *                 at least one; null for no constraint
+     * @param support  The minimum support count
+     * @param sink     The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining the itemsets of an item failed
+     */
+    public void mine(int[][] tidsets, boolean[] required, int support, final FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        // the frequent items by increasing support, which keeps the
+        // intersections of the deep levels small; the required items come
+        // first, so only the itemsets starting with one of them are mined
+        List<Member> items = new ArrayList<Member>();
+        int numRequired = 0;
+        for (int i = 0; i < tidsets.length; i++) {
+            if (tidsets[i].length >= support) {
+                boolean req = (required == null || required[i]);
+                items.add(new Member(i, tidsets[i], tidsets[i].length, req));
+                if (req) numRequired++;
+            }
+        }
+
+        final Member[] members = items.toArray(new Member[items.size()]);
+        Arrays.sort(members);
+
+        final int minSupport = support;
+        // the itemsets starting with each required member
+        final int numStarts = numRequired;
+        if (numStarts == 0) return;
+
+        if (_numThreads == 1 || numStarts == 1) {
+            for (int m = 0; m < numStarts; m++)
+                processMember(members, m, new int[0], false, minSupport, sink);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_numThreads, numStarts));
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>(numStarts);
+
+            for (int m = 0; m < numStarts; m++) {
+                final int member = m;
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        processMember(members, member, new int[0], false, minSupport, sink);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Object> result : results)
+                result.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Outputs <code>prefix</code> extended with member <code>m</code> of its
+     * class and mines the class of the extended prefix: the members after
+     * <code>m</code> combined with it.
+     *
+     * @param diff True if the sets of <code>members</code> are diffsets
+     */
+    private void processMember(Member[] members, int m, int[] prefix, boolean diff,
+            int support, FPPatternSink sink) {
+
+        Member x = members[m];
+        int[] items = Arrays.copyOf(prefix, prefix.length + 1);
+        items[prefix.length] = x.item;
+        sink.addPattern(items, items.length, x.support);
+
+        if (items.length >= _maxLength || m == members.length - 1) return;
+
+        int[] buffer = new int[diff ? maxSize(members, m + 1) : x.set.length];
+        List<Member> extensions = new ArrayList<Member>(members.length - m - 1);
+
+        for (int n = m + 1; n < members.length; n++) {
+            Member y = members[n];
+            int len;
+            int sup;
+
+            if (diff) {
+                // d(PXY) = d(PY) - d(PX)
+                len = difference(y.set, x.set, buffer);
+                sup = x.support - len;
+            } else if (_diffsets) {
+                // d(PXY) = t(PX) - t(PY)
+                len = difference(x.set, y.set, buffer);
+                sup = x.support - len;
+            } else {
+                // t(PXY) = t(PX) & t(PY)
+                len = intersection(x.set, y.set, buffer);
+                sup = len;
+            }
+
+            if (sup >= support)
+                extensions.add(new Member(y.item, Arrays.copyOf(buffer, len), sup, true));
+        }
+
+        if (extensions.isEmpty()) return;
+
+        Member[] cls = extensions.toArray(new Member[extensions.size()]);
+        for (int n = 0; n < cls.length; n++)
+            processMember(cls, n, items, _diffsets, support, sink);
+    }
+
+    private static int maxSize(Member[] members, int from) {
+        int max = 0;
+        for (int n = from; n < members.length; n++)
+            max = Math.max(max, members[n].set.length);
+
+        return max;
+    }
+
+    /**
+     * Writes the elements common to the sorted sets <code>a</code> and
+     * <code>b</code> to <code>out</code> and returns their number.
+     */
+    private static int intersection(int[] a, int[] b, int[] out) {
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+
+        return n;
+    }
+
+    /**
+     * Writes the elements of the sorted set <code>a</code> that are not in
+     * the sorted set <code>b</code> to <code>out</code> and returns their number.
+     */
+    private static int difference(int[] a, int[] b, int[] out) {
+        int i = 0, j = 0, n = 0;
+        while (i < a.length) {
+            if (j == b.length || a[i] < b[j]) out[n++] = a[i++];
+            else if (a[i] > b[j]) j++;
+            else {
+                i++;
+                j++;
+            }
+        }
+
+        return n;
+    }
+
+    //=============
+    // Inner Class
+    //=============
+
+    /**
+     * An itemset of an equivalence class: its last item, the tidset or
+     * diffset of the itemset, its support and whether it satisfies the
+     * item constraint.
+     */
+    private static class Member implements Comparable<Member> {
+        final int item;
+        final int[] set;
+        final int support;
+        final boolean required;
+
+        Member(int item, int[] set, int support, boolean required) {
+            this.item = item;
+            this.set = set;
+            this.support = support;
+            this.required = required;
+        }
+
+        public int compareTo(Member o) {
+            if (required != o.required) return required ? -1 : 1;
+            if (support != o.support) return (support < o.support) ? -1 : 1;
+            return (item < o.item) ? -1 : ((item == o.item) ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPatternSink;
+
+/**
+ * Maintains the frequent itemsets of a growing history of transactions that
+ * arrives in batches, in the style of FUP (&quot;Maintenance of Discovered
+ * Association Rules in Large Databases: An Incremental Updating
+ * Technique&quot;, David W. Cheung et al., 1996).
+ *
+ * <p>The miner keeps the frequent itemsets of the history with their support
+ * counts, a dictionary that gives every item name a stable id, and the
+ * examples of the history that contain each item. When a batch is added:</p>
+ * <ul>
+ * <li>an itemset that was frequent stays frequent if its count in the
+ *     history plus its count in the batch meets the new minimum support;</li>
+ * <li>an itemset that was not frequent has a count in the history below the
+ *     old minimum support, so it can only have become frequent if its count
+ *     in the batch makes up the difference. Only the batch is mined for those
+ *     itemsets, and their counts in the history are then looked up in the
+ *     item examples.</li>
+ * </ul>
+ * <p>The history is re-mined only for the first batch, or when the minimum
+ * support or the maximum itemset length change.</p>
+ *
+ * <p>Item ids in the item sets of a batch depend on the frequencies within the
+ * batch, so they are mapped to the stable ids by name. A snapshot of the whole
+ * history, with item ids ranked by frequency as <code>ItemSets</code> does, is
+ * built on request together with the frequent itemsets in those ids.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class IncrementalItemSetMiner implements Serializable {
+
+    private static final long serialVersionUID = 6251908843407721245L;
+
+    //==============
+    // Data Members
+    //==============
+
+    /** The minimum support, as a percentage of the examples. */
+    private double _support;
+
+    /** The maximum number of items in an itemset. */
+    private int _maxLength;
+
+    /** The stable id of each item name, and the name of each stable id. */
+    private final TObjectIntHashMap<String> _ids = new TObjectIntHashMap<String>();
+    private final ArrayList<String> _names = new ArrayList<String>();
+
+    /** For each stable id, the examples of the history that contain the item, in increasing order. */
+    private final ArrayList<TIntArrayList> _examples = new ArrayList<TIntArrayList>();
+
+    /** The number of examples in the history. */
+    private int _numExamples = 0;
+
+    /** The frequent itemsets of the history (sorted stable ids) and their support counts. */
+    private TObjectIntHashMap<TIntArrayList> _frequent = null;
+
+    /** The target attribute names of the last batch. */
+    private String[] _targetNames = new String[0];
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * @param support   The minimum support, as a percentage of the examples
+     * @param maxLength The maximum number of items in an itemset; 0 or less means no limit
+     */
+    public IncrementalItemSetMiner(double support, int maxLength) {
+        _support = support;
+        _maxLength = (maxLength > 0) ? maxLength : Integer.MAX_VALUE;
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    public double getSupport() {
+        return _support;
+    }
+
+    public int getMaxLength() {
+        return _maxLength;
+    }
+
+    public int getNumExamples() {
+        return _numExamples;
+    }
+
+    public int getNumFrequentItemSets() {
+        return (_frequent == null) ? 0 : _frequent.size();
+    }
+
+    /**
+     * Returns the minimum support count for a number of examples.
+     */
+    public int getCutoff(int numExamples) {
+        int cutoff = (int) (numExamples * (_support / 100.0));
+        if ((numExamples * (_support / 100.0)) > cutoff)
+            cutoff++;
+
+        return cutoff;
+    }
+
+    /**
+     * Changes the minimum support and the maximum itemset length, re-mining
+     * the whole history if they differ from the current ones.
+     *
+     * @param numThreads The number of threads used to mine; 0 or less means use
+     *                   all available processors.
+     */
+    public void setParameters(double support, int maxLength, int numThreads)
+        throws InterruptedException, ExecutionException {
+
+        maxLength = (maxLength > 0) ? maxLength : Integer.MAX_VALUE;
+        if (support == _support && maxLength == _maxLength) return;
+
+        _support = support;
+        _maxLength = maxLength;
+        if (_frequent != null)
+            _frequent = mineHistory(numThreads);
+    }
+
+    /**
+     * Appends a batch of examples to the history and updates the frequent itemsets.
+     *
+     * @param batch      The item sets of the new examples
+     * @param numThreads The number of threads used to mine; 0 or less means use
+     *                   all available processors.
+     */
+    public void add(ItemSetInterface batch, int numThreads)
+        throws InterruptedException, ExecutionException {
+
+        String[] batchNames = batch.getItemsOrderedByFrequency();
+        int numBatchItems = batchNames.length;
+        int numBatchExamples = batch.getNumExamples();
+
+        // map the item ids of the batch to stable ids
+        final int[] toStable = new int[numBatchItems];
+        for (int i = 0; i < numBatchItems; i++) {
+            String name = batchNames[i];
+            if (!_ids.containsKey(name)) {
+                _ids.put(name, _names.size());
+                _names.add(name);
+                _examples.add(new TIntArrayList());
+            }
+            toStable[i] = _ids.get(name);
+        }
+
+        int[][] batchExamples = new int[numBatchItems][];
+        for (int i = 0; i < numBatchItems; i++)
+            batchExamples[i] = batch.getItemExamples(i);
+
+        if (batch.getTargetNames() != null)
+            _targetNames = batch.getTargetNames();
+
+        if (_frequent == null) {
+            append(batchExamples, toStable, numBatchExamples);
+            _frequent = mineHistory(numThreads);
+            return;
+        }
+
+        int cutoffOld = getCutoff(_numExamples);
+        int cutoffNew = getCutoff(_numExamples + numBatchExamples);
+
+        // an itemset that was not frequent has a history count of at most
+        // cutoffOld - 1, so it needs this many examples of the batch
+        int batchCutoff = Math.max(1, cutoffNew - cutoffOld + 1);
+        TObjectIntHashMap<TIntArrayList> candidates = new TObjectIntHashMap<TIntArrayList>();
+        new EclatMiner(numThreads, _maxLength, false)
+            .mine(batchExamples, batchCutoff, new CollectingSink(candidates, toStable));
+
+        int[] toBatch = new int[_names.size()];
+        Arrays.fill(toBatch, -1);
+        for (int i = 0; i < numBatchItems; i++)
+            toBatch[toStable[i]] = i;
+
+        TObjectIntHashMap<TIntArrayList> frequent = new TObjectIntHashMap<TIntArrayList>();
+        int[] items = new int[0];
+
+        // the itemsets that were frequent: add their counts in the batch
+        for (Object key : _frequent.keys()) {
+            TIntArrayList itemset = (TIntArrayList) key;
+            int count = _frequent.get(itemset);
+
+            if (candidates.containsKey(itemset))
+                count += candidates.get(itemset);
+            else {
+                int len = itemset.size();
+                if (items.length < len) items = new int[len];
+
+                boolean present = true;
+                for (int i = 0; i < len && present; i++) {
+                    items[i] = toBatch[itemset.get(i)];
+                    present = items[i] >= 0;
+                }
+                if (present)
+                    count += batch.getSupport(items, len);
+            }
+
+            if (count >= cutoffNew)
+                frequent.put(itemset, count);
+        }
+
+        // the itemsets frequent enough in the batch: add their counts in the history
+        for (Object key : candidates.keys()) {
+            TIntArrayList itemset = (TIntArrayList) key;
+            if (_frequent.containsKey(itemset)) continue;
+
+            int count = candidates.get(itemset) + getHistorySupport(itemset);
+            if (count >= cutoffNew)
+                frequent.put(itemset, count);
+        }
+
+        append(batchExamples, toStable, numBatchExamples);
+        _frequent = frequent;
+    }
+
+    /**
+     * Returns the item sets of the whole history, with the item ids ranked
+     * by decreasing frequency (ties by order of first appearance).
+     */
+    public ItemSets getItemSets() {
+        int[] ranks = rankItems();
+        int numItems = ranks.length;
+
+        String[] names = new String[numItems];
+        HashMap<String, int[]> unique = new HashMap<String, int[]>();
+        VerticalItemStore store = new VerticalItemStore(numItems, _numExamples);
+
+        for (int id = 0; id < numItems; id++) {
+            String name = _names.get(id);
+            TIntArrayList examples = _examples.get(id);
+            int rank = ranks[id];
+
+            names[rank] = name;
+            unique.put(name, new int[] { examples.size(), rank });
+            for (int e = 0, n = examples.size(); e < n; e++)
+                store.add(examples.get(e), rank);
+        }
+        store.compact();
+
+        return new ItemSets(_targetNames, names, unique, store);
+    }
+
+    /**
+     * Returns the frequent itemsets of the whole history in the format used by
+     * the <i>Compute Confidence</i> component: the item ids of each itemset, as
+     * given by <code>getItemSets</code>, followed by its support.
+     *
+     * @param minLength The itemsets with fewer items than this are left out
+     */
+    public int[][] getFrequentItemSets(int minLength) {
+        if (_frequent == null) return new int[0][];
+
+        int[] ranks = rankItems();
+        ArrayList<int[]> result = new ArrayList<int[]>(_frequent.size());
+
+        for (Object key : _frequent.keys()) {
+            TIntArrayList itemset = (TIntArrayList) key;
+            int len = itemset.size();
+            if (len < minLength) continue;
+
+            int[] pattern = new int[len + 1];
+            for (int i = 0; i < len; i++)
+                pattern[i] = ranks[itemset.get(i)];
+            pattern[len] = _frequent.get(itemset);
+            result.add(pattern);
+        }
+
+        return result.toArray(new int[result.size()][]);
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    private TObjectIntHashMap<TIntArrayList> mineHistory(int numThreads)
+        throws InterruptedException, ExecutionException {
+
+        int numItems = _examples.size();
+        int[][] examples = new int[numItems][];
+        int[] ids = new int[numItems];
+        for (int id = 0; id < numItems; id++) {
+            examples[id] = _examples.get(id).toArray();
+            ids[id] = id;
+        }
+
+        TObjectIntHashMap<TIntArrayList> frequent = new TObjectIntHashMap<TIntArrayList>();
+        new EclatMiner(numThreads, _maxLength, false)
+            .mine(examples, getCutoff(_numExamples), new CollectingSink(frequent, ids));
+
+        return frequent;
+    }
+
+    /**
+     * Appends the examples of a batch to the history.
+     */
+    private void append(int[][] batchExamples, int[] toStable, int numBatchExamples) {
+        for (int i = 0; i < batchExamples.length; i++) {
+            TIntArrayList examples = _examples.get(toStable[i]);
+            for (int e : batchExamples[i])
+                examples.add(_numExamples + e);
+        }
+
+        _numExamples += numBatchExamples;
+    }
+
+    /**
+     * Returns the number of examples of the history that contain all the
+     * items of <code>itemset</code>.
+     */
+    private int getHistorySupport(TIntArrayList itemset) {
+        int len = itemset.size();
+
+        TIntArrayList rarest = _examples.get(itemset.get(0));
+        for (int i = 1; i < len; i++) {
+            TIntArrayList examples = _examples.get(itemset.get(i));
+            if (examples.size() < rarest.size())
+                rarest = examples;
+        }
+
+        int count = 0;
+        for (int e = 0, n = rarest.size(); e < n; e++) {
+            int example = rarest.get(e);
+            boolean all = true;
+            for (int i = 0; i < len && all; i++) {
+                TIntArrayList examples = _examples.get(itemset.get(i));
+                all = (examples == rarest) || examples.binarySearch(example) >= 0;
+            }
+            if (all) count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the rank of each stable id: items by decreasing count in the
+     * history, ties broken by stable id.
+     */
+    private int[] rankItems() {
+        int numItems = _examples.size();
+        Integer[] order = new Integer[numItems];
+        for (int id = 0; id < numItems; id++)
+            order[id] = id;
+
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int ca = _examples.get(a).size();
+                int cb = _examples.get(b).size();
+                if (ca != cb) return (ca > cb) ? -1 : 1;
+                return a.compareTo(b);
+            }
+        });
+
+        int[] ranks = new int[numItems];
+        for (int r = 0; r < numItems; r++)
+            ranks[order[r]] = r;
+
+        return ranks;
+    }
+
+    //=============
+    // Inner Class
+    //=============
+
+    /**
+     * Collects itemsets into a map from their sorted stable ids to their support counts.
+     */
+    private static class CollectingSink implements FPPatternSink {
+        private final TObjectIntHashMap<TIntArrayList> _itemsets;
+        private final int[] _toStable;
+
+        CollectingSink(TObjectIntHashMap<TIntArrayList> itemsets, int[] toStable) {
+            _itemsets = itemsets;
+            _toStable = toStable;
+        }
+
+        public void addPattern(int[] items, int len, int support) {
+            int[] ids = new int[len];
+            for (int i = 0; i < len; i++)
+                ids[i] = _toStable[items[i]];
+            Arrays.sort(ids);
+
+            TIntArrayList key = new TIntArrayList(ids);
+            synchronized (_itemsets) {
+                _itemsets.put(key, support);
+            }
+        }
+    }
+}
@@ -43,10 +43,9 @@ package org.seasr.meandre.support.components.discovery.ruleassociation;
  */
 
 
-import java.util.HashMap;
-
 /**
- * Interface for ItemSets
+ * Interface for ItemSets: the items and their counts, and the examples that
+ * contain them.
  *
  * <p>Title: </p>
  * <p>Description: </p>
@@ -56,24 +55,7 @@ import java.util.HashMap;
  * @version 1.0
  */
 
-public interface ItemSetInterface {
-
-   /** number of examples. */
-   public int      getNumExamples();
-
-   /** this array contains a list of attribute names of target attributes. */
-   // this may or may NOT be equal to the number of columns
-   public String[] getTargetNames();
-
-   /** for each unique item, this hashtable contains it's frequency count and it's
-    *  order in terms of frequency. */
-   // int[] values = (int[]) getUnique().get(key)
-   public HashMap<String, int[]> getUnique();
-
-   /** this is the list of unique attribute value names ordered by frequency. */
-   // was getNames()
-   public String[] getItemsOrderedByFrequency();
-
+public interface ItemSetInterface extends ItemSetSummaryInterface {
 
    /** for each example contains a boolean array with an entry for each item,
     *  set to true only if the item is represented in the example or not.  */
@@ -81,4 +63,10 @@ public interface ItemSetInterface {
    // atributeNum {0.. unique.size() }
    public boolean getItemFlag(int exampleNum, int attributeNum);
 
+   /** the number of examples that contain all of the first numItems items. */
+   public int getSupport(int[] items, int numItems);
+
+   /** the examples that contain an item, in increasing order. */
+   public int[] getItemExamples(int attributeNum);
+
 }
\ No newline at end of file
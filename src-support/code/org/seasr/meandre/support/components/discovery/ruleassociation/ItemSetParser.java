@@ -1,15 +1,11 @@
 package org.seasr.meandre.support.components.discovery.ruleassociation;
 
-import java.io.BufferedReader;
+import gnu.trove.list.array.TIntArrayList;
+
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.Reader;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.StringTokenizer;
 
 
 public class ItemSetParser {
@@ -18,9 +14,7 @@ public class ItemSetParser {
     public ItemSetInterface getItemSets(String filename)
        throws FileNotFoundException, IOException
     {
-       File file = new File(filename);
-       FileInputStream fis = new FileInputStream(file);
-       return getItemSets(new InputStreamReader(fis));
+       return getItemSets(new File(filename), 1, false);
     }
     
     public ItemSetInterface getItemSets(Reader r)
@@ -32,37 +26,80 @@ public class ItemSetParser {
     public ItemSetInterface getItemSets(Reader r, int linesPerSet)
        throws IOException
     {
-       BufferedReader reader = new BufferedReader(r);
-       int lineNumber = 0;
-          
-     
-       String line = null;
+       return getItemSets(new TransactionReader(r, linesPerSet));
+    }
+
+    /**
+     * Reads the item sets of a local file.
+     *
+     * @param memoryMap Whether to memory-map the file instead of reading it
+     */
+    public ItemSetInterface getItemSets(File file, int linesPerSet, boolean memoryMap)
+       throws IOException
+    {
+       TransactionReader reader = new TransactionReader(file, linesPerSet, memoryMap);
+       try {
+          return getItemSets(reader);
+       }
+       finally {
+          reader.close();
+       }
+    }
+
+    public ItemSetInterface getItemSets(TransactionReader reader)
+       throws IOException
+    {
        SimpleItemSet itemSet = new SimpleItemSet();
-       Set<String> set = new HashSet<String>();
-       
-       while ( (line = reader.readLine()) != null) {
-    	   
-    	  lineNumber++;
-          
-          line = line.replaceAll("[{}]", "");
-          line = line.trim();
-          StringTokenizer tokens = new StringTokenizer(line, ",");
-          
-          while(tokens.hasMoreTokens()){
-             String item = tokens.nextToken();
-             set.add(item);
+
+       int len;
+       while ( (len = reader.next()) >= 0) {
+          itemSet.addSet(reader.getItems(), len);
+       }
+
+       itemSet.compute(reader.getNames());
+
+       return itemSet;
+
+    }
+
+    /**
+     * Counts the items of the sets without keeping the sets, for data that is
+     * mined out of core. The items get the same ids as in the
+     * <code>SimpleItemSet</code> returned by <code>getItemSets</code>.
+     */
+    public ItemSetSummary getItemSetSummary(TransactionReader reader)
+       throws IOException
+    {
+       TIntArrayList counts = new TIntArrayList();
+       int numSets = 0;
+
+       int len;
+       while ( (len = reader.next()) >= 0) {
+          int[] items = reader.getItems();
+          for (int i = 0; i < len; i++) {
+             while (counts.size() <= items[i])
+                counts.add(0);
+             counts.setQuick(items[i], counts.getQuick(items[i]) + 1);
           }
-          
-          if (lineNumber%linesPerSet == 0) {
-        	  
-             itemSet.addSet(set); 
-             set = new HashSet<String>();
+          numSets++;
+       }
+
+       // the items of a set cut short at the end of the input are left out
+       String[] names = reader.getNames();
+       int numItems = 0;
+       for (int id = 0; id < counts.size(); id++)
+          if (counts.getQuick(id) > 0) numItems++;
+
+       String[] present = new String[numItems];
+       int[] itemCounts = new int[numItems];
+       numItems = 0;
+       for (int id = 0; id < counts.size(); id++) {
+          if (counts.getQuick(id) > 0) {
+             present[numItems] = names[id];
+             itemCounts[numItems++] = counts.getQuick(id);
           }
        }
-       
-       itemSet.compute();
-       
-       return itemSet;
-       
+
+       return new ItemSetSummary(present, itemCounts, numSets);
     }
-}
\ No newline at end of file
+}
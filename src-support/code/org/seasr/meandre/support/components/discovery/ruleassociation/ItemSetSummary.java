@@ -0,0 +1,142 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The items of a collection of item sets, with their counts, but not the sets
+ * themselves. It describes data that is too large to hold in memory and is
+ * mined out of core; the items are named <code>attribute=value</code> and get
+ * the same ids as in a <code>SimpleItemSet</code> of the same sets: ordered
+ * by decreasing count, ties broken by name.
+ *
+ * <p>Without the examples it cannot be mined or answer support queries, so it
+ * is an <code>ItemSetSummaryInterface</code> but not an
+ * <code>ItemSetInterface</code>.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class ItemSetSummary implements ItemSetSummaryInterface, Serializable {
+
+    private static final long serialVersionUID = -5016391127420873148L;
+
+    /** Separates the attribute name from the value in an item name. */
+    public static final String ITEM_SEPARATOR = "=";
+
+    private final String[] _names;
+    private final HashMap<String, int[]> _unique;
+    private final String[] _targetNames;
+    private final int _numExamples;
+
+    /**
+     * @param names       The items
+     * @param counts      The number of examples that contain each item
+     * @param numExamples The number of examples
+     */
+    public ItemSetSummary(String[] names, int[] counts, int numExamples) {
+        final HashMap<String, int[]> unique = new HashMap<String, int[]>();
+        for (int i = 0; i < names.length; i++)
+            unique.put(names[i], new int[] { counts[i], 0 });
+
+        _names = names.clone();
+        Arrays.sort(_names, new Comparator<String>() {
+            public int compare(String a, String b) {
+                int ca = unique.get(a)[0];
+                int cb = unique.get(b)[0];
+                if (ca != cb) return cb - ca;
+                return a.compareTo(b);
+            }
+        });
+
+        Set<String> attributes = new HashSet<String>();
+        for (int i = 0; i < _names.length; i++) {
+            unique.get(_names[i])[1] = i;
+
+            int idx = _names[i].indexOf(ITEM_SEPARATOR);
+            attributes.add((idx < 0) ? _names[i] : _names[i].substring(0, idx).trim());
+        }
+
+        _unique = unique;
+        _targetNames = attributes.toArray(new String[attributes.size()]);
+        _numExamples = numExamples;
+    }
+
+    public int getNumExamples() {
+        return _numExamples;
+    }
+
+    public String[] getTargetNames() {
+        return _targetNames;
+    }
+
+    public HashMap<String, int[]> getUnique() {
+        return _unique;
+    }
+
+    public String[] getItemsOrderedByFrequency() {
+        return _names;
+    }
+
+    /**
+     * Returns the number of examples that contain an item.
+     *
+     * @param item The id of the item
+     */
+    public int getCount(int item) {
+        return _unique.get(_names[item])[0];
+    }
+
+    /**
+     * Returns the id of an item, or -1 if it does not occur.
+     */
+    public int getId(String name) {
+        int[] cnt_and_id = _unique.get(name);
+        return (cnt_and_id == null) ? -1 : cnt_and_id[1];
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import java.util.HashMap;
+
+/**
+ * The items of a collection of item sets and their counts, without the sets
+ * themselves. Enough to name the items of the frequent itemsets mined from the
+ * sets and to compute the confidence of their rules, but not to mine them;
+ * that takes an <code>ItemSetInterface</code>.
+ *
+ * @author Boris Capitanu
+ */
+public interface ItemSetSummaryInterface {
+
+   /** number of examples. */
+   public int      getNumExamples();
+
+   /** this array contains a list of attribute names of target attributes. */
+   // this may or may NOT be equal to the number of columns
+   public String[] getTargetNames();
+
+   /** for each unique item, this hashtable contains it's frequency count and it's
+    *  order in terms of frequency. */
+   // int[] values = (int[]) getUnique().get(key)
+   public HashMap<String, int[]> getUnique();
+
+   /** this is the list of unique attribute value names ordered by frequency. */
+   // was getNames()
+   public String[] getItemsOrderedByFrequency();
+
+}
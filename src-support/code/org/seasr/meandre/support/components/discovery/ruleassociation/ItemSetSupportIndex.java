@@ -0,0 +1,179 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A prefix trie over frequent itemsets that answers support lookups in time
+ * proportional to the length of the itemset. Itemsets are stored with their
+ * items in ascending order; the children of a node are kept in a single hash
+ * map keyed by (node, item).
+ *
+ * @author Boris Capitanu
+ */
+public class ItemSetSupportIndex implements java.io.Serializable {
+
+    private static final long serialVersionUID = -3048152906313877528L;
+
+    /** The support returned for itemsets that are not in the index */
+    public static final int UNKNOWN = -1;
+
+    private static final int ROOT = 0;
+
+    private final TLongIntHashMap _children;
+    private int[] _supports;
+    private int _size;
+
+    public ItemSetSupportIndex() {
+        this(16);
+    }
+
+    public ItemSetSupportIndex(int capacity) {
+        _children = new TLongIntHashMap(capacity);
+        _supports = new int[Math.max(capacity, 1)];
+        _supports[ROOT] = UNKNOWN;
+        _size = 1;
+    }
+
+    /**
+     * Creates an index over the frequent itemsets in the format produced by FPGrowth
+     * (the items of the set followed by its support).
+     *
+     * @param fis The frequent itemsets
+     */
+    public ItemSetSupportIndex(int[][] fis) {
+        this(fis.length + 16);
+
+        for (int[] set : fis)
+            put(set, set.length - 1, set[set.length - 1]);
+    }
+
+    /**
+     * Adds the support counts of the single items to the index.
+     *
+     * @param unique The unique items map, as returned by {@link ItemSetInterface#getUnique()}
+     */
+    public void putItems(HashMap<String, int[]> unique) {
+        int[] item = new int[1];
+        for (int[] cnt_and_id : unique.values()) {
+            item[0] = cnt_and_id[1];
+            put(item, 1, cnt_and_id[0]);
+        }
+    }
+
+    /**
+     * Records the support of an itemset.
+     *
+     * @param items The items (in any order)
+     * @param len The number of items to use from <code>items</code>
+     * @param support The support
+     */
+    public void put(int[] items, int len, int support) {
+        int[] sorted = sort(items, len);
+
+        int node = ROOT;
+        for (int i = 0; i < len; i++) {
+            long key = key(node, sorted[i]);
+            int child = _children.get(key);
+            if (child == 0) {
+                child = newNode();
+                _children.put(key, child);
+            }
+            node = child;
+        }
+
+        _supports[node] = support;
+    }
+
+    /**
+     * Returns the support of an itemset.
+     *
+     * @param items The items (in any order)
+     * @param len The number of items to use from <code>items</code>
+     * @return The support, or {@link #UNKNOWN} if the itemset is not in the index
+     */
+    public int getSupport(int[] items, int len) {
+        int[] sorted = sort(items, len);
+
+        int node = ROOT;
+        for (int i = 0; i < len; i++) {
+            node = _children.get(key(node, sorted[i]));
+            if (node == 0) return UNKNOWN;
+        }
+
+        return _supports[node];
+    }
+
+    public int getSupport(int[] items) {
+        return getSupport(items, items.length);
+    }
+
+    /**
+     * @return The number of nodes in the trie (including the root)
+     */
+    public int getNumNodes() {
+        return _size;
+    }
+
+    private int newNode() {
+        if (_size == _supports.length)
+            _supports = Arrays.copyOf(_supports, _size + (_size >> 1) + 1);
+
+        _supports[_size] = UNKNOWN;
+        return _size++;
+    }
+
+    private static long key(int node, int item) {
+        return ((long) node << 32) | (item & 0xffffffffL);
+    }
+
+    private static int[] sort(int[] items, int len) {
+        int[] sorted = Arrays.copyOf(items, len);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+}
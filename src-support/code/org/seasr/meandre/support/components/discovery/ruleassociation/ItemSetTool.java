@@ -1,11 +1,76 @@
 package org.seasr.meandre.support.components.discovery.ruleassociation;
 
 import java.util.HashMap;
+import java.util.Map;
 
 
 
 public class ItemSetTool {
 
+   /**
+    * Flags the items that belong to one of the target attributes of the item
+    * set, i.e. whose names are one of its target names followed by an item
+    * separator and a value.
+    *
+    * @return the flags, indexed by item, or null if no item belongs to a
+    *         target attribute (any item may then be a consequent)
+    */
+   public static boolean[] getTargetItems(ItemSetSummaryInterface itemSet)
+   {
+      String[] targetNames = itemSet.getTargetNames();
+      if (targetNames == null) return null;
+
+      boolean[] targets = getItemsMatching(itemSet, targetNames);
+      for (int i = 0; i < targets.length; i++)
+         if (targets[i]) return targets;
+
+      return null;
+   }
+
+   /**
+    * Flags the items named by one of the given names; an attribute name flags
+    * all of its items, a full item name just that item. The attribute of an
+    * item ends at <code>ItemSets.ITEM_SEPARATOR</code> in the item sets of a
+    * table, and at <code>ItemSetSummary.ITEM_SEPARATOR</code> in the item sets
+    * read from a stream.
+    *
+    * @return the flags, indexed by item
+    */
+   public static boolean[] getItemsMatching(ItemSetSummaryInterface itemSet, String[] names)
+   {
+      HashMap<String, int[]> unique = itemSet.getUnique();
+      boolean[] flags = new boolean[itemSet.getItemsOrderedByFrequency().length];
+
+      for (Map.Entry<String, int[]> entry : unique.entrySet()) {
+         String name = entry.getKey();
+         for (int i = 0; i < names.length; i++) {
+            if (name.equals(names[i]) || isItemOf(name, names[i])) {
+               flags[entry.getValue()[1]] = true;
+               break;
+            }
+         }
+      }
+
+      return flags;
+   }
+
+   /**
+    * Returns whether an item name is an attribute name followed by an item
+    * separator; blanks before the separator are skipped, as they are when the
+    * attribute names of the item sets of a stream are taken.
+    */
+   private static boolean isItemOf(String name, String attribute)
+   {
+      if (!name.startsWith(attribute)) return false;
+
+      int i = attribute.length();
+      while (i < name.length() && name.charAt(i) <= ' ')
+         i++;
+
+      return name.startsWith(ItemSets.ITEM_SEPARATOR, i)
+          || name.startsWith(ItemSetSummary.ITEM_SEPARATOR, i);
+   }
+
    public static void print(ItemSetInterface itemSet)
    {
 
@@ -43,9 +43,8 @@
 package org.seasr.meandre.support.components.discovery.ruleassociation;
 
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
 
 import org.seasr.datatypes.datamining.table.ExampleTable;
 import org.seasr.datatypes.datamining.table.Table;
@@ -79,7 +78,10 @@ import org.seasr.datatypes.datamining.table.Table;
 //
 public class ItemSets implements ItemSetInterface, Serializable {
 
-    private static final long serialVersionUID = -3342695805257380865L;
+    private static final long serialVersionUID = 4418620957391256783L;
+
+    /** separates the attribute name from the value in an item name. */
+    public static final String ITEM_SEPARATOR = "^";
 
     /** number of examples. */
 	private int numExamples;
@@ -98,9 +100,8 @@ public class ItemSets implements ItemSetInterface, Serializable {
 	private String [] names;
 	private String [] unsortedNames;
 
-	/** for each example contains a boolean array with an entry for each item,
-	 *  set to true only if the item is represented in the example or not.  */
-	protected boolean [][] itemFlags;
+	/** for each item, the examples that contain it. */
+	protected VerticalItemStore itemStore;
 
 	/** holds some method specific data.*/
 	//public Object userData;
@@ -108,6 +109,17 @@ public class ItemSets implements ItemSetInterface, Serializable {
    public ItemSets(){}
 
 	public ItemSets(Table vt) {
+		this(vt, 0);
+	}
+
+	/**
+	 * Creates the item sets of a table.
+	 *
+	 * @param vt The table
+	 * @param numThreads The number of threads used to encode the columns of the
+	 *                   table; 0 or less means use all available processors.
+	 */
+	public ItemSets(Table vt, int numThreads) {
 		// number of cols and rows in original table
 		int numColumns = vt.getNumColumns();
 		int numRows = this.numExamples = vt.getNumRows ();
@@ -227,169 +239,77 @@ public class ItemSets implements ItemSetInterface, Serializable {
 		// home brew.
 		for (int i = 0 ; i < numAttributes ; i++) {
 			String tmp = vt.getColumnLabel( attributes[i] );
-			prefix [i] = tmp + "^";
+			prefix [i] = tmp + ITEM_SEPARATOR;
 		}
 
 		/** Construct the table containing the unique attributes and their
-		 *  counts. */
-
-		int counter = 0;
-		char [] chars = new char [1024];
-		ArrayList<int[]> set = new ArrayList<int[]>();
-
-		// added meh to hold the item names before sorting
-		ArrayList<String> allNames = new ArrayList<String>();
-
-		for (int i = 0 ; i < numRows ; i++) {
-			for (int j = 0 ; j < numAttributes ; j++) {
-				String a = prefix[j];
-				int alen = a.length();
-				String b = vt.getString (i, attributes[j]);
-            if (b == null) b = "?";
-				int blen = b.length();
-				if ((alen+blen) > chars.length)
-					chars = new char [alen+blen];
-				a.getChars(0,alen,chars,0);
-				b.getChars(0,blen,chars,alen);
-				String item_desc = new String(chars,0,alen+blen);
-				int [] cnt_and_id = unique.get (item_desc);
-				if (cnt_and_id == null) {
-					cnt_and_id = new int [2];
-					cnt_and_id[0] = 1;
-					cnt_and_id[1] = counter++;
-					unique.put (item_desc, cnt_and_id);
-					set.add(cnt_and_id);
-
-					allNames.add(item_desc);
-
-				} else
-					cnt_and_id[0]++;
-			}
+		 *  counts, the list of names sorted by frequency and the item store. */
+		ItemSetsBuilder builder = new ItemSetsBuilder(vt, attributes, prefix, numThreads);
+		try {
+			builder.build();
 		}
-
-		this.unsortedNames = allNames.toArray(new String[0]);
-
-
-		// create the arrays to sort.
-		int [][] vals = new int [set.size()][];
-		for (int i = 0 ; i < set.size();i++) vals[i] = set.get(i);
-		int [] ind = new int [set.size()];
-		for (int i = 0 ; i < set.size() ; i++) ind[i] = i;
-		this.quickSort (ind, vals, 0, ind.length-1);
-		for (int i = 0 ; i < ind.length ; i++) {
-			vals[ind[i]][1] = i;
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
 		}
-
-		// Now we have the order, the index value in the int array keyed by
-		// name in the unique names hashmap is set correctly. Now we will just
-		// create an array of unique names in the order sorted by frequency.
-		names = new String [unique.size()];
-		Iterator<int[]> enum1 = unique.values().iterator();
-		Iterator<String> enum2 = unique.keySet().iterator();
-		while (enum1.hasNext ()) {
-			int [] tmp = enum1.next ();
-			String tmpName = enum2.next ();
-			names[tmp[1]] = tmpName;
+		catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
 		}
 
-		// Now construct the new representation of the vertical table, where each
-		// entry is represented by an integer.
-		int [][] documents = new int [numRows][numAttributes];
-		for (int i = 0 ; i < numRows ; i++) {
-			for (int j = 0 ; j < numAttributes ; j++) {
-				String a = prefix[j];
-				int alen = a.length();
-				String b = vt.getString (i, attributes[j]);
-				int blen = b.length();
-				if ((alen+blen) > chars.length)
-					chars = new char [alen+blen];
-				a.getChars(0,alen,chars,0);
-				b.getChars(0,blen,chars,alen);
-				String name = new String(chars,0,blen+alen);
-				int [] pz = unique.get(name);
-				documents[i][j] = pz[1];
-			}
-		}
+		unique.putAll(builder.getUnique());
+		this.names = builder.getNames();
+		this.unsortedNames = builder.getUnsortedNames();
+		this.itemStore = builder.getItemStore();
 
-		//////////////////////
-		// First, set up the item flags, set the bit associated with each
-		// element in each set.
-		// this boolean array has a flag for each possible item for each document to
-		// indicate if the document contains the item or not.
-		itemFlags = new boolean [numRows][unique.size()];
-		for (int i = 0 ; i < numRows ; i++)
-			for (int j = 0 ; j < numAttributes ; j++)
-				itemFlags[i][documents[i][j]] = true;
+		// ItemSetTool.print(this);
 
+		findTargetIndices();
+	}
 
-		// ItemSetTool.print(this);
+	/**
+	 * Creates item sets from their parts, e.g. a snapshot of item sets that
+	 * are maintained incrementally.
+	 *
+	 * @param targetNames The names of the target attributes
+	 * @param names The item names, ordered by frequency; the position of a name is its item index
+	 * @param unique For each item name, its frequency count and its item index
+	 * @param itemStore The examples that contain each item
+	 */
+	public ItemSets(String[] targetNames, String[] names, HashMap<String, int[]> unique,
+	        VerticalItemStore itemStore) {
+		this.numExamples = itemStore.getNumRows();
+		this.targetNames = targetNames;
+		this.names = names;
+		this.unsortedNames = names;
+		this.unique.putAll(unique);
+		this.itemStore = itemStore;
+
+		findTargetIndices();
+	}
 
-		// Figure out the indices of those items that are targets
-		Iterator<String> keys = unique.keySet().iterator();
-		Iterator<int[]> indxs = unique.values().iterator();
-		ArrayList<int[]> list = new ArrayList<int[]>();
-
-		// for each target attributes, see if the inputs include the attribute.
-		if (targetNames != null) {
-			while (keys.hasNext ()) {
-				String name = keys.next ();
-				int[] indx = indxs.next ();
-				for (int i = 0 ; i < targetNames.length; i++) {
-					if (name.startsWith (targetNames[i])) {
-						list.add (indx);
-               }
-            }
-			}
-      }
+	/**
+	 * Figures out the indices of those items that are targets.
+	 */
+	private void findTargetIndices() {
+		if (targetNames == null) return;
+
+		// an item is a target if it is a value of a target attribute, matched
+		// the same way as everywhere else the targets are used
+		boolean[] targets = ItemSetTool.getItemsMatching(this, targetNames);
+		int size = 0;
+		for (int i = 0 ; i < targets.length ; i++)
+			if (targets[i]) size++;
 
 		// Put the indexes of the targets into the list.
-		int size = list.size ();
 		if (size != 0) {
 			targetIndices = new int [size];
-			for (int i = 0 ; i < size ; i++)
-				targetIndices[i] = (list.get (i))[1];
+			size = 0;
+			for (int i = 0 ; i < targets.length ; i++)
+				if (targets[i]) targetIndices[size++] = i;
 		}
 
 	}
 
-	/**
-		Perform a quicksort on the data using the Tri-median method to select the pivot.
-		@param l the first rule.
-		@param r the last rule.
-	*/
-	protected void quickSort(int [] ind, int [][] vals, int l, int r) {
-
-		int pivot = (r + l) / 2;
-		int pivotVal = vals[ind[pivot]][0];
-
-		// from position i=l+1 start moving to the right, from j=r-2 start moving
-		// to the left, and swap when the fitness of i is more than the pivot
-		// and j's fitness is less than the pivot
-		int i = l;
-		int j = r;
-		while (i <= j) {
-			while ((i < r) && (vals[ind[i]][0] > pivotVal))
-				i++;
-			while ((j > l) && (vals[ind[j]][0] < pivotVal))
-				j--;
-			if (i <= j) {
-				int swap = ind[i];
-				ind[i] = ind[j];
-				ind[j] = swap;
-				i++;
-				j--;
-			}
-		}
-
-		// sort the two halves
-		if (l < j)
-			quickSort(ind, vals, l, j);
-		if (i < r)
-			quickSort(ind, vals, j+1, r);
-	}
-
-
-
 	//
 	// ItemSetInterface
 	//
@@ -405,7 +325,15 @@ public class ItemSets implements ItemSetInterface, Serializable {
 	// }
 
 	public boolean getItemFlag(int exampleNum, int attributeNum) {
-	    return itemFlags[exampleNum][attributeNum];
+	    return itemStore.contains(exampleNum, attributeNum);
+	}
+
+	public int getSupport(int[] items, int numItems) {
+	    return itemStore.getSupport(items, numItems);
+	}
+
+	public int[] getItemExamples(int attributeNum) {
+	    return itemStore.getRows(attributeNum);
 	}
 
 	public int getNumExamples() {
@@ -0,0 +1,357 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.seasr.datatypes.datamining.table.ColumnTypes;
+import org.seasr.datatypes.datamining.table.Table;
+
+/**
+ * Builds the items of an <code>ItemSets</code> from the columns of a table.
+ *
+ * <p>Every column is first encoded on its own: each distinct value gets a local
+ * int code, so the table is read once and no [attribute,value] name is built per
+ * cell. Numeric columns without missing values are read as numbers and their
+ * values are only converted to strings once per distinct value. The columns are
+ * independent and are encoded on a pool of worker threads.
+ * The item names are then created once per distinct value, the items are ordered
+ * by frequency (ties in order of first occurrence), and the vertical item store
+ * is filled from the column codes.</p>
+ *
+ * @author Boris Capitanu
+ */
+class ItemSetsBuilder {
+
+    private final Table _table;
+    private final int[] _attributes;
+    private final String[] _prefixes;
+    private final int _numThreads;
+
+    private HashMap<String, int[]> _unique;
+    private String[] _names;
+    private String[] _unsortedNames;
+    private VerticalItemStore _itemStore;
+
+    /**
+     * @param table The table to read
+     * @param attributes The columns of the table to build items from
+     * @param prefixes The item name prefix for each of the attributes
+     * @param numThreads The number of worker threads; 0 or less means use all available processors
+     */
+    ItemSetsBuilder(Table table, int[] attributes, String[] prefixes, int numThreads) {
+        _table = table;
+        _attributes = attributes;
+        _prefixes = prefixes;
+        _numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    HashMap<String, int[]> getUnique() {
+        return _unique;
+    }
+
+    String[] getNames() {
+        return _names;
+    }
+
+    String[] getUnsortedNames() {
+        return _unsortedNames;
+    }
+
+    VerticalItemStore getItemStore() {
+        return _itemStore;
+    }
+
+    void build() throws InterruptedException, ExecutionException {
+        final int numRows = _table.getNumRows();
+        final int numAttributes = _attributes.length;
+
+        // encode the values of every column
+        final EncodedColumn[] columns = new EncodedColumn[numAttributes];
+        List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(numAttributes);
+        for (int j = 0; j < numAttributes; j++) {
+            final int col = j;
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    columns[col] = encode(_attributes[col], numRows);
+                    return null;
+                }
+            });
+        }
+        run(tasks);
+
+        // number the distinct values in order of first occurrence (row by row,
+        // column by column within a row)
+        int numValues = 0;
+        for (EncodedColumn column : columns)
+            numValues += column.values.size();
+
+        long[] order = new long[numValues];
+        int[] colOf = new int[numValues];
+        int[] codeOf = new int[numValues];
+        for (int j = 0, v = 0; j < numAttributes; j++) {
+            EncodedColumn column = columns[j];
+            for (int k = 0, n = column.values.size(); k < n; k++, v++) {
+                colOf[v] = j;
+                codeOf[v] = k;
+                order[v] = ((long) column.firstRows.get(k) << 32) | v;
+            }
+        }
+        Arrays.sort(order);
+
+        // create the items; values of different columns that produce the same
+        // name are merged into one item
+        _unique = new HashMap<String, int[]>(numValues * 2);
+        ArrayList<int[]> items = new ArrayList<int[]>(numValues);
+        ArrayList<String> itemNames = new ArrayList<String>(numValues);
+        boolean merged = false;
+
+        for (int i = 0; i < numValues; i++) {
+            int v = (int) order[i];
+            EncodedColumn column = columns[colOf[v]];
+            String name = _prefixes[colOf[v]] + column.values.get(codeOf[v]);
+            int count = column.counts.get(codeOf[v]);
+
+            int[] cnt_and_id = _unique.get(name);
+            if (cnt_and_id == null) {
+                cnt_and_id = new int[] { count, items.size() };
+                _unique.put(name, cnt_and_id);
+                items.add(cnt_and_id);
+                itemNames.add(name);
+            } else {
+                cnt_and_id[0] += count;
+                merged = true;
+            }
+
+            column.items[codeOf[v]] = cnt_and_id;
+        }
+
+        _unsortedNames = itemNames.toArray(new String[itemNames.size()]);
+
+        // order the items by frequency
+        int numItems = items.size();
+        long[] byFreq = new long[numItems];
+        for (int i = 0; i < numItems; i++)
+            byFreq[i] = ((long) (Integer.MAX_VALUE - items.get(i)[0]) << 32) | i;
+        Arrays.sort(byFreq);
+
+        _names = new String[numItems];
+        for (int i = 0; i < numItems; i++) {
+            int item = (int) byFreq[i];
+            items.get(item)[1] = i;
+            _names[i] = _unsortedNames[item];
+        }
+
+        // fill the item store; every column touches its own items only, unless
+        // items were merged across columns
+        _itemStore = new VerticalItemStore(numItems, numRows);
+        tasks.clear();
+        for (int j = 0; j < numAttributes; j++) {
+            final EncodedColumn column = columns[j];
+            tasks.add(new Callable<Object>() {
+                public Object call() {
+                    int[] ids = new int[column.items.length];
+                    for (int k = 0; k < ids.length; k++)
+                        ids[k] = column.items[k][1];
+
+                    int[] codes = column.codes;
+                    for (int row = 0; row < codes.length; row++)
+                        _itemStore.add(row, ids[codes[row]]);
+
+                    return null;
+                }
+            });
+        }
+
+        if (merged) {
+            for (Callable<Object> task : tasks)
+                callUnchecked(task);
+        } else
+            run(tasks);
+
+        _itemStore.compact();
+    }
+
+    private EncodedColumn encode(int attribute, int numRows) {
+        switch (_table.getColumnType(attribute)) {
+            case ColumnTypes.INTEGER:
+            case ColumnTypes.SHORT:
+            case ColumnTypes.LONG:
+            case ColumnTypes.BYTE:
+                if (!_table.hasMissingValues(attribute))
+                    return encodeNumbers(attribute, numRows, false);
+                break;
+
+            case ColumnTypes.FLOAT:
+            case ColumnTypes.DOUBLE:
+                if (!_table.hasMissingValues(attribute))
+                    return encodeNumbers(attribute, numRows, true);
+                break;
+        }
+
+        return encodeStrings(attribute, numRows);
+    }
+
+    /**
+     * Encode a numeric column on the values themselves (the bits of a floating
+     * point value, so that values with the same string share a code).
+     */
+    private EncodedColumn encodeNumbers(int attribute, int numRows, boolean floating) {
+        EncodedColumn column = new EncodedColumn(numRows);
+        TLongIntHashMap codes = new TLongIntHashMap(16, 0.5f, 0, -1);
+
+        for (int row = 0; row < numRows; row++) {
+            long value = floating ? Double.doubleToLongBits(_table.getDouble(row, attribute))
+                                  : _table.getLong(row, attribute);
+
+            int code = codes.get(value);
+            if (code < 0) {
+                code = column.counts.size();
+                codes.put(value, code);
+                column.counts.add(0);
+                column.firstRows.add(row);
+            }
+
+            column.codes[row] = code;
+            column.counts.set(code, column.counts.get(code) + 1);
+        }
+
+        // the names of the values, from the first row that holds each one
+        for (int code = 0, n = column.firstRows.size(); code < n; code++) {
+            String value = _table.getString(column.firstRows.get(code), attribute);
+            column.values.add((value == null) ? "?" : value);
+        }
+
+        column.items = new int[column.values.size()][];
+
+        return column;
+    }
+
+    private EncodedColumn encodeStrings(int attribute, int numRows) {
+        EncodedColumn column = new EncodedColumn(numRows);
+        TObjectIntHashMap<String> codes = new TObjectIntHashMap<String>(16, 0.5f, -1);
+
+        for (int row = 0; row < numRows; row++) {
+            String value = _table.getString(row, attribute);
+            if (value == null) value = "?";
+
+            int code = codes.get(value);
+            if (code < 0) {
+                code = column.values.size();
+                codes.put(value, code);
+                column.values.add(value);
+                column.counts.add(0);
+                column.firstRows.add(row);
+            }
+
+            column.codes[row] = code;
+            column.counts.set(code, column.counts.get(code) + 1);
+        }
+
+        column.items = new int[column.values.size()][];
+
+        return column;
+    }
+
+    private void run(List<Callable<Object>> tasks) throws InterruptedException, ExecutionException {
+        if (_numThreads == 1 || tasks.size() <= 1) {
+            for (Callable<Object> task : tasks)
+                callUnchecked(task);
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_numThreads, tasks.size()));
+        try {
+            for (Future<Object> result : executor.invokeAll(tasks))
+                result.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void callUnchecked(Callable<Object> task) {
+        try {
+            task.call();
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    //=============
+    // Inner Class
+    //=============
+
+    private static class EncodedColumn {
+        /** the code of the value of each row */
+        final int[] codes;
+        /** the distinct values, by code */
+        final ArrayList<String> values = new ArrayList<String>();
+        /** the number of rows with each value, by code */
+        final TIntArrayList counts = new TIntArrayList();
+        /** the first row with each value, by code */
+        final TIntArrayList firstRows = new TIntArrayList();
+        /** the item (count and id) of each value, by code */
+        int[][] items;
+
+        EncodedColumn(int numRows) {
+            codes = new int[numRows];
+        }
+    }
+}
@@ -0,0 +1,571 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import gnu.trove.list.array.TDoubleArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.seasr.datatypes.datamining.table.Column;
+import org.seasr.datatypes.datamining.table.basic.DoubleColumn;
+import org.seasr.datatypes.datamining.table.basic.IntColumn;
+import org.seasr.datatypes.datamining.table.basic.MutableTableImpl;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPattern;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+
+/**
+ * Writes and reads frequent item sets, pattern lists and rule tables in the
+ * protocol buffer format described by <code>ruleassociation.proto</code>.
+ * The messages are encoded by hand with the protobuf streams, so no generated
+ * classes are needed and nothing is copied into intermediate objects; the
+ * numbers of a set or of the rules are written as packed fields.
+ *
+ * Each stream holds a single message, read until the end of the input.
+ *
+ * @author Boris Capitanu
+ */
+public final class RuleAssociationCodec {
+
+    private static final int WIRETYPE_VARINT = 0;
+    private static final int WIRETYPE_FIXED64 = 1;
+    private static final int WIRETYPE_LENGTH_DELIMITED = 2;
+
+    // ItemSets and IntArray
+    private static final int ITEM_SETS_SET = 1;
+    private static final int INT_ARRAY_VALUE = 1;
+
+    // Patterns, Label and Pattern
+    private static final int PATTERNS_LABEL = 1;
+    private static final int PATTERNS_PATTERN = 2;
+    private static final int LABEL_ID = 1;
+    private static final int LABEL_TEXT = 2;
+    private static final int PATTERN_ITEM = 1;
+    private static final int PATTERN_SUPPORT = 2;
+
+    // Rules and ItemSet
+    private static final int RULES_MINIMUM_CONFIDENCE = 1;
+    private static final int RULES_MINIMUM_SUPPORT = 2;
+    private static final int RULES_NUMBER_OF_TRANSACTIONS = 3;
+    private static final int RULES_ITEM = 4;
+    private static final int RULES_ITEM_SET = 5;
+    private static final int RULES_ANTECEDENT = 6;
+    private static final int RULES_CONSEQUENT = 7;
+    private static final int RULES_CONFIDENCE = 8;
+    private static final int RULES_SUPPORT = 9;
+    private static final int ITEM_SET_ITEM = 1;
+    private static final int ITEM_SET_SUPPORT = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private RuleAssociationCodec() {
+    }
+
+    //================
+    // Item sets
+    //================
+
+    /**
+     * Writes item sets such as the output of <code>FPGrowth</code>, where
+     * each set lists its items followed by its support.
+     */
+    public static void writeItemSets(int[][] sets, OutputStream out) throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+        for (int i = 0; i < sets.length; i++) {
+            int[] set = sets[i];
+            int size = packedInt32Size(INT_ARRAY_VALUE, set, set.length);
+            cos.writeTag(ITEM_SETS_SET, WIRETYPE_LENGTH_DELIMITED);
+            cos.writeRawVarint32(size);
+            writePackedInt32(cos, INT_ARRAY_VALUE, set, set.length);
+        }
+        cos.flush();
+    }
+
+    public static int[][] readItemSets(InputStream in) throws IOException {
+        CodedInputStream cis = newInput(in);
+        List<int[]> sets = new ArrayList<int[]>();
+        TIntArrayList values = new TIntArrayList();
+
+        int tag;
+        while ((tag = cis.readTag()) != 0) {
+            if (tag != makeTag(ITEM_SETS_SET, WIRETYPE_LENGTH_DELIMITED)) {
+                cis.skipField(tag);
+                continue;
+            }
+
+            int limit = cis.pushLimit(cis.readRawVarint32());
+            values.resetQuick();
+            while ((tag = cis.readTag()) != 0) {
+                if (fieldOf(tag) == INT_ARRAY_VALUE)
+                    readInt32s(cis, tag, values);
+                else
+                    cis.skipField(tag);
+            }
+            cis.popLimit(limit);
+
+            sets.add(values.toArray());
+        }
+
+        return sets.toArray(new int[sets.size()][]);
+    }
+
+    //================
+    // Patterns
+    //================
+
+    /**
+     * Writes a list of patterns. The labels of the elements are written once
+     * for all the patterns; they are taken from the mapping of the first
+     * pattern that has one.
+     */
+    public static void writePatterns(List<FPPattern> patterns, OutputStream out) throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+
+        TIntObjectHashMap<String> labels = null;
+        for (int i = 0; i < patterns.size() && labels == null; i++)
+            labels = patterns.get(i).getElementMapping();
+
+        if (labels != null) {
+            int[] ids = labels.keys();
+            Arrays.sort(ids);
+            for (int i = 0; i < ids.length; i++) {
+                String text = labels.get(ids[i]);
+                if (text == null) continue;
+
+                int size = CodedOutputStream.computeInt32Size(LABEL_ID, ids[i]) +
+                        CodedOutputStream.computeStringSize(LABEL_TEXT, text);
+                cos.writeTag(PATTERNS_LABEL, WIRETYPE_LENGTH_DELIMITED);
+                cos.writeRawVarint32(size);
+                cos.writeInt32(LABEL_ID, ids[i]);
+                cos.writeString(LABEL_TEXT, text);
+            }
+        }
+
+        for (int i = 0; i < patterns.size(); i++) {
+            FPPattern pattern = patterns.get(i);
+
+            // a pattern is a set, so its elements are written in increasing
+            // order, each as the difference with the previous one
+            int[] items = pattern.getPatternArray();
+            Arrays.sort(items);
+            for (int j = items.length - 1; j > 0; j--)
+                items[j] -= items[j - 1];
+
+            int size = packedInt32Size(PATTERN_ITEM, items, items.length) +
+                    CodedOutputStream.computeInt32Size(PATTERN_SUPPORT, pattern.getSupport());
+            cos.writeTag(PATTERNS_PATTERN, WIRETYPE_LENGTH_DELIMITED);
+            cos.writeRawVarint32(size);
+            writePackedInt32(cos, PATTERN_ITEM, items, items.length);
+            cos.writeInt32(PATTERN_SUPPORT, pattern.getSupport());
+        }
+
+        cos.flush();
+    }
+
+    /**
+     * Reads a list of patterns. The patterns share one mapping of their
+     * elements to labels, or none if no labels were written.
+     */
+    public static List<FPPattern> readPatterns(InputStream in) throws IOException {
+        CodedInputStream cis = newInput(in);
+        List<FPPattern> patterns = new ArrayList<FPPattern>();
+        TIntObjectHashMap<String> labels = null;
+        TIntArrayList items = new TIntArrayList();
+
+        int tag;
+        while ((tag = cis.readTag()) != 0) {
+            if (tag == makeTag(PATTERNS_LABEL, WIRETYPE_LENGTH_DELIMITED)) {
+                int limit = cis.pushLimit(cis.readRawVarint32());
+                int id = 0;
+                String text = null;
+                while ((tag = cis.readTag()) != 0) {
+                    if (tag == makeTag(LABEL_ID, WIRETYPE_VARINT))
+                        id = cis.readInt32();
+                    else if (tag == makeTag(LABEL_TEXT, WIRETYPE_LENGTH_DELIMITED))
+                        text = cis.readString();
+                    else
+                        cis.skipField(tag);
+                }
+                cis.popLimit(limit);
+
+                if (labels == null)
+                    labels = new TIntObjectHashMap<String>();
+                labels.put(id, text);
+            }
+
+            else if (tag == makeTag(PATTERNS_PATTERN, WIRETYPE_LENGTH_DELIMITED)) {
+                int limit = cis.pushLimit(cis.readRawVarint32());
+                int support = 0;
+                items.resetQuick();
+                while ((tag = cis.readTag()) != 0) {
+                    if (fieldOf(tag) == PATTERN_ITEM)
+                        readInt32s(cis, tag, items);
+                    else if (tag == makeTag(PATTERN_SUPPORT, WIRETYPE_VARINT))
+                        support = cis.readInt32();
+                    else
+                        cis.skipField(tag);
+                }
+                cis.popLimit(limit);
+
+                for (int j = 1; j < items.size(); j++)
+                    items.setQuick(j, items.getQuick(j) + items.getQuick(j - 1));
+                patterns.add(new FPPattern(items.toArray(), support));
+            }
+
+            else
+                cis.skipField(tag);
+        }
+
+        // the labels come first, but set them once all patterns are read in
+        // case a writer put them later
+        if (labels != null)
+            for (int i = 0; i < patterns.size(); i++)
+                patterns.get(i).setElementMapping(labels);
+
+        return patterns;
+    }
+
+    //================
+    // Rule tables
+    //================
+
+    /**
+     * Writes a rule table: its items and item sets, then its rules in order,
+     * one packed field for each of their antecedents, consequents, confidences
+     * and supports.
+     */
+    public static void writeRuleTable(RuleTable table, OutputStream out) throws IOException {
+        CodedOutputStream cos = CodedOutputStream.newInstance(out, BUFFER_SIZE);
+
+        cos.writeDouble(RULES_MINIMUM_CONFIDENCE, table.getMinimumConfidence());
+        cos.writeDouble(RULES_MINIMUM_SUPPORT, table.getMinimumSupport());
+        cos.writeInt32(RULES_NUMBER_OF_TRANSACTIONS, table.getNumberOfTransactions());
+
+        List<String> names = table.getNamesList();
+        for (int i = 0; i < names.size(); i++)
+            cos.writeString(RULES_ITEM, names.get(i));
+
+        List<FreqItemSet> sets = table.getItemSetsList();
+        for (int i = 0; i < sets.size(); i++) {
+            FreqItemSet set = sets.get(i);
+            int[] items = set.items.toArray();
+            int size = packedInt32Size(ITEM_SET_ITEM, items, items.length) +
+                    CodedOutputStream.computeDoubleSize(ITEM_SET_SUPPORT, set.support);
+            cos.writeTag(RULES_ITEM_SET, WIRETYPE_LENGTH_DELIMITED);
+            cos.writeRawVarint32(size);
+            writePackedInt32(cos, ITEM_SET_ITEM, items, items.length);
+            cos.writeDouble(ITEM_SET_SUPPORT, set.support);
+        }
+
+        int numRules = table.getNumRules();
+        int[] ids = new int[numRules];
+        for (int i = 0; i < numRules; i++)
+            ids[i] = table.getRuleAntecedentID(i);
+        writePackedInt32(cos, RULES_ANTECEDENT, ids, numRules);
+        for (int i = 0; i < numRules; i++)
+            ids[i] = table.getRuleConsequentID(i);
+        writePackedInt32(cos, RULES_CONSEQUENT, ids, numRules);
+
+        double[] values = new double[numRules];
+        for (int i = 0; i < numRules; i++)
+            values[i] = table.getConfidence(i);
+        writePackedDouble(cos, RULES_CONFIDENCE, values, numRules);
+        for (int i = 0; i < numRules; i++)
+            values[i] = table.getSupport(i);
+        writePackedDouble(cos, RULES_SUPPORT, values, numRules);
+
+        cos.flush();
+    }
+
+    public static RuleTable readRuleTable(InputStream in) throws IOException {
+        CodedInputStream cis = newInput(in);
+        double minimumConfidence = 0;
+        double minimumSupport = 0;
+        int numberOfTransactions = 0;
+        List<String> names = new ArrayList<String>();
+        List<FreqItemSet> sets = new ArrayList<FreqItemSet>();
+        TIntArrayList antecedents = new TIntArrayList();
+        TIntArrayList consequents = new TIntArrayList();
+        TDoubleArrayList confidences = new TDoubleArrayList();
+        TDoubleArrayList supports = new TDoubleArrayList();
+
+        int tag;
+        while ((tag = cis.readTag()) != 0) {
+            switch (fieldOf(tag)) {
+                case RULES_ANTECEDENT:
+                    readInt32s(cis, tag, antecedents);
+                    continue;
+
+                case RULES_CONSEQUENT:
+                    readInt32s(cis, tag, consequents);
+                    continue;
+
+                case RULES_CONFIDENCE:
+                    readDoubles(cis, tag, confidences);
+                    continue;
+
+                case RULES_SUPPORT:
+                    readDoubles(cis, tag, supports);
+                    continue;
+            }
+
+            if (tag == makeTag(RULES_MINIMUM_CONFIDENCE, WIRETYPE_FIXED64))
+                minimumConfidence = cis.readDouble();
+            else if (tag == makeTag(RULES_MINIMUM_SUPPORT, WIRETYPE_FIXED64))
+                minimumSupport = cis.readDouble();
+            else if (tag == makeTag(RULES_NUMBER_OF_TRANSACTIONS, WIRETYPE_VARINT))
+                numberOfTransactions = cis.readInt32();
+            else if (tag == makeTag(RULES_ITEM, WIRETYPE_LENGTH_DELIMITED))
+                names.add(cis.readString());
+            else if (tag == makeTag(RULES_ITEM_SET, WIRETYPE_LENGTH_DELIMITED))
+                sets.add(readItemSet(cis));
+            else
+                cis.skipField(tag);
+        }
+
+        int numRules = antecedents.size();
+        if (consequents.size() != numRules || confidences.size() != numRules || supports.size() != numRules)
+            throw new IOException("The rules do not all have an antecedent, consequent, confidence and support");
+
+        // the rule table keeps its first rule in its last row
+        int[] head = new int[numRules];
+        int[] body = new int[numRules];
+        double[] confidence = new double[numRules];
+        double[] support = new double[numRules];
+        for (int i = 0; i < numRules; i++) {
+            int row = numRules - 1 - i;
+            head[row] = antecedents.getQuick(i);
+            body[row] = consequents.getQuick(i);
+            confidence[row] = confidences.getQuick(i);
+            support[row] = supports.getQuick(i);
+        }
+
+        IntColumn headColumn = new IntColumn(head);
+        headColumn.setLabel("Head");
+        IntColumn bodyColumn = new IntColumn(body);
+        bodyColumn.setLabel("Body");
+        DoubleColumn supportColumn = new DoubleColumn(support);
+        supportColumn.setLabel("Support");
+        DoubleColumn confidenceColumn = new DoubleColumn(confidence);
+        confidenceColumn.setLabel("Confidence");
+
+        Column[] columns = { headColumn, bodyColumn, supportColumn, confidenceColumn };
+        return new RuleTable(new MutableTableImpl(columns), minimumConfidence, minimumSupport,
+                numberOfTransactions, names, sets);
+    }
+
+    //================
+    // Any of the above
+    //================
+
+    /**
+     * Tells whether an object is one of the types this codec writes.
+     */
+    public static boolean canEncode(Object object) {
+        if (object instanceof int[][] || object instanceof RuleTable)
+            return true;
+
+        if (object instanceof List) {
+            for (Object element : (List<?>) object)
+                if (!(element instanceof FPPattern)) return false;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Writes item sets, a list of patterns or a rule table.
+     * @throws IllegalArgumentException if the object is of another type
+     */
+    @SuppressWarnings("unchecked")
+    public static void encode(Object object, OutputStream out) throws IOException {
+        if (!canEncode(object))
+            throw new IllegalArgumentException("Cannot encode objects of type " + object.getClass().getName());
+
+        if (object instanceof int[][])
+            writeItemSets((int[][]) object, out);
+        else if (object instanceof RuleTable)
+            writeRuleTable((RuleTable) object, out);
+        else
+            writePatterns((List<FPPattern>) object, out);
+    }
+
+    public static byte[] toByteArray(Object object) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encode(object, out);
+        return out.toByteArray();
+    }
+
+    public static int[][] itemSetsFromByteArray(byte[] bytes) throws IOException {
+        return readItemSets(new ByteArrayInputStream(bytes));
+    }
+
+    public static List<FPPattern> patternsFromByteArray(byte[] bytes) throws IOException {
+        return readPatterns(new ByteArrayInputStream(bytes));
+    }
+
+    public static RuleTable ruleTableFromByteArray(byte[] bytes) throws IOException {
+        return readRuleTable(new ByteArrayInputStream(bytes));
+    }
+
+    //================
+    // Private Methods
+    //================
+
+    private static CodedInputStream newInput(InputStream in) {
+        CodedInputStream cis = CodedInputStream.newInstance(in);
+        // a stream holds all the rules, well beyond the default 64MB limit
+        cis.setSizeLimit(Integer.MAX_VALUE);
+        return cis;
+    }
+
+    private static FreqItemSet readItemSet(CodedInputStream cis) throws IOException {
+        int limit = cis.pushLimit(cis.readRawVarint32());
+        FreqItemSet set = new FreqItemSet();
+        set.items = new TIntArrayList();
+
+        int tag;
+        while ((tag = cis.readTag()) != 0) {
+            if (fieldOf(tag) == ITEM_SET_ITEM)
+                readInt32s(cis, tag, set.items);
+            else if (tag == makeTag(ITEM_SET_SUPPORT, WIRETYPE_FIXED64))
+                set.support = cis.readDouble();
+            else
+                cis.skipField(tag);
+        }
+        cis.popLimit(limit);
+
+        set.numberOfItems = set.items.size();
+        return set;
+    }
+
+    private static int makeTag(int field, int wireType) {
+        return (field << 3) | wireType;
+    }
+
+    private static int fieldOf(int tag) {
+        return tag >>> 3;
+    }
+
+    private static int packedInt32Size(int field, int[] values, int len) {
+        if (len == 0) return 0;
+
+        int size = 0;
+        for (int i = 0; i < len; i++)
+            size += CodedOutputStream.computeInt32SizeNoTag(values[i]);
+        return CodedOutputStream.computeTagSize(field) + CodedOutputStream.computeRawVarint32Size(size) + size;
+    }
+
+    private static void writePackedInt32(CodedOutputStream cos, int field, int[] values, int len) throws IOException {
+        if (len == 0) return;
+
+        int size = 0;
+        for (int i = 0; i < len; i++)
+            size += CodedOutputStream.computeInt32SizeNoTag(values[i]);
+
+        cos.writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+        cos.writeRawVarint32(size);
+        for (int i = 0; i < len; i++)
+            cos.writeInt32NoTag(values[i]);
+    }
+
+    private static void writePackedDouble(CodedOutputStream cos, int field, double[] values, int len) throws IOException {
+        if (len == 0) return;
+
+        cos.writeTag(field, WIRETYPE_LENGTH_DELIMITED);
+        cos.writeRawVarint32(8 * len);
+        for (int i = 0; i < len; i++)
+            cos.writeDoubleNoTag(values[i]);
+    }
+
+    /**
+     * Reads a repeated int32 field, packed or not.
+     */
+    private static void readInt32s(CodedInputStream cis, int tag, TIntArrayList values) throws IOException {
+        if ((tag & 7) == WIRETYPE_VARINT) {
+            values.add(cis.readInt32());
+            return;
+        }
+        if ((tag & 7) != WIRETYPE_LENGTH_DELIMITED) {
+            cis.skipField(tag);
+            return;
+        }
+
+        int limit = cis.pushLimit(cis.readRawVarint32());
+        while (cis.getBytesUntilLimit() > 0)
+            values.add(cis.readInt32());
+        cis.popLimit(limit);
+    }
+
+    /**
+     * Reads a repeated double field, packed or not.
+     */
+    private static void readDoubles(CodedInputStream cis, int tag, TDoubleArrayList values) throws IOException {
+        if ((tag & 7) == WIRETYPE_FIXED64) {
+            values.add(cis.readDouble());
+            return;
+        }
+        if ((tag & 7) != WIRETYPE_LENGTH_DELIMITED) {
+            cis.skipField(tag);
+            return;
+        }
+
+        int length = cis.readRawVarint32();
+        values.ensureCapacity(values.size() + length / 8);
+        int limit = cis.pushLimit(length);
+        while (cis.getBytesUntilLimit() > 0)
+            values.add(cis.readDouble());
+        cis.popLimit(limit);
+    }
+}
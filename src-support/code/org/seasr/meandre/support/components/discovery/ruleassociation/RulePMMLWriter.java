@@ -0,0 +1,175 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes a rule table as a PMML association model, element by element, to
+ * a stream. The PMML is the same as the document built by
+ * <code>WriteRuleAssocPMML</code>, but it is never held in memory, so the
+ * memory used does not grow with the number of rules.
+ *
+ * @author Boris Capitanu
+ */
+public class RulePMMLWriter implements RulePMMLTags {
+
+    private static final String PMML_NAMESPACE = "http://www.dmg.org/PMML-3_0";
+    private static final String XSI_NAMESPACE = "http://www.w3.org/2001/XMLSchema-instance";
+
+    private RulePMMLWriter() {
+    }
+
+    /**
+     * Writes the PMML to a stream, in UTF-8. The stream is flushed but not closed.
+     */
+    public static void write(RuleTable rt, OutputStream out) throws XMLStreamException {
+        XMLStreamWriter xml = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+        xml.writeStartDocument("UTF-8", "1.0");
+        xml.writeCharacters("\n");
+        write(rt, xml);
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close();
+    }
+
+    /**
+     * Writes the PMML element to an XML stream.
+     */
+    public static void write(RuleTable rt, XMLStreamWriter xml) throws XMLStreamException {
+        // Root
+        xml.writeStartElement("PMML");
+        xml.writeDefaultNamespace(PMML_NAMESPACE);
+        xml.writeNamespace("xsi", XSI_NAMESPACE);
+        xml.writeAttribute("version", "3.0");
+        xml.writeCharacters("\n");
+
+        // Header
+        xml.writeEmptyElement("Header");
+        xml.writeAttribute("copyright", "NCSA ALG");
+        xml.writeAttribute("description", "association rules");
+        xml.writeCharacters("\n");
+
+        // Data dictionary
+        xml.writeStartElement(DATA_DICT);
+        writeField(xml, DATA_FIELD, "transaction", true);
+        writeField(xml, DATA_FIELD, "item", true);
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+
+        // Association model
+        List<String> items = rt.getNamesList();
+        List<FreqItemSet> itemSets = rt.getItemSetsList();
+        int numRules = rt.getNumRules();
+
+        xml.writeStartElement(ASSOC_MODEL);
+        xml.writeAttribute(FUNCTION_NAME, "associationRules");
+        xml.writeAttribute(NUM_TRANS, Integer.toString(rt.getNumberOfTransactions()));
+        xml.writeAttribute(MIN_SUP, Double.toString(rt.getMinimumSupport()));
+        xml.writeAttribute(MIN_CON, Double.toString(rt.getMinimumConfidence()));
+        xml.writeAttribute(NUM_ITEM, Integer.toString(items.size()));
+        xml.writeAttribute(NUM_ITEMSETS, Integer.toString(itemSets.size()));
+        xml.writeAttribute(NUM_RULE, Integer.toString(numRules));
+        xml.writeCharacters("\n");
+
+        // Mining schema
+        xml.writeStartElement(MINING_SCHEMA);
+        writeField(xml, MINING_FIELD, "transaction", false);
+        writeField(xml, MINING_FIELD, "item", false);
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+
+        // Association items
+        for (int i = 0; i < items.size(); i++) {
+            xml.writeEmptyElement(ITEM);
+            xml.writeAttribute(ID, Integer.toString(i));
+            xml.writeAttribute(VALUE, items.get(i));
+            xml.writeCharacters("\n");
+        }
+
+        // Association itemsets
+        for (int i = 0; i < itemSets.size(); i++) {
+            FreqItemSet fis = itemSets.get(i);
+
+            xml.writeStartElement(ITEMSET);
+            xml.writeAttribute(ID, Integer.toString(i));
+            xml.writeAttribute(SUPPORT, Double.toString(fis.support));
+
+            for (int j = 0; j < fis.items.size(); j++) {
+                xml.writeEmptyElement(ITEMREF);
+                xml.writeAttribute(ITEM_REF, Integer.toString(fis.items.getQuick(j)));
+            }
+
+            xml.writeEndElement();
+            xml.writeCharacters("\n");
+        }
+
+        // Association rules
+        for (int i = 0; i < numRules; i++) {
+            xml.writeEmptyElement(ASSOC_RULE);
+            xml.writeAttribute(SUPPORT, Double.toString(rt.getSupport(i)));
+            xml.writeAttribute(CONFIDENCE, Double.toString(rt.getConfidence(i)));
+            xml.writeAttribute(ANTECEDENT, Integer.toString(rt.getRuleAntecedentID(i)));
+            xml.writeAttribute(CONSEQUENT, Integer.toString(rt.getRuleConsequentID(i)));
+            xml.writeCharacters("\n");
+        }
+
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+        xml.writeEndElement();
+    }
+
+    private static void writeField(XMLStreamWriter xml, String element, String name, boolean categorical)
+        throws XMLStreamException {
+
+        xml.writeEmptyElement(element);
+        xml.writeAttribute(NAME, name);
+        if (categorical)
+            xml.writeAttribute(OPTYPE, CATEGORICAL);
+    }
+}
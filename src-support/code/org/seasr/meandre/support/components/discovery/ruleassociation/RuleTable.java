@@ -45,6 +45,8 @@ package org.seasr.meandre.support.components.discovery.ruleassociation;
 
 import gnu.trove.list.array.TIntArrayList;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -62,6 +64,12 @@ import org.seasr.datatypes.datamining.table.basic.TableImpl;
  * items - a List to hold all item labels
  * itemSets - a List to hold all frequent item sets. Each frequent item set
  *            is represented by a list of item indexes.
+ *
+ * The table also keeps, built when first needed, an index of the rules that
+ * contain each item (by name, so it survives the remapping done by the
+ * filtering methods) and the orders of the rules by confidence, support and
+ * lift. Any change to the rows of the table (sorting it, setting a value,
+ * adding, removing or swapping rows) drops the index.
  */
 public class RuleTable extends MutableTableImpl {
 
@@ -72,6 +80,11 @@ public class RuleTable extends MutableTableImpl {
     private static final int SUPPORT = 3;
     private static final int CONFIDENCE = 2;
 
+    /** Where an item is looked for by <code>getRulesContaining</code>. */
+    public static final int IN_RULE = 0;
+    public static final int IN_ANTECEDENT = 1;
+    public static final int IN_CONSEQUENT = 2;
+
     private final double minimumConfidence;
     private final double minimumSupport;
     private final int numberOfTransactions;
@@ -80,6 +93,21 @@ public class RuleTable extends MutableTableImpl {
     private List<FreqItemSet> itemSets;
     private LinkedList<String> origItems;
     private LinkedList<FreqItemSet> origItemSets;
+
+    // the original items and item sets, copied for random access when first
+    // needed
+    private transient ArrayList<String> origItemList;
+    private transient ArrayList<FreqItemSet> origItemSetList;
+
+    // the rules that contain each item in their antecedent and in their
+    // consequent, in increasing order
+    private transient HashMap<String, int[]> antecedentIndex;
+    private transient HashMap<String, int[]> consequentIndex;
+
+    // the rules by decreasing confidence, support and lift
+    private transient int[] byConfidence;
+    private transient int[] bySupport;
+    private transient int[] byLift;
     //--------------------
 
     /**
@@ -121,6 +149,8 @@ public class RuleTable extends MutableTableImpl {
           origItemSets.set(i, newItems);
           numRulesShowing = getNumRules();
       }
+        origItemList = null;
+        origItemSetList = null;
     }
 
     /**
@@ -388,6 +418,88 @@ public class RuleTable extends MutableTableImpl {
       this.itemSetSort(THEN);
     }
 
+    /**
+     * Get the rules that contain an item.
+     * @param item the name of the item (attribute=value)
+     * @param part where the item is looked for: IN_ANTECEDENT, IN_CONSEQUENT
+     * or IN_RULE for either
+     * @return the rules, in increasing order; the array must not be modified.
+     */
+    public int[] getRulesContaining(String item, int part) {
+        buildItemIndex();
+
+        int[] ante = antecedentIndex.get(item);
+        int[] cons = consequentIndex.get(item);
+        if (ante == null) ante = new int[0];
+        if (cons == null) cons = new int[0];
+
+        if (part == IN_ANTECEDENT)
+            return ante;
+        if (part == IN_CONSEQUENT)
+            return cons;
+
+        // an item is never in both the antecedent and the consequent of a rule
+        int[] both = new int[ante.length + cons.length];
+        int i = 0, j = 0, k = 0;
+        while (i < ante.length && j < cons.length)
+            both[k++] = (ante[i] < cons[j]) ? ante[i++] : cons[j++];
+        while (i < ante.length)
+            both[k++] = ante[i++];
+        while (j < cons.length)
+            both[k++] = cons[j++];
+
+        return both;
+    }
+
+    /**
+     * Get the rules by decreasing confidence, ties by decreasing support.
+     * @return the rules; the array must not be modified.
+     */
+    public int[] getRulesByConfidence() {
+        if (byConfidence == null)
+            byConfidence = orderRules(getColumnValues(CONFIDENCE), getColumnValues(SUPPORT));
+        return byConfidence;
+    }
+
+    /**
+     * Get the rules by decreasing support, ties by decreasing confidence.
+     * @return the rules; the array must not be modified.
+     */
+    public int[] getRulesBySupport() {
+        if (bySupport == null)
+            bySupport = orderRules(getColumnValues(SUPPORT), getColumnValues(CONFIDENCE));
+        return bySupport;
+    }
+
+    /**
+     * Get the rules by decreasing lift, ties by decreasing confidence.
+     * @return the rules; the array must not be modified.
+     */
+    public int[] getRulesByLift() {
+        if (byLift == null) {
+            double[] lift = new double[getNumRules()];
+            for (int i = 0; i < lift.length; i++)
+                lift[i] = getLift(i);
+            byLift = orderRules(lift, getColumnValues(CONFIDENCE));
+        }
+        return byLift;
+    }
+
+    /**
+     * Get the lift of a specific rule: its confidence over the support of its
+     * consequent.
+     * @param row the rule to check.
+     * @return the lift of the rule, or NaN if the support of the consequent is
+     * not known.
+     */
+    public double getLift(int row) {
+        copyOriginals();
+        double consequentSupport = origItemSetList.get(getRuleConsequentID(row)).support;
+        if (consequentSupport <= 0)
+            return Double.NaN;
+        return getConfidence(row) / consequentSupport;
+    }
+
 
     /**
      * Get the minimum confidence
@@ -497,6 +609,242 @@ public class RuleTable extends MutableTableImpl {
         return itemSets;
     }
 
+    //--------------------
+    // The mutators below change the rows of the table, so they drop the index.
+
+    @Override
+    public void setBoolean(boolean data, int row, int column) {
+        super.setBoolean(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setByte(byte data, int row, int column) {
+        super.setByte(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setBytes(byte[] data, int row, int column) {
+        super.setBytes(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setChar(char data, int row, int column) {
+        super.setChar(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setChars(char[] data, int row, int column) {
+        super.setChars(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setDouble(double data, int row, int column) {
+        super.setDouble(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setFloat(float data, int row, int column) {
+        super.setFloat(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setInt(int data, int row, int column) {
+        super.setInt(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setLong(long data, int row, int column) {
+        super.setLong(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setObject(Object data, int row, int column) {
+        super.setObject(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setShort(short data, int row, int column) {
+        super.setShort(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setString(String data, int row, int column) {
+        super.setString(data, row, column);
+        dropIndex();
+    }
+
+    @Override
+    public void setColumn(Column col, int where) {
+        super.setColumn(col, where);
+        dropIndex();
+    }
+
+    @Override
+    public void setColumns(Column[] newColumns) {
+        super.setColumns(newColumns);
+        dropIndex();
+    }
+
+    @Override
+    public void addRows(int number) {
+        super.addRows(number);
+        dropIndex();
+    }
+
+    @Override
+    public void removeRow(int row) {
+        super.removeRow(row);
+        dropIndex();
+    }
+
+    @Override
+    public void removeRows(int start, int len) {
+        super.removeRows(start, len);
+        dropIndex();
+    }
+
+    @Override
+    public void swapRows(int pos1, int pos2) {
+        super.swapRows(pos1, pos2);
+        dropIndex();
+    }
+
+    @Override
+    public void sortByColumn(int col, SortMode sortMode) {
+        super.sortByColumn(col, sortMode);
+        dropIndex();
+    }
+
+    @Override
+    public void sortByColumn(int col, int begin, int end, SortMode sortMode) {
+        super.sortByColumn(col, begin, end, sortMode);
+        dropIndex();
+    }
+
+    /**
+     * Forget the index and the orders of the rules, after the rows changed.
+     */
+    private void dropIndex() {
+        antecedentIndex = null;
+        consequentIndex = null;
+        byConfidence = null;
+        bySupport = null;
+        byLift = null;
+    }
+
+    /**
+     * Index the rules by the names of their items. The original item sets are
+     * used, since the filtering methods remap or clear the current ones.
+     */
+    private void buildItemIndex() {
+        if (antecedentIndex != null) return;
+        copyOriginals();
+
+        HashMap<String, TIntArrayList> ante = new HashMap<String, TIntArrayList>();
+        HashMap<String, TIntArrayList> cons = new HashMap<String, TIntArrayList>();
+        for (int rule = 0, n = getNumRules(); rule < n; rule++) {
+            addToIndex(ante, origItemSetList.get(getRuleAntecedentID(rule)), rule);
+            addToIndex(cons, origItemSetList.get(getRuleConsequentID(rule)), rule);
+        }
+
+        antecedentIndex = toIndex(ante);
+        consequentIndex = toIndex(cons);
+    }
+
+    private void addToIndex(HashMap<String, TIntArrayList> index, FreqItemSet set, int rule) {
+        for (int i = 0; i < set.items.size(); i++) {
+            String name = origItemList.get(set.items.getQuick(i));
+            TIntArrayList rules = index.get(name);
+            if (rules == null) {
+                rules = new TIntArrayList();
+                index.put(name, rules);
+            }
+            // the rules come in increasing order; skip an item listed twice
+            if (rules.isEmpty() || rules.get(rules.size() - 1) != rule)
+                rules.add(rule);
+        }
+    }
+
+    /**
+     * Copy the original items and item sets into lists with random access.
+     */
+    private void copyOriginals() {
+        if (origItemSetList != null) return;
+        origItemList = new ArrayList<String>(origItems);
+        origItemSetList = new ArrayList<FreqItemSet>(origItemSets);
+    }
+
+    private static HashMap<String, int[]> toIndex(HashMap<String, TIntArrayList> lists) {
+        HashMap<String, int[]> index = new HashMap<String, int[]>(lists.size() * 2);
+        for (String name : lists.keySet())
+            index.put(name, lists.get(name).toArray());
+        return index;
+    }
+
+    /**
+     * Get the values of a column by rule.
+     */
+    private double[] getColumnValues(int column) {
+        int n = getNumRules();
+        double[] values = new double[n];
+        for (int rule = 0; rule < n; rule++)
+            values[rule] = getDouble(n - 1 - rule, column);
+        return values;
+    }
+
+    /**
+     * Order the rules by decreasing primary, then secondary key, then by
+     * increasing rule number. NaN keys come last.
+     */
+    private static int[] orderRules(final double[] primary, final double[] secondary) {
+        int n = primary.length;
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+
+        // a bottom-up merge sort, which is stable, so equal keys keep the
+        // increasing rule number order
+        int[] buffer = new int[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi)
+                    buffer[k++] = (compareRules(order[j], order[i], primary, secondary) < 0) ? order[j++] : order[i++];
+                while (i < mid)
+                    buffer[k++] = order[i++];
+                while (j < hi)
+                    buffer[k++] = order[j++];
+                System.arraycopy(buffer, lo, order, lo, hi - lo);
+            }
+        }
+
+        return order;
+    }
+
+    /** Negative if rule a comes before rule b. */
+    private static int compareRules(int a, int b, double[] primary, double[] secondary) {
+        int c = Double.compare(key(primary[b]), key(primary[a]));
+        if (c != 0) return c;
+        return Double.compare(key(secondary[b]), key(secondary[a]));
+    }
+
+    private static double key(double value) {
+        return Double.isNaN(value) ? Double.NEGATIVE_INFINITY : value;
+    }
+
         /**
      * Sort the table using one of the item set columns as the key.
      * @param col the column index (must be IF or THEN)
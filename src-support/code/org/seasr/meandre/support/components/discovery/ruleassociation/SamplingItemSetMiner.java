@@ -0,0 +1,410 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+//==============
+// Java Imports
+//==============
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPArrayTree;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPGrowthMiner;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPPatternSink;
+import org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth.FPSparse;
+
+/**
+ * Mines the frequent itemsets of a random sample of the examples and verifies
+ * them against all the examples, in the style of &quot;Sampling Large
+ * Databases for Association Rules&quot;, Hannu Toivonen, 1996.
+ *
+ * <p>The sample is mined with FPGrowth at a support lowered by
+ * <i>epsilon = sqrt(ln(1 / delta) / (2 n))</i>, where <i>n</i> is the sample
+ * size and <i>delta</i> the accepted failure probability. By the Hoeffding
+ * bound, a frequent itemset falls below the lowered support in the sample with
+ * probability at most <i>delta</i>. The itemsets found in the sample and their
+ * negative border (the itemsets not found whose subsets were all found) are
+ * then counted on all the examples, so every support reported is exact. If no
+ * itemset of the negative border turns out to be frequent, no frequent itemset
+ * was missed; otherwise the <code>Report</code> says so, and the frequent
+ * itemsets that are supersets of the frequent border itemsets may be missing.</p>
+ *
+ * <p>The counts over all the examples come from the vertical item store of the
+ * item sets, one intersection per candidate, spread over a pool of worker
+ * threads.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class SamplingItemSetMiner {
+
+    //==============
+    // Data Members
+    //==============
+
+    private final int _numThreads;
+    private final int _maxLength;
+    private final int _sampleSize;
+    private final double _failureProbability;
+    private final Random _random;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * @param numThreads         The number of worker threads; 0 or less means use all
+     *                           available processors.
+     * @param maxLength          The maximum number of items in a pattern; 0 or less
+     *                           means no limit.
+     * @param sampleSize         The number of examples in the sample
+     * @param failureProbability The probability, per frequent itemset, that the sample misses it
+     * @param seed               The seed of the sampling
+     */
+    public SamplingItemSetMiner(int numThreads, int maxLength, int sampleSize, double failureProbability, long seed) {
+        _numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+        _maxLength = (maxLength > 0) ? maxLength : Integer.MAX_VALUE;
+        _sampleSize = sampleSize;
+        _failureProbability = failureProbability;
+        _random = new Random(seed);
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Returns the amount by which the support, as a fraction of the examples,
+     * is lowered for a sample of <code>sampleSize</code> examples.
+     */
+    public static double getEpsilon(int sampleSize, double failureProbability) {
+        return Math.sqrt(Math.log(1.0 / failureProbability) / (2.0 * sampleSize));
+    }
+
+    /**
+     * Mines the frequent patterns of the items of <code>iss</code> flagged in
+     * <code>include</code> that contain at least one of the items flagged in
+     * <code>required</code>, and delivers them to <code>sink</code> in no
+     * particular order.
+     *
+     * @param iss      The item sets to mine
+     * @param include  Flags, by item, the items to mine; null for all the items
+     * @param required Flags, by item, the items of which every pattern contains
+     *                 at least one; null for no constraint
+     * @param support  The minimum support count, over all the examples
+     * @param sink     The sink receiving the patterns, including the 1-item patterns.
+     * @return The sizes, the bound and the outcome of the verification
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining or counting failed
+     */
+    public Report mine(final ItemSetInterface iss, boolean[] include, final boolean[] required,
+            final int support, final FPPatternSink sink) throws InterruptedException, ExecutionException {
+
+        int numExamples = iss.getNumExamples();
+        int numItems = iss.getItemsOrderedByFrequency().length;
+        int[] sample = sample(numExamples, Math.min(_sampleSize, numExamples));
+        int n = sample.length;
+
+        Report report = new Report();
+        report.numExamples = numExamples;
+        report.sampleSize = n;
+        report.failureProbability = _failureProbability;
+        report.epsilon = getEpsilon(Math.max(n, 1), _failureProbability);
+
+        double lowered = (double) support / numExamples - report.epsilon;
+        report.sampleSupport = Math.max(1, (int) Math.ceil(lowered * n));
+
+        // the sample as a table, rows renumbered
+        FPSparse tab = new FPSparse(numItems);
+        for (int i = 0; i < numItems; i++)
+            tab.addColumn(i);
+
+        boolean[] columns = new boolean[numItems];
+        for (int i = 0; i < numItems; i++) {
+            if (include != null && !include[i]) continue;
+
+            for (int example : iss.getItemExamples(i)) {
+                int row = Arrays.binarySearch(sample, example);
+                if (row >= 0)
+                    tab.setInt(1, row, i);
+            }
+            columns[i] = true;
+        }
+
+        boolean[] frequentInSample = new boolean[numItems];
+        for (int i = 0; i < numItems; i++)
+            frequentInSample[i] = columns[i] && tab.getColumnTots(i) >= report.sampleSupport;
+
+        // the itemsets frequent in the sample
+        final HashSet<TIntArrayList> found = new HashSet<TIntArrayList>();
+        FPArrayTree tree = FPArrayTree.build(tab, frequentInSample);
+        new FPGrowthMiner(_numThreads, _maxLength).mine(tree, new int[0], report.sampleSupport, new FPPatternSink() {
+            public void addPattern(int[] items, int len, int count) {
+                int[] sorted = Arrays.copyOf(items, len);
+                Arrays.sort(sorted);
+                synchronized (found) {
+                    found.add(new TIntArrayList(sorted));
+                }
+            }
+        });
+
+        List<TIntArrayList> border = getNegativeBorder(found, columns, frequentInSample);
+        report.numCandidates = found.size();
+        report.numBorder = border.size();
+
+        // count the candidates on all the examples
+        final List<TIntArrayList> candidates = new ArrayList<TIntArrayList>(found.size() + border.size());
+        candidates.addAll(border);
+        final int numBorder = border.size();
+        candidates.addAll(found);
+
+        final int numTasks = Math.max(1, Math.min(_numThreads, candidates.size()));
+        final int[] borderFrequent = new int[numTasks];
+
+        ExecutorService executor = Executors.newFixedThreadPool(numTasks);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>(numTasks);
+
+            for (int t = 0; t < numTasks; t++) {
+                final int task = t;
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        for (int c = task, size = candidates.size(); c < size; c += numTasks) {
+                            int[] items = candidates.get(c).toArray();
+                            int count = iss.getSupport(items, items.length);
+                            if (count < support) continue;
+
+                            if (c < numBorder)
+                                borderFrequent[task]++;
+                            if (satisfies(items, required))
+                                sink.addPattern(items, items.length, count);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Object> result : results)
+                result.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        for (int count : borderFrequent)
+            report.numBorderFrequent += count;
+
+        return report;
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Draws <code>n</code> of <code>numExamples</code> examples without
+     * replacement (selection sampling), in increasing order.
+     */
+    private int[] sample(int numExamples, int n) {
+        int[] sample = new int[n];
+        int selected = 0;
+        for (int e = 0; e < numExamples && selected < n; e++) {
+            if ((numExamples - e) * _random.nextDouble() < n - selected)
+                sample[selected++] = e;
+        }
+
+        return sample;
+    }
+
+    /**
+     * Returns the negative border of the (downward closed) itemsets found: the
+     * itemsets of at most the maximum length that were not found, but all of
+     * whose subsets were.
+     */
+    private List<TIntArrayList> getNegativeBorder(HashSet<TIntArrayList> found, boolean[] columns,
+            boolean[] frequentInSample) {
+
+        List<TIntArrayList> border = new ArrayList<TIntArrayList>();
+        for (int i = 0; i < columns.length; i++)
+            if (columns[i] && !frequentInSample[i])
+                border.add(new TIntArrayList(new int[] { i }));
+
+        // the found itemsets by length, each list sorted so the itemsets that
+        // share all but their last item are adjacent
+        List<List<TIntArrayList>> levels = new ArrayList<List<TIntArrayList>>();
+        for (TIntArrayList itemset : found) {
+            int len = itemset.size();
+            while (levels.size() < len)
+                levels.add(new ArrayList<TIntArrayList>());
+            levels.get(len - 1).add(itemset);
+        }
+
+        Comparator<TIntArrayList> lexicographic = new Comparator<TIntArrayList>() {
+            public int compare(TIntArrayList a, TIntArrayList b) {
+                for (int i = 0, n = Math.min(a.size(), b.size()); i < n; i++)
+                    if (a.get(i) != b.get(i)) return (a.get(i) < b.get(i)) ? -1 : 1;
+                return a.size() - b.size();
+            }
+        };
+
+        for (int k = 2; k <= Math.min(levels.size() + 1, _maxLength); k++) {
+            List<TIntArrayList> level = levels.get(k - 2);
+            Collections.sort(level, lexicographic);
+
+            int[] candidate = new int[k];
+            int[] subset = new int[k - 1];
+
+            for (int a = 0, size = level.size(); a < size; a++) {
+                TIntArrayList first = level.get(a);
+                for (int b = a + 1; b < size; b++) {
+                    TIntArrayList second = level.get(b);
+                    if (!samePrefix(first, second, k - 2)) break;
+
+                    first.toArray(candidate, 0, k - 1);
+                    candidate[k - 1] = second.get(k - 2);
+                    TIntArrayList itemset = new TIntArrayList(candidate);
+                    if (found.contains(itemset)) continue;
+
+                    // the subsets that drop one of the first k - 2 items
+                    boolean all = true;
+                    for (int drop = 0; drop < k - 2 && all; drop++) {
+                        for (int i = 0, j = 0; i < k; i++)
+                            if (i != drop) subset[j++] = candidate[i];
+                        all = found.contains(new TIntArrayList(subset));
+                    }
+
+                    if (all)
+                        border.add(itemset);
+                }
+            }
+        }
+
+        return border;
+    }
+
+    private static boolean samePrefix(TIntArrayList a, TIntArrayList b, int len) {
+        for (int i = 0; i < len; i++)
+            if (a.get(i) != b.get(i)) return false;
+
+        return true;
+    }
+
+    private static boolean satisfies(int[] items, boolean[] required) {
+        if (required == null) return true;
+
+        for (int item : items)
+            if (required[item]) return true;
+
+        return false;
+    }
+
+    //=============
+    // Inner Class
+    //=============
+
+    /**
+     * The outcome of a sampled mining run.
+     */
+    public static class Report implements Serializable {
+
+        private static final long serialVersionUID = -3618032290542419417L;
+
+        /** The number of examples, and the number of them in the sample. */
+        public int numExamples;
+        public int sampleSize;
+
+        /** The probability, per frequent itemset, that the sample misses it. */
+        public double failureProbability;
+
+        /** The amount by which the support (as a fraction of the examples) was lowered for the sample. */
+        public double epsilon;
+
+        /** The minimum support count used on the sample. */
+        public int sampleSupport;
+
+        /** The number of itemsets found in the sample, and of their negative border. */
+        public int numCandidates;
+        public int numBorder;
+
+        /** The number of itemsets of the negative border that are frequent on all the examples. */
+        public int numBorderFrequent;
+
+        /**
+         * @return True if no frequent itemset can have been missed
+         */
+        public boolean isComplete() {
+            return numBorderFrequent == 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Sampled ").append(sampleSize).append(" of ").append(numExamples).append(" examples; ");
+            sb.append("support lowered by ").append(String.format("%.4f", epsilon));
+            sb.append(" to ").append(sampleSupport).append(" examples of the sample ");
+            sb.append("(miss probability per frequent itemset at most ").append(failureProbability).append("). ");
+            sb.append(numCandidates).append(" candidates and ").append(numBorder).append(" negative border itemsets verified. ");
+            if (isComplete())
+                sb.append("No negative border itemset is frequent: no frequent itemset was missed.");
+            else
+                sb.append(numBorderFrequent).append(" negative border itemsets are frequent: ")
+                  .append("frequent supersets of them may be missing.");
+
+            return sb.toString();
+        }
+    }
+}
@@ -43,37 +43,59 @@ package org.seasr.meandre.support.components.discovery.ruleassociation;
  * WITH THE SOFTWARE.
  */
 
-
+import gnu.trove.list.array.TIntArrayList;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Set;
 
 
-
+/**
+ * Item sets read from text, see <code>ItemSetParser</code>. Items are named
+ * <code>attribute=value</code>.
+ *
+ * The sets are added in compressed sparse row form: the item ids of all the
+ * sets in one array, sorted within each set, and the offset of each set in it.
+ * <code>compute()</code>, called once all the sets are added, orders the ids by
+ * the frequency of the items and turns the rows into a
+ * <code>VerticalItemStore</code>, which answers all the queries from then on.
+ */
 public class SimpleItemSet implements ItemSetInterface {
 
+	   // the items of set i are items[offsets[i] .. offsets[i+1]), in increasing order;
+	   // released by compute()
+	   TIntArrayList offsets = new TIntArrayList();
+	   TIntArrayList items = new TIntArrayList();
 
+	   int numExamples = 0;
 
-	   String itemDelimiter = "=";
-	   // eg. word=happy  label=value
+	   // the number of sets that contain each item, by id
+	   TIntArrayList itemCounts = new TIntArrayList();
 
-
-	   ArrayList<HashMap<Integer,String>> rows = new ArrayList<HashMap<Integer,String>>();
+	   // the names of the items added by addSet(Set), by id
+	   ArrayList<String> names = new ArrayList<String>();
+	   HashMap<String,Integer> ids = new HashMap<String,Integer>();
 
 	   public SimpleItemSet()
 	   {
-
+	      offsets.add(0);
 	   }
 
 	   public boolean getItemFlag(int row, int col) {
-	      HashMap<Integer,String> rowMap = rows.get(row);
-	      String nameValuePair = rowMap.get(col);
-	      return (nameValuePair != null);
+	      return itemStore.contains(row, col);
+	   }
+
+	   public int getSupport(int[] items, int numItems) {
+	      return itemStore.getSupport(items, numItems);
 	   }
 
+	   public int[] getItemExamples(int item) {
+	      return itemStore.getRows(item);
+	   }
+
+	   // the examples that contain each item, built by compute()
+	   VerticalItemStore itemStore = new VerticalItemStore(0, 0);
+
 	   String[] namesSortedByFrequency = new String[0];
 
 	   public String[] getItemsOrderedByFrequency() {
@@ -81,13 +103,12 @@ public class SimpleItemSet implements ItemSetInterface {
 	   }
 
 	   public int getNumExamples() {
-	      return rows.size();
+	      return numExamples;
 	   }
 
 	   String [] targetNames = new String[0];
 	   public String[] getTargetNames() {
 	     return targetNames;
-	     //  return this.names;
 	   }
 
 	   HashMap<String, int[]> unique = new HashMap<String,int[]>();
@@ -105,165 +126,119 @@ public class SimpleItemSet implements ItemSetInterface {
 	    */
 
 
-
-	   // HashMap<String,Integer> targetNameMap = new HashMap<String,Integer>();
-	   // ArrayList<String> colNames = new ArrayList<String>();
-
-
-	   HashMap<String,String>  uniqueNameMap = new HashMap<String,String>();
-	   HashMap<String,Integer> itemCounter = new HashMap<String,Integer>();
-
-	   int colNumber = 0;
-	   int ID = 0;
+	   /**
+	    * Adds a set given by the names of its items.
+	    */
 	   public void addSet(Set<String> items) {
-
-
-	      HashMap<Integer,String> row = new HashMap<Integer,String>();
-
-
-	      Iterator<String> it = items.iterator();
-	      while (it.hasNext()) {
-	         String nameValuePair = it.next().trim();
-
-	         int idx = nameValuePair.indexOf(itemDelimiter);
-	         String n = nameValuePair.substring(0,idx).trim();
-	         String v = nameValuePair.substring(idx+1).trim();
-	         uniqueNameMap.put(n,n);
-
-	         // save all the unique labels (names)
-	         /*
-	         Integer colNum = targetNameMap.get(nameValuePair);
-	         if (colNum == null){
-	            colNum = colNumber++;
-	            targetNameMap.put(nameValuePair, colNum);
-	            colNames.add(nameValuePair);
-	         }
-	         */
-
-	         // we will change this later
-	         row.put(ID++,nameValuePair);
-	         // System.out.println("row " + (rows.size() - 1) + " adding " +nameValuePair);
-
-
-	         Integer count = itemCounter.get(nameValuePair);
-	         if (count != null) {
-	            itemCounter.put(nameValuePair, count + 1);
-	         }
-	         else {
-	            itemCounter.put(nameValuePair, 1);
+	      int start = this.items.size();
+
+	      for (String item : items) {
+	         String nameValuePair = item.trim();
+	         Integer id = ids.get(nameValuePair);
+	         if (id == null) {
+	            id = names.size();
+	            ids.put(nameValuePair, id);
+	            names.add(nameValuePair);
 	         }
+	         this.items.add(id);
 	      }
-	      rows.add(row);
-
-	   }
 
+	      // names that differ only in surrounding spaces are the same item
+	      this.items.sort(start, this.items.size());
+	      int n = start;
+	      for (int i = start; i < this.items.size(); i++)
+	         if (n == start || this.items.getQuick(i) != this.items.getQuick(n - 1))
+	            this.items.setQuick(n++, this.items.getQuick(i));
+	      this.items.remove(n, this.items.size() - n);
 
-	   public void compute()
-	   {
-	      // array of unique attribute names  in attribute=value
-	      this.targetNames = uniqueNameMap.keySet().toArray(new String[0]);
-
-
-	      sort();
-
-	      // row 1 == { a, b, c, d}  if c > b > a > d (in terms of freq), need to change the row to
-	      // row 1 == { c, b, a, d}
-	      // System.out.println("");
-	      int rowCount = rows.size();
-	      for ( int i = 0; i < rowCount; i++) {
-	         HashMap<Integer,String> rowMap = rows.get(i);
-	         Iterator<Integer>keys = rowMap.keySet().iterator();
-	         HashMap<Integer,String> newRow = new HashMap<Integer,String>();
-	         // System.out.print("row " + i + " ");
-	         while(keys.hasNext()){
-	            Integer key = keys.next();
-	            String value = rowMap.get(key);
-	            // System.out.print(value + ",");
-	            int[] cnt_and_id = unique.get(value);
-	            newRow.put(cnt_and_id[1], value);
-	         }
-	         // System.out.println("");
-	         rows.set(i, newRow);
-
-
-	      }
+	      endSet(start);
 	   }
 
-	      public void sort()
-	      {
-
-	      //
-	      // what follows is my best guess of what ItemSets.java attempts to do
-	      // if you can follow what that code attempts to do, please add comments
-	      //
-
-
-	      //System.out.println("Row Count " + rows.size());
-	      //System.out.println("Col Count " + targetNameMap.size());
-	      //System.out.println("Col Count " + colNumber);
-
-
-
-	      // convert itemCounter to the unique hashmap
-	      unique = new HashMap<String,int[]>();
-	      int ID = 0;
-	      Iterator<String> keyIt = itemCounter.keySet().iterator();
-	      ArrayList<SortItem> items = new ArrayList<SortItem>();
-	      while (keyIt.hasNext()) {
-	         String key = keyIt.next();
-	         Integer count = itemCounter.get(key);
-	         int[] value = new int[2];
-	         value[0] = count;
-	         value[1] = ID++; // will be changed to an index freq #
-	         unique.put(key,value);
-
-	         SortItem si = new SortItem(key,count);
-	         items.add(si);
-	      }
-
-
-
-
-	      //
-	      // want the name[] to be in sorted order of the frequency
-	      //
-	      // name[ID] = count
-	      //
-	      Collections.sort(items);
-
-	      int size = items.size();
-	      this.namesSortedByFrequency = new String[size];
-	      for (int i = 0; i < size; i++){
-	         SortItem si = items.get(i);
-	         String key = si.key;
-	         this.namesSortedByFrequency[i] = key;
-
-
-	         //
-	         // change ID to be the order of it's frequency
-	         //  where 0 is the most, 1 is the second most, etc
-	         int[] cnt_and_id = unique.get(key);
-	         cnt_and_id[1] = i;
+	   /**
+	    * Adds a set given by the ids of its items, as read by a
+	    * <code>TransactionReader</code>; the names of the ids are given to
+	    * <code>compute(String[])</code>.
+	    *
+	    * @param ids The ids of the items, in increasing order and without duplicates
+	    * @param len The number of entries of <code>ids</code> to use
+	    */
+	   public void addSet(int[] ids, int len) {
+	      int start = items.size();
+	      items.add(ids, 0, len);
+	      endSet(start);
+	   }
 
-	         assert (cnt_and_id[0] == si.count);
+	   private void endSet(int start) {
+	      for (int i = start, n = items.size(); i < n; i++) {
+	         int id = items.getQuick(i);
+	         while (itemCounts.size() <= id)
+	            itemCounts.add(0);
+	         itemCounts.setQuick(id, itemCounts.getQuick(id) + 1);
 	      }
-
+	      offsets.add(items.size());
+	      numExamples++;
 	   }
 
-	   class SortItem implements Comparable<SortItem> {
-	      String key;
-	      int count;
+	   /**
+	    * Orders the items added by <code>addSet(Set)</code> by frequency.
+	    */
+	   public void compute()
+	   {
+	      compute(names.toArray(new String[names.size()]));
+	   }
 
-	      public SortItem(String k, int v) {
-	         this.key   = k;
-	         this.count = v;
+	   /**
+	    * Orders the items by frequency: the most frequent item gets id 0, ties
+	    * are broken by name. Called once, after all the sets are added.
+	    *
+	    * @param names The names of the ids the sets were added with
+	    */
+	   public void compute(String[] names)
+	   {
+	      // the items that are in no set (in a set cut short at the end of
+	      // the input, for instance) are left out
+	      int numItems = 0;
+	      for (int id = 0; id < itemCounts.size(); id++)
+	         if (itemCounts.getQuick(id) > 0) numItems++;
+
+	      String[] present = new String[numItems];
+	      int[] counts = new int[numItems];
+	      numItems = 0;
+	      for (int id = 0; id < itemCounts.size(); id++) {
+	         if (itemCounts.getQuick(id) > 0) {
+	            present[numItems] = names[id];
+	            counts[numItems++] = itemCounts.getQuick(id);
+	         }
 	      }
 
-	      public int compareTo(SortItem other)
-	      {
-	         return other.count - this.count;
+	      ItemSetSummary summary = new ItemSetSummary(present, counts, getNumExamples());
+	      this.unique = summary.getUnique();
+	      this.namesSortedByFrequency = summary.getItemsOrderedByFrequency();
+	      this.targetNames = summary.getTargetNames();
+
+	      // renumber the items of every set by frequency
+	      int[] rank = new int[itemCounts.size()];
+	      for (int id = 0; id < rank.length; id++)
+	         if (itemCounts.getQuick(id) > 0)
+	            rank[id] = unique.get(names[id])[1];
+
+	      // the rows are added in increasing order, so the rows of every item
+	      // come out sorted whatever the order of the items within a set
+	      int rowCount = getNumExamples();
+	      itemStore = new VerticalItemStore(unique.size(), rowCount);
+	      for (int row = 0; row < rowCount; row++) {
+	         for (int i = offsets.getQuick(row), n = offsets.getQuick(row + 1); i < n; i++) {
+	            itemStore.add(row, rank[items.getQuick(i)]);
+	         }
 	      }
-
+	      itemStore.compact();
+
+	      // the vertical store holds the same sets
+	      items = null;
+	      offsets = null;
+	      itemCounts = null;
+	      this.names = null;
+	      ids = null;
 	   }
 
 }
@@ -0,0 +1,391 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Reads item sets one at a time, in the format of <code>ItemSetParser</code>:
+ * comma separated items, one set per <code>linesPerSet</code> lines, braces
+ * ignored. The characters are scanned in place, without a <code>String</code>
+ * per line or per item: each item name is interned once, when it is first
+ * seen, and a set is returned as the sorted ids of its items.
+ *
+ * <p>The ids are given in the order the items are first seen, so two readers
+ * of the same data give the same ids. Local files can be memory-mapped, which
+ * decodes the file straight from the page cache.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class TransactionReader {
+
+    /** The number of bytes of a file mapped at a time. */
+    private static final int MAP_SIZE = 1 << 28;
+
+    private final int _linesPerSet;
+
+    /** The source of the characters: a reader, or a memory-mapped file. */
+    private final Reader _reader;
+    private final FileChannel _channel;
+    private long _mapStart;
+    private MappedByteBuffer _mapped;
+    private CharsetDecoder _decoder;
+
+    private final char[] _buf = new char[1 << 16];
+    private int _pos = 0;
+    private int _limit = 0;
+    private boolean _skipLF = false;
+    private boolean _eof = false;
+
+    /** The characters of the item being read. */
+    private char[] _token = new char[64];
+
+    /** The ids of the items of the set being read. */
+    private int[] _items = new int[64];
+
+    /** The interned item names, by id, with their hash codes. */
+    private String[] _names = new String[256];
+    private int[] _hashes = new int[256];
+    private int _numNames = 0;
+
+    /** Open addressing table of the ids (plus one; 0 is empty) by name. */
+    private int[] _table = new int[512];
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * @param reader      The item sets
+     * @param linesPerSet The number of lines of each set
+     */
+    public TransactionReader(Reader reader, int linesPerSet) {
+        _reader = reader;
+        _channel = null;
+        _linesPerSet = Math.max(1, linesPerSet);
+    }
+
+    /**
+     * Reads the item sets of a file, in the default character set.
+     *
+     * @param file        The file
+     * @param linesPerSet The number of lines of each set
+     * @param memoryMap   Whether to memory-map the file instead of reading it
+     * @throws IOException If the file cannot be opened
+     */
+    public TransactionReader(File file, int linesPerSet, boolean memoryMap) throws IOException {
+        _linesPerSet = Math.max(1, linesPerSet);
+
+        if (memoryMap) {
+            _reader = null;
+            _channel = new FileInputStream(file).getChannel();
+            _decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            map(0);
+        } else {
+            _reader = new InputStreamReader(new FileInputStream(file));
+            _channel = null;
+        }
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Reads the next set. Its items are left in <code>getItems()</code>.
+     *
+     * @return The number of items of the set, or -1 when there are no more
+     *         complete sets
+     * @throws IOException If the set cannot be read
+     */
+    public int next() throws IOException {
+        int len = 0;
+        int tokenLen = 0;
+        int lines = 0;
+        boolean lineStarted = false;
+
+        while (lines < _linesPerSet) {
+            if (_pos == _limit && !fill()) {
+                if (!lineStarted) return -1;
+
+                // the last line has no line terminator
+                len = addItem(tokenLen, len);
+                tokenLen = 0;
+                lines++;
+                if (lines < _linesPerSet) return -1;
+                break;
+            }
+
+            char c = _buf[_pos++];
+
+            // a line ends with \n, \r or \r\n
+            if (_skipLF) {
+                _skipLF = false;
+                if (c == '\n') continue;
+            }
+
+            if (c == '\n' || c == '\r') {
+                _skipLF = (c == '\r');
+                len = addItem(tokenLen, len);
+                tokenLen = 0;
+                lines++;
+                lineStarted = false;
+                continue;
+            }
+
+            lineStarted = true;
+
+            switch (c) {
+                case ',':
+                    len = addItem(tokenLen, len);
+                    tokenLen = 0;
+                    break;
+
+                case '{':
+                case '}':
+                    break;
+
+                default:
+                    if (tokenLen == _token.length)
+                        _token = Arrays.copyOf(_token, tokenLen * 2);
+                    _token[tokenLen++] = c;
+            }
+        }
+
+        if (len < 2) return len;
+
+        // sort the ids and drop the duplicates
+        Arrays.sort(_items, 0, len);
+        int n = 1;
+        for (int i = 1; i < len; i++)
+            if (_items[i] != _items[n - 1])
+                _items[n++] = _items[i];
+
+        return n;
+    }
+
+    /**
+     * Returns the ids of the items of the last set read, in increasing order.
+     * The array is reused by the next call to <code>next()</code>.
+     */
+    public int[] getItems() {
+        return _items;
+    }
+
+    /**
+     * Returns the number of distinct items seen so far.
+     */
+    public int getNumNames() {
+        return _numNames;
+    }
+
+    /**
+     * Returns the name of an item.
+     */
+    public String getName(int id) {
+        return _names[id];
+    }
+
+    /**
+     * Returns the items seen so far, by id.
+     */
+    public String[] getNames() {
+        return Arrays.copyOf(_names, _numNames);
+    }
+
+    public void close() throws IOException {
+        if (_reader != null)
+            _reader.close();
+        else
+            _channel.close();
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Trims the item in <code>_token</code> and, unless it is empty, adds its id
+     * to the set.
+     *
+     * @return The new number of items of the set
+     */
+    private int addItem(int tokenLen, int len) {
+        int start = 0;
+        while (start < tokenLen && _token[start] <= ' ')
+            start++;
+        while (tokenLen > start && _token[tokenLen - 1] <= ' ')
+            tokenLen--;
+
+        if (start == tokenLen) return len;
+
+        if (len == _items.length)
+            _items = Arrays.copyOf(_items, len * 2);
+        _items[len] = intern(_token, start, tokenLen);
+
+        return len + 1;
+    }
+
+    /**
+     * Returns the id of the name in <code>chars[start..end)</code>, adding it
+     * if it was not seen before.
+     */
+    private int intern(char[] chars, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + chars[i];
+
+        int mask = _table.length - 1;
+        int slot = mix(hash) & mask;
+        for (int entry; (entry = _table[slot]) != 0; slot = (slot + 1) & mask) {
+            int id = entry - 1;
+            if (_hashes[id] == hash && matches(_names[id], chars, start, end))
+                return id;
+        }
+
+        int id = _numNames++;
+        if (id == _names.length) {
+            _names = Arrays.copyOf(_names, id * 2);
+            _hashes = Arrays.copyOf(_hashes, id * 2);
+        }
+        _names[id] = new String(chars, start, end - start);
+        _hashes[id] = hash;
+        _table[slot] = id + 1;
+
+        if (_numNames * 2 > _table.length)
+            rehash();
+
+        return id;
+    }
+
+    private void rehash() {
+        _table = new int[_table.length * 2];
+        int mask = _table.length - 1;
+        for (int id = 0; id < _numNames; id++) {
+            int slot = mix(_hashes[id]) & mask;
+            while (_table[slot] != 0)
+                slot = (slot + 1) & mask;
+            _table[slot] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        return hash ^ (hash >>> 7) ^ (hash >>> 4);
+    }
+
+    private static boolean matches(String name, char[] chars, int start, int end) {
+        if (name.length() != end - start) return false;
+
+        for (int i = start; i < end; i++)
+            if (name.charAt(i - start) != chars[i]) return false;
+
+        return true;
+    }
+
+    /**
+     * Refills the character buffer.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        _pos = 0;
+        _limit = (_reader != null) ? _reader.read(_buf) : decode();
+        if (_limit < 0) _limit = 0;
+
+        return _limit > 0;
+    }
+
+    /**
+     * Decodes the next characters of the mapped file into the buffer.
+     *
+     * @return The number of characters decoded, 0 at the end of the file
+     */
+    private int decode() throws IOException {
+        if (_eof) return 0;
+
+        CharBuffer out = CharBuffer.wrap(_buf);
+
+        while (out.position() == 0) {
+            boolean last = _mapStart + _mapped.limit() >= _channel.size();
+            CoderResult result = _decoder.decode(_mapped, out, last);
+            if (result.isError())
+                result.throwException();
+
+            if (out.position() > 0 || !result.isUnderflow())
+                break;
+
+            if (last) {
+                _decoder.flush(out);
+                _eof = true;
+                break;
+            }
+
+            // a character may be split between two mappings; map again from
+            // its first byte
+            map(_mapStart + _mapped.position());
+        }
+
+        return out.position();
+    }
+
+    private void map(long start) throws IOException {
+        _mapStart = start;
+        long size = Math.min(MAP_SIZE, _channel.size() - start);
+        _mapped = _channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Stores item sets vertically: for each item, the examples (rows) that contain it.
+ * Items that occur in few examples are kept as a sorted list of row numbers (tidset),
+ * items that occur in many examples are kept as a bitset over the rows, whichever
+ * is smaller. The support of a combination of items is computed by intersecting
+ * the rows of its items, without scanning the examples.
+ *
+ * {@link #compact()} must be called once all rows have been added. Adding the rows
+ * of an item in increasing order is cheapest; rows added out of order are sorted
+ * by {@link #compact()}.
+ *
+ * @author Boris Capitanu
+ */
+public class VerticalItemStore implements Serializable {
+
+    private static final long serialVersionUID = 2962367151658315036L;
+
+    private static final int[] EMPTY = new int[0];
+
+    private int _numRows;
+    private final int[] _counts;
+    private final int[][] _tids;
+    private final long[][] _bits;
+    private boolean[] _unsorted;
+
+    public VerticalItemStore(int numItems, int numRows) {
+        _numRows = numRows;
+        _counts = new int[numItems];
+        _tids = new int[numItems][];
+        _bits = new long[numItems][];
+        Arrays.fill(_tids, EMPTY);
+    }
+
+    public int getNumItems() {
+        return _counts.length;
+    }
+
+    public int getNumRows() {
+        return _numRows;
+    }
+
+    /**
+     * Records that a row contains an item.
+     *
+     * @param row The row
+     * @param item The item
+     */
+    public void add(int row, int item) {
+        if (row >= _numRows)
+            _numRows = row + 1;
+
+        if (_bits[item] != null) {
+            long mask = 1L << row;
+            long[] bits = _bits[item];
+            int word = row >>> 6;
+            if (word >= bits.length)
+                bits = _bits[item] = Arrays.copyOf(bits, Math.max(word + 1, bits.length << 1));
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                _counts[item]++;
+            }
+            return;
+        }
+
+        int count = _counts[item];
+        int[] tids = _tids[item];
+
+        if (count > 0) {
+            int last = tids[count - 1];
+            if (last == row) return;
+            if (last > row) {
+                if (_unsorted == null)
+                    _unsorted = new boolean[_counts.length];
+                _unsorted[item] = true;
+            }
+        }
+
+        if (count == tids.length)
+            tids = _tids[item] = Arrays.copyOf(tids, Math.max(4, count + (count >> 1)));
+
+        tids[count] = row;
+        _counts[item]++;
+    }
+
+    /**
+     * Trims the storage and switches the items that occur in many rows to bitsets.
+     */
+    public void compact() {
+        int numWords = (_numRows + 63) >>> 6;
+
+        for (int item = 0; item < _counts.length; item++) {
+            int count = _counts[item];
+
+            if (_bits[item] != null) {
+                _bits[item] = Arrays.copyOf(_bits[item], numWords);
+                continue;
+            }
+
+            if (_unsorted != null && _unsorted[item]) {
+                count = _counts[item] = sortUnique(_tids[item], count);
+                _unsorted[item] = false;
+            }
+
+            // a row number takes 32 bits, a bitset 1 bit for every row
+            if ((long) count * 32 > _numRows) {
+                long[] bits = new long[numWords];
+                int[] tids = _tids[item];
+                for (int i = 0; i < count; i++)
+                    bits[tids[i] >>> 6] |= 1L << tids[i];
+                _bits[item] = bits;
+                _tids[item] = null;
+            } else if (count < _tids[item].length)
+                _tids[item] = (count == 0) ? EMPTY : Arrays.copyOf(_tids[item], count);
+        }
+
+        _unsorted = null;
+    }
+
+    /**
+     * @return The number of rows containing the item
+     */
+    public int getSupport(int item) {
+        return _counts[item];
+    }
+
+    public boolean contains(int row, int item) {
+        long[] bits = _bits[item];
+        if (bits != null) {
+            int word = row >>> 6;
+            return (word < bits.length) && ((bits[word] & (1L << row)) != 0);
+        }
+
+        return Arrays.binarySearch(_tids[item], 0, _counts[item], row) >= 0;
+    }
+
+    /**
+     * Returns the rows containing an item, in increasing order.
+     *
+     * @param item The item
+     * @return The rows
+     */
+    public int[] getRows(int item) {
+        long[] bits = _bits[item];
+        if (bits == null)
+            return Arrays.copyOf(_tids[item], _counts[item]);
+
+        int[] rows = new int[_counts[item]];
+        int n = 0;
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                rows[n++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns the number of rows that contain all the given items.
+     *
+     * @param items The items
+     * @param len The number of items to use from <code>items</code>
+     * @return The support of the items
+     */
+    public int getSupport(int[] items, int len) {
+        if (len == 0) return _numRows;
+        if (len == 1) return _counts[items[0]];
+
+        // drive the intersection from the smallest tidset
+        int pivot = -1;
+        for (int i = 0; i < len; i++) {
+            int item = items[i];
+            if (_counts[item] == 0) return 0;
+            if (_bits[item] == null && (pivot < 0 || _counts[item] < _counts[items[pivot]]))
+                pivot = i;
+        }
+
+        if (pivot < 0)
+            return intersectBits(items, len);
+
+        int[] tids = _tids[items[pivot]];
+        int support = 0;
+
+        for (int t = 0, count = _counts[items[pivot]]; t < count; t++) {
+            int row = tids[t];
+            int i = 0;
+            for (; i < len; i++)
+                if (i != pivot && !contains(row, items[i])) break;
+            if (i == len) support++;
+        }
+
+        return support;
+    }
+
+    public int getSupport(int[] items) {
+        return getSupport(items, items.length);
+    }
+
+    private static int sortUnique(int[] tids, int count) {
+        Arrays.sort(tids, 0, count);
+
+        int n = 0;
+        for (int i = 0; i < count; i++)
+            if (n == 0 || tids[n - 1] != tids[i])
+                tids[n++] = tids[i];
+
+        return n;
+    }
+
+    private int intersectBits(int[] items, int len) {
+        int numWords = Integer.MAX_VALUE;
+        for (int i = 0; i < len; i++)
+            numWords = Math.min(numWords, _bits[items[i]].length);
+
+        int support = 0;
+        for (int w = 0; w < numWords; w++) {
+            long word = _bits[items[0]][w];
+            for (int i = 1; i < len && word != 0; i++)
+                word &= _bits[items[i]][w];
+            support += Long.bitCount(word);
+        }
+
+        return support;
+    }
+}
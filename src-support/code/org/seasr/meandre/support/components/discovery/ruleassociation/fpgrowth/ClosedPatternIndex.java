@@ -0,0 +1,144 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * An index of closed itemsets that answers whether an itemset is subsumed,
+ * i.e. is a subset of an indexed itemset with the same support.
+ *
+ * <p>Itemsets are kept as sorted <code>int[]</code>. For every (support, item)
+ * pair the index keeps the itemsets of that support containing the item, so a
+ * query only has to test containment against the shortest of the lists of its
+ * items, and most queries end at a hash probe that finds no list at all.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class ClosedPatternIndex {
+
+    private final ArrayList<int[]> _patterns = new ArrayList<int[]>();
+    private final TLongObjectHashMap<TIntArrayList> _buckets = new TLongObjectHashMap<TIntArrayList>();
+
+    /**
+     * Adds an itemset to the index.
+     *
+     * @param items   The items, in ascending order; the array is kept by the index
+     * @param support The support of the itemset
+     */
+    public void add(int[] items, int support) {
+        int id = _patterns.size();
+        _patterns.add(items);
+
+        for (int item : items) {
+            long key = key(support, item);
+            TIntArrayList bucket = _buckets.get(key);
+            if (bucket == null) {
+                bucket = new TIntArrayList(4);
+                _buckets.put(key, bucket);
+            }
+            bucket.add(id);
+        }
+    }
+
+    /**
+     * Tests whether an itemset is a subset of an indexed itemset with the same support.
+     *
+     * @param items   The items, in ascending order
+     * @param len     The number of items to use from <code>items</code>
+     * @param support The support of the itemset
+     * @return True if the itemset is subsumed; always false for the empty itemset
+     */
+    public boolean isSubsumed(int[] items, int len, int support) {
+        if (len == 0) return false;
+
+        TIntArrayList candidates = null;
+        for (int i = 0; i < len; i++) {
+            TIntArrayList bucket = _buckets.get(key(support, items[i]));
+            if (bucket == null) return false;
+            if (candidates == null || bucket.size() < candidates.size())
+                candidates = bucket;
+        }
+
+        for (int c = 0, n = candidates.size(); c < n; c++) {
+            int[] pattern = _patterns.get(candidates.get(c));
+            if (pattern.length >= len && containsAll(pattern, items, len))
+                return true;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return _patterns.size();
+    }
+
+    /**
+     * Returns a sorted copy of the first <code>len</code> items of <code>items</code>.
+     */
+    public static int[] sorted(int[] items, int len) {
+        int[] copy = Arrays.copyOf(items, len);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    private static boolean containsAll(int[] pattern, int[] items, int len) {
+        int p = 0;
+        for (int i = 0; i < len; i++) {
+            int item = items[i];
+            while (p < pattern.length && pattern[p] < item) p++;
+            if (p == pattern.length || pattern[p] != item) return false;
+            p++;
+        }
+
+        return true;
+    }
+
+    private static long key(int support, int item) {
+        return ((long) support << 32) | (item & 0xffffffffL);
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A pattern sink that writes the patterns to a file as they are found, so they
+ * are not held in memory next to the trees of the miner while it runs. Each
+ * pattern is written as its number of items, the items and its support, all as
+ * 4-byte ints.
+ *
+ * <p>Write errors are remembered and reported by {@link #close()}. The patterns
+ * are written in the order they are found; {@link #read(File, int)} returns them
+ * in the order of {@link IntArrayPatternSink#toArray()}.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class DiskPatternSink implements FPPatternSink {
+
+    private final DataOutputStream _out;
+    private int _numPatterns = 0;
+    private IOException _error = null;
+
+    public DiskPatternSink(File file) throws IOException {
+        _out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    public synchronized void addPattern(int[] items, int len, int support) {
+        if (_error != null) return;
+
+        try {
+            _out.writeInt(len);
+            for (int i = 0; i < len; i++)
+                _out.writeInt(items[i]);
+            _out.writeInt(support);
+            _numPatterns++;
+        }
+        catch (IOException e) {
+            _error = e;
+        }
+    }
+
+    public synchronized int getNumPatterns() {
+        return _numPatterns;
+    }
+
+    /**
+     * Flushes and closes the file.
+     *
+     * @throws IOException If writing any of the patterns failed
+     */
+    public synchronized void close() throws IOException {
+        _out.close();
+        if (_error != null)
+            throw _error;
+    }
+
+    /**
+     * Reads the patterns written by a <code>DiskPatternSink</code>.
+     *
+     * @param file      The file
+     * @param minLength Patterns with fewer items than this are skipped
+     * @return The patterns, each one its items followed by its support,
+     *         ordered by length and then item by item
+     * @throws IOException If the file could not be read
+     */
+    public static int[][] read(File file, int minLength) throws IOException {
+        List<int[]> patterns = new ArrayList<int[]>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        try {
+            while (true) {
+                int len;
+                try {
+                    len = in.readInt();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+
+                int[] pattern = new int[len + 1];
+                for (int i = 0; i <= len; i++)
+                    pattern[i] = in.readInt();
+
+                if (len >= minLength)
+                    patterns.add(pattern);
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        Collections.sort(patterns, IntArrayPatternSink.PATTERN_ORDER);
+
+        return patterns.toArray(new int[patterns.size()][]);
+    }
+}
@@ -0,0 +1,642 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+//==============
+// Java Imports
+//==============
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A compact FPTree whose nodes live in primitive arrays instead of
+ * <code>FPTreeNode</code> objects.
+ *
+ * <p>Node 0 is the root. Every other node stores the header table position
+ * (rank) of its item, its count, its parent, its first child, its next
+ * sibling and the next node holding the same item (the node link). The
+ * header table is ordered by decreasing support, ties broken by increasing
+ * label, so the ranks on any path increase from the root down. A tree can
+ * also be built with a group of items moved to the end of the header table;
+ * every pattern that contains one of them is then found in the conditional
+ * trees of those items alone.</p>
+ *
+ * <p>Conditional pattern bases are projected straight from the node links
+ * into a new tree; no intermediate <code>FPSparse</code> table is
+ * materialized. Mining never modifies a built tree, so one tree can be read
+ * by several threads at once, and a tree of all the items can be built once
+ * and filtered down to the items frequent at each support level mined.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class FPArrayTree implements Serializable {
+
+    private static final long serialVersionUID = 5364919305232452713L;
+
+    /** The index of the root node. */
+    public static final int ROOT = 0;
+
+    /** Marks the absence of a node or rank. */
+    public static final int NONE = -1;
+
+    //==============
+    // Data Members
+    //==============
+
+    // header table, indexed by rank
+    private final int[] _labels;
+    private final int[] _supports;
+    private final int[] _heads;
+    private final int[] _tails;
+
+    // nodes, indexed by node
+    private int[] _rank;
+    private int[] _count;
+    private int[] _parent;
+    private int[] _firstChild;
+    private int[] _nextSibling;
+    private int[] _nodeLink;
+    private int _size;
+
+    /** Direct index of the children of the root, by rank. */
+    private final int[] _rootChildren;
+
+    private int _leaves = 0;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * Creates an empty tree over the given header table.
+     *
+     * @param labels   The item labels, ordered by decreasing support
+     * @param supports The support of each item
+     */
+    public FPArrayTree(int[] labels, int[] supports) {
+        _labels = labels;
+        _supports = supports;
+        _heads = new int[labels.length];
+        _tails = new int[labels.length];
+        _rootChildren = new int[labels.length];
+        Arrays.fill(_heads, NONE);
+        Arrays.fill(_tails, NONE);
+        Arrays.fill(_rootChildren, NONE);
+
+        int capacity = Math.max(16, labels.length + 1);
+        _rank = new int[capacity];
+        _count = new int[capacity];
+        _parent = new int[capacity];
+        _firstChild = new int[capacity];
+        _nextSibling = new int[capacity];
+        _nodeLink = new int[capacity];
+
+        _rank[ROOT] = NONE;
+        _count[ROOT] = 0;
+        _parent[ROOT] = NONE;
+        _firstChild[ROOT] = NONE;
+        _nextSibling[ROOT] = NONE;
+        _nodeLink[ROOT] = NONE;
+        _size = 1;
+    }
+
+    //================
+    // Static Methods
+    //================
+
+    /**
+     * Builds the tree of the columns of <code>tab</code> whose totals meet
+     * <code>support</code>.
+     */
+    public static FPArrayTree build(FPSparse tab, int support) {
+        boolean[] include = new boolean[tab.getNumColumns()];
+        for (int i = 0; i < include.length; i++)
+            include[i] = tab.getColumnTots(i) >= support;
+
+        return build(tab, include);
+    }
+
+    /**
+     * Builds the tree of the columns of <code>tab</code> flagged in <code>include</code>.
+     * Each row of the table becomes one path; the nodes on the path are
+     * incremented by the values stored in the row.
+     */
+    public static FPArrayTree build(FPSparse tab, boolean[] include) {
+        return build(tab, include, null);
+    }
+
+    /**
+     * Builds the tree of the columns of <code>tab</code> flagged in <code>include</code>,
+     * with the columns flagged in <code>last</code> ordered after all the others.
+     *
+     * @param last Flags, by column, the items placed at the end of the header
+     *             table; null to order all the items by support
+     */
+    public static FPArrayTree build(FPSparse tab, boolean[] include, boolean[] last) {
+        int numColumns = tab.getNumColumns();
+        int[] labels = new int[numColumns];
+        int[] counts = new int[numColumns];
+        for (int i = 0; i < numColumns; i++) {
+            labels[i] = tab.getLabel(i);
+            counts[i] = tab.getColumnTots(i);
+        }
+
+        int[] order = sortHeader(labels, counts, include, last);
+        FPArrayTree tree = createTree(labels, counts, order);
+
+        int[] colToRank = new int[numColumns];
+        Arrays.fill(colToRank, NONE);
+        for (int r = 0; r < order.length; r++)
+            colToRank[order[r]] = r;
+
+        int[] ranks = new int[order.length];
+        int[] vals = new int[order.length];
+
+        for (int row : tab.getRows()) {
+            int[] cols = tab.getRowIndices(row);
+            int len = 0;
+
+            for (int c = 0; c < cols.length; c++) {
+                int rank = colToRank[cols[c]];
+                if (rank != NONE)
+                    ranks[len++] = rank;
+            }
+
+            if (len == 0) continue;
+
+            Arrays.sort(ranks, 0, len);
+            for (int i = 0; i < len; i++)
+                vals[i] = tab.getInt(row, order[ranks[i]]);
+
+            tree.insert(ranks, vals, len);
+        }
+
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Builds the tree of the items flagged in <code>include</code> from the
+     * examples that contain each item, with the items flagged in <code>last</code>
+     * ordered after all the others. The examples are transposed straight into
+     * rows of header ranks; no table of the items is built.
+     *
+     * @param itemExamples The examples containing each item, by item label;
+     *                     only the entries of the included items are read
+     * @param numExamples  The number of examples
+     * @param last         Flags, by item, the items placed at the end of the
+     *                     header table; null to order all the items by support
+     */
+    public static FPArrayTree build(int[][] itemExamples, int numExamples, boolean[] include, boolean[] last) {
+        int numItems = itemExamples.length;
+        int[] labels = new int[numItems];
+        int[] counts = new int[numItems];
+        for (int i = 0; i < numItems; i++) {
+            labels[i] = i;
+            counts[i] = include[i] ? itemExamples[i].length : 0;
+        }
+
+        int[] order = sortHeader(labels, counts, include, last);
+        FPArrayTree tree = createTree(labels, counts, order);
+
+        // count the included items of each example, then fill the rows rank
+        // by rank so the ranks of every row come out in increasing order
+        int[] start = new int[numExamples + 1];
+        for (int r = 0; r < order.length; r++)
+            for (int example : itemExamples[order[r]])
+                start[example + 1]++;
+        for (int e = 0; e < numExamples; e++)
+            start[e + 1] += start[e];
+
+        int[] rows = new int[start[numExamples]];
+        int[] next = Arrays.copyOf(start, numExamples);
+        for (int r = 0; r < order.length; r++)
+            for (int example : itemExamples[order[r]])
+                rows[next[example]++] = r;
+
+        int[] ranks = new int[order.length];
+        for (int e = 0; e < numExamples; e++) {
+            int len = start[e + 1] - start[e];
+            if (len == 0) continue;
+
+            System.arraycopy(rows, start[e], ranks, 0, len);
+            tree.insert(ranks, len, 1);
+        }
+
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Creates an empty tree over the items flagged in <code>include</code>,
+     * with the header table ordered as by <code>build</code>. Paths are added
+     * with <code>insert</code>, using the ranks of the items in the header.
+     *
+     * @param labels The label of each item
+     * @param counts The support of each item
+     * @param last   Flags the items placed at the end of the header table;
+     *               null to order all the items by support
+     */
+    public static FPArrayTree create(int[] labels, int[] counts, boolean[] include, boolean[] last) {
+        return createTree(labels, counts, sortHeader(labels, counts, include, last));
+    }
+
+    /**
+     * Returns the indices of the included items ordered by decreasing count,
+     * ties broken by increasing label; the items flagged in <code>last</code>
+     * (if not null) come after all the others.
+     */
+    private static int[] sortHeader(int[] labels, int[] counts, boolean[] include, boolean[] last) {
+        int n = 0;
+        for (int i = 0; i < include.length; i++)
+            if (include[i]) n++;
+
+        int[] order = new int[n];
+        n = 0;
+        for (int i = 0; i < include.length; i++)
+            if (include[i]) order[n++] = i;
+
+        if (n > 1)
+            quickSort(order, labels, counts, last, 0, n - 1);
+
+        return order;
+    }
+
+    private static FPArrayTree createTree(int[] labels, int[] counts, int[] order) {
+        int[] hlabels = new int[order.length];
+        int[] hsupports = new int[order.length];
+        for (int r = 0; r < order.length; r++) {
+            hlabels[r] = labels[order[r]];
+            hsupports[r] = counts[order[r]];
+        }
+
+        return new FPArrayTree(hlabels, hsupports);
+    }
+
+    private static boolean precedes(int a, int b, int[] labels, int[] counts, boolean[] last) {
+        if (last != null && last[a] != last[b]) return last[b];
+        if (counts[a] != counts[b]) return counts[a] > counts[b];
+        return labels[a] < labels[b];
+    }
+
+    private static void quickSort(int[] ind, int[] labels, int[] counts, boolean[] last, int l, int r) {
+        int pivot = ind[(r + l) >>> 1];
+        int i = l;
+        int j = r;
+
+        while (i <= j) {
+            while (precedes(ind[i], pivot, labels, counts, last))
+                i++;
+            while (precedes(pivot, ind[j], labels, counts, last))
+                j--;
+            if (i <= j) {
+                int swap = ind[i];
+                ind[i] = ind[j];
+                ind[j] = swap;
+                i++;
+                j--;
+            }
+        }
+
+        if (l < j)
+            quickSort(ind, labels, counts, last, l, j);
+        if (i < r)
+            quickSort(ind, labels, counts, last, i, r);
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Adds a path to the tree.
+     *
+     * @param ranks The ranks of the items on the path, in increasing order
+     * @param len   The number of entries of <code>ranks</code> to use
+     * @param count The count added to every node on the path
+     */
+    public void insert(int[] ranks, int len, int count) {
+        int current = ROOT;
+        for (int i = 0; i < len; i++)
+            current = addToChild(current, ranks[i], count);
+    }
+
+    private void insert(int[] ranks, int[] counts, int len) {
+        int current = ROOT;
+        for (int i = 0; i < len; i++)
+            current = addToChild(current, ranks[i], counts[i]);
+    }
+
+    /**
+     * Returns the conditional counts of the pattern base of <code>rank</code>:
+     * the entry at position r holds the total count of the paths ending in
+     * <code>rank</code> that contain the item of rank r.
+     */
+    public int[] getConditionalCounts(int rank) {
+        int[] counts = new int[rank];
+
+        for (int node = _heads[rank]; node != NONE; node = _nodeLink[node]) {
+            int cnt = _count[node];
+            for (int p = _parent[node]; p != ROOT; p = _parent[p])
+                counts[_rank[p]] += cnt;
+        }
+
+        return counts;
+    }
+
+    /**
+     * Projects the conditional pattern base of <code>rank</code> into a new
+     * tree holding the items that meet <code>support</code>.
+     */
+    public FPArrayTree project(int rank, int support) {
+        int[] counts = getConditionalCounts(rank);
+        boolean[] include = new boolean[rank];
+        for (int r = 0; r < rank; r++)
+            include[r] = counts[r] >= support;
+
+        return project(rank, counts, include);
+    }
+
+    /**
+     * Projects the conditional pattern base of <code>rank</code> into a new
+     * tree holding the items flagged in <code>include</code>.
+     *
+     * @param rank    The rank whose pattern base is projected
+     * @param counts  The conditional counts as returned by <code>getConditionalCounts</code>
+     * @param include Flags, by rank, the items kept in the new tree
+     */
+    public FPArrayTree project(int rank, int[] counts, boolean[] include) {
+        int[] labels = new int[rank];
+        System.arraycopy(_labels, 0, labels, 0, rank);
+
+        int[] order = sortHeader(labels, counts, include, null);
+        FPArrayTree tree = createTree(labels, counts, order);
+        if (order.length == 0) return tree;
+
+        int[] map = new int[rank];
+        Arrays.fill(map, NONE);
+        for (int r = 0; r < order.length; r++)
+            map[order[r]] = r;
+
+        int[] path = new int[order.length];
+
+        for (int node = _heads[rank]; node != NONE; node = _nodeLink[node]) {
+            int len = 0;
+            for (int p = _parent[node]; p != ROOT; p = _parent[p]) {
+                int r = map[_rank[p]];
+                if (r != NONE)
+                    path[len++] = r;
+            }
+
+            if (len == 0) continue;
+
+            Arrays.sort(path, 0, len);
+            tree.insert(path, len, _count[node]);
+        }
+
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Returns the tree of the items that meet <code>support</code>.
+     */
+    public FPArrayTree filter(int support) {
+        boolean[] include = new boolean[_labels.length];
+        for (int r = 0; r < include.length; r++)
+            include[r] = _supports[r] >= support;
+
+        return filter(include);
+    }
+
+    /**
+     * Returns the tree of the items flagged in <code>include</code>, as if it
+     * had been built from the same table restricted to those items. The tree
+     * itself is returned if all items are included.
+     *
+     * @param include Flags, by rank, the items kept in the new tree
+     */
+    public FPArrayTree filter(boolean[] include) {
+        int n = 0;
+        for (int r = 0; r < include.length; r++)
+            if (include[r]) n++;
+
+        if (n == _labels.length) return this;
+
+        // the included items keep their relative order, which is still the
+        // header order since their supports are unchanged
+        int[] order = new int[n];
+        int[] map = new int[_labels.length];
+        n = 0;
+        for (int r = 0; r < include.length; r++) {
+            if (include[r]) {
+                map[r] = n;
+                order[n++] = r;
+            } else
+                map[r] = NONE;
+        }
+
+        FPArrayTree tree = createTree(_labels, _supports, order);
+
+        // nodes are created after their parents, so in node order every
+        // parent is mapped before its children; the nodes of excluded items
+        // collapse into their parent and the same-item nodes below them merge
+        int[] mapped = new int[_size];
+        mapped[ROOT] = ROOT;
+        for (int node = 1; node < _size; node++) {
+            int r = map[_rank[node]];
+            int parent = mapped[_parent[node]];
+            mapped[node] = (r == NONE) ? parent : tree.addToChild(parent, r, _count[node]);
+        }
+
+        tree.trimToSize();
+        return tree;
+    }
+
+    /**
+     * Returns the nodes of a tree that has a single path, from the top down.
+     */
+    public int[] getSinglePath() {
+        int len = 0;
+        for (int node = _firstChild[ROOT]; node != NONE; node = _firstChild[node])
+            len++;
+
+        int[] path = new int[len];
+        len = 0;
+        for (int node = _firstChild[ROOT]; node != NONE; node = _firstChild[node])
+            path[len++] = node;
+
+        return path;
+    }
+
+    public int getHeaderSize() {
+        return _labels.length;
+    }
+
+    public int getLabel(int rank) {
+        return _labels[rank];
+    }
+
+    public int getSupport(int rank) {
+        return _supports[rank];
+    }
+
+    /** Returns the first node holding the item of <code>rank</code>, or NONE. */
+    public int getFirstNode(int rank) {
+        return _heads[rank];
+    }
+
+    /** Returns the next node holding the same item as <code>node</code>, or NONE. */
+    public int getNextNode(int node) {
+        return _nodeLink[node];
+    }
+
+    public int getNumNodes() {
+        return _size;
+    }
+
+    public int getNumLeaves() {
+        return _leaves;
+    }
+
+    public boolean isRoot(int node) {
+        return node == ROOT;
+    }
+
+    public int getRank(int node) {
+        return _rank[node];
+    }
+
+    public int getNodeLabel(int node) {
+        return _labels[_rank[node]];
+    }
+
+    public int getCount(int node) {
+        return _count[node];
+    }
+
+    public int getParent(int node) {
+        return _parent[node];
+    }
+
+    public int getFirstChild(int node) {
+        return _firstChild[node];
+    }
+
+    public int getNextSibling(int node) {
+        return _nextSibling[node];
+    }
+
+    public int getNumChildren(int node) {
+        int n = 0;
+        for (int c = _firstChild[node]; c != NONE; c = _nextSibling[c])
+            n++;
+
+        return n;
+    }
+
+    /**
+     * Releases the unused capacity of the node arrays.
+     */
+    public void trimToSize() {
+        if (_rank.length != _size)
+            resize(_size);
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    private int addToChild(int parent, int rank, int count) {
+        int child;
+
+        if (parent == ROOT)
+            child = _rootChildren[rank];
+        else {
+            child = _firstChild[parent];
+            while (child != NONE && _rank[child] != rank)
+                child = _nextSibling[child];
+        }
+
+        if (child != NONE) {
+            _count[child] += count;
+            return child;
+        }
+
+        if (parent == ROOT || _firstChild[parent] != NONE)
+            _leaves++;
+
+        if (_size == _rank.length)
+            resize(_size + (_size >> 1) + 1);
+
+        child = _size++;
+        _rank[child] = rank;
+        _count[child] = count;
+        _parent[child] = parent;
+        _firstChild[child] = NONE;
+        _nextSibling[child] = _firstChild[parent];
+        _firstChild[parent] = child;
+        _nodeLink[child] = NONE;
+
+        if (_tails[rank] == NONE)
+            _heads[rank] = child;
+        else
+            _nodeLink[_tails[rank]] = child;
+        _tails[rank] = child;
+
+        if (parent == ROOT)
+            _rootChildren[rank] = child;
+
+        return child;
+    }
+
+    private void resize(int capacity) {
+        _rank = Arrays.copyOf(_rank, capacity);
+        _count = Arrays.copyOf(_count, capacity);
+        _parent = Arrays.copyOf(_parent, capacity);
+        _firstChild = Arrays.copyOf(_firstChild, capacity);
+        _nextSibling = Arrays.copyOf(_nextSibling, capacity);
+        _nodeLink = Arrays.copyOf(_nodeLink, capacity);
+    }
+}
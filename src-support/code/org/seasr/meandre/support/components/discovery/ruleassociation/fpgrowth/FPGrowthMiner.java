@@ -0,0 +1,389 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+//==============
+// Java Imports
+//==============
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The FPGrowth mining engine. Gets an <code>FPArrayTree</code> from an
+ * <code>FPProb</code> (filtering the tree attached to it, or building one
+ * from its table) and recursively mines the conditional trees projected
+ * from it.
+ *
+ * <p>All mining state lives on the call stack of a single <code>mine</code>
+ * call, so one miner (or several) can be used by concurrent runs in the same
+ * JVM. The conditional problems created from the top level tree are
+ * independent of each other and are mined on a pool of worker threads.</p>
+ *
+ * <p>Patterns are delivered to an <code>FPPatternSink</code> as they are found.
+ * The maximum pattern length is enforced while mining: no conditional tree is
+ * projected and no single path combination is enumerated that could only
+ * produce longer patterns.</p>
+ *
+ * @author D. Searsmith (original)
+ * @author Boris Capitanu
+ */
+public class FPGrowthMiner {
+
+    //==============
+    // Data Members
+    //==============
+
+    /** The number of worker threads used to mine the top level conditional problems. */
+    private final int _numThreads;
+
+    /** The maximum number of items in a pattern. */
+    private final int _maxLength;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * Creates a miner that uses all available processors.
+     */
+    public FPGrowthMiner() {
+        this(0);
+    }
+
+    /**
+     * Creates a miner that uses <code>numThreads</code> worker threads.
+     *
+     * @param numThreads The number of worker threads; 0 or less means use all
+     *                   available processors.
+     */
+    public FPGrowthMiner(int numThreads) {
+        this(numThreads, 0);
+    }
+
+    /**
+     * Creates a miner that uses <code>numThreads</code> worker threads and finds
+     * patterns of at most <code>maxLength</code> items.
+     *
+     * @param numThreads The number of worker threads; 0 or less means use all
+     *                   available processors.
+     * @param maxLength  The maximum number of items in a pattern; 0 or less
+     *                   means no limit.
+     */
+    public FPGrowthMiner(int numThreads, int maxLength) {
+        _numThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+        _maxLength = (maxLength > 0) ? maxLength : Integer.MAX_VALUE;
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    public int getNumThreads() {
+        return _numThreads;
+    }
+
+    public int getMaxLength() {
+        return _maxLength;
+    }
+
+    /**
+     * Mines all frequent patterns of <code>prob</code>.
+     *
+     * @param prob The problem to mine; its support is the minimum support count.
+     * @return The frequent patterns found, including the 1-item patterns, in
+     *         header table order regardless of the number of threads used.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional problem failed
+     */
+    public List<FPPattern> mine(FPProb prob) throws InterruptedException, ExecutionException {
+        return mine(prob.getTree(prob.getSupport()), prob.getAlpha(), prob.getSupport());
+    }
+
+    /**
+     * Mines all frequent patterns of <code>tree</code>.
+     *
+     * @param tree    The tree to mine
+     * @param alpha   The labels every pattern found is extended with
+     * @param support The minimum support count
+     * @return The frequent patterns found, including the 1-item patterns, in
+     *         header table order regardless of the number of threads used.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional tree failed
+     */
+    public List<FPPattern> mine(FPArrayTree tree, int[] alpha, int support)
+        throws InterruptedException, ExecutionException {
+
+        // give every top level conditional problem its own list so the
+        // patterns can be merged in header table order
+        FPPatternListSink[] sinks = new FPPatternListSink[tree.getHeaderSize()];
+        for (int a = 0; a < sinks.length; a++)
+            sinks[a] = new FPPatternListSink();
+
+        mine(tree, alpha, support, sinks);
+
+        List<FPPattern> patterns = new ArrayList<FPPattern>();
+        for (int a = sinks.length - 1; a >= 0; a--)
+            patterns.addAll(sinks[a].getPatterns());
+
+        return patterns;
+    }
+
+    /**
+     * Mines all frequent patterns of <code>prob</code> and delivers them to
+     * <code>sink</code>. When more than one thread is used the patterns arrive
+     * in no particular order.
+     *
+     * @param prob The problem to mine; its support is the minimum support count.
+     * @param sink The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional problem failed
+     */
+    public void mine(FPProb prob, FPPatternSink sink) throws InterruptedException, ExecutionException {
+        mine(prob.getTree(prob.getSupport()), prob.getAlpha(), prob.getSupport(), sink);
+    }
+
+    /**
+     * Mines all frequent patterns of <code>tree</code> and delivers them to
+     * <code>sink</code>. When more than one thread is used the patterns arrive
+     * in no particular order.
+     *
+     * @param tree    The tree to mine
+     * @param alpha   The labels every pattern found is extended with
+     * @param support The minimum support count
+     * @param sink    The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional tree failed
+     */
+    public void mine(FPArrayTree tree, int[] alpha, int support, FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        FPPatternSink[] sinks = new FPPatternSink[tree.getHeaderSize()];
+        Arrays.fill(sinks, sink);
+
+        mine(tree, alpha, support, sinks);
+    }
+
+    /**
+     * Mines the frequent patterns of <code>tree</code> that contain at least one
+     * item of rank <code>fromRank</code> or higher and delivers them to
+     * <code>sink</code>. Every such pattern is found in the conditional trees
+     * of those items, so the conditional trees of the items ranked before
+     * <code>fromRank</code> are not projected at all. Build the tree with the
+     * required items placed last (see <code>FPArrayTree.build</code>) to push
+     * an item constraint into the mining.
+     *
+     * @param tree     The tree to mine
+     * @param alpha    The labels every pattern found is extended with
+     * @param support  The minimum support count
+     * @param fromRank The rank of the first required item
+     * @param sink     The sink receiving the patterns, including the 1-item patterns.
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional tree failed
+     */
+    public void mine(FPArrayTree tree, int[] alpha, int support, int fromRank, FPPatternSink sink)
+        throws InterruptedException, ExecutionException {
+
+        FPPatternSink[] sinks = new FPPatternSink[tree.getHeaderSize()];
+        Arrays.fill(sinks, Math.max(fromRank, 0), sinks.length, sink);
+
+        mine(tree, alpha, support, sinks);
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Mines <code>tree</code>, delivering the patterns of the conditional
+     * problem of header entry <code>a</code> to <code>sinks[a]</code>; the
+     * header entries whose sink is null are skipped.
+     */
+    private void mine(final FPArrayTree tree, final int[] alpha, final int support, final FPPatternSink[] sinks)
+        throws InterruptedException, ExecutionException {
+
+        int numHeaders = tree.getHeaderSize();
+
+        if (tree.getNumLeaves() == 0 || alpha.length >= _maxLength) {
+            return;
+        }
+
+        if (tree.getNumLeaves() == 1 || _numThreads == 1) {
+            if (allSame(sinks) && sinks[0] != null) {
+                FPProcess(tree, alpha, support, sinks[0]);
+                return;
+            }
+
+            for (int a = numHeaders - 1; a >= 0; a--) {
+                if (sinks[a] != null)
+                    processHeader(tree, a, alpha, support, sinks[a]);
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(_numThreads, numHeaders));
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>(numHeaders);
+
+            for (int a = numHeaders - 1; a >= 0; a--) {
+                if (sinks[a] == null) continue;
+
+                final int rank = a;
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        processHeader(tree, rank, alpha, support, sinks[rank]);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Object> result : results)
+                result.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean allSame(FPPatternSink[] sinks) {
+        for (int i = 1; i < sinks.length; i++)
+            if (sinks[i] != sinks[0]) return false;
+
+        return true;
+    }
+
+    /**
+     * Discovers the frequent patterns of <code>tree</code> and delivers them to
+     * <code>sink</code>.
+     */
+    private void FPProcess(FPArrayTree tree, int[] alpha, int support, FPPatternSink sink) {
+
+        // If the tree is null, or alpha can not be extended any further, return
+        if (tree.getNumLeaves() == 0 || alpha.length >= _maxLength) {
+            return;
+        }
+
+        // If the tree has only one path, ouput all pattern combinations union
+        // alpha.
+        if (tree.getNumLeaves() == 1) {
+            combos(tree, tree.getSinglePath(), alpha, sink);
+            return;
+        }
+
+        // else, take each feature from header table (in reverse support order)
+        // and output that feature|union alpha as a pattern, project its
+        // conditional tree, and finally call FPProcess.
+        for (int a = tree.getHeaderSize() - 1; a >= 0; a--) {
+            processHeader(tree, a, alpha, support, sink);
+        }
+    }
+
+    /**
+     * Outputs the pattern <code>alpha</code> union the item of <code>rank</code>
+     * and mines the conditional tree of that item, if its patterns are not too long.
+     */
+    private void processHeader(FPArrayTree tree, int rank, int[] alpha, int support, FPPatternSink sink) {
+        int[] newalpha = new int[alpha.length + 1];
+        System.arraycopy(alpha, 0, newalpha, 0, alpha.length);
+        newalpha[newalpha.length - 1] = tree.getLabel(rank);
+
+        // add the entry in the table union alpha
+        sink.addPattern(newalpha, newalpha.length, tree.getSupport(rank));
+
+        if (newalpha.length < _maxLength) {
+            FPProcess(tree.project(rank, support), newalpha, support, sink);
+        }
+    }
+
+    /**
+     * Creates all available pattern combinations using the nodes in <code>
+     * path</code>, up to the maximum pattern length. e.g. if path is [A,B,C]
+     * then the patterns to be added are A, B, C, AB, BC, AC, ABC (order does
+     * not matter), each union alpha.
+     *
+     * @param tree  The tree the nodes belong to
+     * @param path  The nodes of a single path tree
+     * @param alpha Indices of columns in original table that take part in this
+     *              rule.
+     * @param sink  The sink the patterns are delivered to
+     */
+    private void combos(FPArrayTree tree, int[] path, int[] alpha, FPPatternSink sink) {
+        int maxLength = (int) Math.min((long) alpha.length + path.length, _maxLength);
+        if (maxLength <= alpha.length) {
+            return;
+        }
+
+        int[] items = Arrays.copyOf(alpha, maxLength);
+        combos(tree, path, 0, items, alpha.length, Integer.MAX_VALUE, sink);
+    }
+
+    /**
+     * Extends the pattern held in the first <code>len</code> entries of <code>
+     * items</code> with every node of <code>path</code> from <code>start</code>
+     * on, outputting and further extending each extension.
+     */
+    private void combos(FPArrayTree tree, int[] path, int start, int[] items, int len, int min, FPPatternSink sink) {
+        for (int i = start; i < path.length; i++) {
+            int nd = path[i];
+            int supp = Math.min(min, tree.getCount(nd));
+
+            items[len] = tree.getNodeLabel(nd);
+            sink.addPattern(items, len + 1, supp);
+
+            if (len + 1 < items.length) {
+                combos(tree, path, i + 1, items, len + 1, supp, sink);
+            }
+        }
+    }
+}
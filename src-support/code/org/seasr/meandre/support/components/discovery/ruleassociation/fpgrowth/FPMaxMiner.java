@@ -0,0 +1,207 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+//==============
+// Java Imports
+//==============
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The FPMax mining engine: finds the maximal frequent itemsets of an
+ * <code>FPProb</code>, the frequent itemsets that have no frequent superset.
+ *
+ * <p>The tree is mined like FPGrowth, taking the items of each header table
+ * from the least frequent one, but a conditional tree is only projected if
+ * the union of its head and of all the items frequent in its pattern base is
+ * not already a subset of a maximal itemset found so far, and a tree that has
+ * a single path yields just the one itemset made of the whole path. Mining in
+ * this order, an itemset found later is never a superset of one found
+ * earlier, so every itemset that passes the subset check is maximal and is
+ * delivered to the sink as soon as it is found.</p>
+ *
+ * <p>See &quot;Efficiently Using Prefix-trees in Mining Frequent Itemsets&quot;,
+ * Gosta Grahne and Jianfei Zhu, 2003.</p>
+ *
+ * <p>The subset checks depend on the itemsets found before, so a problem is
+ * mined on the calling thread. All mining state lives on the call stack of a
+ * single <code>mine</code> call.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class FPMaxMiner {
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Mines the maximal frequent itemsets of <code>prob</code>.
+     *
+     * @param prob The problem to mine; its support is the minimum support count,
+     *             and the items more frequent than its maximum support are left out.
+     * @return The maximal itemsets found, each one with its items in ascending order
+     */
+    public List<FPPattern> mine(FPProb prob) {
+        FPPatternListSink sink = new FPPatternListSink();
+        mine(prob, sink);
+
+        return sink.getPatterns();
+    }
+
+    /**
+     * Mines the maximal frequent itemsets of <code>prob</code> into <code>sink</code>.
+     *
+     * @param prob The problem to mine; its support is the minimum support count,
+     *             and the items more frequent than its maximum support are left out.
+     * @param sink Receives the maximal itemsets, each one with its items in ascending order
+     */
+    public void mine(FPProb prob, FPPatternSink sink) {
+        mine(getTree(prob), prob.getAlpha(), prob.getSupport(), sink);
+    }
+
+    /**
+     * Mines the maximal frequent itemsets of <code>tree</code> into <code>sink</code>.
+     *
+     * @param tree    The tree to mine
+     * @param alpha   The items that every itemset found is extended with
+     * @param support The minimum support count
+     * @param sink    Receives the maximal itemsets, each one with its items in ascending order
+     */
+    public void mine(FPArrayTree tree, int[] alpha, int support, FPPatternSink sink) {
+        if (tree.getNumLeaves() == 0) return;
+
+        FPMaxProcess(tree, alpha, support, new MaximalPatternIndex(), sink);
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Returns the tree of the items of <code>prob</code> whose support is
+     * between its support and its maximum support, filtered from the attached
+     * tree if there is one, otherwise built from the table.
+     */
+    private static FPArrayTree getTree(FPProb prob) {
+        int support = prob.getSupport();
+        int maxSupport = prob.getMaxSupport();
+
+        FPArrayTree tree = prob.getTree();
+        if (tree != null) {
+            boolean[] include = new boolean[tree.getHeaderSize()];
+            for (int r = 0; r < include.length; r++)
+                include[r] = (tree.getSupport(r) >= support) && (tree.getSupport(r) <= maxSupport);
+
+            return tree.filter(include);
+        }
+
+        FPSparse tab = prob.getTable();
+        boolean[] include = new boolean[tab.getNumColumns()];
+        for (int i = 0; i < include.length; i++) {
+            int coltot = tab.getColumnTots(i);
+            include[i] = (coltot > 0) && (coltot >= support) && (coltot <= maxSupport);
+        }
+
+        return FPArrayTree.build(tab, include);
+    }
+
+    private void FPMaxProcess(FPArrayTree tree, int[] alpha, int support,
+            MaximalPatternIndex maximal, FPPatternSink sink) {
+        int numHeaders = tree.getHeaderSize();
+        int[] items = Arrays.copyOf(alpha, alpha.length + numHeaders);
+
+        // If the tree has only one path, the path union alpha is the only
+        // candidate.
+        if (tree.getNumLeaves() == 1) {
+            int[] path = tree.getSinglePath();
+            int len = alpha.length;
+            for (int node : path)
+                items[len++] = tree.getNodeLabel(node);
+
+            addIfMaximal(items, len, tree.getCount(path[path.length - 1]), maximal, sink);
+            return;
+        }
+
+        // else, take each feature from header table (in reverse support order)
+        // and project its conditional tree, unless the feature|union alpha
+        // together with everything it could still be extended with is known
+        // not to be maximal.
+        for (int a = numHeaders - 1; a >= 0; a--) {
+            int[] counts = tree.getConditionalCounts(a);
+            boolean[] include = new boolean[a];
+
+            int len = alpha.length;
+            items[len++] = tree.getLabel(a);
+            int headLen = len;
+            for (int r = 0; r < a; r++) {
+                if (counts[r] >= support) {
+                    include[r] = true;
+                    items[len++] = tree.getLabel(r);
+                }
+            }
+
+            if (len == headLen) {
+                addIfMaximal(items, headLen, tree.getSupport(a), maximal, sink);
+                continue;
+            }
+
+            int[] tail = Arrays.copyOf(items, len);
+            Arrays.sort(tail);
+            if (maximal.isSubsumed(tail, len)) continue;
+
+            FPMaxProcess(tree.project(a, counts, include), Arrays.copyOf(items, headLen), support, maximal, sink);
+        }
+    }
+
+    private void addIfMaximal(int[] items, int len, int support, MaximalPatternIndex maximal, FPPatternSink sink) {
+        int[] sorted = Arrays.copyOf(items, len);
+        Arrays.sort(sorted);
+        if (maximal.isSubsumed(sorted, len)) return;
+
+        maximal.add(sorted);
+        sink.addPattern(sorted, len, support);
+    }
+}
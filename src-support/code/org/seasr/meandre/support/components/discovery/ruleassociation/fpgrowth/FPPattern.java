@@ -60,31 +60,33 @@ public class FPPattern implements java.io.Serializable {
     //==============
     private int _support = 0;
     private final TIntHashSet _patternElts = new TIntHashSet();
-    private static TIntObjectHashMap _eltMap = new TIntObjectHashMap();
+    private TIntObjectHashMap<String> _eltMap = null;
 
     /**
-     * put your documentation comment here
+     * Sets the mapping from pattern elements to their labels. The mapping is
+     * usually shared by all the patterns of one mining run.
+     * @param map
      */
-    public static void clearElementMapping () {
-        _eltMap.clear();
+    public void setElementMapping (TIntObjectHashMap<String> map) {
+        _eltMap = map;
     }
 
     /**
-     * put your documentation comment here
-     * @param k
-     * @param v
+     * Returns the mapping from pattern elements to their labels.
+     * @return
      */
-    public static void addElementMapping (int k, String v) {
-        _eltMap.put(k, v);
+    public TIntObjectHashMap<String> getElementMapping () {
+        return  _eltMap;
     }
 
     /**
-     * put your documentation comment here
+     * Returns the label of pattern element <code>i</code>, or null if no
+     * mapping was set for this pattern.
      * @param i
      * @return
      */
-    public static String getElementLabel (int i) {
-        return  (String)_eltMap.get(i);
+    public String getElementLabel (int i) {
+        return  (_eltMap != null) ? _eltMap.get(i) : null;
     }
 
     //================
@@ -145,6 +147,7 @@ public class FPPattern implements java.io.Serializable {
     public FPPattern copy () {
         FPPattern newpat = new FPPattern();
         newpat._support = this._support;
+        newpat._eltMap = this._eltMap;
         newpat._patternElts.addAll(_patternElts.toArray());
         return  newpat;
     }
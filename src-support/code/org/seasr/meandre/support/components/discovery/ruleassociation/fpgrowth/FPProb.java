@@ -46,6 +46,8 @@ package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
 // Java Imports
 //==============
 
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 import java.io.Serializable;
 
 public class FPProb implements Serializable {
@@ -66,6 +68,8 @@ public class FPProb implements Serializable {
     //============
 
     private int _condsupp = 0;
+    private TIntObjectHashMap<String> _eltMap = null;
+    private FPArrayTree _tree = null;
 
     //================
     // Constructor(s)
@@ -112,4 +116,39 @@ public class FPProb implements Serializable {
     public FPSparse getTable () {
         return  _tab;
     }
+
+    public void setElementMapping (TIntObjectHashMap<String> map) {
+        _eltMap = map;
+    }
+
+    public TIntObjectHashMap<String> getElementMapping () {
+        return  _eltMap;
+    }
+
+    /**
+     * Attaches the FP-tree of all the items of the table, so the components
+     * downstream can filter it instead of building it again.
+     * @param tree
+     */
+    public void setTree (FPArrayTree tree) {
+        _tree = tree;
+    }
+
+    /**
+     * Returns the FP-tree of all the items of the table, or null if it has not been built.
+     * @return
+     */
+    public FPArrayTree getTree () {
+        return  _tree;
+    }
+
+    /**
+     * Returns the FP-tree of the items that meet <code>support</code>, filtered
+     * from the attached tree if there is one, otherwise built from the table.
+     * @param support
+     * @return
+     */
+    public FPArrayTree getTree (int support) {
+        return  (_tree != null) ? _tree.filter(support) : FPArrayTree.build(_tab, support);
+    }
 }
@@ -46,6 +46,8 @@ import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.set.hash.TIntHashSet;
 
+import java.util.Arrays;
+
 
 
 public class FPSparse implements java.io.Serializable {
@@ -124,6 +126,12 @@ public class FPSparse implements java.io.Serializable {
         return  _columns[col];
     }
 
+    public int[] getRows () {
+        int[] rows = _rows.keys();
+        Arrays.sort(rows);
+        return rows;
+    }
+
     public int[] getRowIndices (int row) {
         return  (_rows.get(row)).keys();
     }
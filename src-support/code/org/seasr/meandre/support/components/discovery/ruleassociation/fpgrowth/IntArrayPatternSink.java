@@ -0,0 +1,128 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A pattern sink that collects the patterns in the format used by the
+ * <i>Compute Confidence</i> component: one <code>int[]</code> per pattern holding
+ * its items followed by its support.
+ *
+ * <p>A miner that uses several threads delivers the patterns in an order that
+ * changes from run to run, so {@link #toArray()} sorts them: by length, then
+ * item by item. The result does not depend on the number of threads.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class IntArrayPatternSink implements FPPatternSink {
+
+    /**
+     * Orders patterns by length, then item by item; the support, last, only
+     * breaks ties between equal item lists.
+     */
+    static final Comparator<int[]> PATTERN_ORDER = new Comparator<int[]>() {
+        public int compare(int[] p1, int[] p2) {
+            if (p1.length != p2.length)
+                return (p1.length < p2.length) ? -1 : 1;
+
+            for (int i = 0; i < p1.length; i++)
+                if (p1[i] != p2[i])
+                    return (p1[i] < p2[i]) ? -1 : 1;
+
+            return 0;
+        }
+    };
+
+    private final int _minLength;
+    private final List<int[]> _patterns = new ArrayList<int[]>();
+    private int _numPatterns = 0;
+    private boolean _sorted = true;
+
+    public IntArrayPatternSink() {
+        this(1);
+    }
+
+    /**
+     * @param minLength Patterns with fewer items than this are counted but not kept
+     */
+    public IntArrayPatternSink(int minLength) {
+        _minLength = minLength;
+    }
+
+    public synchronized void addPattern(int[] items, int len, int support) {
+        _numPatterns++;
+        if (len < _minLength) return;
+
+        int[] pattern = Arrays.copyOf(items, len + 1);
+        pattern[len] = support;
+        _patterns.add(pattern);
+        _sorted = false;
+    }
+
+    /**
+     * @return The number of patterns received, including the ones that were too short to keep
+     */
+    public synchronized int getNumPatterns() {
+        return _numPatterns;
+    }
+
+    /**
+     * @return The patterns kept, each one its items followed by its support,
+     *         ordered by length and then item by item
+     */
+    public synchronized int[][] toArray() {
+        int[][] patterns = _patterns.toArray(new int[_patterns.size()][]);
+        if (!_sorted) {
+            Arrays.sort(patterns, PATTERN_ORDER);
+            _patterns.clear();
+            _patterns.addAll(Arrays.asList(patterns));
+            _sorted = true;
+        }
+
+        return patterns;
+    }
+}
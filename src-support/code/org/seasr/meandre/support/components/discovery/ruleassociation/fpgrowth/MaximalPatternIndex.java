@@ -0,0 +1,127 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayList;
+
+/**
+ * An index of maximal itemsets that answers whether an itemset is a subset
+ * of an indexed itemset.
+ *
+ * <p>Itemsets are kept as sorted <code>int[]</code>. For every item the index
+ * keeps the itemsets containing it, so a query only has to test containment
+ * against the shortest of the lists of its items.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class MaximalPatternIndex {
+
+    private final ArrayList<int[]> _patterns = new ArrayList<int[]>();
+    private final TIntObjectHashMap<TIntArrayList> _buckets = new TIntObjectHashMap<TIntArrayList>();
+
+    /**
+     * Adds an itemset to the index.
+     *
+     * @param items The items, in ascending order; the array is kept by the index
+     */
+    public void add(int[] items) {
+        int id = _patterns.size();
+        _patterns.add(items);
+
+        for (int item : items) {
+            TIntArrayList bucket = _buckets.get(item);
+            if (bucket == null) {
+                bucket = new TIntArrayList(4);
+                _buckets.put(item, bucket);
+            }
+            bucket.add(id);
+        }
+    }
+
+    /**
+     * Tests whether an itemset is a subset of an indexed itemset.
+     *
+     * @param items The items, in ascending order
+     * @param len   The number of items to use from <code>items</code>
+     * @return True if the itemset is subsumed; the empty itemset is subsumed
+     *         as soon as the index holds any itemset
+     */
+    public boolean isSubsumed(int[] items, int len) {
+        if (len == 0) return !_patterns.isEmpty();
+
+        TIntArrayList candidates = null;
+        for (int i = 0; i < len; i++) {
+            TIntArrayList bucket = _buckets.get(items[i]);
+            if (bucket == null) return false;
+            if (candidates == null || bucket.size() < candidates.size())
+                candidates = bucket;
+        }
+
+        for (int c = 0, n = candidates.size(); c < n; c++) {
+            int[] pattern = _patterns.get(candidates.get(c));
+            if (pattern.length >= len && containsAll(pattern, items, len))
+                return true;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return _patterns.size();
+    }
+
+    private static boolean containsAll(int[] pattern, int[] items, int len) {
+        int p = 0;
+        for (int i = 0; i < len; i++) {
+            int item = items[i];
+            while (p < pattern.length && pattern[p] < item) p++;
+            if (p == pattern.length || pattern[p] != item) return false;
+            p++;
+        }
+
+        return true;
+    }
+}
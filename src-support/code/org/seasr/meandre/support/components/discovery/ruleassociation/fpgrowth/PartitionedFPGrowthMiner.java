@@ -0,0 +1,402 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+//==============
+// Java Imports
+//==============
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An FPGrowth miner for transactions that do not fit in memory. The
+ * transactions are written to partition files on disk, and the partitions are
+ * mined one at a time, each from an FP-tree of its own; the patterns found are
+ * the same as those of an <code>FPGrowthMiner</code> run over all the
+ * transactions.
+ *
+ * <p>The frequent items are ranked by decreasing support and split into
+ * ranges of consecutive ranks, one per partition. A transaction is written to
+ * the partition of its lowest ranked (least frequent) item. The partitions are
+ * mined from the last to the first; partition <i>p</i> yields the patterns
+ * whose lowest ranked item falls in its range, by mining only the conditional
+ * trees of those items. While it is read, each of its transactions is
+ * projected onto the items ranked before the range and passed on to the
+ * partition of its new lowest ranked item, so every transaction reaches each
+ * partition it has items in exactly once.</p>
+ *
+ * <p>Only one partition tree is in memory at a time, and it holds only the
+ * transactions that contain an item of the partition. The transactions are
+ * given to the miner one at a time (see <code>add</code>) after the item
+ * supports are known (see <code>begin</code>), so the caller reads its data
+ * twice but never holds it.</p>
+ *
+ * <p>References: &quot;Mining Frequent Patterns without Candidate Generation:
+ * A Frequent-Pattern Tree Approach&quot;, Jiawei Han, Jian Pei, Yiwen Yin and
+ * Runying Mao, 2004 (section on disk-based projection).</p>
+ *
+ * @author Boris Capitanu
+ */
+public class PartitionedFPGrowthMiner {
+
+    //==============
+    // Data Members
+    //==============
+
+    private final FPGrowthMiner _miner;
+
+    /** The number of partitions to create. */
+    private final int _numPartitions;
+
+    /** The directory of the partition files; null for the default temporary directory. */
+    private final File _workDir;
+
+    /** The minimum support count of the run. */
+    private int _support;
+
+    /** The rank of each item, or -1 for the infrequent items. */
+    private int[] _itemRank;
+
+    /** The item of each rank. */
+    private int[] _rankItem;
+
+    /** The first rank of each partition, followed by the number of ranks. */
+    private int[] _start;
+
+    /** The partition of each rank. */
+    private int[] _partition;
+
+    private File[] _files;
+    private DataOutputStream[] _out;
+
+    /** Scratch space for the ranks of the transaction being added. */
+    private int[] _ranks;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * @param numThreads    The number of worker threads mining each partition;
+     *                      0 or less means use all available processors.
+     * @param maxLength     The maximum number of items in a pattern; 0 or less
+     *                      means no limit.
+     * @param numPartitions The number of partitions to split the transactions in
+     * @param workDir       The directory of the partition files; null for the
+     *                      default temporary directory
+     */
+    public PartitionedFPGrowthMiner(int numThreads, int maxLength, int numPartitions, File workDir) {
+        _miner = new FPGrowthMiner(numThreads, maxLength);
+        _numPartitions = Math.max(1, numPartitions);
+        _workDir = workDir;
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Starts a run: ranks the items that meet <code>support</code> and creates
+     * the partition files.
+     *
+     * @param counts  The number of transactions that contain each item
+     * @param support The minimum support count
+     * @throws IOException If a partition file could not be created
+     */
+    public void begin(int[] counts, int support) throws IOException {
+        dispose();
+        _support = Math.max(1, support);
+
+        int numFrequent = 0;
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] >= _support) numFrequent++;
+
+        // rank the frequent items by decreasing count, ties by increasing item
+        Integer[] order = new Integer[numFrequent];
+        numFrequent = 0;
+        for (int i = 0; i < counts.length; i++)
+            if (counts[i] >= _support) order[numFrequent++] = i;
+
+        final int[] itemCounts = counts;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                if (itemCounts[a] != itemCounts[b]) return itemCounts[b] - itemCounts[a];
+                return a - b;
+            }
+        });
+
+        _itemRank = new int[counts.length];
+        Arrays.fill(_itemRank, FPArrayTree.NONE);
+        _rankItem = new int[numFrequent];
+        long total = 0;
+        for (int r = 0; r < numFrequent; r++) {
+            _rankItem[r] = order[r];
+            _itemRank[order[r]] = r;
+            total += counts[order[r]];
+        }
+
+        // split the ranks so the partitions get about the same number of item
+        // occurrences
+        int numPartitions = Math.max(1, Math.min(_numPartitions, numFrequent));
+        _start = new int[numPartitions + 1];
+        _partition = new int[numFrequent];
+        long sum = 0;
+        int p = 0;
+        for (int r = 0; r < numFrequent; r++) {
+            if (p < numPartitions - 1 && r > _start[p] && sum * numPartitions >= total * (p + 1))
+                _start[++p] = r;
+            _partition[r] = p;
+            sum += counts[_rankItem[r]];
+        }
+        numPartitions = p + 1;
+        _start = Arrays.copyOf(_start, numPartitions + 1);
+        _start[numPartitions] = numFrequent;
+
+        _files = new File[numPartitions];
+        _out = new DataOutputStream[numPartitions];
+        for (p = 0; p < numPartitions; p++) {
+            _files[p] = File.createTempFile("fpgrowth-" + p + "-", ".part", _workDir);
+            _files[p].deleteOnExit();
+            _out[p] = openOutput(_files[p]);
+        }
+
+        _ranks = new int[numFrequent];
+    }
+
+    /**
+     * Adds a transaction. The items that do not meet the support are dropped.
+     *
+     * @param items The items of the transaction, in any order and without duplicates
+     * @param len   The number of entries of <code>items</code> to use
+     * @throws IOException If the partition file could not be written
+     */
+    public void add(int[] items, int len) throws IOException {
+        int n = 0;
+        for (int i = 0; i < len; i++) {
+            int rank = _itemRank[items[i]];
+            if (rank != FPArrayTree.NONE)
+                _ranks[n++] = rank;
+        }
+
+        if (n == 0) return;
+
+        Arrays.sort(_ranks, 0, n);
+        write(_out[_partition[_ranks[n - 1]]], _ranks, n);
+    }
+
+    /**
+     * Mines the partitions, last to first, and delivers the patterns to
+     * <code>sink</code>. The partition files are deleted as they are mined.
+     *
+     * @param sink The sink receiving the patterns, including the 1-item patterns.
+     * @throws IOException If a partition file could not be read or written
+     * @throws InterruptedException if the calling thread was interrupted while
+     *                              waiting for the worker threads
+     * @throws ExecutionException if mining a conditional tree failed
+     */
+    public void mine(FPPatternSink sink) throws IOException, InterruptedException, ExecutionException {
+        try {
+            for (int p = _files.length - 1; p >= 0; p--)
+                minePartition(p, sink);
+        }
+        finally {
+            dispose();
+        }
+    }
+
+    /**
+     * Closes and deletes the partition files of the current run.
+     */
+    public void dispose() {
+        if (_files == null) return;
+
+        for (int p = 0; p < _files.length; p++) {
+            if (_out[p] != null) {
+                try {
+                    _out[p].close();
+                }
+                catch (IOException e) {
+                    // the file is deleted anyway
+                }
+                _out[p] = null;
+            }
+            _files[p].delete();
+        }
+
+        _files = null;
+        _out = null;
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    private void minePartition(int p, FPPatternSink sink)
+        throws IOException, InterruptedException, ExecutionException {
+
+        int lo = _start[p];
+        int hi = _start[p + 1];
+
+        _out[p].close();
+        _out[p] = null;
+
+        // count the items of the partition
+        int[] counts = new int[hi];
+        DataInputStream in = openInput(_files[p]);
+        try {
+            int len;
+            while ((len = read(in, _ranks)) >= 0)
+                for (int i = 0; i < len; i++)
+                    counts[_ranks[i]]++;
+        }
+        finally {
+            in.close();
+        }
+
+        // the tree holds the items that meet the support, those of the
+        // partition last, so only their conditional trees are mined
+        int[] labels = new int[hi];
+        boolean[] include = new boolean[hi];
+        boolean[] last = new boolean[hi];
+        int fromRank = 0;
+        boolean mined = false;
+        for (int r = 0; r < hi; r++) {
+            labels[r] = _rankItem[r];
+            include[r] = counts[r] >= _support;
+            last[r] = r >= lo;
+            if (include[r] && !last[r]) fromRank++;
+            if (include[r] && last[r]) mined = true;
+        }
+
+        FPArrayTree tree = mined ? FPArrayTree.create(labels, counts, include, last) : null;
+        int[] treeRank = new int[hi];
+        Arrays.fill(treeRank, FPArrayTree.NONE);
+        if (mined)
+            for (int t = 0; t < tree.getHeaderSize(); t++)
+                treeRank[_itemRank[tree.getLabel(t)]] = t;
+
+        // build the tree from the transactions that contain an item of the
+        // partition, and pass the projection of every transaction on the
+        // items before the partition on to the partition of its last item
+        int[] path = new int[hi];
+        in = openInput(_files[p]);
+        try {
+            int len;
+            while ((len = read(in, _ranks)) >= 0) {
+                int prefix = 0;
+                while (prefix < len && _ranks[prefix] < lo)
+                    prefix++;
+                if (prefix > 0)
+                    write(_out[_partition[_ranks[prefix - 1]]], _ranks, prefix);
+
+                if (!mined) continue;
+
+                int n = 0;
+                boolean required = false;
+                for (int i = 0; i < len; i++) {
+                    int t = treeRank[_ranks[i]];
+                    if (t == FPArrayTree.NONE) continue;
+                    path[n++] = t;
+                    required |= t >= fromRank;
+                }
+
+                if (required) {
+                    Arrays.sort(path, 0, n);
+                    tree.insert(path, n, 1);
+                }
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        _files[p].delete();
+
+        if (mined) {
+            tree.trimToSize();
+            _miner.mine(tree, new int[0], _support, fromRank, sink);
+        }
+    }
+
+    private static DataOutputStream openOutput(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+    }
+
+    private static DataInputStream openInput(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+    }
+
+    /** Writes a transaction as its number of items followed by the items, all as 4-byte ints. */
+    private static void write(DataOutputStream out, int[] ranks, int len) throws IOException {
+        out.writeInt(len);
+        for (int i = 0; i < len; i++)
+            out.writeInt(ranks[i]);
+    }
+
+    /** Reads a transaction into <code>ranks</code>; returns its length, or -1 at the end of the file. */
+    private static int read(DataInputStream in, int[] ranks) throws IOException {
+        int len;
+        try {
+            len = in.readInt();
+        }
+        catch (EOFException e) {
+            return -1;
+        }
+
+        for (int i = 0; i < len; i++)
+            ranks[i] = in.readInt();
+
+        return len;
+    }
+}
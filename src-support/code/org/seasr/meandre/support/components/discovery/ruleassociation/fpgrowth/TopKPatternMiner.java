@@ -0,0 +1,259 @@
+/**
+ * University of Illinois/NCSA
+ * Open Source License
+ *
+ * Copyright (c) 2008, Board of Trustees-University of Illinois.
+ * All rights reserved.
+ *
+ * Developed by:
+ *
+ * Automated Learning Group
+ * National Center for Supercomputing Applications
+ * http://www.seasr.org
+ *
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal with the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ *  * Redistributions of source code must retain the above copyright notice,
+ *    this list of conditions and the following disclaimers.
+ *
+ *  * Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimers in the
+ *    documentation and/or other materials provided with the distribution.
+ *
+ *  * Neither the names of Automated Learning Group, The National Center for
+ *    Supercomputing Applications, or University of Illinois, nor the names of
+ *    its contributors may be used to endorse or promote products derived from
+ *    this Software without specific prior written permission.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+ * CONTRIBUTORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * WITH THE SOFTWARE.
+ */
+
+package org.seasr.meandre.support.components.discovery.ruleassociation.fpgrowth;
+
+//==============
+// Java Imports
+//==============
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the <i>k</i> most frequent itemsets with at least a given number of
+ * items, without a minimum support. The FP-tree is mined like FPGrowth, but
+ * the support a conditional tree is projected with rises as patterns are
+ * found: once <i>k</i> patterns are known, a pattern less frequent than the
+ * least frequent of them cannot be in the result, and neither can any of its
+ * supersets.
+ *
+ * <p>Two things raise the support early. Before mining, each node of the tree
+ * at depth <i>minLength</i> or more stands for a distinct itemset (the items on
+ * its path from the root) at least as frequent as the node count, so the
+ * <i>k</i>-th largest of those counts is a lower bound on the support of the
+ * result; the items below it are filtered from the tree. And the items are
+ * mined from the most frequent one down, so the frequent patterns are found
+ * first.</p>
+ *
+ * <p>See &quot;TFP: An Efficient Algorithm for Mining Top-K Frequent Closed
+ * Itemsets&quot;, Jianyong Wang, Jiawei Han, Ying Lu and Petre Tzvetkov,
+ * 2005.</p>
+ *
+ * <p>The rising support is shared by the whole search, so a tree is mined on
+ * the calling thread. All mining state lives on the call stack of a single
+ * <code>mine</code> call.</p>
+ *
+ * @author Boris Capitanu
+ */
+public class TopKPatternMiner {
+
+    //==============
+    // Data Members
+    //==============
+
+    /** The number of patterns to find. */
+    private final int _k;
+
+    /** The minimum number of items in a pattern. */
+    private final int _minLength;
+
+    //================
+    // Constructor(s)
+    //================
+
+    /**
+     * @param k         The number of patterns to find
+     * @param minLength The minimum number of items in a pattern
+     */
+    public TopKPatternMiner(int k, int minLength) {
+        _k = Math.max(1, k);
+        _minLength = Math.max(1, minLength);
+    }
+
+    //================
+    // Public Methods
+    //================
+
+    /**
+     * Mines the most frequent patterns of the rows of <code>tab</code>.
+     *
+     * @see #mine(FPArrayTree)
+     */
+    public int[][] mine(FPSparse tab) {
+        return mine(FPArrayTree.build(tab, 1));
+    }
+
+    /**
+     * Mines the most frequent patterns of <code>tree</code>.
+     *
+     * @param tree The tree of all the items that may appear in a pattern
+     * @return The <i>k</i> most frequent patterns, each one its items in
+     *         ascending order followed by its support, by decreasing support.
+     *         The patterns as frequent as the <i>k</i>-th are all included, so
+     *         there can be more than <i>k</i>; there are fewer only if the tree
+     *         has fewer patterns of the minimum length. The support of the
+     *         last pattern is the support the search ended with.
+     */
+    public int[][] mine(FPArrayTree tree) {
+        TopK top = new TopK(_k, getInitialSupport(tree));
+
+        FPArrayTree filtered = tree.filter(top.support);
+        if (filtered.getNumLeaves() > 0)
+            process(filtered, new int[0], top);
+
+        int[][] patterns = top.heap.toArray(new int[top.heap.size()][]);
+        Arrays.sort(patterns, new Comparator<int[]>() {
+            public int compare(int[] a, int[] b) {
+                int sa = a[a.length - 1];
+                int sb = b[b.length - 1];
+                if (sa != sb) return (sa > sb) ? -1 : 1;
+                for (int i = 0; i < Math.min(a.length, b.length) - 1; i++)
+                    if (a[i] != b[i]) return (a[i] < b[i]) ? -1 : 1;
+                return a.length - b.length;
+            }
+        });
+
+        return patterns;
+    }
+
+    //=================
+    // Private Methods
+    //=================
+
+    /**
+     * Returns the <i>k</i>-th largest count of the nodes at depth
+     * <code>_minLength</code> or more, or 1 if there are fewer such nodes.
+     */
+    private int getInitialSupport(FPArrayTree tree) {
+        int numNodes = tree.getNumNodes();
+        int[] depth = new int[numNodes];
+
+        // the largest k counts, in a min-heap
+        PriorityQueue<Integer> counts = new PriorityQueue<Integer>(_k + 1);
+
+        // a node always comes after its parent
+        for (int node = 1; node < numNodes; node++) {
+            depth[node] = depth[tree.getParent(node)] + 1;
+            if (depth[node] < _minLength) continue;
+
+            int count = tree.getCount(node);
+            if (counts.size() < _k)
+                counts.add(count);
+            else if (count > counts.peek()) {
+                counts.poll();
+                counts.add(count);
+            }
+        }
+
+        return (counts.size() < _k) ? 1 : counts.peek();
+    }
+
+    /**
+     * Finds the patterns of <code>tree</code>, each extending <code>alpha</code>.
+     */
+    private void process(FPArrayTree tree, int[] alpha, TopK top) {
+        int[] pattern = Arrays.copyOf(alpha, alpha.length + 1);
+
+        for (int a = 0; a < tree.getHeaderSize(); a++) {
+            int support = tree.getSupport(a);
+            if (support < top.support) continue;
+
+            pattern[alpha.length] = tree.getLabel(a);
+            if (pattern.length >= _minLength)
+                top.offer(pattern, support);
+
+            // the support may have risen with the pattern just offered
+            if (a == 0 || support < top.support) continue;
+
+            FPArrayTree conditional = tree.project(a, top.support);
+            if (conditional.getNumLeaves() > 0)
+                process(conditional, pattern, top);
+        }
+    }
+
+    /**
+     * The most frequent patterns found so far, and the support a pattern needs
+     * to be among them.
+     */
+    private static class TopK {
+
+        private final int k;
+
+        /** The patterns, least frequent first; the ties of the least frequent are all kept. */
+        final PriorityQueue<int[]> heap;
+
+        /** The number of patterns of each support in the heap. */
+        private final TIntIntHashMap numWithSupport = new TIntIntHashMap();
+
+        int support;
+
+        TopK(int k, int support) {
+            this.k = k;
+            this.support = Math.max(1, support);
+            this.heap = new PriorityQueue<int[]>(k + 1, new Comparator<int[]>() {
+                public int compare(int[] a, int[] b) {
+                    int sa = a[a.length - 1];
+                    int sb = b[b.length - 1];
+                    return (sa < sb) ? -1 : ((sa == sb) ? 0 : 1);
+                }
+            });
+        }
+
+        void offer(int[] items, int patternSupport) {
+            if (patternSupport < support) return;
+
+            int[] pattern = Arrays.copyOf(items, items.length + 1);
+            Arrays.sort(pattern, 0, items.length);
+            pattern[items.length] = patternSupport;
+            heap.add(pattern);
+            numWithSupport.adjustOrPutValue(patternSupport, 1, 1);
+
+            // drop the least frequent patterns while k remain without them
+            while (true) {
+                int least = heap.peek()[heap.peek().length - 1];
+                int numLeast = numWithSupport.get(least);
+                if (heap.size() - numLeast < k) break;
+
+                for (int i = 0; i < numLeast; i++)
+                    heap.poll();
+                numWithSupport.remove(least);
+            }
+
+            if (heap.size() >= k)
+                support = Math.max(support, heap.peek()[heap.peek().length - 1]);
+        }
+    }
+}
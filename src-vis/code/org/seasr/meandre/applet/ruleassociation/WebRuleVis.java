@@ -44,6 +44,7 @@ package org.seasr.meandre.applet.ruleassociation;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.concurrent.Semaphore;
 
 import javax.servlet.http.HttpServletRequest;
@@ -63,6 +64,8 @@ import org.meandre.core.ComponentExecutionException;
 import org.meandre.webui.WebUIException;
 import org.meandre.webui.WebUIFragmentCallback;
 import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RuleAssociationCodec;
+import org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable;
 
 /**
  * <p>Title: Communication Module</p>
@@ -132,11 +135,14 @@ import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
            "in opening the visualization when a large number of cells are involved. "  +
            "Also, as the number of cells increases beyond " +
            "a certain point, it is difficult to gain insights from the display.  Advanced features to help " +
-           "in these cases are being discussed for a future release.",
+           "in these cases are being discussed for a future release. " +
+           "A Rule Table given directly as input is sent to the applet in a compact protobuf " +
+           "encoding, which is much smaller and faster to load than the PMML document.",
            name="WebRuleVis",
            tags="rule association, frequent pattern mining, visualization",
            mode=Mode.webui,
-           dependency={"icons.jar","foundry-datatype-datamining.jar", "foundry-datatype-core.jar", "jaxen-1.1.3.jar"},
+           dependency={"icons.jar","foundry-datatype-datamining.jar", "foundry-datatype-core.jar", "jaxen-1.1.3.jar",
+                       "protobuf-java-2.2.0.jar"},
            baseURL="meandre://seasr.org/components/data-mining/")
 
 @ComponentNatures( natures={
@@ -145,7 +151,8 @@ import org.seasr.meandre.components.abstracts.AbstractExecutableComponent;
 )})
 
 public class WebRuleVis extends AbstractExecutableComponent implements WebUIFragmentCallback {
-    @ComponentInput(description="Read org.dom4j.Document converted from a representation of associatoion rule to be displayed.",
+    @ComponentInput(description="Read org.dom4j.Document converted from a representation of associatoion rule to be displayed, " +
+                    "or the org.seasr.meandre.support.components.discovery.ruleassociation.RuleTable itself.",
                     name= "document")
     final static String IN_DOC = "document";
 
@@ -163,7 +170,7 @@ public class WebRuleVis extends AbstractExecutableComponent implements WebUIFrag
 
     private boolean verbose = true;
 
-    //private RuleTable ruleTable;
+    private RuleTable ruleTable;
 
     private Document document;
 
@@ -210,11 +217,12 @@ public class WebRuleVis extends AbstractExecutableComponent implements WebUIFrag
         sb.append("<body> ");
         sb.append("<p ALIGN='center'> ");
         sb.append("<APPLET ");
-        sb.append("ARCHIVE='org.seasr.meandre.applet.ruleassociation.webrulevisapplet.jar, foundry-datatype-datamining.jar, foundry-datatype-core.jar, dom4j-1.6.1.jar, jaxen-1.1.3.jar, trove-2.0.3.jar, icons.jar' WIDTH='800' HEIGHT='600' ");
+        sb.append("ARCHIVE='org.seasr.meandre.applet.ruleassociation.webrulevisapplet.jar, foundry-datatype-datamining.jar, foundry-datatype-core.jar, dom4j-1.6.1.jar, jaxen-1.1.3.jar, trove-2.0.3.jar, icons.jar, protobuf-java-2.2.0.jar' WIDTH='800' HEIGHT='600' ");
 
         sb.append("CODEBASE='" + webUIUrl + "public/resources/contexts/java/' ");
         sb.append("CODE='org.seasr.meandre.applet.ruleassociation.WebRuleVisApplet.class'> ");
         sb.append("<PARAM name='servletURL' value='" + webUIUrl).append(sInstanceID).append("'> ");
+        sb.append("<PARAM name='format' value='").append(ruleTable != null ? "protobuf" : "pmml").append("'> ");
         sb.append("</APPLET> ");
         sb.append("</p> ");
         sb.append("<br/><br/> ");
@@ -243,11 +251,17 @@ public class WebRuleVis extends AbstractExecutableComponent implements WebUIFrag
             sem.release();
         else if (theApplet != null)
             try {
-                ObjectOutputStream out = new ObjectOutputStream(response.getOutputStream());
-                //out.writeObject(ruleTable);
-                out.writeObject(document);
-                out.flush();
-                out.close();
+                if (ruleTable != null) {
+                    response.setContentType("application/octet-stream");
+                    OutputStream out = response.getOutputStream();
+                    RuleAssociationCodec.writeRuleTable(ruleTable, out);
+                    out.close();
+                } else {
+                    ObjectOutputStream out = new ObjectOutputStream(response.getOutputStream());
+                    out.writeObject(document);
+                    out.flush();
+                    out.close();
+                }
             } catch (Exception ex) {
                 throw new WebUIException(ex);
             }
@@ -265,8 +279,13 @@ public class WebRuleVis extends AbstractExecutableComponent implements WebUIFrag
 	public void executeCallBack(ComponentContext cc) throws Exception {
         Object theOb = cc.getDataComponentFromInput(IN_DOC);
 
-        //ruleTable = (RuleTable) theOb;
-        document = (Document)theOb;
+        if (theOb instanceof RuleTable) {
+            ruleTable = (RuleTable) theOb;
+            document = null;
+        } else {
+            ruleTable = null;
+            document = (Document) theOb;
+        }
 
         sInstanceID = cc.getExecutionInstanceID();
         webUIUrl = cc.getWebUIUrl(true).toString();
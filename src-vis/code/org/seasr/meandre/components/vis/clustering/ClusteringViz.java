@@ -361,7 +361,7 @@ public class ClusteringViz extends AbstractExecutableComponent {
 				}
 				theDist = Math.sqrt(theDist);
 				maxDist[k] = (theDist>maxDist[k])? theDist: maxDist[k];
-				dist[lc.getMemberIndices()[0]] = theDist;
+				dist[lc.getMembers().get(0)] = theDist;
 			} else
 				traverse(lc, k);
 		}
@@ -375,7 +375,7 @@ public class ClusteringViz extends AbstractExecutableComponent {
 				}
 				theDist = Math.sqrt(theDist);
 				maxDist[k] = (theDist>maxDist[k])? theDist: maxDist[k];
-				dist[rc.getMemberIndices()[0]] = theDist;
+				dist[rc.getMembers().get(0)] = theDist;
 			} else
 				traverse(rc, k);
 		}
@@ -392,7 +392,7 @@ public class ClusteringViz extends AbstractExecutableComponent {
 
 		if(lc != null) {
 			if (lc.isLeaf()) {
-				int pos = lc.getMemberIndices()[0];
+				int pos = lc.getMembers().get(0);
 				float colorValue = (float)(dist[pos]/max);
 				red[pos]   = (rgb[colorIndex][0])? 255f: colorValue;
 				green[pos] = (rgb[colorIndex][1])? 255f: colorValue;
@@ -403,7 +403,7 @@ public class ClusteringViz extends AbstractExecutableComponent {
 
 		if(rc != null) {
 			if (rc.isLeaf()) {
-				int pos = rc.getMemberIndices()[0];
+				int pos = rc.getMembers().get(0);
 				float colorValue = (float)(dist[pos]/max);
 				red[pos]   = (rgb[colorIndex][0])? 255f: colorValue;
 				green[pos] = (rgb[colorIndex][1])? 255f: colorValue;
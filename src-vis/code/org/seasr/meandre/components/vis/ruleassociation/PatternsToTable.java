@@ -88,7 +88,7 @@ public class PatternsToTable extends AbstractExecutableComponent {
             ArrayList<String> patternList = new ArrayList<String>();
             for (TIntIterator it = fpPattern.getPattern(); it.hasNext(); ) {
                 int fte = it.next();
-                patternList.add(FPPattern.getElementLabel(fte));
+                patternList.add(fpPattern.getElementLabel(fte));
             }
 
             Collections.sort(patternList);